@@ -10,6 +10,10 @@ public class LongEvent {
         this.value = value;
     }
 
+    public long get() {
+        return value;
+    }
+
     @Override
     public String toString() {
         return "LongEvent{" + "value=" + value + '}';
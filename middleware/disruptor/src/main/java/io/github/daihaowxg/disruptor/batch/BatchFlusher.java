@@ -0,0 +1,17 @@
+package io.github.daihaowxg.disruptor.batch;
+
+import java.util.List;
+
+/**
+ * 批量落库的回调
+ *
+ * @param <R> 从事件中提取出的一行数据
+ */
+@FunctionalInterface
+public interface BatchFlusher<R> {
+
+    /**
+     * 一次性写出整个批次，返回后批次列表会被清空复用，实现方不要持有它的引用
+     */
+    void flush(List<R> batch) throws Exception;
+}
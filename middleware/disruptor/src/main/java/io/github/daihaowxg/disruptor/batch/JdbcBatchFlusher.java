@@ -0,0 +1,27 @@
+package io.github.daihaowxg.disruptor.batch;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * 通过一次 JDBC batch 写出整个批次
+ * <p>
+ * 与 spring-druid 中 {@code UserRepository.batchInsert} 的写法一致：
+ * 每行是一组参数 {@code Object[]}，整体交给 {@link JdbcTemplate#batchUpdate(String, List)}。
+ */
+public class JdbcBatchFlusher implements BatchFlusher<Object[]> {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String sql;
+
+    public JdbcBatchFlusher(JdbcTemplate jdbcTemplate, String sql) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.sql = sql;
+    }
+
+    @Override
+    public void flush(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate(sql, batch);
+    }
+}
@@ -0,0 +1,77 @@
+package io.github.daihaowxg.disruptor.batch;
+
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+import com.lmax.disruptor.util.DaemonThreadFactory;
+import io.github.daihaowxg.disruptor.LongEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 智能批处理写库：不同负载下的批次大小与写入速率
+ * <p>
+ * 依次以 1k / 10k / 100k events/s 以及不限速发布事件，观察平均批次大小随负载自动增长，
+ * 写入速率（rows/sec）随之提升，而低负载下批次很小、延迟很低。
+ */
+public class SmartBatchingBenchmark {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final long MAX_LATENCY_MILLIS = 10;
+    private static final long DURATION_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    public static void main(String[] args) throws Exception {
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource(
+                "jdbc:h2:mem:batch;DB_CLOSE_DELAY=-1", "sa", "", true);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE events (id BIGINT AUTO_INCREMENT PRIMARY KEY, event_value BIGINT)");
+
+        for (long rate : new long[]{1_000, 10_000, 100_000, 0}) {
+            jdbcTemplate.execute("TRUNCATE TABLE events");
+            run(jdbcTemplate, rate);
+        }
+        dataSource.destroy();
+    }
+
+    /**
+     * @param rate 每秒发布的事件数，0 表示不限速
+     */
+    private static void run(JdbcTemplate jdbcTemplate, long rate) {
+        SmartBatchingEventHandler<LongEvent, Object[]> handler = new SmartBatchingEventHandler<>(
+                event -> new Object[]{event.get()},
+                new JdbcBatchFlusher(jdbcTemplate, "INSERT INTO events (event_value) VALUES (?)"),
+                MAX_BATCH_SIZE, MAX_LATENCY_MILLIS, TimeUnit.MILLISECONDS);
+
+        // 每个批次在 endOfBatch 时写出，消费者空闲时没有残留的事件，普通的阻塞等待策略即可
+        Disruptor<LongEvent> disruptor = new Disruptor<>(LongEvent::new, BUFFER_SIZE, DaemonThreadFactory.INSTANCE,
+                ProducerType.SINGLE, new BlockingWaitStrategy());
+        disruptor.handleEventsWith(handler);
+        RingBuffer<LongEvent> ringBuffer = disruptor.start();
+
+        long intervalNanos = rate == 0 ? 0 : TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long published = 0;
+        while (System.nanoTime() - start < DURATION_NANOS) {
+            if (intervalNanos > 0) {
+                long due = start + published * intervalNanos;
+                while (System.nanoTime() < due) {
+                    Thread.yield();
+                }
+            }
+            ringBuffer.publishEvent((event, sequence, value) -> event.set(value), published++);
+        }
+        // shutdown 会等待消费者处理完已发布的事件，最后一个事件的 endOfBatch 为 true，最后一批已经写出
+        disruptor.shutdown();
+        long elapsed = System.nanoTime() - start;
+
+        Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM events", Long.class);
+        System.out.printf("offered %-9s rows %,10d | %,12.0f rows/sec | flushes %,8d | avg batch %,8.1f%n",
+                rate == 0 ? "max" : String.format("%,d/s", rate), rows,
+                rows * 1_000_000_000.0 / elapsed, handler.getFlushes(),
+                (double) handler.getRows() / handler.getFlushes());
+    }
+}
@@ -0,0 +1,84 @@
+package io.github.daihaowxg.disruptor.batch;
+
+import com.lmax.disruptor.EventHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 智能批处理（smart batching）事件处理器
+ * <p>
+ * 不按固定大小或固定时间攒批，而是利用 Disruptor 的 endOfBatch：消费者追上生产者时立刻写出。
+ * 负载低时每批只有一两条，延迟最小；负载高时消费者落后，一次能拿到的事件自然变多，
+ * 批次随之变大，每次 IO 摊销更多的行。另外两个上限限制一个 Disruptor 批次很长时的行为：
+ * <ul>
+ *     <li>maxBatchSize：批次达到上限立即写出，避免一次 batch 过大</li>
+ *     <li>maxLatency：最早进入批次的事件等待超过上限立即写出，不必等到 endOfBatch</li>
+ * </ul>
+ * 每个 Disruptor 批次的最后一个事件都会触发写出，onEvent 返回后不会有事件留在缓冲区中，
+ * 生产者停止发布时也没有残留，因此不需要 {@code TimeoutBlockingWaitStrategy} 或定时器兜底，
+ * 任意等待策略都可以使用。
+ * <p>
+ * 事件对象会被环复用，因此先通过 extractor 拷贝出一行不可变数据再放入批次。
+ *
+ * @param <E> 事件类型
+ * @param <R> 行数据类型
+ */
+public class SmartBatchingEventHandler<E, R> implements EventHandler<E> {
+
+    private final Function<E, R> extractor;
+    private final BatchFlusher<R> flusher;
+    private final int maxBatchSize;
+    private final long maxLatencyNanos;
+    private final List<R> batch;
+
+    private long firstEventNanos;
+    private long flushes;
+    private long rows;
+
+    public SmartBatchingEventHandler(Function<E, R> extractor, BatchFlusher<R> flusher,
+                                     int maxBatchSize, long maxLatency, TimeUnit unit) {
+        this.extractor = extractor;
+        this.flusher = flusher;
+        this.maxBatchSize = maxBatchSize;
+        this.maxLatencyNanos = unit.toNanos(maxLatency);
+        this.batch = new ArrayList<>(maxBatchSize);
+    }
+
+    @Override
+    public void onEvent(E event, long sequence, boolean endOfBatch) throws Exception {
+        if (batch.isEmpty()) {
+            firstEventNanos = System.nanoTime();
+        }
+        batch.add(extractor.apply(event));
+
+        if (endOfBatch
+                || batch.size() >= maxBatchSize
+                || System.nanoTime() - firstEventNanos >= maxLatencyNanos) {
+            flush();
+        }
+    }
+
+    private void flush() throws Exception {
+        flusher.flush(batch);
+        flushes++;
+        rows += batch.size();
+        batch.clear();
+    }
+
+    /**
+     * 已写出的批次数，仅在消费者线程停止后读取才准确
+     */
+    public long getFlushes() {
+        return flushes;
+    }
+
+    /**
+     * 已写出的行数，仅在消费者线程停止后读取才准确
+     */
+    public long getRows() {
+        return rows;
+    }
+}
@@ -0,0 +1,107 @@
+package io.github.daihaowxg.disruptor.engine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 内存中的账户余额模型
+ * <p>
+ * 只允许业务处理器线程访问，因此不需要任何锁。
+ * 快照格式：magic、lastCommandId、条目数，然后是 (accountId, balance) 对。
+ */
+class AccountBook {
+
+    private static final int SNAPSHOT_MAGIC = 0x534E4150; // "SNAP"
+
+    private final LongLongHashMap balances;
+    private long lastCommandId;
+
+    AccountBook(int expectedAccounts) {
+        this.balances = new LongLongHashMap(expectedAccounts);
+    }
+
+    /**
+     * 执行一条指令
+     *
+     * @return 余额不足时返回 false，状态不变
+     */
+    boolean apply(AccountCommand command) {
+        lastCommandId = command.commandId;
+        long balance = balance(command.accountId);
+        switch (command.type) {
+            case DEPOSIT:
+                balances.put(command.accountId, balance + command.amount);
+                return true;
+            case WITHDRAW:
+                if (balance < command.amount) {
+                    return false;
+                }
+                balances.put(command.accountId, balance - command.amount);
+                return true;
+            case TRANSFER:
+                if (balance < command.amount) {
+                    return false;
+                }
+                balances.put(command.accountId, balance - command.amount);
+                balances.put(command.targetId, balance(command.targetId) + command.amount);
+                return true;
+            default:
+                throw new IllegalArgumentException("unsupported command: " + command.type);
+        }
+    }
+
+    long balance(long accountId) {
+        return balances.get(accountId, 0L);
+    }
+
+    long lastCommandId() {
+        return lastCommandId;
+    }
+
+    int accounts() {
+        return balances.size();
+    }
+
+    /**
+     * 先写临时文件再原子替换，避免崩溃时留下半个快照。替换前刷盘：快照写完后旧日志段会被删除
+     */
+    void writeSnapshot(Path file) throws Exception {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeLong(lastCommandId);
+            out.writeInt(balances.size());
+            balances.forEach((accountId, balance) -> {
+                out.writeLong(accountId);
+                out.writeLong(balance);
+            });
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static AccountBook readSnapshot(Path file, int expectedAccounts) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("not a snapshot file: " + file);
+            }
+            long lastCommandId = in.readLong();
+            int size = in.readInt();
+            AccountBook book = new AccountBook(Math.max(size, expectedAccounts));
+            for (int i = 0; i < size; i++) {
+                book.balances.put(in.readLong(), in.readLong());
+            }
+            book.lastCommandId = lastCommandId;
+            return book;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package io.github.daihaowxg.disruptor.engine;
+
+/**
+ * 输入环中的账户指令
+ */
+public class AccountCommand {
+    CommandType type;
+    /**
+     * 全局递增的指令 ID，跨重启保持单调，用于快照与日志对齐
+     */
+    long commandId;
+    long accountId;
+    /**
+     * 转账的目标账户，其余指令忽略
+     */
+    long targetId;
+    long amount;
+    /**
+     * 发布时间，只用于统计延迟，不写入日志
+     */
+    long publishNanos;
+
+    void set(CommandType type, long commandId, long accountId, long targetId, long amount) {
+        this.type = type;
+        this.commandId = commandId;
+        this.accountId = accountId;
+        this.targetId = targetId;
+        this.amount = amount;
+    }
+
+    @Override
+    public String toString() {
+        return "AccountCommand{" + "type=" + type + ", commandId=" + commandId + ", accountId=" + accountId
+                + ", targetId=" + targetId + ", amount=" + amount + '}';
+    }
+}
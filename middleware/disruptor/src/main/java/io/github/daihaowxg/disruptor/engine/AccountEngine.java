@@ -0,0 +1,138 @@
+package io.github.daihaowxg.disruptor.engine;
+
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+import com.lmax.disruptor.util.DaemonThreadFactory;
+import io.github.daihaowxg.disruptor.journal.FsyncPolicy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 基于 Disruptor 的事件溯源账户引擎（LMAX 业务逻辑处理器架构）
+ * <pre>
+ *                 ┌─▶ CommandJournal ─────────┐
+ * submit() ─▶ input ring                      ├─▶ AccountProcessor ─▶ output ring ─▶ resultHandler
+ *                 └─▶ ReplicationStubHandler ─┘
+ * </pre>
+ * 启动时先加载最近的快照，再回放快照之后的日志，恢复到崩溃前的状态后才开始接收新指令。
+ * 日志在每次快照时切换到新段，快照写完后删除旧段，回放量只与上次快照之后的指令数有关。
+ * 指令 ID 由输入环序号加上恢复后的基准值得到，跨重启单调递增。
+ */
+public class AccountEngine implements AutoCloseable {
+
+    private static final String SNAPSHOT_FILE = "accounts.snapshot";
+
+    private final AccountBook book;
+    private final CommandJournal journal;
+    private final Disruptor<AccountCommand> input;
+    private final Disruptor<AccountResult> output;
+    private final RingBuffer<AccountCommand> inputRing;
+    private final long commandIdBase;
+    private final long replayed;
+
+    /**
+     * @param dir              日志与快照目录
+     * @param bufferSize       输入 / 输出环大小
+     * @param expectedAccounts 预估账户数，用于初始化哈希表容量
+     * @param fsyncPolicy      日志刷盘策略
+     * @param resultHandler    输出环的消费者
+     */
+    public AccountEngine(Path dir, int bufferSize, int expectedAccounts, FsyncPolicy fsyncPolicy,
+                         EventHandler<AccountResult> resultHandler) throws IOException {
+        Files.createDirectories(dir);
+        Path snapshotFile = dir.resolve(SNAPSHOT_FILE);
+
+        // 1. 快照 + 日志回放
+        this.book = Files.exists(snapshotFile)
+                ? AccountBook.readSnapshot(snapshotFile, expectedAccounts)
+                : new AccountBook(expectedAccounts);
+        long snapshotCommandId = book.lastCommandId();
+        long[] replayedCount = new long[1];
+        long validLength = CommandJournal.replay(dir, command -> {
+            if (command.commandId > snapshotCommandId) {
+                book.apply(command);
+                replayedCount[0]++;
+            }
+        });
+        this.replayed = replayedCount[0];
+        this.commandIdBase = book.lastCommandId() + 1;
+
+        // 2. 输出环：只有业务处理器一个生产者
+        this.output = new Disruptor<>(AccountResult::new, bufferSize, DaemonThreadFactory.INSTANCE,
+                ProducerType.SINGLE, new BlockingWaitStrategy());
+        this.output.handleEventsWith(resultHandler);
+
+        // 3. 输入环：日志与复制并行，二者都完成后再交给业务处理器
+        this.journal = new CommandJournal(dir, validLength, fsyncPolicy);
+        this.input = new Disruptor<>(AccountCommand::new, bufferSize, DaemonThreadFactory.INSTANCE,
+                ProducerType.MULTI, new BlockingWaitStrategy());
+        this.input.handleEventsWith(journal, new ReplicationStubHandler())
+                .then(new AccountProcessor(book, output.getRingBuffer(), snapshotFile, dir));
+
+        this.output.start();
+        this.inputRing = input.start();
+    }
+
+    public void deposit(long accountId, long amount) {
+        submit(CommandType.DEPOSIT, accountId, 0, amount);
+    }
+
+    public void withdraw(long accountId, long amount) {
+        submit(CommandType.WITHDRAW, accountId, 0, amount);
+    }
+
+    public void transfer(long fromAccountId, long toAccountId, long amount) {
+        submit(CommandType.TRANSFER, fromAccountId, toAccountId, amount);
+    }
+
+    /**
+     * 请求业务处理器在处理完之前的所有指令后生成快照
+     */
+    public void snapshot() {
+        submit(CommandType.SNAPSHOT, 0, 0, 0);
+    }
+
+    private void submit(CommandType type, long accountId, long targetId, long amount) {
+        long sequence = inputRing.next();
+        try {
+            AccountCommand command = inputRing.get(sequence);
+            command.set(type, commandIdBase + sequence, accountId, targetId, amount);
+            command.publishNanos = System.nanoTime();
+        } finally {
+            inputRing.publish(sequence);
+        }
+    }
+
+    /**
+     * 启动时从日志回放的指令数
+     */
+    public long replayed() {
+        return replayed;
+    }
+
+    /**
+     * 查询余额，只能在 {@link #close()} 之后调用，运行期间状态只属于业务处理器线程
+     */
+    public long balance(long accountId) {
+        return book.balance(accountId);
+    }
+
+    public int accounts() {
+        return book.accounts();
+    }
+
+    /**
+     * 等待输入环和输出环都处理完后关闭日志
+     */
+    @Override
+    public void close() throws IOException {
+        input.shutdown();
+        output.shutdown();
+        journal.close();
+    }
+}
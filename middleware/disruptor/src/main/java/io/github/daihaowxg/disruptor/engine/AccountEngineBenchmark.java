@@ -0,0 +1,106 @@
+package io.github.daihaowxg.disruptor.engine;
+
+import com.lmax.disruptor.EventHandler;
+import io.github.daihaowxg.disruptor.journal.FsyncPolicy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 账户引擎基准：持续吞吐量（ops/sec）与端到端延迟（p50 / p99 / p99.9）
+ * <p>
+ * 延迟从指令发布到结果到达输出环消费者为止，包含日志、复制占位和业务处理三级。
+ * 吞吐量用不限速的生产者测量；延迟在固定速率下测量，避免把排队时间算进去。
+ */
+public class AccountEngineBenchmark {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int ACCOUNTS = 100_000;
+    private static final int COMMANDS = 2_000_000;
+    private static final long LATENCY_RATE = 100_000;
+
+    /**
+     * 记录每条结果的延迟
+     */
+    static class LatencyRecorder implements EventHandler<AccountResult> {
+        private final long[] latencies;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private int count;
+
+        LatencyRecorder(int expected) {
+            this.latencies = new long[expected];
+        }
+
+        @Override
+        public void onEvent(AccountResult result, long sequence, boolean endOfBatch) {
+            latencies[count++] = System.nanoTime() - result.publishNanos;
+            if (count == latencies.length) {
+                done.countDown();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (FsyncPolicy policy : new FsyncPolicy[]{FsyncPolicy.NONE, FsyncPolicy.PERIODIC}) {
+            run(policy, 0);
+            run(policy, LATENCY_RATE);
+        }
+    }
+
+    /**
+     * @param rate 每秒提交的指令数，0 表示不限速
+     */
+    private static void run(FsyncPolicy policy, long rate) throws Exception {
+        Path dir = Files.createTempDirectory("account-engine-bench");
+        LatencyRecorder recorder = new LatencyRecorder(COMMANDS);
+        AccountEngine engine = new AccountEngine(dir, BUFFER_SIZE, ACCOUNTS, policy, recorder);
+
+        Random random = new Random(42);
+        long intervalNanos = rate == 0 ? 0 : TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        for (int i = 0; i < COMMANDS; i++) {
+            if (intervalNanos > 0) {
+                long due = start + i * intervalNanos;
+                while (System.nanoTime() < due) {
+                    Thread.yield();
+                }
+            }
+            long account = random.nextInt(ACCOUNTS);
+            switch (i % 3) {
+                case 0:
+                    engine.deposit(account, 100);
+                    break;
+                case 1:
+                    engine.withdraw(account, 50);
+                    break;
+                default:
+                    engine.transfer(account, random.nextInt(ACCOUNTS), 10);
+                    break;
+            }
+        }
+        recorder.done.await();
+        long elapsed = System.nanoTime() - start;
+        engine.close();
+        delete(dir);
+
+        long[] latencies = recorder.latencies;
+        Arrays.sort(latencies);
+        System.out.printf("fsync=%-8s offered %-9s %,12.0f ops/sec | p50 %,10dns p99 %,12dns p99.9 %,12dns%n",
+                policy, rate == 0 ? "max" : String.format("%,d/s", rate),
+                COMMANDS * 1_000_000_000.0 / elapsed,
+                latencies[COMMANDS / 2], latencies[(int) (COMMANDS * 0.99)], latencies[(int) (COMMANDS * 0.999)]);
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
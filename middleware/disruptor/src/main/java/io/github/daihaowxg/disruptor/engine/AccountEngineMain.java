@@ -0,0 +1,37 @@
+package io.github.daihaowxg.disruptor.engine;
+
+import io.github.daihaowxg.disruptor.journal.FsyncPolicy;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 账户引擎示例：快照 + 日志回放重启
+ */
+public class AccountEngineMain {
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Paths.get(System.getProperty("java.io.tmpdir"), "disruptor-account-engine");
+
+        // 第一次启动：存款、转账，中途生成快照，快照之后继续写入
+        AccountEngine engine = new AccountEngine(dir, 1024, 16, FsyncPolicy.PER_BATCH,
+                (result, sequence, endOfBatch) -> System.out.println(result));
+        System.out.println("启动回放指令数: " + engine.replayed());
+        engine.deposit(1, 100);
+        engine.deposit(2, 50);
+        engine.transfer(1, 2, 30);
+        engine.snapshot();
+        engine.withdraw(2, 60);
+        // 余额不足，失败
+        engine.withdraw(1, 1000);
+        engine.close();
+        System.out.println("关闭时余额: account1=" + engine.balance(1) + ", account2=" + engine.balance(2));
+
+        // 重启：加载快照，再回放快照之后的 2 条指令
+        AccountEngine restarted = new AccountEngine(dir, 1024, 16, FsyncPolicy.PER_BATCH,
+                (result, sequence, endOfBatch) -> System.out.println(result));
+        restarted.close();
+        System.out.println("重启回放指令数: " + restarted.replayed()
+                + ", 恢复后余额: account1=" + restarted.balance(1) + ", account2=" + restarted.balance(2));
+    }
+}
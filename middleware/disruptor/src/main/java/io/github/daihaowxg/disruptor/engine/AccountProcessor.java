@@ -0,0 +1,50 @@
+package io.github.daihaowxg.disruptor.engine;
+
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.RingBuffer;
+
+import java.nio.file.Path;
+
+/**
+ * 业务逻辑处理器
+ * <p>
+ * 唯一修改 {@link AccountBook} 的线程：所有指令串行执行，没有锁、没有 CAS，
+ * 也不做任何 IO（快照除外），结果发布到输出环交给下游。
+ */
+class AccountProcessor implements EventHandler<AccountCommand> {
+
+    private final AccountBook book;
+    private final RingBuffer<AccountResult> output;
+    private final Path snapshotFile;
+    private final Path journalDir;
+
+    AccountProcessor(AccountBook book, RingBuffer<AccountResult> output, Path snapshotFile, Path journalDir) {
+        this.book = book;
+        this.output = output;
+        this.snapshotFile = snapshotFile;
+        this.journalDir = journalDir;
+    }
+
+    @Override
+    public void onEvent(AccountCommand command, long sequence, boolean endOfBatch) throws Exception {
+        if (command.type == CommandType.SNAPSHOT) {
+            book.writeSnapshot(snapshotFile);
+            // 日志处理器在本处理器之前，已经在这条快照指令处切换到新段
+            CommandJournal.deleteSegmentsBefore(journalDir, command.commandId);
+            return;
+        }
+        boolean success = book.apply(command);
+
+        long resultSequence = output.next();
+        try {
+            AccountResult result = output.get(resultSequence);
+            result.commandId = command.commandId;
+            result.accountId = command.accountId;
+            result.success = success;
+            result.balance = book.balance(command.accountId);
+            result.publishNanos = command.publishNanos;
+        } finally {
+            output.publish(resultSequence);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package io.github.daihaowxg.disruptor.engine;
+
+/**
+ * 输出环中的处理结果
+ */
+public class AccountResult {
+    long commandId;
+    long accountId;
+    boolean success;
+    /**
+     * 处理后 accountId 的余额
+     */
+    long balance;
+    long publishNanos;
+
+    public long getCommandId() {
+        return commandId;
+    }
+
+    public long getAccountId() {
+        return accountId;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public long getBalance() {
+        return balance;
+    }
+
+    public long getPublishNanos() {
+        return publishNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "AccountResult{" + "commandId=" + commandId + ", accountId=" + accountId
+                + ", success=" + success + ", balance=" + balance + '}';
+    }
+}
@@ -0,0 +1,215 @@
+package io.github.daihaowxg.disruptor.engine;
+
+import com.lmax.disruptor.EventHandler;
+import io.github.daihaowxg.disruptor.journal.FsyncPolicy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 指令日志处理器
+ * <p>
+ * 与业务处理器之间通过 {@code handleEventsWith(journal, replication).then(processor)} 串联，
+ * 指令只有落入日志后才会被执行。同一批次的指令先攒在直接内存缓冲区中，
+ * 在 endOfBatch 时一次 write 写出，刷盘策略与 {@link FsyncPolicy} 一致。
+ * <p>
+ * 日志按快照分段：{@code commands-<起始指令 ID>.journal}，段中只有 ID 大于起始值的指令。
+ * 遇到 SNAPSHOT 指令时写完并刷盘当前段，之后的指令写入以该快照指令 ID 命名的新段；
+ * 业务处理器写完快照后调用 {@link #deleteSegmentsBefore(Path, long)} 删除已被快照覆盖的旧段，
+ * 日志不会无限增长。快照写完之前崩溃时旧段还在，回放结果不变。
+ * <p>
+ * 记录格式（定长 40 字节）：marker(int) | type(int) | commandId | accountId | targetId | amount
+ */
+class CommandJournal implements EventHandler<AccountCommand>, AutoCloseable {
+
+    private static final int RECORD_MARKER = 0x434D4E44; // "CMND"
+    private static final int RECORD_SIZE = 4 + 4 + 8 * 4;
+    private static final int BUFFER_RECORDS = 1024;
+    private static final long FSYNC_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final String SEGMENT_PREFIX = "commands-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final Path dir;
+    private final FsyncPolicy fsyncPolicy;
+    private FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_SIZE * BUFFER_RECORDS);
+    private long lastFsyncNanos = System.nanoTime();
+
+    /**
+     * 打开最新的段继续追加，没有段时从 0 开始
+     *
+     * @param validLength 回放得到的最新段的有效长度，其后可能是崩溃时写了一半的记录，打开时截断
+     */
+    CommandJournal(Path dir, long validLength, FsyncPolicy fsyncPolicy) throws IOException {
+        List<Path> segments = segments(dir);
+        Path file = segments.isEmpty() ? segmentFile(dir, 0) : segments.get(segments.size() - 1);
+        this.dir = dir;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.channel.truncate(validLength);
+        this.channel.position(validLength);
+        this.fsyncPolicy = fsyncPolicy;
+    }
+
+    @Override
+    public void onEvent(AccountCommand command, long sequence, boolean endOfBatch) throws Exception {
+        if (command.type == CommandType.SNAPSHOT) {
+            roll(command.commandId);
+        } else {
+            if (buffer.remaining() < RECORD_SIZE) {
+                write();
+            }
+            buffer.putInt(RECORD_MARKER)
+                    .putInt(command.type.ordinal())
+                    .putLong(command.commandId)
+                    .putLong(command.accountId)
+                    .putLong(command.targetId)
+                    .putLong(command.amount);
+        }
+        if (endOfBatch) {
+            write();
+            fsync();
+        }
+    }
+
+    /**
+     * 写完并刷盘当前段，之后的指令写入新段。旧段在快照写完之前仍然是回放的依据，所以无论刷盘策略如何都要刷盘
+     */
+    private void roll(long snapshotCommandId) throws IOException {
+        write();
+        channel.force(false);
+        channel.close();
+        channel = FileChannel.open(segmentFile(dir, snapshotCommandId),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        lastFsyncNanos = System.nanoTime();
+    }
+
+    private void write() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void fsync() throws IOException {
+        if (fsyncPolicy == FsyncPolicy.PER_BATCH) {
+            channel.force(false);
+        } else if (fsyncPolicy == FsyncPolicy.PERIODIC) {
+            long now = System.nanoTime();
+            if (now - lastFsyncNanos >= FSYNC_INTERVAL_NANOS) {
+                channel.force(false);
+                lastFsyncNanos = now;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        write();
+        channel.force(false);
+        channel.close();
+    }
+
+    /**
+     * 删除起始指令 ID 小于 snapshotCommandId 的段：其中的指令都已经包含在快照中
+     */
+    static void deleteSegmentsBefore(Path dir, long snapshotCommandId) throws IOException {
+        for (Path segment : segments(dir)) {
+            if (startOf(segment) < snapshotCommandId) {
+                Files.deleteIfExists(segment);
+            }
+        }
+    }
+
+    /**
+     * 按写入顺序回放所有段。最新的段遇到不完整或损坏的记录即停止（崩溃时写了一半），
+     * 更早的段在切换时已经完整刷盘，出现损坏说明文件被破坏，直接失败
+     *
+     * @return 最新段的有效字节数
+     */
+    static long replay(Path dir, Consumer<AccountCommand> consumer) throws IOException {
+        List<Path> segments = segments(dir);
+        long validLength = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            Path segment = segments.get(i);
+            validLength = replaySegment(segment, consumer);
+            if (i < segments.size() - 1 && validLength != Files.size(segment)) {
+                throw new IOException("corrupted journal segment " + segment + " at offset " + validLength);
+            }
+        }
+        return validLength;
+    }
+
+    private static long replaySegment(Path file, Consumer<AccountCommand> consumer) throws IOException {
+        AccountCommand command = new AccountCommand();
+        long validLength = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_SIZE * BUFFER_RECORDS);
+            while (channel.read(buffer) > 0 || buffer.position() > 0) {
+                buffer.flip();
+                if (buffer.remaining() < RECORD_SIZE) {
+                    // 文件末尾不足一条记录
+                    break;
+                }
+                while (buffer.remaining() >= RECORD_SIZE) {
+                    if (buffer.getInt() != RECORD_MARKER) {
+                        return validLength;
+                    }
+                    // 写了一半的记录可能恰好带着 marker，类型不合法时同样视为日志结束；快照指令不会写入日志
+                    CommandType type = CommandType.of(buffer.getInt());
+                    if (type == null || type == CommandType.SNAPSHOT) {
+                        return validLength;
+                    }
+                    command.set(type, buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+                    consumer.accept(command);
+                    validLength += RECORD_SIZE;
+                }
+                buffer.compact();
+            }
+        }
+        return validLength;
+    }
+
+    /**
+     * 目录中的段文件，按起始指令 ID 排序
+     */
+    private static List<Path> segments(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(CommandJournal::isSegment)
+                    .sorted(Comparator.comparingLong(CommandJournal::startOf))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private static boolean isSegment(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+            return false;
+        }
+        String start = name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length());
+        return !start.isEmpty() && start.chars().allMatch(Character::isDigit);
+    }
+
+    private static long startOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private static Path segmentFile(Path dir, long startCommandId) {
+        return dir.resolve(SEGMENT_PREFIX + startCommandId + SEGMENT_SUFFIX);
+    }
+}
@@ -0,0 +1,23 @@
+package io.github.daihaowxg.disruptor.engine;
+
+/**
+ * 账户指令类型
+ */
+public enum CommandType {
+    DEPOSIT,
+    WITHDRAW,
+    TRANSFER,
+    /**
+     * 控制指令：让业务处理器在自己的线程上生成快照，不修改状态，也不写日志
+     */
+    SNAPSHOT;
+
+    private static final CommandType[] VALUES = values();
+
+    /**
+     * @return 序号对应的类型，超出范围（如日志中写了一半的记录）时返回 null
+     */
+    static CommandType of(int ordinal) {
+        return ordinal >= 0 && ordinal < VALUES.length ? VALUES[ordinal] : null;
+    }
+}
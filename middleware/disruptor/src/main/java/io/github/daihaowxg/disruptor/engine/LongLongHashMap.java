@@ -0,0 +1,119 @@
+package io.github.daihaowxg.disruptor.engine;
+
+/**
+ * long -> long 的开放寻址哈希表（线性探测）
+ * <p>
+ * 键和值都存放在原始类型数组中，没有装箱，也没有 Entry 对象，适合单线程业务处理器中的热点状态。
+ * 0 被用作空槽标记，键为 0 的条目单独存放。
+ */
+public class LongLongHashMap {
+
+    private static final long EMPTY = 0L;
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+
+    private boolean hasZeroKey;
+    private long zeroValue;
+
+    public LongLongHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(2, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    public long get(long key, long defaultValue) {
+        if (key == EMPTY) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        int index = index(key);
+        long existing;
+        while ((existing = keys[index]) != EMPTY) {
+            if (existing == key) {
+                return values[index];
+            }
+            index = (index + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    public void put(long key, long value) {
+        if (key == EMPTY) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return;
+        }
+        int index = index(key);
+        long existing;
+        while ((existing = keys[index]) != EMPTY) {
+            if (existing == key) {
+                values[index] = value;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size > resizeThreshold) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 遍历所有条目，顺序不确定
+     */
+    public void forEach(EntryConsumer consumer) throws Exception {
+        if (hasZeroKey) {
+            consumer.accept(EMPTY, zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    private int index(long key) {
+        // Fibonacci hashing，把高位的差异扩散到低位
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != EMPTY) {
+                int index = index(key);
+                while (keys[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, long value) throws Exception;
+    }
+}
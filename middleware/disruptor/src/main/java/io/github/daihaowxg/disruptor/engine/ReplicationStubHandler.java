@@ -0,0 +1,32 @@
+package io.github.daihaowxg.disruptor.engine;
+
+import com.lmax.disruptor.EventHandler;
+
+/**
+ * 复制处理器（占位）
+ * <p>
+ * 在 LMAX 架构中，复制与日志并行运行，把指令发送给备机，二者都完成后业务处理器才执行该指令。
+ * 这里只记录已复制到的位置，不做网络传输，用来保持拓扑完整并衡量这一级的开销。
+ */
+class ReplicationStubHandler implements EventHandler<AccountCommand> {
+
+    private long replicatedCommandId;
+    private long batches;
+
+    @Override
+    public void onEvent(AccountCommand command, long sequence, boolean endOfBatch) {
+        replicatedCommandId = command.commandId;
+        if (endOfBatch) {
+            // 真实实现会在这里把整个批次发送给备机并等待确认
+            batches++;
+        }
+    }
+
+    long replicatedCommandId() {
+        return replicatedCommandId;
+    }
+
+    long batches() {
+        return batches;
+    }
+}
@@ -0,0 +1,15 @@
+package io.github.daihaowxg.disruptor.fanin;
+
+/**
+ * 合并线程从各生产者环中取数的顺序
+ */
+public enum DrainStrategy {
+    /**
+     * 轮询：每轮依次从每个生产者环中取至多一个批次，保证公平
+     */
+    ROUND_ROBIN,
+    /**
+     * 优先级：生产者序号越小优先级越高，每取完一个批次都从最高优先级的环重新开始
+     */
+    PRIORITY
+}
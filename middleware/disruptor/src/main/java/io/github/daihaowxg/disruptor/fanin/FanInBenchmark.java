@@ -0,0 +1,118 @@
+package io.github.daihaowxg.disruptor.fanin;
+
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+import com.lmax.disruptor.util.DaemonThreadFactory;
+import io.github.daihaowxg.disruptor.LongEvent;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.function.IntFunction;
+
+/**
+ * 汇聚网关 vs 共享 MULTI 环的吞吐量对比（2 / 8 / 32 个生产者）
+ */
+public class FanInBenchmark {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int PRODUCER_RING_SIZE = 4 * 1024;
+    private static final long EVENTS = 8_000_000L;
+
+    /**
+     * 收到全部事件后唤醒主线程
+     */
+    static class CountingHandler implements EventHandler<LongEvent> {
+        private final CountDownLatch latch;
+        private long count;
+
+        CountingHandler(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public void onEvent(LongEvent event, long sequence, boolean endOfBatch) {
+            if (++count == EVENTS) {
+                latch.countDown();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (int producers : new int[]{2, 8, 32}) {
+            double shared = sharedMultiRing(producers);
+            double gateway = fanInGateway(producers, DrainStrategy.ROUND_ROBIN);
+            System.out.printf("producers=%-3d MULTI ring %,13.0f ops/sec | fan-in gateway %,13.0f ops/sec (%.2fx)%n",
+                    producers, shared, gateway, gateway / shared);
+        }
+    }
+
+    private static double sharedMultiRing(int producers) throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        Disruptor<LongEvent> disruptor = new Disruptor<>(LongEvent::new, BUFFER_SIZE,
+                DaemonThreadFactory.INSTANCE, ProducerType.MULTI, new BlockingWaitStrategy());
+        disruptor.handleEventsWith(new CountingHandler(done));
+        RingBuffer<LongEvent> ringBuffer = disruptor.start();
+
+        Publisher publisher = value -> ringBuffer.publishEvent((event, sequence, v) -> event.set(v), value);
+        double opsPerSec = runProducers(producers, done, index -> publisher);
+        disruptor.shutdown();
+        return opsPerSec;
+    }
+
+    private static double fanInGateway(int producers, DrainStrategy strategy) throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        Disruptor<LongEvent> disruptor = new Disruptor<>(LongEvent::new, BUFFER_SIZE,
+                DaemonThreadFactory.INSTANCE, ProducerType.SINGLE, new BlockingWaitStrategy());
+        disruptor.handleEventsWith(new CountingHandler(done));
+        RingBuffer<LongEvent> ringBuffer = disruptor.start();
+
+        FanInGateway gateway = new FanInGateway(ringBuffer, producers, PRODUCER_RING_SIZE,
+                strategy, 1024, DaemonThreadFactory.INSTANCE);
+        gateway.start();
+
+        double opsPerSec = runProducers(producers, done, index -> gateway.producer(index)::publish);
+        gateway.shutdown();
+        disruptor.shutdown();
+        return opsPerSec;
+    }
+
+    interface Publisher {
+        void publish(long value);
+    }
+
+    /**
+     * 启动生产者线程平分 EVENTS 个事件，计时从统一起跑到消费者收到最后一个事件
+     */
+    private static double runProducers(int producers, CountDownLatch done,
+                                       IntFunction<Publisher> publishers) throws Exception {
+        CountDownLatch ready = new CountDownLatch(producers);
+        CountDownLatch go = new CountDownLatch(1);
+        long perProducer = EVENTS / producers;
+
+        for (int p = 0; p < producers; p++) {
+            Publisher publisher = publishers.apply(p);
+            Thread thread = new Thread(() -> {
+                ready.countDown();
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (long i = 0; i < perProducer; i++) {
+                    publisher.publish(i);
+                }
+            }, "producer-" + p);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        ready.await();
+        long start = System.nanoTime();
+        go.countDown();
+        done.await();
+        return EVENTS * 1_000_000_000.0 / (System.nanoTime() - start);
+    }
+}
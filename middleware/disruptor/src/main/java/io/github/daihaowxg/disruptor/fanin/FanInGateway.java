@@ -0,0 +1,189 @@
+package io.github.daihaowxg.disruptor.fanin;
+
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.Sequence;
+import io.github.daihaowxg.disruptor.LongEvent;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 多生产者汇聚网关
+ * <p>
+ * 多个线程直接向 {@code ProducerType.MULTI} 的 RingBuffer 发布事件时，会在同一个游标上 CAS 竞争。
+ * 网关为每个生产者分配一个单生产者单消费者（SPSC）的环，由唯一的合并线程批量搬运到目标环，
+ * 因此目标 Disruptor 可以使用 {@code ProducerType.SINGLE}，生产者之间也不再共享任何写热点。
+ * <pre>
+ * producer-0 ─▶ [SPSC ring] ─┐
+ * producer-1 ─▶ [SPSC ring] ─┼─▶ merger thread ─▶ Disruptor&lt;LongEvent&gt;
+ * producer-N ─▶ [SPSC ring] ─┘
+ * </pre>
+ * 每个 {@link Producer} 只能由一个线程使用。
+ * <p>
+ * 合并线程空闲时逐级退避：先用 {@link Thread#onSpinWait()} 自旋，再 {@link Thread#yield()}，
+ * 最后以 {@link #PARK_NANOS} 为间隔 park，有事件时立即回到自旋。这样突发流量的延迟不受影响，
+ * 长时间空闲时也不会一直占满一个核。
+ */
+public class FanInGateway {
+
+    /**
+     * 空闲时先自旋的轮数
+     */
+    private static final int SPIN_TRIES = 100;
+
+    /**
+     * 自旋之后让出 CPU 的轮数，超过后开始 park
+     */
+    private static final int YIELD_TRIES = SPIN_TRIES + 100;
+
+    /**
+     * 每次 park 的时长，也是空闲后第一个事件的最大额外延迟
+     */
+    private static final long PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final RingBuffer<LongEvent> target;
+    private final Producer[] producers;
+    private final DrainStrategy strategy;
+    private final int maxBatch;
+    private final Thread merger;
+
+    private volatile boolean running;
+
+    /**
+     * @param target     目标环，只有合并线程向其发布，应使用单生产者模式创建
+     * @param producers  生产者数量
+     * @param ringSize   每个生产者环的大小，必须是 2 的幂
+     * @param strategy   取数策略
+     * @param maxBatch   单次从一个生产者环中搬运的最大事件数，不能超过目标环大小
+     */
+    public FanInGateway(RingBuffer<LongEvent> target, int producers, int ringSize,
+                        DrainStrategy strategy, int maxBatch, ThreadFactory threadFactory) {
+        if (maxBatch <= 0 || maxBatch > target.getBufferSize()) {
+            throw new IllegalArgumentException("maxBatch must be in [1, " + target.getBufferSize() + "]");
+        }
+        this.target = target;
+        this.strategy = strategy;
+        this.maxBatch = maxBatch;
+        this.producers = new Producer[producers];
+        for (int i = 0; i < producers; i++) {
+            this.producers[i] = new Producer(ringSize);
+        }
+        this.merger = threadFactory.newThread(this::drainLoop);
+    }
+
+    public Producer producer(int index) {
+        return producers[index];
+    }
+
+    public int producerCount() {
+        return producers.length;
+    }
+
+    public void start() {
+        running = true;
+        merger.start();
+    }
+
+    /**
+     * 停止合并线程，停止前会把各生产者环中剩余的事件全部搬运完
+     */
+    public void shutdown() throws InterruptedException {
+        running = false;
+        merger.join();
+    }
+
+    private void drainLoop() {
+        int idle = 0;
+        while (running) {
+            if (drainOnce() > 0) {
+                idle = 0;
+            } else {
+                idle = backoff(idle);
+            }
+        }
+        while (drainOnce() > 0) {
+            // 把关闭前已发布的事件搬运完
+        }
+    }
+
+    /**
+     * 空闲一轮后的等待：自旋 → 让出 CPU → park
+     *
+     * @param idle 连续空闲的轮数
+     * @return 更新后的空闲轮数
+     */
+    private static int backoff(int idle) {
+        if (idle < SPIN_TRIES) {
+            Thread.onSpinWait();
+            return idle + 1;
+        }
+        if (idle < YIELD_TRIES) {
+            Thread.yield();
+            return idle + 1;
+        }
+        LockSupport.parkNanos(PARK_NANOS);
+        return idle;
+    }
+
+    /**
+     * 按策略遍历一轮生产者环
+     *
+     * @return 本轮搬运的事件数
+     */
+    private long drainOnce() {
+        long moved = 0;
+        for (int i = 0; i < producers.length; i++) {
+            long n = drain(producers[i]);
+            moved += n;
+            if (n > 0 && strategy == DrainStrategy.PRIORITY) {
+                // 回到最高优先级的环
+                i = -1;
+            }
+        }
+        return moved;
+    }
+
+    private int drain(Producer producer) {
+        long next = producer.consumed.get() + 1;
+        long available = producer.ring.getCursor();
+        if (available < next) {
+            return 0;
+        }
+        long hi = Math.min(available, next + maxBatch - 1);
+        int n = (int) (hi - next + 1);
+
+        long targetHi = target.next(n);
+        long targetLo = targetHi - n + 1;
+        for (int i = 0; i < n; i++) {
+            target.get(targetLo + i).set(producer.ring.get(next + i).get());
+        }
+        target.publish(targetLo, targetHi);
+
+        // 归还生产者环中的槽位
+        producer.consumed.set(hi);
+        return n;
+    }
+
+    /**
+     * 单个生产者的发布入口，背后是一个 SPSC 环
+     */
+    public static final class Producer {
+        private final RingBuffer<LongEvent> ring;
+        private final Sequence consumed = new Sequence();
+
+        private Producer(int ringSize) {
+            this.ring = RingBuffer.createSingleProducer(LongEvent::new, ringSize);
+            this.ring.addGatingSequences(consumed);
+        }
+
+        /**
+         * 发布一个事件，环满时自旋等待合并线程腾出空间
+         */
+        public void publish(long value) {
+            long sequence = ring.next();
+            ring.get(sequence).set(value);
+            ring.publish(sequence);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package io.github.daihaowxg.disruptor.journal;
+
+/**
+ * 日志刷盘策略
+ * <p>
+ * 写入 MappedByteBuffer 之后数据已经在 page cache 中，进程崩溃不会丢失；
+ * 刷盘（force）决定的是操作系统崩溃 / 断电时最多丢失多少数据。
+ */
+public enum FsyncPolicy {
+    /**
+     * 从不主动刷盘，完全交给操作系统回写，吞吐量最高
+     */
+    NONE,
+    /**
+     * 每个批次结束（endOfBatch）时刷盘，批次越大摊销越充分
+     */
+    PER_BATCH,
+    /**
+     * 批次结束时若距离上次刷盘超过指定间隔才刷盘（group commit）；
+     * 空闲时由等待策略超时触发最后一次刷盘，见 {@link JournalEventHandler}
+     */
+    PERIODIC
+}
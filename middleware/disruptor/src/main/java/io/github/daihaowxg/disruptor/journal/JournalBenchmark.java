@@ -0,0 +1,107 @@
+package io.github.daihaowxg.disruptor.journal;
+
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.TimeoutBlockingWaitStrategy;
+import com.lmax.disruptor.WaitStrategy;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+import com.lmax.disruptor.util.DaemonThreadFactory;
+import io.github.daihaowxg.disruptor.LongEvent;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 日志吞吐量对比：无日志 vs 三种刷盘策略
+ * <p>
+ * 输出每种配置的 ops/sec 以及相对无日志管道的倍数，用于确认持久化开销在可接受范围内。
+ */
+public class JournalBenchmark {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long EVENTS = 5_000_000L;
+    private static final int ROUNDS = 3;
+
+    /**
+     * 最后一个事件到达时唤醒主线程
+     */
+    static class LatchHandler implements EventHandler<LongEvent> {
+        private final CountDownLatch latch;
+        private long sum;
+
+        LatchHandler(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        @Override
+        public void onEvent(LongEvent event, long sequence, boolean endOfBatch) {
+            sum += event.get();
+            if (sequence == EVENTS - 1) {
+                latch.countDown();
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        double baseline = 0;
+        for (String mode : new String[]{"IN_MEMORY", "NONE", "PERIODIC", "PER_BATCH"}) {
+            double best = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                best = Math.max(best, run(mode));
+            }
+            if (baseline == 0) {
+                baseline = best;
+            }
+            System.out.printf("%-10s %,15.0f ops/sec  (%.2fx of in-memory)%n", mode, best, best / baseline);
+        }
+    }
+
+    private static double run(String mode) throws Exception {
+        Path dir = Files.createTempDirectory("journal-bench");
+        CountDownLatch latch = new CountDownLatch(1);
+        LatchHandler business = new LatchHandler(latch);
+        JournalEventHandler journal = null;
+
+        // PERIODIC 依赖等待超时把最后一批刷盘
+        WaitStrategy waitStrategy = "PERIODIC".equals(mode)
+                ? new TimeoutBlockingWaitStrategy(10, TimeUnit.MILLISECONDS) : new BlockingWaitStrategy();
+        Disruptor<LongEvent> disruptor = new Disruptor<>(LongEvent::new, BUFFER_SIZE, DaemonThreadFactory.INSTANCE,
+                ProducerType.MULTI, waitStrategy);
+        if ("IN_MEMORY".equals(mode)) {
+            disruptor.handleEventsWith(business);
+        } else {
+            journal = new JournalEventHandler(dir, JournalEventHandler.DEFAULT_SEGMENT_SIZE,
+                    FsyncPolicy.valueOf(mode), 10, TimeUnit.MILLISECONDS);
+            disruptor.handleEventsWith(journal).then(business);
+        }
+        disruptor.start();
+
+        RingBuffer<LongEvent> ringBuffer = disruptor.getRingBuffer();
+        long start = System.nanoTime();
+        for (long i = 0; i < EVENTS; i++) {
+            ringBuffer.publishEvent((event, sequence, value) -> event.set(value), i);
+        }
+        latch.await();
+        long elapsed = System.nanoTime() - start;
+
+        disruptor.shutdown();
+        if (journal != null) {
+            journal.close();
+        }
+        delete(dir);
+        return EVENTS * 1_000_000_000.0 / elapsed;
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package io.github.daihaowxg.disruptor.journal;
+
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.TimeoutBlockingWaitStrategy;
+import io.github.daihaowxg.disruptor.LongEvent;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 日志事件处理器
+ * <p>
+ * 放在业务处理器之前，把事件顺序追加到内存映射的预分配段文件中：
+ * <pre>
+ * disruptor.handleEventsWith(journal).then(businessHandler);
+ * </pre>
+ * 刷盘时机与 endOfBatch 对齐：生产者越快，批次越大，每次刷盘摊销的事件越多。
+ * <p>
+ * {@link FsyncPolicy#PERIODIC} 只在批次结束时检查间隔，生产者停下后最后一批可能一直没有刷盘。
+ * 因此这个策略要配合 {@link TimeoutBlockingWaitStrategy}（超时取刷盘间隔）使用：
+ * 空闲超时时 Disruptor 回调 {@link #onTimeout(long)}，把尚未刷盘的事件刷下去，刷盘仍然只在消费者线程中进行。
+ * <pre>
+ * new Disruptor&lt;&gt;(LongEvent::new, bufferSize, threadFactory, ProducerType.SINGLE,
+ *         new TimeoutBlockingWaitStrategy(10, TimeUnit.MILLISECONDS));
+ * </pre>
+ * 每次启动都会新开一个段文件，不会覆盖已有日志，回放见 {@link JournalReplayer}。
+ * <p>
+ * 只能由单个消费者线程调用，非线程安全。
+ */
+public class JournalEventHandler implements EventHandler<LongEvent>, AutoCloseable {
+
+    /**
+     * 默认段大小 64MB
+     */
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private final Path dir;
+    private final int segmentSize;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+
+    private JournalSegment segment;
+    private long nextSegmentIndex;
+    private long lastFsyncNanos = System.nanoTime();
+    /**
+     * 最近一次刷盘之后是否还有追加的事件
+     */
+    private boolean unforced;
+
+    public JournalEventHandler(Path dir, FsyncPolicy fsyncPolicy) throws IOException {
+        this(dir, DEFAULT_SEGMENT_SIZE, fsyncPolicy, 10, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param dir           日志目录，不存在时自动创建
+     * @param segmentSize   单个段文件的字节数
+     * @param fsyncPolicy   刷盘策略
+     * @param fsyncInterval {@link FsyncPolicy#PERIODIC} 下两次刷盘的最小间隔，其余策略忽略；
+     *                      等待策略的超时一般取相同的值
+     */
+    public JournalEventHandler(Path dir, int segmentSize, FsyncPolicy fsyncPolicy,
+                               long fsyncInterval, TimeUnit unit) throws IOException {
+        if (segmentSize < JournalSegment.RECORD_SIZE) {
+            throw new IllegalArgumentException("segmentSize must be at least " + JournalSegment.RECORD_SIZE);
+        }
+        this.dir = Files.createDirectories(dir);
+        this.segmentSize = segmentSize;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = unit.toNanos(fsyncInterval);
+
+        List<Path> existing = JournalSegment.list(dir);
+        this.nextSegmentIndex = existing.isEmpty() ? 0 : JournalSegment.index(existing.get(existing.size() - 1)) + 1;
+        this.segment = JournalSegment.create(dir, nextSegmentIndex++, segmentSize);
+    }
+
+    @Override
+    public void onEvent(LongEvent event, long sequence, boolean endOfBatch) throws Exception {
+        if (!segment.hasRemaining()) {
+            roll();
+        }
+        segment.append(sequence, event.get());
+        unforced = true;
+
+        if (endOfBatch) {
+            onBatchEnd();
+        }
+    }
+
+    /**
+     * 等待新事件超时，说明生产者已经空闲，{@link FsyncPolicy#PERIODIC} 下把最后一批刷盘。
+     * 只有使用 {@link TimeoutBlockingWaitStrategy} 这类带超时的等待策略时才会被调用
+     */
+    @Override
+    public void onTimeout(long sequence) {
+        if (fsyncPolicy == FsyncPolicy.PERIODIC && unforced) {
+            force();
+        }
+    }
+
+    @Override
+    public void onShutdown() {
+        force();
+    }
+
+    /**
+     * 当前段写满，刷盘后切换到新的预分配段
+     */
+    private void roll() throws IOException {
+        if (fsyncPolicy != FsyncPolicy.NONE) {
+            force();
+        }
+        segment.close();
+        segment = JournalSegment.create(dir, nextSegmentIndex++, segmentSize);
+    }
+
+    private void onBatchEnd() {
+        switch (fsyncPolicy) {
+            case PER_BATCH:
+                force();
+                break;
+            case PERIODIC:
+                if (System.nanoTime() - lastFsyncNanos >= fsyncIntervalNanos) {
+                    force();
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void force() {
+        segment.force();
+        lastFsyncNanos = System.nanoTime();
+        unforced = false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        segment.force();
+        segment.close();
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.daihaowxg.disruptor.journal;
+
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.util.DaemonThreadFactory;
+import io.github.daihaowxg.disruptor.LongEvent;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 日志 + 回放示例
+ * <p>
+ * 多次运行本示例，可以看到累加结果在重启后从日志中恢复，而不是从 0 开始。
+ */
+public class JournalMain {
+
+    /**
+     * 业务处理器：对事件值求和，模拟需要在重启后恢复的内存状态
+     */
+    static class SumHandler implements EventHandler<LongEvent> {
+        private long sum;
+
+        @Override
+        public void onEvent(LongEvent event, long sequence, boolean endOfBatch) {
+            sum += event.get();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path dir = Paths.get(System.getProperty("java.io.tmpdir"), "disruptor-journal");
+        SumHandler sumHandler = new SumHandler();
+
+        // 1. 启动前先回放日志，重建内存状态
+        long replayed = JournalReplayer.replay(dir, sumHandler);
+        System.out.println("回放事件数: " + replayed + ", 恢复后的 sum = " + sumHandler.sum);
+
+        // 2. 日志处理器在前，业务处理器在后
+        Disruptor<LongEvent> disruptor = new Disruptor<>(LongEvent::new, 1024, DaemonThreadFactory.INSTANCE);
+        JournalEventHandler journal = new JournalEventHandler(dir, FsyncPolicy.PER_BATCH);
+        disruptor.handleEventsWith(journal).then(sumHandler);
+        disruptor.start();
+
+        RingBuffer<LongEvent> ringBuffer = disruptor.getRingBuffer();
+        for (long i = 1; i <= 10; i++) {
+            ringBuffer.publishEvent((event, sequence, value) -> event.set(value), i);
+        }
+
+        // 3. 等待所有事件处理完成后再关闭日志
+        disruptor.shutdown();
+        journal.close();
+        System.out.println("本次运行后的 sum = " + sumHandler.sum + ", 日志目录: " + dir);
+    }
+}
@@ -0,0 +1,43 @@
+package io.github.daihaowxg.disruptor.journal;
+
+import com.lmax.disruptor.EventHandler;
+import io.github.daihaowxg.disruptor.LongEvent;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 日志回放
+ * <p>
+ * 启动时在 Disruptor 开始接收新事件之前调用，把日志中的事件按写入顺序重新交给业务处理器，
+ * 从而重建崩溃前的内存状态。每个段文件的最后一条记录会以 endOfBatch = true 交付。
+ */
+public final class JournalReplayer {
+
+    private JournalReplayer() {
+    }
+
+    /**
+     * 回放目录中的全部日志
+     *
+     * @return 回放的事件数
+     */
+    public static long replay(Path dir, EventHandler<LongEvent> handler) throws Exception {
+        List<Path> files = JournalSegment.list(dir);
+        LongEvent event = new LongEvent();
+        long count = 0;
+        for (Path file : files) {
+            try (JournalSegment segment = JournalSegment.open(file)) {
+                while (segment.hasNextRecord()) {
+                    long sequence = segment.readSequence();
+                    event.set(segment.readValue());
+                    segment.skipRecord();
+                    handler.onEvent(event, sequence, !segment.hasNextRecord());
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,125 @@
+package io.github.daihaowxg.disruptor.journal;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 预分配的日志段文件
+ * <p>
+ * 记录格式（定长 20 字节）：
+ * <pre>
+ * | marker(int) | sequence(long) | value(long) |
+ * </pre>
+ * 先写 sequence 和 value，最后写 marker，回放时遇到 marker 不合法即认为该段结束。
+ * 预分配的文件内容全部为 0，因此未写入的位置天然是一个"空记录"。
+ */
+class JournalSegment implements AutoCloseable {
+
+    static final int RECORD_MARKER = 0x4A524E4C; // "JRNL"
+    static final int RECORD_SIZE = 4 + 8 + 8;
+
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".seg";
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    private JournalSegment(FileChannel channel, MappedByteBuffer buffer) {
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * 创建并预分配一个新的段文件，容量向下取整到记录大小的整数倍
+     */
+    static JournalSegment create(Path dir, long index, int segmentSize) throws IOException {
+        int capacity = segmentSize / RECORD_SIZE * RECORD_SIZE;
+        FileChannel channel = FileChannel.open(path(dir, index),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        return new JournalSegment(channel, buffer);
+    }
+
+    /**
+     * 以只读方式打开一个已存在的段文件
+     */
+    static JournalSegment open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        return new JournalSegment(channel, buffer);
+    }
+
+    static Path path(Path dir, long index) {
+        return dir.resolve(String.format("%s%019d%s", PREFIX, index, SUFFIX));
+    }
+
+    static long index(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * 按段序号升序列出目录中的所有段文件
+     */
+    static List<Path> list(Path dir) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    boolean hasRemaining() {
+        return buffer.remaining() >= RECORD_SIZE;
+    }
+
+    void append(long sequence, long value) {
+        int position = buffer.position();
+        buffer.putLong(position + 4, sequence);
+        buffer.putLong(position + 12, value);
+        buffer.putInt(position, RECORD_MARKER);
+        buffer.position(position + RECORD_SIZE);
+    }
+
+    /**
+     * 读取下一条记录的 marker，不合法时返回 false，表示该段已读完
+     */
+    boolean hasNextRecord() {
+        return hasRemaining() && buffer.getInt(buffer.position()) == RECORD_MARKER;
+    }
+
+    long readSequence() {
+        return buffer.getLong(buffer.position() + 4);
+    }
+
+    long readValue() {
+        return buffer.getLong(buffer.position() + 12);
+    }
+
+    void skipRecord() {
+        buffer.position(buffer.position() + RECORD_SIZE);
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,21 @@
+package io.github.daihaowxg.mybatis.cache;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * MyBatis 二级缓存配置
+ * <p>
+ * mybatis-spring-boot-starter 会把容器中的 Interceptor Bean 注册为 MyBatis 插件。
+ * 容器中有 {@link CacheInvalidationPublisher} 时，本节点的缓存失效会通过它通知其他节点。
+ */
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    public CacheInvalidationInterceptor cacheInvalidationInterceptor(ObjectProvider<CacheInvalidationPublisher> publisher) {
+        publisher.ifAvailable(CaffeineCache::setPublisher);
+        return new CacheInvalidationInterceptor();
+    }
+}
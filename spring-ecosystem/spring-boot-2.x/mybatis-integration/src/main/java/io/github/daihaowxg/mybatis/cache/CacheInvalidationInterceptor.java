@@ -0,0 +1,73 @@
+package io.github.daihaowxg.mybatis.cache;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 记录每个 SqlSession 执行过的写语句，提交时交给 {@link CaffeineCache} 做选择性失效
+ * <p>
+ * 插件包在 CachingExecutor 外层，二级缓存的失效发生在 CachingExecutor 的 commit（以及非强制回滚的 close）中：
+ * <ul>
+ *   <li>commit 期间把本次提交的写语句告诉 {@link CaffeineCache#clear()}，只失效受影响的查询</li>
+ *   <li>commit 完成后失效 dependsOn 这些命名空间的缓存（MyBatis 自身只会清理写语句所在命名空间的缓存）</li>
+ *   <li>rollback 或强制回滚的 close 丢弃记录，缓存保持不变</li>
+ * </ul>
+ */
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "commit", args = {boolean.class}),
+        @Signature(type = Executor.class, method = "rollback", args = {boolean.class}),
+        @Signature(type = Executor.class, method = "close", args = {boolean.class})
+})
+public class CacheInvalidationInterceptor implements Interceptor {
+
+    /**
+     * Executor（每个 SqlSession 一个）→ 尚未提交的写语句
+     */
+    private final Map<Object, Set<String>> pendingWrites = new ConcurrentHashMap<>();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Object executor = invocation.getTarget();
+        switch (invocation.getMethod().getName()) {
+            case "update":
+                Object result = invocation.proceed();
+                MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+                pendingWrites.computeIfAbsent(executor, key -> new LinkedHashSet<>()).add(statement.getId());
+                return result;
+            case "commit":
+                return commit(invocation, pendingWrites.remove(executor));
+            case "close":
+                Set<String> writes = pendingWrites.remove(executor);
+                boolean forceRollback = (Boolean) invocation.getArgs()[0];
+                return forceRollback ? invocation.proceed() : commit(invocation, writes);
+            default:
+                pendingWrites.remove(executor);
+                return invocation.proceed();
+        }
+    }
+
+    private Object commit(Invocation invocation, Set<String> writes) throws Throwable {
+        if (writes == null) {
+            return invocation.proceed();
+        }
+        Object result;
+        CaffeineCache.beginCommit(writes);
+        try {
+            result = invocation.proceed();
+        } finally {
+            CaffeineCache.endCommit();
+        }
+        CaffeineCache.invalidateDependents(writes);
+        return result;
+    }
+}
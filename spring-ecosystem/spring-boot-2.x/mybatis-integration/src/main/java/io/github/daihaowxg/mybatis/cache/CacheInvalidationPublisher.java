@@ -0,0 +1,21 @@
+package io.github.daihaowxg.mybatis.cache;
+
+import java.util.Set;
+
+/**
+ * 缓存失效消息的发布者
+ * <p>
+ * 多个节点各自持有本地的 {@link CaffeineCache}，一个节点的写入只会失效自己的缓存。
+ * 实现这个接口把失效消息发到消息通道（如 Redis pub/sub），
+ * 其他节点收到后调用 {@link CaffeineCache#applyRemoteInvalidation(String, java.util.Collection)}。
+ * 消息只缩短其他节点读到旧数据的时间，送达失败时由 TTL 兜底。
+ */
+@FunctionalInterface
+public interface CacheInvalidationPublisher {
+
+    /**
+     * @param cacheId      缓存的命名空间
+     * @param statementIds 失效的查询语句，为空表示清空整个缓存
+     */
+    void publish(String cacheId, Set<String> statementIds);
+}
@@ -0,0 +1,326 @@
+package io.github.daihaowxg.mybatis.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.apache.ibatis.builder.InitializingObject;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheKey;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 Caffeine 的 MyBatis 二级缓存
+ * <p>
+ * 在 Mapper XML 中配置：
+ * <pre>
+ * &lt;cache type="io.github.daihaowxg.mybatis.cache.CaffeineCache"&gt;
+ *     &lt;property name="maximumSize" value="10000"/&gt;
+ *     &lt;property name="timeToLiveSeconds" value="300"/&gt;
+ *     &lt;property name="invalidates" value="updateAuthor=findAuthorById,findAllAuthors"/&gt;
+ *     &lt;property name="dependsOn" value="io.github.daihaowxg.mybatis.mapper.AuthorMapper"/&gt;
+ * &lt;/cache&gt;
+ * </pre>
+ * <ul>
+ *   <li>maximumSize / timeToLiveSeconds：条目数上限和写入后的存活时间，TTL 同时兜底其他途径（如 JdbcTemplate）写入造成的脏数据</li>
+ *   <li>invalidates：写语句 = 受影响的查询语句，分号分隔多条规则。本命名空间的写语句写短 id，其他命名空间写全限定 id</li>
+ *   <li>dependsOn：依赖的其他命名空间，逗号分隔。这些命名空间中的写入提交后同样按 invalidates 失效本缓存</li>
+ * </ul>
+ * MyBatis 默认在命名空间内任意写入提交后清空整个缓存。配合 {@link CacheInvalidationInterceptor} 时，
+ * 只失效 invalidates 中列出的查询语句；没有声明规则的写入、或者没有注册拦截器时仍然清空整个缓存。
+ * <p>
+ * 缓存的结果对象由所有调用方共享（相当于 {@code readOnly="true"}），调用方不能修改返回的对象。
+ */
+public class CaffeineCache implements Cache, InitializingObject {
+
+    /**
+     * 所有已创建的缓存，按命名空间索引，用于跨命名空间失效和接收其他节点的失效消息
+     */
+    private static final Map<String, CaffeineCache> CACHES = new ConcurrentHashMap<>();
+
+    /**
+     * 当前线程正在提交的写语句，由 {@link CacheInvalidationInterceptor} 在提交期间设置
+     */
+    private static final ThreadLocal<Set<String>> COMMITTING_WRITES = new ThreadLocal<>();
+
+    /**
+     * 索引中不属于任何语句的键，选择性失效时总是一并失效
+     */
+    private static final String UNKNOWN_STATEMENT = "";
+
+    private static volatile CacheInvalidationPublisher publisher;
+
+    private final String id;
+
+    private long maximumSize = 10_000;
+
+    private long timeToLiveSeconds = 300;
+
+    /**
+     * 写语句的全限定 id → 受影响的查询语句的全限定 id
+     */
+    private Map<String, Set<String>> invalidationRules = Collections.emptyMap();
+
+    private Set<String> dependsOn = Collections.emptySet();
+
+    private com.github.benmanes.caffeine.cache.Cache<Object, Object> cache;
+
+    /**
+     * 查询语句 id → 该语句缓存的键，用于只失效受影响的语句
+     */
+    private final Map<String, Set<Object>> keysByStatement = new ConcurrentHashMap<>();
+
+    public CaffeineCache(String id) {
+        this.id = id;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public void setTimeToLiveSeconds(long timeToLiveSeconds) {
+        this.timeToLiveSeconds = timeToLiveSeconds;
+    }
+
+    /**
+     * 解析 {@code write=read,read;write=read}，短 id 补全为本命名空间
+     */
+    public void setInvalidates(String invalidates) {
+        Map<String, Set<String>> rules = new HashMap<>();
+        for (String rule : invalidates.split(";")) {
+            if (rule.trim().isEmpty()) {
+                continue;
+            }
+            String[] parts = rule.split("=", 2);
+            Set<String> statements = new HashSet<>();
+            if (parts.length == 2) {
+                for (String statement : parts[1].split(",")) {
+                    if (!statement.trim().isEmpty()) {
+                        statements.add(qualify(statement.trim()));
+                    }
+                }
+            }
+            rules.put(qualify(parts[0].trim()), statements);
+        }
+        this.invalidationRules = rules;
+    }
+
+    public void setDependsOn(String dependsOn) {
+        Set<String> namespaces = new HashSet<>();
+        for (String namespace : dependsOn.split(",")) {
+            if (!namespace.trim().isEmpty()) {
+                namespaces.add(namespace.trim());
+            }
+        }
+        this.dependsOn = namespaces;
+    }
+
+    /**
+     * 所有属性设置完成后由 MyBatis 调用
+     */
+    @Override
+    public void initialize() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLiveSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                // 同步执行，过期和淘汰的键立即从语句索引中移除
+                .executor(Runnable::run)
+                .removalListener((key, value, cause) -> {
+                    if (key != null && cause.wasEvicted()) {
+                        unindex(key);
+                    }
+                })
+                .build();
+        CACHES.put(id, this);
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public void putObject(Object key, Object value) {
+        keysByStatement.computeIfAbsent(statementOf(key), statement -> ConcurrentHashMap.newKeySet()).add(key);
+        cache.put(key, value);
+    }
+
+    @Override
+    public Object getObject(Object key) {
+        return cache.getIfPresent(key);
+    }
+
+    @Override
+    public Object removeObject(Object key) {
+        Object value = cache.asMap().remove(key);
+        unindex(key);
+        return value;
+    }
+
+    /**
+     * 本命名空间的写入提交时由 MyBatis 调用
+     * <p>
+     * 提交的写语句都声明了失效规则时只失效受影响的查询语句，否则清空整个缓存
+     */
+    @Override
+    public void clear() {
+        Set<String> writes = COMMITTING_WRITES.get();
+        Set<String> statements = null;
+        if (writes != null && containsWriteFrom(writes, Collections.singleton(id))) {
+            statements = affectedStatements(writes);
+        }
+        invalidate(statements);
+        publish(statements);
+    }
+
+    @Override
+    public int getSize() {
+        return (int) cache.estimatedSize();
+    }
+
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    /**
+     * 指定命名空间的缓存，没有配置时返回 null
+     */
+    public static CaffeineCache get(String id) {
+        return CACHES.get(id);
+    }
+
+    /**
+     * 设置失效消息的发布者，本节点每次失效后通知其他节点
+     */
+    public static void setPublisher(CacheInvalidationPublisher invalidationPublisher) {
+        publisher = invalidationPublisher;
+    }
+
+    /**
+     * 应用其他节点发来的失效消息，不会再次发布
+     *
+     * @param statementIds 需要失效的查询语句，为空时清空整个缓存
+     */
+    public static void applyRemoteInvalidation(String cacheId, Collection<String> statementIds) {
+        CaffeineCache target = CACHES.get(cacheId);
+        if (target != null) {
+            target.invalidate(statementIds.isEmpty() ? null : new HashSet<>(statementIds));
+        }
+    }
+
+    /**
+     * 开始提交 writes，直到 {@link #endCommit()} 之前，本线程中的 {@link #clear()} 据此做选择性失效
+     */
+    static void beginCommit(Set<String> writes) {
+        COMMITTING_WRITES.set(writes);
+    }
+
+    static void endCommit() {
+        COMMITTING_WRITES.remove();
+    }
+
+    /**
+     * writes 已经提交，失效 dependsOn 中包含这些写语句命名空间的缓存
+     */
+    static void invalidateDependents(Set<String> writes) {
+        for (CaffeineCache dependent : CACHES.values()) {
+            if (containsWriteFrom(writes, dependent.dependsOn)) {
+                Set<String> statements = dependent.affectedStatements(writes);
+                dependent.invalidate(statements);
+                dependent.publish(statements);
+            }
+        }
+    }
+
+    /**
+     * writes 中与本缓存相关的写语句影响的查询语句；有相关写语句没有声明规则时返回 null，表示全部失效
+     */
+    private Set<String> affectedStatements(Set<String> writes) {
+        Set<String> statements = new LinkedHashSet<>();
+        for (String write : writes) {
+            String namespace = namespaceOf(write);
+            if (!namespace.equals(id) && !dependsOn.contains(namespace)) {
+                continue;
+            }
+            Set<String> affected = invalidationRules.get(write);
+            if (affected == null) {
+                return null;
+            }
+            statements.addAll(affected);
+        }
+        return statements;
+    }
+
+    /**
+     * @param statements 需要失效的查询语句，null 表示清空整个缓存
+     */
+    private void invalidate(Set<String> statements) {
+        if (statements == null) {
+            keysByStatement.clear();
+            cache.invalidateAll();
+            return;
+        }
+        for (String statement : statements) {
+            invalidateKeys(keysByStatement.remove(statement));
+        }
+        invalidateKeys(keysByStatement.remove(UNKNOWN_STATEMENT));
+    }
+
+    private void invalidateKeys(Set<Object> keys) {
+        if (keys != null) {
+            cache.invalidateAll(keys);
+        }
+    }
+
+    private void publish(Set<String> statements) {
+        CacheInvalidationPublisher current = publisher;
+        // 没有受影响的语句时不需要通知，空集合在消息中表示清空整个缓存
+        if (current != null && (statements == null || !statements.isEmpty())) {
+            current.publish(id, statements == null ? Collections.<String>emptySet() : statements);
+        }
+    }
+
+    private void unindex(Object key) {
+        Set<Object> keys = keysByStatement.get(statementOf(key));
+        if (keys != null) {
+            keys.remove(key);
+        }
+    }
+
+    private String qualify(String statementId) {
+        return statementId.indexOf('.') >= 0 ? statementId : id + "." + statementId;
+    }
+
+    private static boolean containsWriteFrom(Set<String> writes, Set<String> namespaces) {
+        for (String write : writes) {
+            if (namespaces.contains(namespaceOf(write))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String namespaceOf(String statementId) {
+        int dot = statementId.lastIndexOf('.');
+        return dot < 0 ? "" : statementId.substring(0, dot);
+    }
+
+    /**
+     * CacheKey 依次由语句 id、分页参数、SQL、参数值组成，toString 为 {@code hashcode:checksum:语句id:...}
+     */
+    static String statementOf(Object key) {
+        if (!(key instanceof CacheKey)) {
+            return UNKNOWN_STATEMENT;
+        }
+        String[] parts = key.toString().split(":", 4);
+        return parts.length < 3 ? UNKNOWN_STATEMENT : parts[2];
+    }
+}
@@ -4,6 +4,8 @@ import io.github.daihaowxg.mybatis.model.Author;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.List;
+
 @Mapper
 public interface AuthorMapper {
     /**
@@ -20,4 +22,14 @@ public interface AuthorMapper {
      * 用于验证数据
      */
     Author findAuthorById(@Param("id") int id);
-}
\ No newline at end of file
+
+    /**
+     * 查询所有作者
+     */
+    List<Author> findAllAuthors();
+
+    /**
+     * 作者总数
+     */
+    int countAuthors();
+}
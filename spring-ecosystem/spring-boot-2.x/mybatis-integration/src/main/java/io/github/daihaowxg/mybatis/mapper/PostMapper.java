@@ -0,0 +1,23 @@
+package io.github.daihaowxg.mybatis.mapper;
+
+import io.github.daihaowxg.mybatis.model.Post;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+@Mapper
+public interface PostMapper {
+
+    void insertPost(Post post);
+
+    /**
+     * 作者的文章，关联 Author 表带出作者用户名，结果依赖 AuthorMapper 命名空间的数据
+     */
+    List<Post> findPostsWithAuthor(@Param("authorId") int authorId);
+
+    /**
+     * 作者的文章数，只依赖 Post 表
+     */
+    int countPostsByAuthor(@Param("authorId") int authorId);
+}
@@ -0,0 +1,26 @@
+package io.github.daihaowxg.mybatis.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Setter
+@Getter
+public class Post {
+    private Integer id;
+    private Integer authorId;
+    private String title;
+    /**
+     * 关联查询得到的作者用户名
+     */
+    private String authorName;
+
+    @Override
+    public String toString() {
+        return "Post{" +
+                "id=" + id +
+                ", authorId=" + authorId +
+                ", title='" + title + '\'' +
+                ", authorName='" + authorName + '\'' +
+                '}';
+    }
+}
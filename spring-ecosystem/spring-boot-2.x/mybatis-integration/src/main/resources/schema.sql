@@ -5,4 +5,11 @@ CREATE TABLE Author
     password VARCHAR(255),
     email    VARCHAR(255),
     bio      VARCHAR(255)
-);
\ No newline at end of file
+);
+
+CREATE TABLE Post
+(
+    id        INT PRIMARY KEY,
+    author_id INT,
+    title     VARCHAR(255)
+);
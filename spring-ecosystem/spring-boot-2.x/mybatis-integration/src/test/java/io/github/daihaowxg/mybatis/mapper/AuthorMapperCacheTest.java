@@ -0,0 +1,274 @@
+package io.github.daihaowxg.mybatis.mapper;
+
+import io.github.daihaowxg.mybatis.cache.CaffeineCache;
+import io.github.daihaowxg.mybatis.model.Author;
+import io.github.daihaowxg.mybatis.model.Post;
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 二级缓存测试：命中后不再访问数据库，写入只失效受影响的查询，依赖的命名空间同样失效，
+ * 并对比开启缓存前后同一负载实际执行的查询数。负载的操作次数可以通过 {@code -Dcache.ops=...} 调整。
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:author-cache;DB_CLOSE_DELAY=-1")
+class AuthorMapperCacheTest {
+
+    private static final String AUTHOR_NAMESPACE = AuthorMapper.class.getName();
+    private static final String POST_NAMESPACE = PostMapper.class.getName();
+
+    private static final int OPS = Integer.getInteger("cache.ops", 20_000);
+
+    @Autowired
+    private AuthorMapper authorMapper;
+
+    @Autowired
+    private PostMapper postMapper;
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Autowired
+    private QueryCounter queryCounter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("DELETE FROM Post");
+        jdbcTemplate.execute("DELETE FROM Author");
+        // 上面的删除绕过了 MyBatis，需要手动清空缓存
+        for (Cache cache : sqlSessionFactory.getConfiguration().getCaches()) {
+            cache.clear();
+        }
+        queryCounter.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        CaffeineCache.setPublisher(null);
+        sqlSessionFactory.getConfiguration().setCacheEnabled(true);
+    }
+
+    @Test
+    void testRepeatedReadsHitCache() {
+        authorMapper.insertAuthor(author(1, "alice"));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("alice", authorMapper.findAuthorById(1).getUsername());
+        }
+
+        assertEquals(1, queryCounter.get());
+        assertTrue(CaffeineCache.get(AUTHOR_NAMESPACE).getStats().hitCount() >= 2);
+    }
+
+    @Test
+    void testUpdateInvalidatesOnlyAffectedStatements() {
+        authorMapper.insertAuthor(author(1, "alice"));
+        authorMapper.insertAuthor(author(2, "bob"));
+        authorMapper.findAuthorById(1);
+        authorMapper.findAllAuthors();
+        authorMapper.countAuthors();
+        queryCounter.reset();
+
+        authorMapper.updateAuthorIfNecessary(author(1, "alice2"));
+
+        assertEquals("alice2", authorMapper.findAuthorById(1).getUsername());
+        assertEquals("alice2", authorMapper.findAllAuthors().get(0).getUsername());
+        assertEquals(2, authorMapper.countAuthors());
+        // countAuthors 不受更新影响，仍然命中缓存
+        assertEquals(2, queryCounter.get());
+    }
+
+    @Test
+    void testDependentNamespaceInvalidation() {
+        authorMapper.insertAuthor(author(1, "alice"));
+        postMapper.insertPost(post(1, 1, "first"));
+        postMapper.insertPost(post(2, 1, "second"));
+        assertEquals("alice", postMapper.findPostsWithAuthor(1).get(0).getAuthorName());
+        assertEquals(2, postMapper.countPostsByAuthor(1));
+        queryCounter.reset();
+
+        // AuthorMapper 中的写入失效 PostMapper 中关联作者的查询
+        authorMapper.updateAuthorIfNecessary(author(1, "alice2"));
+        assertEquals("alice2", postMapper.findPostsWithAuthor(1).get(0).getAuthorName());
+        assertEquals(2, postMapper.countPostsByAuthor(1));
+        assertEquals(1, queryCounter.get());
+
+        // 新增作者不影响已有文章，两个查询都命中缓存
+        authorMapper.insertAuthor(author(2, "bob"));
+        postMapper.findPostsWithAuthor(1);
+        postMapper.countPostsByAuthor(1);
+        assertEquals(1, queryCounter.get());
+    }
+
+    @Test
+    void testRolledBackWriteKeepsCache() {
+        authorMapper.insertAuthor(author(1, "alice"));
+        authorMapper.findAuthorById(1);
+        queryCounter.reset();
+
+        new TransactionTemplate(transactionManager).execute(status -> {
+            authorMapper.updateAuthorIfNecessary(author(1, "rolled-back"));
+            // 事务内写入之后的查询不读二级缓存，能看到自己的修改
+            assertEquals("rolled-back", authorMapper.findAuthorById(1).getUsername());
+            status.setRollbackOnly();
+            return null;
+        });
+        queryCounter.reset();
+
+        assertEquals("alice", authorMapper.findAuthorById(1).getUsername());
+        assertEquals(0, queryCounter.get());
+    }
+
+    @Test
+    void testPublishesInvalidationToPeers() {
+        List<String> messages = Collections.synchronizedList(new ArrayList<>());
+        CaffeineCache.setPublisher((cacheId, statementIds) -> messages.add(cacheId + " " + new HashSet<>(statementIds)));
+        authorMapper.insertAuthor(author(1, "alice"));
+        messages.clear();
+
+        authorMapper.updateAuthorIfNecessary(author(1, "alice2"));
+
+        Set<String> authorStatements = new HashSet<>(Arrays.asList(
+                AUTHOR_NAMESPACE + ".findAuthorById", AUTHOR_NAMESPACE + ".findAllAuthors"));
+        assertTrue(messages.contains(AUTHOR_NAMESPACE + " " + authorStatements), messages.toString());
+        assertTrue(messages.contains(POST_NAMESPACE + " [" + POST_NAMESPACE + ".findPostsWithAuthor]"), messages.toString());
+
+        // 模拟收到其他节点的失效消息：本地缓存失效，不会再次发布
+        authorMapper.findAuthorById(1);
+        messages.clear();
+        queryCounter.reset();
+        CaffeineCache.applyRemoteInvalidation(AUTHOR_NAMESPACE,
+                Collections.singleton(AUTHOR_NAMESPACE + ".findAuthorById"));
+        authorMapper.findAuthorById(1);
+        assertEquals(1, queryCounter.get());
+        assertTrue(messages.isEmpty());
+    }
+
+    /**
+     * 读多写少的负载：95% 按 ID 查询（80% 的请求集中在 10% 的作者上）、4% 统计总数、1% 更新作者，
+     * 对比关闭和开启二级缓存时实际执行的查询数。
+     * 失效粒度是语句：每次更新都会失效全部 findAuthorById 的结果，写比例越高，缓存收益越小
+     */
+    @Test
+    void benchmarkQueryReduction() {
+        int authors = 1000;
+        for (int i = 1; i <= authors; i++) {
+            authorMapper.insertAuthor(author(i, "user" + i));
+        }
+
+        sqlSessionFactory.getConfiguration().setCacheEnabled(false);
+        long[] withoutCache = runWorkload(authors);
+        sqlSessionFactory.getConfiguration().setCacheEnabled(true);
+        runWorkload(authors);
+        long[] withCache = runWorkload(authors);
+
+        System.out.printf("%n=== 二级缓存负载: %,d 次操作, %,d 个作者 ===%n", OPS, authors);
+        System.out.printf("关闭缓存: 查询 %,d 次, %,d ms%n", withoutCache[0], withoutCache[1]);
+        System.out.printf("开启缓存: 查询 %,d 次, %,d ms, 查询数减少 %.1f%%, 命中率 %.1f%%%n",
+                withCache[0], withCache[1], 100.0 * (withoutCache[0] - withCache[0]) / withoutCache[0],
+                100 * CaffeineCache.get(AUTHOR_NAMESPACE).getStats().hitRate());
+        assertTrue(withCache[0] < withoutCache[0]);
+    }
+
+    /**
+     * @return [实际执行的查询数, 耗时毫秒]
+     */
+    private long[] runWorkload(int authors) {
+        Random random = new Random(42);
+        queryCounter.reset();
+        long start = System.nanoTime();
+        for (int i = 0; i < OPS; i++) {
+            int op = random.nextInt(100);
+            int id = random.nextInt(10) < 8 ? 1 + random.nextInt(authors / 10) : 1 + random.nextInt(authors);
+            if (op < 95) {
+                assertNotNull(authorMapper.findAuthorById(id));
+            } else if (op < 99) {
+                assertEquals(authors, authorMapper.countAuthors());
+            } else {
+                authorMapper.updateAuthorIfNecessary(author(id, "user" + id + "-" + i));
+            }
+        }
+        return new long[]{queryCounter.get(), (System.nanoTime() - start) / 1_000_000};
+    }
+
+    private static Author author(int id, String username) {
+        Author author = new Author();
+        author.setId(id);
+        author.setUsername(username);
+        author.setEmail(username + "@example.com");
+        return author;
+    }
+
+    private static Post post(int id, int authorId, String title) {
+        Post post = new Post();
+        post.setId(id);
+        post.setAuthorId(authorId);
+        post.setTitle(title);
+        return post;
+    }
+
+    @TestConfiguration
+    static class QueryCounterConfig {
+
+        @Bean
+        QueryCounter queryCounter() {
+            return new QueryCounter();
+        }
+    }
+
+    /**
+     * 统计真正发送到数据库的查询，命中二级缓存的查询不会走到 StatementHandler
+     */
+    @Intercepts(@Signature(type = StatementHandler.class, method = "query", args = {Statement.class, ResultHandler.class}))
+    static class QueryCounter implements Interceptor {
+
+        private final AtomicLong count = new AtomicLong();
+
+        @Override
+        public Object intercept(Invocation invocation) throws Throwable {
+            count.incrementAndGet();
+            return invocation.proceed();
+        }
+
+        long get() {
+            return count.get();
+        }
+
+        void reset() {
+            count.set(0);
+        }
+    }
+}
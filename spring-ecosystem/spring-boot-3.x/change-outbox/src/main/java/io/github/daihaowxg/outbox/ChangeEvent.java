@@ -0,0 +1,21 @@
+package io.github.daihaowxg.outbox;
+
+import java.time.LocalDateTime;
+
+/**
+ * 一条变更事件
+ *
+ * <p>只携带"哪个对象发生了什么变更"，不携带行数据：订阅者按 id 重新读取最新数据（或直接失效缓存），
+ * 事件保持很小，重复投递、乱序合并时也不会用旧数据覆盖新数据。</p>
+ *
+ * @param seq           发件箱中的序号，同一个数据库内单调递增，订阅者按序号顺序收到事件
+ * @param aggregateType 对象类型，例如 user
+ * @param aggregateId   对象ID
+ * @param changeType    变更类型
+ * @param origin        写入这条事件的实例，订阅者可以据此跳过本实例已经同步处理过的变更
+ * @param createdTime   写入时间
+ * @author daihaowxg
+ */
+public record ChangeEvent(long seq, String aggregateType, String aggregateId, ChangeType changeType,
+                          String origin, LocalDateTime createdTime) {
+}
@@ -0,0 +1,20 @@
+package io.github.daihaowxg.outbox;
+
+import java.util.List;
+
+/**
+ * 变更事件的进程内订阅者，例如缓存失效、派生索引更新
+ *
+ * <p>投递语义是至少一次：任意一个订阅者抛出异常时整批事件都不会确认，下次拉取时重新投递给所有订阅者，
+ * 所以处理必须是幂等的（失效缓存、按 id 重新读取最新数据都天然幂等）。</p>
+ *
+ * @author daihaowxg
+ */
+@FunctionalInterface
+public interface ChangeSubscriber {
+
+    /**
+     * @param events 按序号升序的一批事件，不超过 {@code outbox.batch-size} 条
+     */
+    void onChanges(List<ChangeEvent> events);
+}
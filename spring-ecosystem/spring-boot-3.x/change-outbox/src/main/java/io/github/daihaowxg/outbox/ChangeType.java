@@ -0,0 +1,15 @@
+package io.github.daihaowxg.outbox;
+
+/**
+ * 变更类型
+ *
+ * @author daihaowxg
+ */
+public enum ChangeType {
+
+    INSERT,
+
+    UPDATE,
+
+    DELETE
+}
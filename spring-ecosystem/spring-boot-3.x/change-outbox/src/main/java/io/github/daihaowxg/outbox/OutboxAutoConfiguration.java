@@ -0,0 +1,43 @@
+package io.github.daihaowxg.outbox;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnSingleCandidate;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.util.stream.Collectors;
+
+/**
+ * 事务性发件箱自动配置
+ *
+ * <p>引入依赖即生效，设置 {@code outbox.enabled=false} 关闭。只在有唯一（或 @Primary）数据源时配置，
+ * 事件写入该数据源；多数据源应用自行声明 {@link OutboxWriter} 和 {@link OutboxPoller}，这里随之退让。
+ * 容器中的全部 {@link ChangeSubscriber} 按 @Order 顺序接收事件。</p>
+ *
+ * @author daihaowxg
+ */
+@AutoConfiguration(after = DataSourceAutoConfiguration.class)
+@EnableConfigurationProperties(OutboxProperties.class)
+@ConditionalOnProperty(prefix = "outbox", name = "enabled", havingValue = "true", matchIfMissing = true)
+@ConditionalOnSingleCandidate(DataSource.class)
+public class OutboxAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public OutboxWriter outboxWriter(DataSource dataSource, OutboxProperties properties) {
+        return new OutboxWriter(dataSource, properties.getInstanceId());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public OutboxPoller outboxPoller(DataSource dataSource, OutboxProperties properties,
+                                     ObjectProvider<ChangeSubscriber> subscribers) {
+        return new OutboxPoller(properties.getInstanceId(), dataSource,
+                subscribers.orderedStream().collect(Collectors.toList()), properties);
+    }
+}
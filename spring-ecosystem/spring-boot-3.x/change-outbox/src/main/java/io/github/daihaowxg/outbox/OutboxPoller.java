@@ -0,0 +1,296 @@
+package io.github.daihaowxg.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 发件箱拉取器
+ *
+ * <p>后台线程按序号批量拉取 {@code seq > 高水位} 的事件，投递给全部订阅者后把高水位写入
+ * {@code change_outbox_offset}，重启后从上次确认的位置继续：</p>
+ * <ul>
+ *   <li>至少一次：任意订阅者抛出异常时不推进高水位，下次拉取重新投递整批事件</li>
+ *   <li>批量有界：每次最多读取 {@code batch-size} 条；拉满一批时立即拉取下一批，积压时不受拉取间隔限制</li>
+ *   <li>序号空洞：自增序号在插入时分配、提交时才可见，较早开始的事务可能晚于后面的事务提交。
+ *       遇到空洞时只投递空洞之前的事件，等待 {@code gap-timeout} 后仍未出现才认为对应事务已回滚并跳过，
+ *       避免高水位越过一条即将提交的事件</li>
+ *   <li>首次启动（没有进度记录）从当前最大序号开始，不回放历史事件。起点在 {@link #start()} 时就确定，
+ *       早于 ApplicationReadyEvent，订阅者在就绪事件中全量加载的数据不会漏掉之后提交的变更</li>
+ *   <li>定期删除超过 {@code retention} 且已被所有消费者确认（{@code seq <= MIN(last_seq)}）的事件，每次最多删除一批。
+ *       落后的消费者会一直保留它尚未确认的事件；不再使用的消费者需要从 {@code change_outbox_offset} 中删除，
+ *       否则事件不会被清理</li>
+ * </ul>
+ *
+ * <pre>
+ * CREATE TABLE change_outbox_offset (
+ *     consumer VARCHAR(100) PRIMARY KEY,
+ *     last_seq BIGINT NOT NULL,
+ *     updated_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+ * );
+ * </pre>
+ *
+ * @author daihaowxg
+ */
+@Slf4j
+public class OutboxPoller implements SmartLifecycle {
+
+    private static final Duration PURGE_INTERVAL = Duration.ofMinutes(1);
+
+    private static final String SELECT_SQL = "SELECT seq, aggregate_type, aggregate_id, change_type, origin, "
+            + "created_time FROM change_outbox WHERE seq > ? ORDER BY seq LIMIT ?";
+
+    private static final RowMapper<ChangeEvent> EVENT_ROW_MAPPER = (rs, rowNum) -> new ChangeEvent(
+            rs.getLong("seq"),
+            rs.getString("aggregate_type"),
+            rs.getString("aggregate_id"),
+            ChangeType.valueOf(rs.getString("change_type")),
+            rs.getString("origin"),
+            rs.getTimestamp("created_time").toLocalDateTime());
+
+    private final String consumer;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final List<ChangeSubscriber> subscribers;
+
+    private final int batchSize;
+
+    private final Duration pollInterval;
+
+    private final long gapTimeoutNanos;
+
+    private final Duration retention;
+
+    /**
+     * 拉取可能同时来自后台线程和 {@link #pollOnce()} 的直接调用，用锁而不是 synchronized，
+     * 拉取期间有数据库 IO，避免固定虚拟线程
+     */
+    private final ReentrantLock pollLock = new ReentrantLock();
+
+    /**
+     * 已确认的最大序号，-1 表示尚未从数据库加载
+     */
+    private volatile long highWaterMark = -1;
+
+    /**
+     * 正在等待的空洞起始序号和开始等待的时间
+     */
+    private long pendingGapSeq = -1;
+
+    private long pendingGapSince;
+
+    private long lastPurgeNanos = System.nanoTime();
+
+    private volatile ScheduledExecutorService executor;
+
+    /**
+     * @param consumer    消费者名称，即高水位在 {@code change_outbox_offset} 中的主键，每个需要收到全部事件的实例各用一个
+     * @param dataSource  发件箱所在的数据源
+     * @param subscribers 订阅者，按顺序调用
+     * @param properties  拉取配置
+     */
+    public OutboxPoller(String consumer, DataSource dataSource, List<ChangeSubscriber> subscribers,
+                        OutboxProperties properties) {
+        if (properties.getBatchSize() <= 0) {
+            throw new IllegalArgumentException("outbox.batch-size must be positive");
+        }
+        this.consumer = consumer;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.subscribers = List.copyOf(subscribers);
+        this.batchSize = properties.getBatchSize();
+        this.pollInterval = properties.getPollInterval();
+        this.gapTimeoutNanos = properties.getGapTimeout().toNanos();
+        this.retention = properties.getRetention();
+    }
+
+    /**
+     * 拉取并投递一批事件
+     *
+     * @return 本次确认的事件数；订阅者失败时为 0
+     */
+    public int pollOnce() {
+        pollLock.lock();
+        try {
+            ensureHighWaterMark();
+            List<ChangeEvent> fetched = jdbcTemplate.query(SELECT_SQL, EVENT_ROW_MAPPER, highWaterMark, batchSize);
+            List<ChangeEvent> events = contiguousPrefix(fetched);
+            if (events.isEmpty()) {
+                return 0;
+            }
+            for (ChangeSubscriber subscriber : subscribers) {
+                try {
+                    subscriber.onChanges(events);
+                } catch (RuntimeException e) {
+                    log.warn("订阅者处理变更事件失败，{} 条事件 [{}, {}] 将重新投递", events.size(),
+                            events.get(0).seq(), events.get(events.size() - 1).seq(), e);
+                    return 0;
+                }
+            }
+            long lastSeq = events.get(events.size() - 1).seq();
+            jdbcTemplate.update("UPDATE change_outbox_offset SET last_seq = ?, updated_time = CURRENT_TIMESTAMP "
+                    + "WHERE consumer = ?", lastSeq, consumer);
+            highWaterMark = lastSeq;
+            log.debug("消费者 {} 确认 {} 条变更事件，高水位 {}", consumer, events.size(), lastSeq);
+            return events.size();
+        } finally {
+            pollLock.unlock();
+        }
+    }
+
+    /**
+     * 连续拉取直到没有拉满一批，返回确认的事件总数
+     */
+    public int drain() {
+        int total = 0;
+        int polled;
+        do {
+            polled = pollOnce();
+            total += polled;
+        } while (polled == batchSize);
+        return total;
+    }
+
+    /**
+     * 删除超过保留时间且已被所有消费者确认的事件，最多一批
+     *
+     * @return 删除的行数
+     */
+    public int purgeExpired() {
+        Timestamp threshold = Timestamp.valueOf(LocalDateTime.now().minus(retention));
+        // 没有任何消费者时 MIN 为 NULL，不删除
+        int deleted = jdbcTemplate.update("DELETE FROM change_outbox WHERE created_time < ? "
+                        + "AND seq <= (SELECT MIN(last_seq) FROM change_outbox_offset) LIMIT ?",
+                threshold, batchSize);
+        if (deleted > 0) {
+            log.debug("删除 {} 条过期变更事件", deleted);
+        }
+        return deleted;
+    }
+
+    /**
+     * 已确认的最大序号，尚未从数据库加载时为 -1
+     */
+    public long getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    /**
+     * 取出从高水位开始连续的事件。遇到空洞时截断，空洞等待超时后才跳过
+     */
+    private List<ChangeEvent> contiguousPrefix(List<ChangeEvent> fetched) {
+        long expected = highWaterMark + 1;
+        for (int i = 0; i < fetched.size(); i++) {
+            long seq = fetched.get(i).seq();
+            if (seq != expected) {
+                if (!gapExpired(expected)) {
+                    return fetched.subList(0, i);
+                }
+                log.debug("序号 [{}, {}] 等待超时，视为已回滚的事务", expected, seq - 1);
+            }
+            expected = seq + 1;
+        }
+        return fetched;
+    }
+
+    private boolean gapExpired(long gapSeq) {
+        long now = System.nanoTime();
+        if (pendingGapSeq != gapSeq) {
+            pendingGapSeq = gapSeq;
+            pendingGapSince = now;
+        }
+        return now - pendingGapSince >= gapTimeoutNanos;
+    }
+
+    private void ensureHighWaterMark() {
+        if (highWaterMark < 0) {
+            highWaterMark = loadHighWaterMark();
+        }
+    }
+
+    private long loadHighWaterMark() {
+        List<Long> saved = jdbcTemplate.queryForList(
+                "SELECT last_seq FROM change_outbox_offset WHERE consumer = ?", Long.class, consumer);
+        if (!saved.isEmpty()) {
+            return saved.get(0);
+        }
+        Long current = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(seq), 0) FROM change_outbox", Long.class);
+        try {
+            jdbcTemplate.update("INSERT INTO change_outbox_offset (consumer, last_seq) VALUES (?, ?)",
+                    consumer, current);
+            return current;
+        } catch (DuplicateKeyException e) {
+            // 同名消费者已经抢先初始化
+            return jdbcTemplate.queryForObject(
+                    "SELECT last_seq FROM change_outbox_offset WHERE consumer = ?", Long.class, consumer);
+        }
+    }
+
+    private void runScheduled() {
+        try {
+            drain();
+            if (System.nanoTime() - lastPurgeNanos >= PURGE_INTERVAL.toNanos()) {
+                lastPurgeNanos = System.nanoTime();
+                purgeExpired();
+            }
+        } catch (RuntimeException e) {
+            // 抛出异常会终止后续调度，数据库暂时不可用时下次重试即可
+            log.warn("拉取变更事件失败", e);
+        }
+    }
+
+    @Override
+    public void start() {
+        pollLock.lock();
+        try {
+            ensureHighWaterMark();
+        } catch (RuntimeException e) {
+            log.warn("加载消费者 {} 的高水位失败，首次拉取时重试", consumer, e);
+        } finally {
+            pollLock.unlock();
+        }
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "outbox-poller-" + consumer);
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = pollInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::runScheduled, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        this.executor = scheduler;
+    }
+
+    @Override
+    public void stop() {
+        ScheduledExecutorService scheduler = this.executor;
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            scheduler.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        this.executor = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return executor != null;
+    }
+}
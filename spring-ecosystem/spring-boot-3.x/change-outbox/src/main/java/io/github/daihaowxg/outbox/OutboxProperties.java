@@ -0,0 +1,58 @@
+package io.github.daihaowxg.outbox;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 事务性发件箱配置
+ *
+ * <pre>
+ * outbox:
+ *   enabled: true
+ *   instance-id: default
+ *   batch-size: 500
+ *   poll-interval: 200ms
+ *   gap-timeout: 5s
+ *   retention: 1d
+ * </pre>
+ *
+ * @author daihaowxg
+ */
+@Data
+@ConfigurationProperties(prefix = "outbox")
+public class OutboxProperties {
+
+    /**
+     * 是否开启发件箱
+     */
+    private boolean enabled = true;
+
+    /**
+     * 本实例的标识，既是写入事件的 origin，也是拉取进度（高水位）的消费者名称。
+     * 多实例部署时每个实例都需要收到全部事件（各自的本地缓存都要失效），必须设置为不同的值
+     */
+    private String instanceId = "default";
+
+    /**
+     * 每次拉取、投递的最大事件数
+     */
+    private int batchSize = 500;
+
+    /**
+     * 拉取间隔；一次拉满一批时不等待，立即拉取下一批
+     */
+    private Duration pollInterval = Duration.ofMillis(200);
+
+    /**
+     * 序号出现空洞时最多等待多久。序号在插入时分配、提交时才可见，较早开始的事务可能晚提交，
+     * 空洞在这段时间内不跳过；超过后认为对应的事务已经回滚
+     */
+    private Duration gapTimeout = Duration.ofSeconds(5);
+
+    /**
+     * 事件保留时间，超过且已被所有消费者确认后删除
+     */
+    private Duration retention = Duration.ofDays(1);
+}
@@ -0,0 +1,83 @@
+package io.github.daihaowxg.outbox;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 发件箱写入
+ *
+ * <p>在业务事务中把变更记录到 {@code change_outbox} 表：事件和业务数据一起提交、一起回滚，
+ * 不会出现"数据改了但没有事件"或"发了事件但数据回滚了"。因此必须在该数据源的事务中调用，
+ * 没有事务时直接抛出异常，而不是退化成单独提交。</p>
+ *
+ * <pre>
+ * CREATE TABLE change_outbox (
+ *     seq BIGINT AUTO_INCREMENT PRIMARY KEY,
+ *     aggregate_type VARCHAR(50) NOT NULL,
+ *     aggregate_id VARCHAR(64) NOT NULL,
+ *     change_type VARCHAR(10) NOT NULL,
+ *     origin VARCHAR(100) NOT NULL,
+ *     created_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+ * );
+ * </pre>
+ *
+ * @author daihaowxg
+ */
+public class OutboxWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO change_outbox (aggregate_type, aggregate_id, change_type, origin) VALUES (?, ?, ?, ?)";
+
+    private final DataSource dataSource;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final String origin;
+
+    /**
+     * @param dataSource 业务数据所在的数据源，事件写入同一个库
+     * @param origin     本实例的标识
+     */
+    public OutboxWriter(DataSource dataSource, String origin) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.origin = origin;
+    }
+
+    /**
+     * 记录一个对象的变更
+     */
+    public void record(String aggregateType, Object aggregateId, ChangeType changeType) {
+        requireTransaction();
+        jdbcTemplate.update(INSERT_SQL, aggregateType, String.valueOf(aggregateId), changeType.name(), origin);
+    }
+
+    /**
+     * 记录一批对象的同一种变更，一个 JDBC 批次写入
+     */
+    public void recordAll(String aggregateType, Collection<?> aggregateIds, ChangeType changeType) {
+        if (aggregateIds.isEmpty()) {
+            return;
+        }
+        requireTransaction();
+        List<Object[]> args = new ArrayList<>(aggregateIds.size());
+        for (Object aggregateId : aggregateIds) {
+            args.add(new Object[]{aggregateType, String.valueOf(aggregateId), changeType.name(), origin});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, args);
+    }
+
+    private void requireTransaction() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.hasResource(dataSource)) {
+            throw new IllegalTransactionStateException(
+                    "Outbox events must be written in the same transaction as the change they describe");
+        }
+    }
+}
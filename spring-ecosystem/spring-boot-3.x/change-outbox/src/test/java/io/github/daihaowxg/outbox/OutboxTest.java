@@ -0,0 +1,269 @@
+package io.github.daihaowxg.outbox;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 事务性发件箱测试：事件随事务提交/回滚，按序号分批投递，订阅者失败时重新投递，
+ * 序号空洞等待较早事务提交，高水位持久化
+ *
+ * @author daihaowxg
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:change-outbox;DB_CLOSE_DELAY=-1",
+        "outbox.instance-id=test",
+        "outbox.batch-size=3",
+        "outbox.gap-timeout=300ms",
+        // 测试中手动拉取，后台线程不参与
+        "outbox.poll-interval=1h"
+})
+class OutboxTest {
+
+    private static final long GAP_TIMEOUT_MILLIS = 300;
+
+    @Autowired
+    private OutboxWriter outboxWriter;
+
+    @Autowired
+    private OutboxPoller outboxPoller;
+
+    @Autowired
+    private RecordingSubscriber subscriber;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        // 上一个测试可能留下回滚造成的空洞，等空洞超时后拉完剩余事件
+        Thread.sleep(GAP_TIMEOUT_MILLIS + 50);
+        outboxPoller.drain();
+        subscriber.batches.clear();
+        subscriber.failuresLeft = 0;
+    }
+
+    @Test
+    void testWriterRequiresTransaction() {
+        assertThrows(IllegalTransactionStateException.class,
+                () -> outboxWriter.record("user", 1L, ChangeType.INSERT));
+        assertThrows(IllegalTransactionStateException.class,
+                () -> outboxWriter.recordAll("user", List.of(1L, 2L), ChangeType.DELETE));
+    }
+
+    @Test
+    void testDeliversCommittedEventsInBoundedBatches() {
+        transactionTemplate.executeWithoutResult(status -> {
+            outboxWriter.record("user", 1L, ChangeType.INSERT);
+            outboxWriter.recordAll("user", List.of(2L, 3L, 4L, 5L), ChangeType.UPDATE);
+        });
+
+        assertEquals(5, outboxPoller.drain());
+
+        assertEquals(2, subscriber.batches.size());
+        assertEquals(3, subscriber.batches.get(0).size());
+        assertEquals(2, subscriber.batches.get(1).size());
+        List<ChangeEvent> events = subscriber.all();
+        assertEquals(List.of("1", "2", "3", "4", "5"), events.stream().map(ChangeEvent::aggregateId).toList());
+        assertEquals(ChangeType.INSERT, events.get(0).changeType());
+        assertEquals("test", events.get(0).origin());
+        for (int i = 1; i < events.size(); i++) {
+            assertTrue(events.get(i).seq() > events.get(i - 1).seq());
+        }
+        assertEquals(events.get(4).seq(), outboxPoller.getHighWaterMark());
+    }
+
+    @Test
+    void testRolledBackEventsAreNeverDelivered() throws InterruptedException {
+        transactionTemplate.executeWithoutResult(status -> {
+            outboxWriter.record("user", 10L, ChangeType.DELETE);
+            status.setRollbackOnly();
+        });
+        transactionTemplate.executeWithoutResult(status -> outboxWriter.record("user", 11L, ChangeType.UPDATE));
+
+        // 回滚留下的空洞在超时前挡住后面的事件
+        assertEquals(0, outboxPoller.pollOnce());
+        Thread.sleep(GAP_TIMEOUT_MILLIS + 50);
+        assertEquals(1, outboxPoller.pollOnce());
+        assertEquals(List.of("11"), subscriber.all().stream().map(ChangeEvent::aggregateId).toList());
+    }
+
+    @Test
+    void testGapWaitsForEarlierTransactionToCommit() throws Exception {
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // 先分配序号的事务晚提交
+            Future<?> slow = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                outboxWriter.record("user", 20L, ChangeType.INSERT);
+                written.countDown();
+                try {
+                    assertTrue(commit.await(5, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+            assertTrue(written.await(5, TimeUnit.SECONDS));
+            transactionTemplate.executeWithoutResult(status -> outboxWriter.record("user", 21L, ChangeType.INSERT));
+
+            assertEquals(0, outboxPoller.pollOnce());
+
+            commit.countDown();
+            slow.get(5, TimeUnit.SECONDS);
+            assertEquals(2, outboxPoller.pollOnce());
+            assertEquals(List.of("20", "21"), subscriber.all().stream().map(ChangeEvent::aggregateId).toList());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testFailedSubscriberCausesRedelivery() {
+        transactionTemplate.executeWithoutResult(status ->
+                outboxWriter.recordAll("user", List.of(30L, 31L), ChangeType.UPDATE));
+        long before = outboxPoller.getHighWaterMark();
+
+        subscriber.failuresLeft = 1;
+        assertEquals(0, outboxPoller.pollOnce());
+        assertEquals(before, outboxPoller.getHighWaterMark());
+
+        assertEquals(2, outboxPoller.pollOnce());
+        // 失败的那次也收到过，同一批事件投递了两次
+        assertEquals(2, subscriber.batches.size());
+        assertEquals(subscriber.batches.get(0), subscriber.batches.get(1));
+    }
+
+    @Test
+    void testOffsetIsPersistedPerConsumer() {
+        transactionTemplate.executeWithoutResult(status -> outboxWriter.record("user", 40L, ChangeType.INSERT));
+        outboxPoller.drain();
+        long highWaterMark = outboxPoller.getHighWaterMark();
+        assertEquals(highWaterMark, jdbcTemplate.queryForObject(
+                "SELECT last_seq FROM change_outbox_offset WHERE consumer = 'test'", Long.class));
+
+        transactionTemplate.executeWithoutResult(status -> outboxWriter.record("user", 41L, ChangeType.UPDATE));
+
+        // 同名消费者（重启后）从持久化的高水位继续
+        List<ChangeEvent> resumed = new ArrayList<>();
+        OutboxPoller restarted = new OutboxPoller("test", dataSource, List.of(resumed::addAll), properties());
+        assertEquals(1, restarted.pollOnce());
+        assertEquals("41", resumed.get(0).aggregateId());
+
+        // 新消费者从当前最大序号开始，不回放历史
+        List<ChangeEvent> fresh = new ArrayList<>();
+        OutboxPoller newcomer = new OutboxPoller("newcomer", dataSource, List.of(fresh::addAll), properties());
+        assertEquals(0, newcomer.pollOnce());
+        assertEquals(restarted.getHighWaterMark(), newcomer.getHighWaterMark());
+        assertTrue(fresh.isEmpty());
+    }
+
+    @Test
+    void testPurgeExpiredIsBounded() {
+        // 其他测试注册的消费者停在较早的序号，会阻止删除
+        jdbcTemplate.update("DELETE FROM change_outbox_offset WHERE consumer <> 'test'");
+        transactionTemplate.executeWithoutResult(status ->
+                outboxWriter.recordAll("user", List.of(50L, 51L, 52L, 53L), ChangeType.DELETE));
+        outboxPoller.drain();
+
+        OutboxPoller purger = new OutboxPoller("purger", dataSource, List.of(), expireImmediately());
+
+        assertEquals(3, purger.purgeExpired());
+        while (purger.purgeExpired() > 0) {
+            // 分批删完
+        }
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM change_outbox", Integer.class));
+    }
+
+    @Test
+    void testPurgeKeepsEventsUnconfirmedByLaggingConsumer() {
+        jdbcTemplate.update("DELETE FROM change_outbox_offset WHERE consumer <> 'test'");
+        List<ChangeEvent> received = new ArrayList<>();
+        OutboxPoller lagging = new OutboxPoller("lagging", dataSource, List.of(received::addAll), properties());
+        assertEquals(0, lagging.pollOnce());
+        transactionTemplate.executeWithoutResult(status ->
+                outboxWriter.recordAll("user", List.of(60L, 61L), ChangeType.UPDATE));
+        outboxPoller.drain();
+
+        // test 已确认，lagging 还没有拉取，过期也不能删除
+        OutboxPoller purger = new OutboxPoller("purger", dataSource, List.of(), expireImmediately());
+        while (purger.purgeExpired() > 0) {
+            // 删除两个消费者都已确认的旧事件
+        }
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM change_outbox WHERE seq > ?", Integer.class, lagging.getHighWaterMark()));
+
+        assertEquals(2, lagging.drain());
+        assertEquals(List.of("60", "61"), received.stream().map(ChangeEvent::aggregateId).toList());
+        assertEquals(2, purger.purgeExpired());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM change_outbox", Integer.class));
+    }
+
+    private static OutboxProperties expireImmediately() {
+        OutboxProperties properties = properties();
+        properties.setRetention(Duration.ofSeconds(-1));
+        return properties;
+    }
+
+    private static OutboxProperties properties() {
+        OutboxProperties properties = new OutboxProperties();
+        properties.setBatchSize(3);
+        properties.setGapTimeout(Duration.ofMillis(GAP_TIMEOUT_MILLIS));
+        return properties;
+    }
+
+    static class RecordingSubscriber implements ChangeSubscriber {
+
+        final List<List<ChangeEvent>> batches = new ArrayList<>();
+
+        volatile int failuresLeft;
+
+        @Override
+        public void onChanges(List<ChangeEvent> events) {
+            batches.add(List.copyOf(events));
+            if (failuresLeft > 0) {
+                failuresLeft--;
+                throw new IllegalStateException("subscriber unavailable");
+            }
+        }
+
+        List<ChangeEvent> all() {
+            return batches.stream().flatMap(List::stream).toList();
+        }
+    }
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    static class TestApplication {
+
+        @Bean
+        RecordingSubscriber recordingSubscriber() {
+            return new RecordingSubscriber();
+        }
+    }
+}
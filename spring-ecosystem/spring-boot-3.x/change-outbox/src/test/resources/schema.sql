@@ -0,0 +1,14 @@
+CREATE TABLE IF NOT EXISTS change_outbox (
+    seq BIGINT AUTO_INCREMENT PRIMARY KEY,
+    aggregate_type VARCHAR(50) NOT NULL,
+    aggregate_id VARCHAR(64) NOT NULL,
+    change_type VARCHAR(10) NOT NULL,
+    origin VARCHAR(100) NOT NULL,
+    created_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS change_outbox_offset (
+    consumer VARCHAR(100) PRIMARY KEY,
+    last_seq BIGINT NOT NULL,
+    updated_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
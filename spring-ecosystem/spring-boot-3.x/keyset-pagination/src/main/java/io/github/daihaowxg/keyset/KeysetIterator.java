@@ -0,0 +1,79 @@
+package io.github.daihaowxg.keyset;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.ToLongFunction;
+
+/**
+ * 键集分页（keyset pagination）迭代器。
+ * <p>
+ * 每次只加载一页：{@code WHERE id > ? ORDER BY id LIMIT ?}，下一页从上一页最后一条的 id 继续。
+ * 与 {@code LIMIT ? OFFSET ?} 相比，每一页都能直接走主键索引定位，不会随着页码增大而变慢；
+ * 与流式 ResultSet 相比，不需要在整个遍历期间占用一个连接。
+ * <p>
+ * 内存中最多只保留一页数据。
+ *
+ * @author daihaowxg
+ */
+public class KeysetIterator<T> implements Iterator<T> {
+
+    /**
+     * 加载 id 大于 afterId 的下一页，必须按 id 升序返回。
+     */
+    @FunctionalInterface
+    public interface PageLoader<T> {
+        List<T> load(long afterId, int limit);
+    }
+
+    private final PageLoader<T> loader;
+    private final ToLongFunction<T> idExtractor;
+    private final int pageSize;
+
+    private List<T> page = List.of();
+    private int index;
+    private long lastId;
+    private boolean lastPage;
+
+    public KeysetIterator(PageLoader<T> loader, ToLongFunction<T> idExtractor, int pageSize) {
+        this(loader, idExtractor, pageSize, 0L);
+    }
+
+    /**
+     * @param startAfterId 从该 id 之后开始遍历，可用于断点续传
+     */
+    public KeysetIterator(PageLoader<T> loader, ToLongFunction<T> idExtractor, int pageSize, long startAfterId) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be positive");
+        }
+        this.loader = loader;
+        this.idExtractor = idExtractor;
+        this.pageSize = pageSize;
+        this.lastId = startAfterId;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (index < page.size()) {
+            return true;
+        }
+        if (lastPage) {
+            return false;
+        }
+        page = loader.load(lastId, pageSize);
+        index = 0;
+        // 不足一页说明已经到末尾，省掉最后一次空查询
+        lastPage = page.size() < pageSize;
+        return !page.isEmpty();
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T item = page.get(index++);
+        lastId = idExtractor.applyAsLong(item);
+        return item;
+    }
+}
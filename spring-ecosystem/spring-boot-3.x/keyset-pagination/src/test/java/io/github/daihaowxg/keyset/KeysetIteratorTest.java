@@ -0,0 +1,87 @@
+package io.github.daihaowxg.keyset;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link KeysetIterator} 的分页和边界测试
+ *
+ * @author daihaowxg
+ */
+class KeysetIteratorTest {
+
+    @Test
+    void testIteratesAllPages() {
+        RecordingLoader loader = new RecordingLoader(10);
+        List<Long> ids = drain(new KeysetIterator<>(loader, Long::longValue, 3));
+
+        assertEquals(LongStream.rangeClosed(1, 10).boxed().toList(), ids);
+        // 第 4 页只有 1 条，不足一页，不再发出空查询
+        assertEquals(List.of(0L, 3L, 6L, 9L), loader.afterIds);
+    }
+
+    @Test
+    void testExactMultipleOfPageSize() {
+        RecordingLoader loader = new RecordingLoader(6);
+        List<Long> ids = drain(new KeysetIterator<>(loader, Long::longValue, 3));
+
+        assertEquals(6, ids.size());
+        // 最后一页恰好满页时，需要再查一次才能确认已经到末尾
+        assertEquals(List.of(0L, 3L, 6L), loader.afterIds);
+    }
+
+    @Test
+    void testStartAfterId() {
+        RecordingLoader loader = new RecordingLoader(10);
+        List<Long> ids = drain(new KeysetIterator<>(loader, Long::longValue, 4, 7L));
+
+        assertEquals(List.of(8L, 9L, 10L), ids);
+        assertEquals(List.of(7L), loader.afterIds);
+    }
+
+    @Test
+    void testEmptyTable() {
+        KeysetIterator<Long> iterator = new KeysetIterator<>(new RecordingLoader(0), Long::longValue, 5);
+
+        assertFalse(iterator.hasNext());
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+
+    @Test
+    void testInvalidPageSize() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new KeysetIterator<>(new RecordingLoader(1), Long::longValue, 0));
+    }
+
+    private static List<Long> drain(KeysetIterator<Long> iterator) {
+        List<Long> ids = new ArrayList<>();
+        iterator.forEachRemaining(ids::add);
+        return ids;
+    }
+
+    /**
+     * 模拟 id 为 1..rows 的表，记录每次查询的 afterId
+     */
+    private static class RecordingLoader implements KeysetIterator.PageLoader<Long> {
+
+        private final long rows;
+
+        private final List<Long> afterIds = new ArrayList<>();
+
+        RecordingLoader(long rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public List<Long> load(long afterId, int limit) {
+            afterIds.add(afterId);
+            return LongStream.rangeClosed(afterId + 1, Math.min(rows, afterId + limit)).boxed().toList();
+        }
+    }
+}
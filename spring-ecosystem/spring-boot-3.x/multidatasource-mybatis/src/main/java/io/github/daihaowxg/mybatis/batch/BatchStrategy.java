@@ -0,0 +1,24 @@
+package io.github.daihaowxg.mybatis.batch;
+
+/**
+ * 批量写入策略
+ *
+ * @author daihaowxg
+ */
+public enum BatchStrategy {
+
+    /**
+     * SIMPLE 执行器逐条 INSERT，每行一次往返
+     */
+    SIMPLE,
+
+    /**
+     * 多行 VALUES，每条语句写入一组行
+     */
+    MULTI_ROW,
+
+    /**
+     * BATCH 执行器，同一条单行 INSERT 攒成 JDBC batch 后一起执行
+     */
+    BATCH_EXECUTOR
+}
@@ -0,0 +1,51 @@
+package io.github.daihaowxg.mybatis.batch;
+
+import lombok.Getter;
+
+/**
+ * 按行数选择批量写入策略
+ *
+ * <ul>
+ * <li>行数少于 multiRowThreshold：{@link BatchStrategy#SIMPLE}，逐条插入，和单行写入走同一条路径</li>
+ * <li>行数少于 batchExecutorThreshold：{@link BatchStrategy#MULTI_ROW}，每 multiRowSize 行一条语句</li>
+ * <li>更多的行：{@link BatchStrategy#BATCH_EXECUTOR}，每 flushSize 行执行一次 batch。
+ * 多行 INSERT 的语句由 MyBatis 动态拼接，行数越多拼接和解析的开销越大，
+ * BATCH 执行器则始终复用同一条预编译的单行 INSERT</li>
+ * </ul>
+ *
+ * @author daihaowxg
+ */
+@Getter
+public class BatchWritePolicy {
+
+    private final int multiRowThreshold;
+
+    private final int multiRowSize;
+
+    private final int batchExecutorThreshold;
+
+    private final int flushSize;
+
+    public BatchWritePolicy(int multiRowThreshold, int multiRowSize, int batchExecutorThreshold, int flushSize) {
+        if (multiRowSize < 1 || flushSize < 1) {
+            throw new IllegalArgumentException("multiRowSize and flushSize must be positive");
+        }
+        this.multiRowThreshold = multiRowThreshold;
+        this.multiRowSize = multiRowSize;
+        this.batchExecutorThreshold = batchExecutorThreshold;
+        this.flushSize = flushSize;
+    }
+
+    /**
+     * 写入 rows 行时使用的策略
+     */
+    public BatchStrategy choose(int rows) {
+        if (rows < multiRowThreshold) {
+            return BatchStrategy.SIMPLE;
+        }
+        if (rows < batchExecutorThreshold) {
+            return BatchStrategy.MULTI_ROW;
+        }
+        return BatchStrategy.BATCH_EXECUTOR;
+    }
+}
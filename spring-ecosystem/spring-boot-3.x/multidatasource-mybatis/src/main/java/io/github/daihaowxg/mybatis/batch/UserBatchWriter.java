@@ -0,0 +1,157 @@
+package io.github.daihaowxg.mybatis.batch;
+
+import io.github.daihaowxg.mybatis.entity.User;
+import io.github.daihaowxg.mybatis.mapper.UserWriteMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.session.ExecutorType;
+import org.mybatis.spring.SqlSessionHolder;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 一个数据源的用户批量写入
+ *
+ * <p>
+ * 整个列表在一个事务中写入（调用方已有事务时加入），生成的主键回填到每个 User。
+ * 按 {@link BatchWritePolicy} 根据行数选择写入方式：
+ * </p>
+ * <ul>
+ * <li><b>SIMPLE：</b>普通 Mapper 逐条 {@code insert}</li>
+ * <li><b>MULTI_ROW：</b>普通 Mapper 分组调用 {@code insertAll}，每组一条多行 INSERT</li>
+ * <li><b>BATCH_EXECUTOR：</b>从 BATCH 执行器的 SqlSessionTemplate 获取的 Mapper 逐条 {@code insert}，
+ * 每 flushSize 行 {@code flushStatements} 一次，限制驱动中缓存的参数数量</li>
+ * </ul>
+ *
+ * <p>
+ * <b>注意：</b>MyBatis 不允许在同一个事务中切换执行器类型。调用方已经在这个数据源上开启了事务时，
+ * 事务中的普通 Mapper 调用使用 SIMPLE 执行器，因此即使行数达到阈值也改用 MULTI_ROW。
+ * 需要和写入一起提交的其他操作（例如记录发件箱事件）通过 {@link #saveAll(List, Consumer)} 的回调放进
+ * 写入器自己的事务，不要在外面先开启事务。
+ * </p>
+ *
+ * @author daihaowxg
+ */
+@Slf4j
+public class UserBatchWriter {
+
+    private final String name;
+    private final UserWriteMapper userMapper;
+    private final SqlSessionTemplate batchSqlSession;
+    private final UserWriteMapper batchUserMapper;
+    private final DataSource dataSource;
+    private final TransactionTemplate transactionTemplate;
+    private final BatchWritePolicy policy;
+
+    /**
+     * @param name               数据源名称，用于日志
+     * @param userMapper         普通（SIMPLE 执行器）Mapper
+     * @param mapperType         Mapper 接口，用于从 batchSqlSession 获取 BATCH 执行器的 Mapper
+     * @param batchSqlSession    同一个 SqlSessionFactory 上 BATCH 执行器的 SqlSessionTemplate
+     * @param transactionManager 这个数据源的事务管理器
+     */
+    public UserBatchWriter(String name,
+                           UserWriteMapper userMapper,
+                           Class<? extends UserWriteMapper> mapperType,
+                           SqlSessionTemplate batchSqlSession,
+                           PlatformTransactionManager transactionManager,
+                           BatchWritePolicy policy) {
+        this.name = name;
+        this.userMapper = userMapper;
+        this.batchSqlSession = batchSqlSession;
+        this.batchUserMapper = batchSqlSession.getMapper(mapperType);
+        this.dataSource = batchSqlSession.getSqlSessionFactory().getConfiguration().getEnvironment().getDataSource();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.policy = policy;
+    }
+
+    /**
+     * 按行数选择策略写入
+     *
+     * @return 实际使用的策略
+     */
+    public BatchStrategy saveAll(List<User> users) {
+        return saveAll(users, saved -> {
+        });
+    }
+
+    /**
+     * 按行数选择策略写入，写入并回填主键后在同一个事务中执行 afterInsert
+     *
+     * <p>
+     * afterInsert 抛出异常时整个事务回滚，已写入的用户也不会提交
+     * </p>
+     *
+     * @return 实际使用的策略
+     */
+    public BatchStrategy saveAll(List<User> users, Consumer<List<User>> afterInsert) {
+        BatchStrategy strategy = policy.choose(users.size());
+        if (strategy == BatchStrategy.BATCH_EXECUTOR && !canUseBatchExecutor()) {
+            log.debug("{} 数据源上已有事务，改用多行插入", name);
+            strategy = BatchStrategy.MULTI_ROW;
+        }
+        saveAll(users, strategy, afterInsert);
+        return strategy;
+    }
+
+    /**
+     * 使用指定的策略写入
+     */
+    public void saveAll(List<User> users, BatchStrategy strategy) {
+        saveAll(users, strategy, saved -> {
+        });
+    }
+
+    private void saveAll(List<User> users, BatchStrategy strategy, Consumer<List<User>> afterInsert) {
+        if (users.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            switch (strategy) {
+                case SIMPLE -> users.forEach(userMapper::insert);
+                case MULTI_ROW -> insertMultiRow(users);
+                case BATCH_EXECUTOR -> insertBatch(users);
+            }
+            afterInsert.accept(users);
+        });
+        log.debug("{} 数据源写入 {} 行，策略: {}，耗时 {} ms",
+                name, users.size(), strategy, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void insertMultiRow(List<User> users) {
+        int size = policy.getMultiRowSize();
+        for (int from = 0; from < users.size(); from += size) {
+            userMapper.insertAll(users.subList(from, Math.min(from + size, users.size())));
+        }
+    }
+
+    private void insertBatch(List<User> users) {
+        int flushSize = policy.getFlushSize();
+        for (int i = 0; i < users.size(); i++) {
+            batchUserMapper.insert(users.get(i));
+            if ((i + 1) % flushSize == 0) {
+                batchSqlSession.flushStatements();
+            }
+        }
+        // 提交时也会 flush，这里提前执行是为了在返回前回填最后一组的主键
+        batchSqlSession.flushStatements();
+    }
+
+    /**
+     * 这个数据源上没有进行中的事务，或者事务中已经是 BATCH 执行器时才能使用 BATCH 执行器
+     */
+    private boolean canUseBatchExecutor() {
+        if (!TransactionSynchronizationManager.hasResource(dataSource)) {
+            return true;
+        }
+        Object holder = TransactionSynchronizationManager.getResource(batchSqlSession.getSqlSessionFactory());
+        return holder instanceof SqlSessionHolder sqlSessionHolder
+                && sqlSessionHolder.getExecutorType() == ExecutorType.BATCH;
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.daihaowxg.mybatis.config;
+
+import io.github.daihaowxg.mybatis.batch.BatchWritePolicy;
+import io.github.daihaowxg.mybatis.batch.UserBatchWriter;
+import io.github.daihaowxg.mybatis.mapper.primary.PrimaryUserMapper;
+import io.github.daihaowxg.mybatis.mapper.secondary.SecondaryUserMapper;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * 批量写入配置
+ *
+ * <p>
+ * 每个数据源一个 {@link UserBatchWriter}，共用同一个按行数选择策略的 {@link BatchWritePolicy}。
+ * </p>
+ *
+ * <pre>
+ * batch-write:
+ *   multi-row-threshold: 10
+ *   multi-row-size: 500
+ *   batch-executor-threshold: 10000
+ *   flush-size: 1000
+ * </pre>
+ *
+ * @author daihaowxg
+ */
+@Configuration
+public class BatchWriteConfig {
+
+    @Bean
+    public BatchWritePolicy batchWritePolicy(@Value("${batch-write.multi-row-threshold:10}") int multiRowThreshold,
+                                             @Value("${batch-write.multi-row-size:500}") int multiRowSize,
+                                             @Value("${batch-write.batch-executor-threshold:10000}") int batchExecutorThreshold,
+                                             @Value("${batch-write.flush-size:1000}") int flushSize) {
+        return new BatchWritePolicy(multiRowThreshold, multiRowSize, batchExecutorThreshold, flushSize);
+    }
+
+    @Bean(name = "primaryUserBatchWriter")
+    public UserBatchWriter primaryUserBatchWriter(PrimaryUserMapper primaryUserMapper,
+                                                  @Qualifier("primaryBatchSqlSessionTemplate") SqlSessionTemplate batchSqlSession,
+                                                  @Qualifier("primaryTransactionManager") PlatformTransactionManager transactionManager,
+                                                  BatchWritePolicy batchWritePolicy) {
+        return new UserBatchWriter("primary", primaryUserMapper, PrimaryUserMapper.class,
+                batchSqlSession, transactionManager, batchWritePolicy);
+    }
+
+    @Bean(name = "secondaryUserBatchWriter")
+    public UserBatchWriter secondaryUserBatchWriter(SecondaryUserMapper secondaryUserMapper,
+                                                    @Qualifier("secondaryBatchSqlSessionTemplate") SqlSessionTemplate batchSqlSession,
+                                                    @Qualifier("secondaryTransactionManager") PlatformTransactionManager transactionManager,
+                                                    BatchWritePolicy batchWritePolicy) {
+        return new UserBatchWriter("secondary", secondaryUserMapper, SecondaryUserMapper.class,
+                batchSqlSession, transactionManager, batchWritePolicy);
+    }
+}
@@ -0,0 +1,68 @@
+package io.github.daihaowxg.mybatis.config;
+
+import io.github.daihaowxg.mybatis.mapper.primary.PrimaryUserMapper;
+import io.github.daihaowxg.mybatis.sync.SecondaryReplicaUpdater;
+import io.github.daihaowxg.outbox.OutboxPoller;
+import io.github.daihaowxg.outbox.OutboxProperties;
+import io.github.daihaowxg.outbox.OutboxWriter;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * 主数据源的事务性发件箱配置
+ *
+ * <p>
+ * 只有主数据源记录变更：第二个数据源中同步过来的用户是主数据源的副本，
+ * 由 {@link SecondaryReplicaUpdater} 按主数据源的事件更新。
+ * </p>
+ *
+ * <p>
+ * <b>关键点：</b>
+ * </p>
+ * <ul>
+ * <li>change-outbox 的自动配置只认唯一（或 @Primary）数据源，这里显式绑定到 primaryDataSource，
+ * 同类型的 Bean 已存在时自动配置不再创建</li>
+ * <li>事件必须在 primaryTransactionManager 的事务中写入</li>
+ * </ul>
+ *
+ * <pre>
+ * outbox:
+ *   instance-id: multidatasource-mybatis
+ *   batch-size: 500
+ *   poll-interval: 200ms
+ * </pre>
+ *
+ * @author daihaowxg
+ */
+@Configuration
+@EnableConfigurationProperties(OutboxProperties.class)
+public class OutboxConfig {
+
+    @Bean(name = "primaryOutboxWriter")
+    public OutboxWriter primaryOutboxWriter(@Qualifier("primaryDataSource") DataSource dataSource,
+                                            OutboxProperties properties) {
+        return new OutboxWriter(dataSource, properties.getInstanceId());
+    }
+
+    @Bean
+    public SecondaryReplicaUpdater secondaryReplicaUpdater(PrimaryUserMapper primaryUserMapper,
+                                                           @Qualifier("secondaryBatchSqlSessionTemplate") SqlSessionTemplate batchSqlSession,
+                                                           @Qualifier("secondaryTransactionManager") PlatformTransactionManager transactionManager) {
+        return new SecondaryReplicaUpdater(primaryUserMapper, batchSqlSession, transactionManager);
+    }
+
+    @Bean(name = "primaryOutboxPoller")
+    public OutboxPoller primaryOutboxPoller(@Qualifier("primaryDataSource") DataSource dataSource,
+                                            OutboxProperties properties,
+                                            SecondaryReplicaUpdater secondaryReplicaUpdater) {
+        return new OutboxPoller(SecondaryReplicaUpdater.CONSUMER, dataSource, List.of(secondaryReplicaUpdater),
+                properties);
+    }
+}
@@ -1,6 +1,7 @@
 package io.github.daihaowxg.mybatis.config;
 
 import com.zaxxer.hikari.HikariDataSource;
+import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.mybatis.spring.SqlSessionFactoryBean;
 import org.mybatis.spring.SqlSessionTemplate;
@@ -26,6 +27,7 @@ import javax.sql.DataSource;
  * <li>DataSource - 数据源</li>
  * <li>SqlSessionFactory - MyBatis 会话工厂</li>
  * <li>SqlSessionTemplate - MyBatis 会话模板</li>
+ * <li>批量 SqlSessionTemplate - BATCH 执行器的会话模板，用于大批量写入</li>
  * <li>TransactionManager - 事务管理器</li>
  * </ul>
  * 
@@ -97,6 +99,20 @@ public class PrimaryMyBatisConfig {
         return new SqlSessionTemplate(sqlSessionFactory);
     }
 
+    /**
+     * 主数据源的批量 SqlSessionTemplate
+     * 
+     * <p>
+     * 使用 BATCH 执行器：同一事务内的语句先攒在 JDBC batch 中，flushStatements 或提交时统一 executeBatch。
+     * 必须在事务中使用，否则每条语句都会单独提交，起不到批量的作用
+     * </p>
+     */
+    @Bean(name = "primaryBatchSqlSessionTemplate")
+    public SqlSessionTemplate primaryBatchSqlSessionTemplate(
+            @Qualifier("primarySqlSessionFactory") SqlSessionFactory sqlSessionFactory) {
+        return new SqlSessionTemplate(sqlSessionFactory, ExecutorType.BATCH);
+    }
+
     /**
      * 主数据源的事务管理器
      */
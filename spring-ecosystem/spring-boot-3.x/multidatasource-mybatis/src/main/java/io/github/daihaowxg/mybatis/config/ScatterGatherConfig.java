@@ -0,0 +1,58 @@
+package io.github.daihaowxg.mybatis.config;
+
+import io.github.daihaowxg.mybatis.scatter.ScatterGather;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 跨数据源并发查询配置
+ *
+ * <p>
+ * 为分散-聚合查询提供一个独立的有界线程池，与业务线程池隔离，
+ * 某个数据源变慢时最多占满这个线程池，不会影响其他业务。
+ * </p>
+ *
+ * <p>
+ * 等待队列同样有界：队列满时直接拒绝，不由调用方线程执行，也不无限堆积。
+ * 排队太久的查询本来就会超时，堆积只会让之后的请求全部超时。被拒绝的数据源按失败处理，
+ * 见 {@link ScatterGather#execute}。
+ * </p>
+ *
+ * <pre>
+ * scatter-gather:
+ *   pool-size: 8
+ *   queue-capacity: 64
+ *   timeout: 2s
+ * </pre>
+ *
+ * @author daihaowxg
+ */
+@Configuration
+public class ScatterGatherConfig {
+
+    @Bean(name = "scatterGatherExecutor")
+    public ThreadPoolTaskExecutor scatterGatherExecutor(@Value("${scatter-gather.pool-size:8}") int poolSize,
+                                                        @Value("${scatter-gather.queue-capacity:64}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        // 队列满时抛出 TaskRejectedException，由 ScatterGather 记为该数据源失败
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setThreadNamePrefix("scatter-gather-");
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean
+    public ScatterGather scatterGather(@Qualifier("scatterGatherExecutor") ThreadPoolTaskExecutor executor,
+                                       @Value("${scatter-gather.timeout:2s}") Duration timeout) {
+        return new ScatterGather(executor, timeout);
+    }
+}
@@ -0,0 +1,45 @@
+package io.github.daihaowxg.mybatis.mapper;
+
+import io.github.daihaowxg.mybatis.entity.User;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+ * 各数据源 User Mapper 的公共查询
+ *
+ * <p>
+ * 主、第二个数据源的 Mapper 都继承此接口，这样同一个查询可以用同一段代码分发到多个数据源执行
+ * （见 {@link io.github.daihaowxg.mybatis.scatter.ScatterGather}）。
+ * </p>
+ *
+ * <p>
+ * <b>关键点：</b>
+ * </p>
+ * <ul>
+ * <li>此接口不在任何 @MapperScan 的包下，本身不会注册为 Mapper</li>
+ * <li>MyBatis 解析子接口时会连同继承的方法一起注册，statement id 使用子接口的全限定名</li>
+ * <li>排序和 LIMIT 在各数据源上执行（下推），合并时只需要对 N 个有序小列表做归并</li>
+ * </ul>
+ *
+ * @author daihaowxg
+ */
+public interface UserQueryMapper {
+
+    /**
+     * 查询所有用户（SQL 由子接口定义）
+     */
+    List<User> findAll();
+
+    /**
+     * 统计用户数量（SQL 由子接口定义）
+     */
+    long count();
+
+    /**
+     * 按名称模糊查询，按 name、id 排序后取前 limit 条
+     */
+    @Select("SELECT * FROM users WHERE name LIKE CONCAT('%', #{name}, '%') ORDER BY name, id LIMIT #{limit}")
+    List<User> findTopByName(@Param("name") String name, @Param("limit") int limit);
+}
@@ -0,0 +1,40 @@
+package io.github.daihaowxg.mybatis.mapper;
+
+import io.github.daihaowxg.mybatis.entity.User;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * 各数据源 User Mapper 的公共写入
+ *
+ * <p>
+ * 与 {@link UserQueryMapper} 一样，主、第二个数据源的 Mapper 都继承此接口，
+ * 批量写入（见 {@link io.github.daihaowxg.mybatis.batch.UserBatchWriter}）只需要针对这个接口编写一次。
+ * </p>
+ *
+ * @author daihaowxg
+ */
+public interface UserWriteMapper {
+
+    /**
+     * 插入单个用户，回填生成的主键（SQL 由子接口定义）
+     */
+    int insert(User user);
+
+    /**
+     * 多行插入用户：{@code INSERT INTO users (name, email) VALUES (...), (...), ...}
+     *
+     * <p>
+     * 一条语句、一次往返写入整个列表，生成的主键按顺序回填到每个 User。
+     * 语句长度和参数个数随列表增长，调用方应控制每次的行数
+     * </p>
+     */
+    @Insert("<script>INSERT INTO users (name, email) VALUES "
+            + "<foreach collection='users' item='user' separator=','>(#{user.name}, #{user.email})</foreach>"
+            + "</script>")
+    @Options(useGeneratedKeys = true, keyProperty = "id")
+    int insertAll(@Param("users") List<User> users);
+}
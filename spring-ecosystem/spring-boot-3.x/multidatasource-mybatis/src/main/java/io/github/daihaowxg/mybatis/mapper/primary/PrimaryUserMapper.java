@@ -1,8 +1,13 @@
 package io.github.daihaowxg.mybatis.mapper.primary;
 
 import io.github.daihaowxg.mybatis.entity.User;
+import io.github.daihaowxg.mybatis.mapper.UserQueryMapper;
+import io.github.daihaowxg.mybatis.mapper.UserWriteMapper;
 import org.apache.ibatis.annotations.*;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,7 +30,7 @@ import java.util.Optional;
  * @author daihaowxg
  */
 @Mapper
-public interface PrimaryUserMapper {
+public interface PrimaryUserMapper extends UserQueryMapper, UserWriteMapper {
 
     /**
      * 查询所有用户
@@ -76,4 +81,26 @@ public interface PrimaryUserMapper {
      */
     @Select("SELECT COUNT(*) FROM users")
     long count();
+
+    /**
+     * 按 ID 批量查询用户，不存在的 ID 不返回
+     */
+    @Select("<script>SELECT * FROM users WHERE id IN "
+            + "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>"
+            + " ORDER BY id</script>")
+    @ResultMap("userResultMap")
+    List<User> findByIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 按 ID 顺序流式读取 afterId 之后的用户
+     *
+     * <p>
+     * 返回 Cursor，逐行从 ResultSet 读取，不会把整张表加载到内存。
+     * Cursor 依赖打开的 SqlSession，必须在事务中使用并在用完后关闭。
+     * </p>
+     */
+    @Select("SELECT * FROM users WHERE id > #{afterId} ORDER BY id")
+    @Options(fetchSize = 1000, resultSetType = ResultSetType.FORWARD_ONLY)
+    @ResultMap("userResultMap")
+    Cursor<User> streamAfter(@Param("afterId") long afterId);
 }
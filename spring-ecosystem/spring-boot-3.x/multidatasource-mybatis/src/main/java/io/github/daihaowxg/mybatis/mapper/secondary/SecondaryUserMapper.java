@@ -1,8 +1,11 @@
 package io.github.daihaowxg.mybatis.mapper.secondary;
 
 import io.github.daihaowxg.mybatis.entity.User;
+import io.github.daihaowxg.mybatis.mapper.UserQueryMapper;
+import io.github.daihaowxg.mybatis.mapper.UserWriteMapper;
 import org.apache.ibatis.annotations.*;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,7 +28,7 @@ import java.util.Optional;
  * @author daihaowxg
  */
 @Mapper
-public interface SecondaryUserMapper {
+public interface SecondaryUserMapper extends UserQueryMapper, UserWriteMapper {
 
     /**
      * 查询所有用户
@@ -76,4 +79,28 @@ public interface SecondaryUserMapper {
      */
     @Select("SELECT COUNT(*) FROM users")
     long count();
+
+    /**
+     * 按主数据源 ID 插入或更新同步过来的用户
+     *
+     * <p>
+     * 使用 H2 的 MERGE ... KEY 语法，MySQL 中对应 INSERT ... ON DUPLICATE KEY UPDATE
+     * </p>
+     */
+    @Update("MERGE INTO users (source_id, name, email) KEY (source_id) VALUES (#{id}, #{name}, #{email})")
+    int upsertBySourceId(User user);
+
+    /**
+     * 删除从主数据源同步过来、在主数据源中已经删除的用户
+     */
+    @Delete("<script>DELETE FROM users WHERE source_id IN "
+            + "<foreach collection='sourceIds' item='sourceId' open='(' separator=',' close=')'>#{sourceId}</foreach>"
+            + "</script>")
+    int deleteBySourceIds(@Param("sourceIds") Collection<Long> sourceIds);
+
+    /**
+     * 统计从主数据源同步过来的用户数量
+     */
+    @Select("SELECT COUNT(*) FROM users WHERE source_id IS NOT NULL")
+    long countSynced();
 }
@@ -0,0 +1,33 @@
+package io.github.daihaowxg.mybatis.mapper.secondary;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+/**
+ * 同步检查点 Mapper
+ *
+ * <p>
+ * 检查点保存在目标数据源（第二个数据源）中，这样可以和数据写入放在同一个事务里：
+ * 要么数据和检查点一起提交，要么一起回滚，中断后从检查点继续不会丢数据也不会重复推进。
+ * </p>
+ *
+ * @author daihaowxg
+ */
+@Mapper
+public interface SyncCheckpointMapper {
+
+    /**
+     * 查询同步任务的高水位，没有检查点时返回 null
+     */
+    @Select("SELECT high_water_mark FROM sync_checkpoint WHERE job_name = #{jobName}")
+    Long findHighWaterMark(@Param("jobName") String jobName);
+
+    /**
+     * 保存同步任务的高水位
+     */
+    @Update("MERGE INTO sync_checkpoint (job_name, high_water_mark, updated_time) KEY (job_name) "
+            + "VALUES (#{jobName}, #{highWaterMark}, CURRENT_TIMESTAMP)")
+    int save(@Param("jobName") String jobName, @Param("highWaterMark") long highWaterMark);
+}
@@ -0,0 +1,20 @@
+package io.github.daihaowxg.mybatis.scatter;
+
+/**
+ * 部分数据源失败或超时时的处理策略
+ *
+ * @author daihaowxg
+ */
+public enum PartialResultPolicy {
+
+    /**
+     * 任意一个数据源失败或超时，立即取消其余查询并抛出 {@link ScatterGatherException}
+     */
+    FAIL_FAST,
+
+    /**
+     * 返回成功数据源的结果，失败的数据源记录在 {@link ScatterGatherResult#getFailures()} 中；
+     * 所有数据源都失败时仍然抛出异常
+     */
+    ALLOW_PARTIAL
+}
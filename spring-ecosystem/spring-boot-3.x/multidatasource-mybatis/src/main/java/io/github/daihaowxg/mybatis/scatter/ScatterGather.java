@@ -0,0 +1,204 @@
+package io.github.daihaowxg.mybatis.scatter;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * 分散-聚合（scatter-gather）查询
+ *
+ * <p>
+ * 把同一个 Mapper 调用并发分发到多个数据源，每个数据源在各自的超时时间内返回结果。
+ * 串行查询的总耗时是各数据源耗时之和，并发后约等于最慢的那个。
+ * </p>
+ *
+ * <p>
+ * <b>关键点：</b>
+ * </p>
+ * <ul>
+ * <li>使用有界线程池，避免慢数据源拖垮调用方；JDK 21 上可以直接传入虚拟线程执行器</li>
+ * <li>超时按数据源分别计算：从该数据源的查询在工作线程上开始执行时起算，排队的时间不占用它的超时；
+ * 分发后超过超时时间仍未开始执行的数据源同样记为超时。某个数据源超时只取消（中断）它自己的查询，
+ * 其余数据源继续执行，因此整个调用最长约为两倍超时时间</li>
+ * <li>线程池饱和时被拒绝的数据源与失败的数据源一样处理，不会阻塞或改在调用方线程中执行</li>
+ * <li>失败处理见 {@link PartialResultPolicy}</li>
+ * <li>各数据源的调用在工作线程中执行，不参与调用方的事务</li>
+ * </ul>
+ *
+ * <pre>
+ * Map&lt;String, UserQueryMapper&gt; sources = Map.of("primary", primaryUserMapper, "secondary", secondaryUserMapper);
+ * List&lt;User&gt; top = scatterGather.queryTop(sources, mapper -&gt; mapper.findTopByName("a", 10),
+ *         Comparator.comparing(User::getName), 10, PartialResultPolicy.ALLOW_PARTIAL);
+ * </pre>
+ *
+ * @author daihaowxg
+ */
+@Slf4j
+public class ScatterGather {
+
+    private final Executor executor;
+
+    private final Duration defaultTimeout;
+
+    /**
+     * @param executor       执行各数据源查询的线程池
+     * @param defaultTimeout 未指定超时时间时使用的超时
+     */
+    public ScatterGather(Executor executor, Duration defaultTimeout) {
+        this.executor = executor;
+        this.defaultTimeout = defaultTimeout;
+    }
+
+    /**
+     * 使用默认超时时间，在所有数据源上并发执行 call
+     */
+    public <M, R> ScatterGatherResult<R> execute(Map<String, M> sources, Function<M, R> call,
+                                                 PartialResultPolicy policy) {
+        return execute(sources, call, defaultTimeout, policy);
+    }
+
+    /**
+     * 在所有数据源上并发执行 call
+     *
+     * @param sources 数据源名称 → Mapper
+     * @param call    在单个数据源上执行的调用
+     * @param timeout 单个数据源的超时时间，从该数据源开始执行（未开始时从分发）计算
+     * @param policy  部分失败时的处理策略
+     * @throws ScatterGatherException FAIL_FAST 下任意数据源失败或被线程池拒绝，或所有数据源都失败
+     */
+    public <M, R> ScatterGatherResult<R> execute(Map<String, M> sources, Function<M, R> call,
+                                                 Duration timeout, PartialResultPolicy policy) {
+        long start = System.nanoTime();
+        long timeoutNanos = timeout.toNanos();
+
+        CompletionService<R> completionService = new ExecutorCompletionService<>(executor);
+        Map<Future<R>, Source> pending = new LinkedHashMap<>();
+        Map<String, R> completed = new LinkedHashMap<>();
+        Map<String, Throwable> failures = new LinkedHashMap<>();
+        for (Map.Entry<String, M> entry : sources.entrySet()) {
+            M mapper = entry.getValue();
+            Source source = new Source(entry.getKey(), System.nanoTime());
+            try {
+                pending.put(completionService.submit(() -> {
+                    source.startNanos = System.nanoTime();
+                    return call.apply(mapper);
+                }), source);
+            } catch (RejectedExecutionException e) {
+                // 线程池和队列都满了（TaskRejectedException），按该数据源失败处理
+                log.warn("数据源 {} 查询被拒绝，线程池已满", source.name);
+                failures.put(source.name, e);
+                if (policy == PartialResultPolicy.FAIL_FAST) {
+                    break;
+                }
+            }
+        }
+
+        try {
+            while (!pending.isEmpty() && (failures.isEmpty() || policy != PartialResultPolicy.FAIL_FAST)) {
+                long waitNanos = expire(pending, failures, timeoutNanos, timeout);
+                if (pending.isEmpty() || (!failures.isEmpty() && policy == PartialResultPolicy.FAIL_FAST)) {
+                    break;
+                }
+                Future<R> future = completionService.poll(waitNanos, TimeUnit.NANOSECONDS);
+                if (future == null) {
+                    // 最近的一个截止时间到了（或期间有数据源刚开始执行，截止时间后移），重新检查
+                    continue;
+                }
+                Source source = pending.remove(future);
+                if (source == null) {
+                    // 已经因超时取消的查询
+                    continue;
+                }
+                try {
+                    completed.put(source.name, future.get());
+                } catch (ExecutionException e) {
+                    log.warn("数据源 {} 查询失败", source.name, e.getCause());
+                    failures.put(source.name, e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.values().forEach(source -> failures.put(source.name, e));
+        } finally {
+            pending.keySet().forEach(future -> future.cancel(true));
+        }
+
+        if (!failures.isEmpty() && (policy == PartialResultPolicy.FAIL_FAST || completed.isEmpty())) {
+            throw new ScatterGatherException("Scatter-gather query failed", failures);
+        }
+
+        // 按传入顺序整理结果，保证 flatten() 的输出稳定
+        Map<String, R> results = new LinkedHashMap<>();
+        for (String name : sources.keySet()) {
+            if (completed.containsKey(name)) {
+                results.put(name, completed.get(name));
+            }
+        }
+        return new ScatterGatherResult<>(results, failures, System.nanoTime() - start);
+    }
+
+    /**
+     * 取消已经超过各自截止时间的查询，记为超时
+     *
+     * @return 距离最近一个截止时间的纳秒数
+     */
+    private static <R> long expire(Map<Future<R>, Source> pending, Map<String, Throwable> failures,
+                                   long timeoutNanos, Duration timeout) {
+        long now = System.nanoTime();
+        long nearest = Long.MAX_VALUE;
+        for (Iterator<Map.Entry<Future<R>, Source>> it = pending.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Future<R>, Source> entry = it.next();
+            Source source = entry.getValue();
+            long remaining = source.startNanos + timeoutNanos - now;
+            if (remaining <= 0 && !entry.getKey().isDone()) {
+                entry.getKey().cancel(true);
+                failures.put(source.name, new TimeoutException("Query on " + source.name + " timed out after " + timeout));
+                it.remove();
+            } else {
+                nearest = Math.min(nearest, Math.max(remaining, 0));
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * 在所有数据源上并发执行返回列表的查询，按 comparator 归并后取前 limit 条
+     *
+     * <p>
+     * call 应当把同样的排序和 limit 下推到 SQL 中。
+     * </p>
+     */
+    public <M, T> List<T> queryTop(Map<String, M> sources, Function<M, List<T>> call,
+                                   Comparator<? super T> comparator, int limit, PartialResultPolicy policy) {
+        return execute(sources, call, defaultTimeout, policy).mergeSorted(comparator, limit);
+    }
+
+    /**
+     * 一个数据源的计时：分发时记下分发时间，在工作线程上开始执行时改为开始时间
+     */
+    private static final class Source {
+
+        private final String name;
+
+        private volatile long startNanos;
+
+        Source(String name, long dispatchNanos) {
+            this.name = name;
+            this.startNanos = dispatchNanos;
+        }
+    }
+}
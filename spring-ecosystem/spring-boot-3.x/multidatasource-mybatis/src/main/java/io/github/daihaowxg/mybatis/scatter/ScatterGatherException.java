@@ -0,0 +1,26 @@
+package io.github.daihaowxg.mybatis.scatter;
+
+import java.util.Map;
+
+/**
+ * 分散-聚合查询失败
+ *
+ * @author daihaowxg
+ */
+public class ScatterGatherException extends RuntimeException {
+
+    private final transient Map<String, Throwable> failures;
+
+    public ScatterGatherException(String message, Map<String, Throwable> failures) {
+        super(message + ": " + failures.keySet());
+        this.failures = failures;
+        failures.values().forEach(this::addSuppressed);
+    }
+
+    /**
+     * 失败的数据源及原因
+     */
+    public Map<String, Throwable> getFailures() {
+        return failures;
+    }
+}
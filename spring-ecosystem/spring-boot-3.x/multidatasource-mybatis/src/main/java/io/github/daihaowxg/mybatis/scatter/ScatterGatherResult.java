@@ -0,0 +1,125 @@
+package io.github.daihaowxg.mybatis.scatter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * 分散-聚合查询的结果
+ *
+ * <p>
+ * 按数据源保存各自的返回值，并记录失败的数据源，由调用方选择合并方式。
+ * </p>
+ *
+ * @param <R> 单个数据源的返回值类型
+ * @author daihaowxg
+ */
+public class ScatterGatherResult<R> {
+
+    private final Map<String, R> results;
+
+    private final Map<String, Throwable> failures;
+
+    private final long elapsedNanos;
+
+    ScatterGatherResult(Map<String, R> results, Map<String, Throwable> failures, long elapsedNanos) {
+        this.results = Collections.unmodifiableMap(results);
+        this.failures = Collections.unmodifiableMap(failures);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * 成功数据源的返回值，顺序与传入的数据源顺序一致
+     */
+    public Map<String, R> getResults() {
+        return results;
+    }
+
+    /**
+     * 失败或超时的数据源及原因
+     */
+    public Map<String, Throwable> getFailures() {
+        return failures;
+    }
+
+    /**
+     * 是否只拿到了部分数据源的结果
+     */
+    public boolean isPartial() {
+        return !failures.isEmpty();
+    }
+
+    /**
+     * 整个查询（从分发到收集完毕）的耗时
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * 按数据源顺序拼接所有列表
+     */
+    public <T> List<T> flatten() {
+        List<T> merged = new ArrayList<>();
+        for (R result : results.values()) {
+            @SuppressWarnings("unchecked")
+            List<T> list = (List<T>) result;
+            merged.addAll(list);
+        }
+        return merged;
+    }
+
+    /**
+     * 多路归并各数据源的有序列表，取前 limit 条
+     *
+     * <p>
+     * 要求每个数据源返回的列表已经按 comparator 排好序，并且最多 limit 条（排序和 LIMIT 下推到 SQL）。
+     * 这样每个数据源只需要传回 limit 行，归并的代价是 O(limit * log N)，而不是把所有行拉回来再排序。
+     * </p>
+     */
+    public <T> List<T> mergeSorted(Comparator<? super T> comparator, int limit) {
+        PriorityQueue<Cursor<T>> heap = new PriorityQueue<>(
+                Math.max(1, results.size()), (a, b) -> comparator.compare(a.head, b.head));
+        for (R result : results.values()) {
+            @SuppressWarnings("unchecked")
+            Iterator<T> iterator = ((List<T>) result).iterator();
+            if (iterator.hasNext()) {
+                heap.add(new Cursor<>(iterator));
+            }
+        }
+
+        List<T> merged = new ArrayList<>(limit);
+        while (merged.size() < limit && !heap.isEmpty()) {
+            Cursor<T> cursor = heap.poll();
+            merged.add(cursor.head);
+            if (cursor.advance()) {
+                heap.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    private static final class Cursor<T> {
+
+        private final Iterator<T> iterator;
+
+        private T head;
+
+        Cursor(Iterator<T> iterator) {
+            this.iterator = iterator;
+            this.head = iterator.next();
+        }
+
+        boolean advance() {
+            if (iterator.hasNext()) {
+                head = iterator.next();
+                return true;
+            }
+            return false;
+        }
+    }
+}
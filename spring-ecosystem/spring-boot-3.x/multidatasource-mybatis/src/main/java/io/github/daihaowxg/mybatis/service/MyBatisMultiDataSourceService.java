@@ -1,14 +1,27 @@
 package io.github.daihaowxg.mybatis.service;
 
+import io.github.daihaowxg.mybatis.batch.BatchStrategy;
+import io.github.daihaowxg.mybatis.batch.UserBatchWriter;
 import io.github.daihaowxg.mybatis.entity.User;
+import io.github.daihaowxg.mybatis.mapper.UserQueryMapper;
 import io.github.daihaowxg.mybatis.mapper.primary.PrimaryUserMapper;
 import io.github.daihaowxg.mybatis.mapper.secondary.SecondaryUserMapper;
+import io.github.daihaowxg.mybatis.scatter.PartialResultPolicy;
+import io.github.daihaowxg.mybatis.scatter.ScatterGather;
+import io.github.daihaowxg.mybatis.scatter.ScatterGatherResult;
+import io.github.daihaowxg.mybatis.sync.SyncMode;
+import io.github.daihaowxg.mybatis.sync.UserSyncEngine;
+import io.github.daihaowxg.outbox.ChangeType;
+import io.github.daihaowxg.outbox.OutboxWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -25,6 +38,7 @@ import java.util.Optional;
  * <li>直接注入不同数据源的 Mapper</li>
  * <li>使用 @Transactional 时需要指定 transactionManager</li>
  * <li>跨数据源操作不在同一个事务中</li>
+ * <li>主数据源的写操作在同一个事务中向发件箱记录变更，第二个数据源中的副本据此更新</li>
  * </ul>
  *
  * @author daihaowxg
@@ -34,8 +48,19 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class MyBatisMultiDataSourceService {
 
+    /**
+     * 发件箱中用户变更事件的对象类型
+     */
+    public static final String AGGREGATE_TYPE = "user";
+
     private final PrimaryUserMapper primaryUserMapper;
     private final SecondaryUserMapper secondaryUserMapper;
+    private final ScatterGather scatterGather;
+    private final UserSyncEngine userSyncEngine;
+    // 按参数名匹配同名的 Bean（primaryUserBatchWriter / secondaryUserBatchWriter）
+    private final UserBatchWriter primaryUserBatchWriter;
+    private final UserBatchWriter secondaryUserBatchWriter;
+    private final OutboxWriter primaryOutboxWriter;
 
     // ==================== 主数据源操作 ====================
 
@@ -66,17 +91,38 @@ public class MyBatisMultiDataSourceService {
     public User saveUserToPrimary(User user) {
         log.info("保存用户到主数据源: {}", user);
         primaryUserMapper.insert(user);
+        primaryOutboxWriter.record(AGGREGATE_TYPE, user.getId(), ChangeType.INSERT);
         log.info("用户已保存到主数据源，生成的 ID: {}", user.getId());
         return user;
     }
 
+    /**
+     * 批量保存用户到主数据源
+     * 
+     * <p>
+     * 按行数选择写入方式，生成的主键回填到每个 User。变更事件在批量写入器自己的事务中、主键回填之后记录，
+     * 和用户一起提交。这里不能再加 {@code @Transactional}：MyBatis 不允许在事务中切换执行器，
+     * 先开启事务会让大批量写入用不上 BATCH 执行器
+     * </p>
+     */
+    public int saveUsersToPrimary(List<User> users) {
+        BatchStrategy strategy = primaryUserBatchWriter.saveAll(users, saved -> primaryOutboxWriter.recordAll(
+                AGGREGATE_TYPE, saved.stream().map(User::getId).toList(), ChangeType.INSERT));
+        log.info("批量保存 {} 个用户到主数据源，策略: {}", users.size(), strategy);
+        return users.size();
+    }
+
     /**
      * 更新主数据源中的用户
      */
     @Transactional(transactionManager = "primaryTransactionManager")
     public int updateUserInPrimary(User user) {
         log.info("更新主数据源中的用户: {}", user);
-        return primaryUserMapper.update(user);
+        int rows = primaryUserMapper.update(user);
+        if (rows > 0) {
+            primaryOutboxWriter.record(AGGREGATE_TYPE, user.getId(), ChangeType.UPDATE);
+        }
+        return rows;
     }
 
     /**
@@ -85,7 +131,11 @@ public class MyBatisMultiDataSourceService {
     @Transactional(transactionManager = "primaryTransactionManager")
     public int deleteUserFromPrimary(Long id) {
         log.info("从主数据源删除用户，ID: {}", id);
-        return primaryUserMapper.deleteById(id);
+        int rows = primaryUserMapper.deleteById(id);
+        if (rows > 0) {
+            primaryOutboxWriter.record(AGGREGATE_TYPE, id, ChangeType.DELETE);
+        }
+        return rows;
     }
 
     // ==================== 第二个数据源操作 ====================
@@ -121,6 +171,15 @@ public class MyBatisMultiDataSourceService {
         return user;
     }
 
+    /**
+     * 批量保存用户到第二个数据源
+     */
+    public int saveUsersToSecondary(List<User> users) {
+        BatchStrategy strategy = secondaryUserBatchWriter.saveAll(users);
+        log.info("批量保存 {} 个用户到第二个数据源，策略: {}", users.size(), strategy);
+        return users.size();
+    }
+
     /**
      * 更新第二个数据源中的用户
      */
@@ -150,6 +209,9 @@ public class MyBatisMultiDataSourceService {
      * <p>
      * 如果需要保证事务一致性，需要使用分布式事务（如 JTA、Seata）
      * </p>
+     * <p>
+     * 按主数据源 ID upsert，重复同步同一个用户不会产生重复数据。批量同步请使用 {@link UserSyncEngine}
+     * </p>
      */
     public void syncUserFromPrimaryToSecondary(Long id) {
         log.info("开始同步用户数据，ID: {}", id);
@@ -158,13 +220,9 @@ public class MyBatisMultiDataSourceService {
         Optional<User> userOpt = primaryUserMapper.findById(id);
 
         if (userOpt.isPresent()) {
-            User user = userOpt.get();
-            // 重置 ID，让第二个数据源自动生成
-            user.setId(null);
-
-            // 保存到第二个数据源
-            secondaryUserMapper.insert(user);
-            log.info("用户数据已同步到第二个数据源，新 ID: {}", user.getId());
+            // 按主数据源 ID 写入第二个数据源
+            secondaryUserMapper.upsertBySourceId(userOpt.get());
+            log.info("用户数据已同步到第二个数据源，主数据源 ID: {}", id);
         } else {
             log.warn("主数据源中未找到 ID 为 {} 的用户", id);
         }
@@ -187,21 +245,69 @@ public class MyBatisMultiDataSourceService {
      * <p>
      * <b>警告：</b>此操作不保证事务一致性！
      * </p>
+     * <p>
+     * 委托给 {@link UserSyncEngine} 做全量同步：流式读取、分块批量 upsert、每块一个事务
+     * </p>
      */
     public int syncAllUsersFromPrimaryToSecondary() {
         log.info("开始批量同步用户数据");
+        long count = userSyncEngine.sync(SyncMode.FULL).getRows();
+        log.info("批量同步完成，共同步 {} 个用户", count);
+        return (int) count;
+    }
+
+    // ==================== 跨数据源并发查询 ====================
 
-        List<User> users = primaryUserMapper.findAll();
-        int count = 0;
+    /**
+     * 所有数据源的 Mapper，按名称区分
+     */
+    public Map<String, UserQueryMapper> allSources() {
+        Map<String, UserQueryMapper> sources = new LinkedHashMap<>();
+        sources.put("primary", primaryUserMapper);
+        sources.put("secondary", secondaryUserMapper);
+        return sources;
+    }
 
-        for (User user : users) {
-            // 重置 ID
-            user.setId(null);
-            secondaryUserMapper.insert(user);
-            count++;
+    /**
+     * 并发查询所有数据源的用户
+     *
+     * <p>
+     * 某个数据源失败或超时时返回其余数据源的结果
+     * </p>
+     */
+    public List<User> findAllFromAllSources() {
+        ScatterGatherResult<List<User>> result = scatterGather.execute(
+                allSources(), UserQueryMapper::findAll, PartialResultPolicy.ALLOW_PARTIAL);
+        if (result.isPartial()) {
+            log.warn("部分数据源查询失败，返回部分结果: {}", result.getFailures().keySet());
         }
+        return result.flatten();
+    }
 
-        log.info("批量同步完成，共同步 {} 个用户", count);
-        return count;
+    /**
+     * 跨数据源按名称搜索，按 name、id 排序后取前 limit 条
+     *
+     * <p>
+     * 排序和 LIMIT 下推到每个数据源，每个数据源最多返回 limit 行，再做多路归并
+     * </p>
+     */
+    public List<User> searchByNameAcrossSources(String name, int limit) {
+        return scatterGather.queryTop(allSources(), mapper -> mapper.findTopByName(name, limit),
+                Comparator.comparing(User::getName).thenComparing(User::getId),
+                limit, PartialResultPolicy.ALLOW_PARTIAL);
+    }
+
+    /**
+     * 并发统计所有数据源的用户总数
+     *
+     * <p>
+     * 总数要求精确，任意数据源失败都直接报错
+     * </p>
+     */
+    public long getTotalUserCount() {
+        return scatterGather.execute(allSources(), UserQueryMapper::count, PartialResultPolicy.FAIL_FAST)
+                .getResults().values().stream()
+                .mapToLong(Long::longValue)
+                .sum();
     }
 }
@@ -0,0 +1,85 @@
+package io.github.daihaowxg.mybatis.sync;
+
+import io.github.daihaowxg.mybatis.entity.User;
+import io.github.daihaowxg.mybatis.mapper.primary.PrimaryUserMapper;
+import io.github.daihaowxg.mybatis.mapper.secondary.SecondaryUserMapper;
+import io.github.daihaowxg.mybatis.service.MyBatisMultiDataSourceService;
+import io.github.daihaowxg.outbox.ChangeEvent;
+import io.github.daihaowxg.outbox.ChangeSubscriber;
+import lombok.extern.slf4j.Slf4j;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 按主数据源发件箱中的用户变更事件更新第二个数据源中的副本
+ *
+ * <p>
+ * 补上 {@link UserSyncEngine} 增量同步的缺口：高水位基于自增 ID，只能发现新增的用户，
+ * 而发件箱记录了主数据源的每一次插入、更新和删除。
+ * </p>
+ * <ul>
+ * <li><b>按状态而不是按事件同步：</b>不区分变更类型，一批事件涉及的用户 ID 去重后从主数据源批量读取最新数据，
+ * 读到的按 source_id upsert，读不到的（已删除）按 source_id 删除。重复投递、同一用户的多次变更都只会写入最新状态</li>
+ * <li><b>一批一个事务：</b>第二个数据源上用 BATCH 执行器在一个事务中写入整批，失败时整批回滚，拉取器随后重新投递</li>
+ * </ul>
+ *
+ * <p>
+ * 第二个数据源只有一份，多个实例应使用同一个消费者名称 {@link #CONSUMER}，共享拉取进度。
+ * </p>
+ *
+ * @author daihaowxg
+ */
+@Slf4j
+public class SecondaryReplicaUpdater implements ChangeSubscriber {
+
+    /**
+     * 拉取进度在 change_outbox_offset 中的消费者名称
+     */
+    public static final String CONSUMER = "secondary-replica";
+
+    private final PrimaryUserMapper primaryUserMapper;
+    private final SecondaryUserMapper batchUserMapper;
+    private final TransactionTemplate secondaryTransaction;
+
+    /**
+     * @param primaryUserMapper           主数据源的 Mapper，读取最新数据
+     * @param batchSqlSession             第二个数据源 BATCH 执行器的 SqlSessionTemplate
+     * @param secondaryTransactionManager 第二个数据源的事务管理器
+     */
+    public SecondaryReplicaUpdater(PrimaryUserMapper primaryUserMapper,
+                                   SqlSessionTemplate batchSqlSession,
+                                   PlatformTransactionManager secondaryTransactionManager) {
+        this.primaryUserMapper = primaryUserMapper;
+        this.batchUserMapper = batchSqlSession.getMapper(SecondaryUserMapper.class);
+        this.secondaryTransaction = new TransactionTemplate(secondaryTransactionManager);
+    }
+
+    @Override
+    public void onChanges(List<ChangeEvent> events) {
+        Set<Long> ids = new TreeSet<>();
+        for (ChangeEvent event : events) {
+            if (MyBatisMultiDataSourceService.AGGREGATE_TYPE.equals(event.aggregateType())) {
+                ids.add(Long.valueOf(event.aggregateId()));
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<User> current = primaryUserMapper.findByIds(ids);
+        Set<Long> deleted = new TreeSet<>(ids);
+        current.forEach(user -> deleted.remove(user.getId()));
+
+        secondaryTransaction.executeWithoutResult(status -> {
+            current.forEach(batchUserMapper::upsertBySourceId);
+            if (!deleted.isEmpty()) {
+                batchUserMapper.deleteBySourceIds(deleted);
+            }
+        });
+        log.debug("按发件箱事件更新第二个数据源: upsert {} 个用户，删除 {} 个用户", current.size(), deleted.size());
+    }
+}
@@ -0,0 +1,19 @@
+package io.github.daihaowxg.mybatis.sync;
+
+/**
+ * 同步模式
+ *
+ * @author daihaowxg
+ */
+public enum SyncMode {
+
+    /**
+     * 全量同步：忽略检查点，从头 upsert 所有用户（会覆盖已同步用户的修改）
+     */
+    FULL,
+
+    /**
+     * 增量同步：从检查点的高水位之后继续，也用于中断后恢复
+     */
+    INCREMENTAL
+}
@@ -0,0 +1,46 @@
+package io.github.daihaowxg.mybatis.sync;
+
+import lombok.Value;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一次同步的统计结果
+ *
+ * @author daihaowxg
+ */
+@Value
+public class SyncReport {
+
+    SyncMode mode;
+
+    /**
+     * 本次开始时的高水位
+     */
+    long fromId;
+
+    /**
+     * 本次结束时的高水位
+     */
+    long highWaterMark;
+
+    long rows;
+
+    long chunks;
+
+    long elapsedNanos;
+
+    /**
+     * 吞吐量（行/秒）
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rows * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s sync: id (%d, %d], %,d rows in %,d chunks, %,d ms, %,.0f rows/sec",
+                mode, fromId, highWaterMark, rows, chunks,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), getRowsPerSecond());
+    }
+}
@@ -7,6 +7,25 @@ CREATE TABLE IF NOT EXISTS users (
     email VARCHAR(100)
 );
 
+-- 事务性发件箱：与用户数据在同一事务中写入的变更事件 (change-outbox 模块)
+CREATE TABLE IF NOT EXISTS change_outbox (
+    seq BIGINT AUTO_INCREMENT PRIMARY KEY,
+    aggregate_type VARCHAR(50) NOT NULL,
+    aggregate_id VARCHAR(64) NOT NULL,
+    change_type VARCHAR(10) NOT NULL,
+    origin VARCHAR(100) NOT NULL,
+    created_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_outbox_created_time ON change_outbox(created_time);
+
+-- 每个消费者已确认的高水位
+CREATE TABLE IF NOT EXISTS change_outbox_offset (
+    consumer VARCHAR(100) PRIMARY KEY,
+    last_seq BIGINT NOT NULL,
+    updated_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL
+);
+
 -- 插入测试数据
 INSERT INTO users (name, email) VALUES ('张三', 'zhangsan@primary.com');
 INSERT INTO users (name, email) VALUES ('李四', 'lisi@primary.com');
@@ -4,7 +4,16 @@
 CREATE TABLE IF NOT EXISTS users (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
     name VARCHAR(100) NOT NULL,
-    email VARCHAR(100)
+    email VARCHAR(100),
+    -- 从主数据源同步过来的用户在主数据源中的 ID，同步时按此列 upsert
+    source_id BIGINT UNIQUE
+);
+
+-- 同步任务的检查点，与每一块数据在同一个事务中更新
+CREATE TABLE IF NOT EXISTS sync_checkpoint (
+    job_name VARCHAR(100) PRIMARY KEY,
+    high_water_mark BIGINT NOT NULL,
+    updated_time TIMESTAMP NOT NULL
 );
 
 -- 插入测试数据
@@ -0,0 +1,229 @@
+package io.github.daihaowxg.mybatis;
+
+import io.github.daihaowxg.mybatis.entity.User;
+import io.github.daihaowxg.mybatis.mapper.UserQueryMapper;
+import io.github.daihaowxg.mybatis.scatter.PartialResultPolicy;
+import io.github.daihaowxg.mybatis.scatter.ScatterGather;
+import io.github.daihaowxg.mybatis.scatter.ScatterGatherException;
+import io.github.daihaowxg.mybatis.scatter.ScatterGatherResult;
+import io.github.daihaowxg.mybatis.service.MyBatisMultiDataSourceService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 跨数据源分散-聚合查询测试
+ *
+ * <p>
+ * 通过在调用前人为等待模拟各数据源的响应时间，对比串行与并发的耗时。
+ * </p>
+ *
+ * @author daihaowxg
+ */
+@Slf4j
+@SpringBootTest
+class ScatterGatherTest {
+
+    private static final Comparator<User> BY_NAME = Comparator.comparing(User::getName).thenComparing(User::getId);
+
+    @Autowired
+    private MyBatisMultiDataSourceService service;
+
+    @Autowired
+    private ScatterGather scatterGather;
+
+    @Test
+    @DisplayName("测试跨数据源搜索：排序和 LIMIT 下推后归并")
+    void testSearchAcrossSources() {
+        List<User> expected = new ArrayList<>(service.findAllFromAllSources());
+        expected.sort(BY_NAME);
+
+        List<User> top = service.searchByNameAcrossSources("", 3);
+
+        log.info("跨数据源前 3 个用户: {}", top);
+        assertThat(top).isEqualTo(expected.subList(0, 3));
+    }
+
+    @Test
+    @DisplayName("测试并发统计用户总数")
+    void testTotalUserCount() {
+        long expected = service.findAllFromPrimary().size() + service.findAllFromSecondary().size();
+
+        assertThat(service.getTotalUserCount()).isEqualTo(expected);
+    }
+
+    @Test
+    @DisplayName("测试并发后耗时从各数据源之和降到最大值")
+    void testLatencyDropsFromSumToMax() {
+        Map<String, DelayedSource> sources = sources(300, 200);
+
+        long start = System.nanoTime();
+        List<User> sequential = new ArrayList<>();
+        sources.values().forEach(source -> sequential.addAll(source.findAll()));
+        long sequentialMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        ScatterGatherResult<List<User>> result = scatterGather.execute(
+                sources, DelayedSource::findAll, Duration.ofSeconds(5), PartialResultPolicy.FAIL_FAST);
+        long parallelMillis = TimeUnit.NANOSECONDS.toMillis(result.getElapsedNanos());
+
+        log.info("串行: {} ms, 并发: {} ms", sequentialMillis, parallelMillis);
+        assertThat(result.<User>flatten()).isEqualTo(sequential);
+        assertThat(sequentialMillis).isGreaterThanOrEqualTo(500);
+        assertThat(parallelMillis).isGreaterThanOrEqualTo(300).isLessThan(500);
+    }
+
+    @Test
+    @DisplayName("测试超时后返回部分结果")
+    void testPartialResultOnTimeout() {
+        Map<String, DelayedSource> sources = sources(0, 2000);
+
+        ScatterGatherResult<List<User>> result = scatterGather.execute(
+                sources, DelayedSource::findAll, Duration.ofMillis(300), PartialResultPolicy.ALLOW_PARTIAL);
+
+        assertThat(result.isPartial()).isTrue();
+        assertThat(result.getResults()).containsOnlyKeys("primary");
+        assertThat(result.getFailures()).containsOnlyKeys("secondary");
+        assertThat(result.getFailures().get("secondary")).isInstanceOf(TimeoutException.class);
+        assertThat(TimeUnit.NANOSECONDS.toMillis(result.getElapsedNanos())).isLessThan(1000);
+    }
+
+    @Test
+    @DisplayName("测试超时按数据源从开始执行时计算，排队时间不算在内")
+    void testTimeoutStartsWhenSourceRuns() {
+        // 一个线程：secondary 排队等 primary 执行完，约 200 ms 后才开始，400 ms 时返回。
+        // 工作线程取走任务前两个数据源可能都在队列里，所以队列容量为 2
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(2);
+        executor.initialize();
+        try {
+            ScatterGather serial = new ScatterGather(executor, Duration.ofMillis(300));
+            ScatterGatherResult<List<User>> result = serial.execute(
+                    sources(200, 200), DelayedSource::findAll, PartialResultPolicy.FAIL_FAST);
+
+            assertThat(result.isPartial()).isFalse();
+            assertThat(result.getResults()).containsOnlyKeys("primary", "secondary");
+            assertThat(TimeUnit.NANOSECONDS.toMillis(result.getElapsedNanos())).isGreaterThanOrEqualTo(400);
+
+            // 各自的查询超过超时时间时仍然超时，已完成的数据源不受影响
+            result = serial.execute(sources(0, 1000), DelayedSource::findAll, PartialResultPolicy.ALLOW_PARTIAL);
+            assertThat(result.getResults()).containsOnlyKeys("primary");
+            assertThat(result.getFailures().get("secondary")).isInstanceOf(TimeoutException.class);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("测试 FAIL_FAST 策略下任一数据源失败即报错")
+    void testFailFast() {
+        Map<String, DelayedSource> sources = sources(2000, 0);
+        sources.put("broken", new DelayedSource(null, 0));
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> scatterGather.execute(
+                sources, DelayedSource::findAll, Duration.ofSeconds(5), PartialResultPolicy.FAIL_FAST))
+                .isInstanceOf(ScatterGatherException.class)
+                .satisfies(e -> assertThat(((ScatterGatherException) e).getFailures()).containsOnlyKeys("broken"));
+        // 不等待慢数据源
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1000);
+    }
+
+    @Test
+    @DisplayName("测试线程池饱和时被拒绝的数据源按失败处理")
+    void testRejectedSourceIsPartialResult() throws InterruptedException {
+        // 一个线程、不排队：第一个数据源占住线程后，第二个数据源的查询被拒绝
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        try {
+            ScatterGather saturated = new ScatterGather(executor, Duration.ofSeconds(5));
+            Map<String, DelayedSource> sources = sources(200, 0);
+
+            ScatterGatherResult<List<User>> result = saturated.execute(
+                    sources, DelayedSource::findAll, PartialResultPolicy.ALLOW_PARTIAL);
+            assertThat(result.getResults()).containsOnlyKeys("primary");
+            assertThat(result.getFailures()).containsOnlyKeys("secondary");
+            assertThat(result.getFailures().get("secondary")).isInstanceOf(TaskRejectedException.class);
+
+            // 等上一次查询释放线程，再占住它
+            CountDownLatch release = new CountDownLatch(1);
+            awaitIdle(executor);
+            executor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            try {
+                assertThatThrownBy(() -> saturated.execute(
+                        sources, DelayedSource::findAll, PartialResultPolicy.FAIL_FAST))
+                        .isInstanceOf(ScatterGatherException.class)
+                        .satisfies(e -> assertThat(((ScatterGatherException) e).getFailures())
+                                .containsOnlyKeys("primary"));
+            } finally {
+                release.countDown();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void awaitIdle(ThreadPoolTaskExecutor executor) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.getActiveCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(executor.getActiveCount()).isZero();
+    }
+
+    private Map<String, DelayedSource> sources(long primaryDelayMillis, long secondaryDelayMillis) {
+        Map<String, UserQueryMapper> mappers = service.allSources();
+        Map<String, DelayedSource> sources = new LinkedHashMap<>();
+        sources.put("primary", new DelayedSource(mappers.get("primary"), primaryDelayMillis));
+        sources.put("secondary", new DelayedSource(mappers.get("secondary"), secondaryDelayMillis));
+        return sources;
+    }
+
+    /**
+     * 模拟响应时间为 delayMillis 的数据源
+     */
+    private record DelayedSource(UserQueryMapper mapper, long delayMillis) {
+
+        List<User> findAll() {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Query cancelled", e);
+            }
+            if (mapper == null) {
+                throw new IllegalStateException("Data source unavailable");
+            }
+            return mapper.findAll();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package io.github.daihaowxg.mybatis;
+
+import io.github.daihaowxg.mybatis.entity.User;
+import io.github.daihaowxg.mybatis.service.MyBatisMultiDataSourceService;
+import io.github.daihaowxg.outbox.OutboxPoller;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 发件箱驱动的第二个数据源副本更新测试
+ *
+ * <p>
+ * 主数据源的插入、更新、删除都记录到发件箱，拉取后同步到第二个数据源；回滚的写入不会产生事件。
+ * </p>
+ *
+ * @author daihaowxg
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.primary.jdbc-url=jdbc:h2:mem:outbox-primary",
+        "spring.datasource.secondary.jdbc-url=jdbc:h2:mem:outbox-secondary",
+        "outbox.gap-timeout=100ms",
+        // 测试中手动拉取，后台线程不参与
+        "outbox.poll-interval=1h"
+})
+class SecondaryReplicaOutboxTest {
+
+    @Autowired
+    private MyBatisMultiDataSourceService service;
+
+    @Autowired
+    private OutboxPoller primaryOutboxPoller;
+
+    @Autowired
+    @Qualifier("primaryTransactionManager")
+    private PlatformTransactionManager primaryTransactionManager;
+
+    private JdbcTemplate secondary;
+
+    @BeforeEach
+    void setUp(@Autowired @Qualifier("secondaryDataSource") DataSource secondaryDataSource) throws InterruptedException {
+        secondary = new JdbcTemplate(secondaryDataSource);
+        deliver();
+    }
+
+    @Test
+    @DisplayName("测试插入、更新、删除同步到第二个数据源")
+    void testChangesReachSecondary() throws InterruptedException {
+        User user = service.saveUserToPrimary(new User(null, "副本用户", "replica@primary.com"));
+        assertThat(replicaName(user.getId())).isEmpty();
+
+        deliver();
+        assertThat(replicaName(user.getId())).containsExactly("副本用户");
+
+        user.setName("副本用户-改名");
+        service.updateUserInPrimary(user);
+        deliver();
+        assertThat(replicaName(user.getId())).containsExactly("副本用户-改名");
+
+        service.deleteUserFromPrimary(user.getId());
+        deliver();
+        assertThat(replicaName(user.getId())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("测试批量写入的事件分批同步")
+    void testBatchInsertIsReplicated() throws InterruptedException {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            users.add(new User(null, "批量副本" + i, "batch-replica" + i + "@primary.com"));
+        }
+        service.saveUsersToPrimary(users);
+
+        deliver();
+        Long first = users.get(0).getId();
+        Long last = users.get(users.size() - 1).getId();
+        assertThat(secondary.queryForObject("SELECT COUNT(*) FROM users WHERE source_id BETWEEN ? AND ?",
+                Long.class, first, last)).isEqualTo(1200L);
+    }
+
+    @Test
+    @DisplayName("测试回滚的写入不会同步")
+    void testRolledBackWriteIsNotReplicated() throws InterruptedException {
+        User rolledBack = new User(null, "回滚用户", "rollback@primary.com");
+        new TransactionTemplate(primaryTransactionManager).executeWithoutResult(status -> {
+            service.saveUserToPrimary(rolledBack);
+            status.setRollbackOnly();
+        });
+        User committed = service.saveUserToPrimary(new User(null, "提交用户", "commit@primary.com"));
+
+        deliver();
+        assertThat(replicaName(rolledBack.getId())).isEmpty();
+        assertThat(replicaName(committed.getId())).containsExactly("提交用户");
+    }
+
+    /**
+     * 拉取所有事件：空洞从被发现时开始计时，先拉取一次发现回滚留下的空洞，等待超时后再拉完
+     */
+    private void deliver() throws InterruptedException {
+        primaryOutboxPoller.drain();
+        Thread.sleep(150);
+        primaryOutboxPoller.drain();
+    }
+
+    private List<String> replicaName(Long sourceId) {
+        return secondary.queryForList("SELECT name FROM users WHERE source_id = ?", String.class, sourceId);
+    }
+}
@@ -0,0 +1,185 @@
+package io.github.daihaowxg.mybatis;
+
+import io.github.daihaowxg.mybatis.batch.BatchStrategy;
+import io.github.daihaowxg.mybatis.batch.BatchWritePolicy;
+import io.github.daihaowxg.mybatis.batch.UserBatchWriter;
+import io.github.daihaowxg.mybatis.entity.User;
+import io.github.daihaowxg.mybatis.mapper.primary.PrimaryUserMapper;
+import io.github.daihaowxg.mybatis.mapper.secondary.SecondaryUserMapper;
+import io.github.daihaowxg.outbox.ChangeType;
+import io.github.daihaowxg.outbox.OutboxWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 批量写入测试
+ *
+ * <p>
+ * 校验三种写入方式都能回填主键、按行数选择策略，并对比三种方式写入大量用户的吞吐。
+ * 行数可以通过 {@code -Dbatch.rows=...} 调整，默认 10 万行。
+ * </p>
+ *
+ * @author daihaowxg
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "spring.datasource.primary.jdbc-url=jdbc:h2:mem:batch-primary",
+        "spring.datasource.secondary.jdbc-url=jdbc:h2:mem:batch-secondary",
+        // 关闭逐条 SQL 日志
+        "logging.level.io.github.daihaowxg.mybatis.mapper=INFO"
+})
+class UserBatchWriterTest {
+
+    private static final int ROWS = Integer.getInteger("batch.rows", 100_000);
+
+    @Autowired
+    private UserBatchWriter primaryUserBatchWriter;
+
+    @Autowired
+    private UserBatchWriter secondaryUserBatchWriter;
+
+    @Autowired
+    private BatchWritePolicy batchWritePolicy;
+
+    @Autowired
+    private PrimaryUserMapper primaryUserMapper;
+
+    @Autowired
+    private SecondaryUserMapper secondaryUserMapper;
+
+    @Autowired
+    @Qualifier("primaryTransactionManager")
+    private PlatformTransactionManager primaryTransactionManager;
+
+    @Autowired
+    private OutboxWriter primaryOutboxWriter;
+
+    private JdbcTemplate primary;
+
+    @BeforeEach
+    void setUp(@Autowired @Qualifier("primaryDataSource") DataSource primaryDataSource) {
+        primary = new JdbcTemplate(primaryDataSource);
+        primary.execute("DELETE FROM users");
+    }
+
+    @Test
+    @DisplayName("测试按行数选择写入策略")
+    void testPolicyChoosesStrategyBySize() {
+        assertThat(batchWritePolicy.choose(1)).isEqualTo(BatchStrategy.SIMPLE);
+        assertThat(batchWritePolicy.choose(batchWritePolicy.getMultiRowThreshold())).isEqualTo(BatchStrategy.MULTI_ROW);
+        assertThat(batchWritePolicy.choose(batchWritePolicy.getBatchExecutorThreshold() - 1)).isEqualTo(BatchStrategy.MULTI_ROW);
+        assertThat(batchWritePolicy.choose(batchWritePolicy.getBatchExecutorThreshold())).isEqualTo(BatchStrategy.BATCH_EXECUTOR);
+
+        assertThat(primaryUserBatchWriter.saveAll(users("small", 3))).isEqualTo(BatchStrategy.SIMPLE);
+        assertThat(primaryUserBatchWriter.saveAll(users("medium", 1200))).isEqualTo(BatchStrategy.MULTI_ROW);
+        assertThat(primaryUserBatchWriter.saveAll(users("large", batchWritePolicy.getBatchExecutorThreshold())))
+                .isEqualTo(BatchStrategy.BATCH_EXECUTOR);
+        assertThat(primaryUserMapper.count()).isEqualTo(3 + 1200 + batchWritePolicy.getBatchExecutorThreshold());
+    }
+
+    @Test
+    @DisplayName("测试三种写入方式都回填主键")
+    void testAllStrategiesAssignIds() {
+        for (BatchStrategy strategy : BatchStrategy.values()) {
+            // 行数不是分组大小的整数倍，最后一组不满
+            List<User> users = users(strategy.name(), 2345);
+            secondaryUserBatchWriter.saveAll(users, strategy);
+
+            assertThat(users).extracting(User::getId).doesNotContainNull().doesNotHaveDuplicates();
+            for (User user : List.of(users.get(0), users.get(1000), users.get(users.size() - 1))) {
+                assertThat(secondaryUserMapper.findById(user.getId())).contains(user);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("测试调用方已有事务时加入事务并改用多行插入")
+    void testJoinsExistingTransaction() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(primaryTransactionManager);
+        List<User> users = users("in-tx", batchWritePolicy.getBatchExecutorThreshold());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            primaryUserMapper.insert(new User(null, "before", "before@primary.com"));
+            // 事务中已经在使用 SIMPLE 执行器，不能切换到 BATCH
+            assertThat(primaryUserBatchWriter.saveAll(users)).isEqualTo(BatchStrategy.MULTI_ROW);
+            primaryUserMapper.insert(new User(null, "after", "after@primary.com"));
+            assertThat(primaryUserMapper.count()).isEqualTo(users.size() + 2);
+            status.setRollbackOnly();
+        });
+
+        assertThat(primaryUserMapper.count()).isZero();
+    }
+
+    @Test
+    @DisplayName("测试回调和写入在同一个事务中，大批量仍使用 BATCH 执行器")
+    void testAfterInsertRunsInWriterTransaction() {
+        List<User> users = users("outbox", batchWritePolicy.getBatchExecutorThreshold());
+        long seq = maxOutboxSeq();
+
+        BatchStrategy strategy = primaryUserBatchWriter.saveAll(users, saved -> primaryOutboxWriter.recordAll(
+                "user", saved.stream().map(User::getId).toList(), ChangeType.INSERT));
+
+        assertThat(strategy).isEqualTo(BatchStrategy.BATCH_EXECUTOR);
+        // 回调在主键回填之后执行，事件中的 id 就是写入的用户
+        assertThat(primary.queryForList("SELECT aggregate_id FROM change_outbox WHERE seq > ? ORDER BY seq",
+                String.class, seq))
+                .containsExactlyElementsOf(users.stream().map(user -> String.valueOf(user.getId())).toList());
+    }
+
+    @Test
+    @DisplayName("测试回调失败时用户一起回滚")
+    void testAfterInsertFailureRollsBackUsers() {
+        List<User> users = users("rollback", batchWritePolicy.getBatchExecutorThreshold());
+
+        assertThatThrownBy(() -> primaryUserBatchWriter.saveAll(users, saved -> {
+            throw new IllegalStateException("模拟记录事件失败");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(primaryUserMapper.count()).isZero();
+    }
+
+    @Test
+    @DisplayName("对比三种方式批量写入的吞吐")
+    void benchmarkWritePaths() {
+        for (BatchStrategy strategy : BatchStrategy.values()) {
+            primary.execute("DELETE FROM users");
+            List<User> users = users(strategy.name(), ROWS);
+
+            long start = System.nanoTime();
+            primaryUserBatchWriter.saveAll(users, strategy);
+            long elapsedNanos = System.nanoTime() - start;
+
+            System.out.printf("%-15s %,d rows in %,d ms, %,.0f rows/sec%n",
+                    strategy, ROWS, elapsedNanos / 1_000_000, ROWS * 1e9 / elapsedNanos);
+            assertThat(primaryUserMapper.count()).isEqualTo(ROWS);
+            assertThat(users).extracting(User::getId).doesNotContainNull();
+        }
+    }
+
+    private long maxOutboxSeq() {
+        return primary.queryForObject("SELECT COALESCE(MAX(seq), 0) FROM change_outbox", Long.class);
+    }
+
+    private static List<User> users(String prefix, int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(new User(null, prefix + "-" + i, prefix + "-" + i + "@example.com"));
+        }
+        return users;
+    }
+}
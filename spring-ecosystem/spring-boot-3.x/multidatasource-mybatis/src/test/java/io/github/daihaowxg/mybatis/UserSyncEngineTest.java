@@ -0,0 +1,126 @@
+package io.github.daihaowxg.mybatis;
+
+import io.github.daihaowxg.mybatis.entity.User;
+import io.github.daihaowxg.mybatis.mapper.secondary.SecondaryUserMapper;
+import io.github.daihaowxg.mybatis.mapper.secondary.SyncCheckpointMapper;
+import io.github.daihaowxg.mybatis.sync.SyncMode;
+import io.github.daihaowxg.mybatis.sync.SyncReport;
+import io.github.daihaowxg.mybatis.sync.UserSyncEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 批量同步引擎测试
+ *
+ * <p>
+ * 使用独立的内存库，主数据源预置大量用户后做全量、增量、断点恢复同步，并打印吞吐量。
+ * 行数可以通过 {@code -Dsync.rows=...} 调整，默认 20 万行。
+ * </p>
+ *
+ * @author daihaowxg
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "spring.datasource.primary.jdbc-url=jdbc:h2:mem:sync-primary",
+        "spring.datasource.secondary.jdbc-url=jdbc:h2:mem:sync-secondary",
+        "sync.chunk-size=1000",
+        // 关闭逐条 SQL 日志
+        "logging.level.io.github.daihaowxg.mybatis.mapper=INFO"
+})
+class UserSyncEngineTest {
+
+    private static final long ROWS = Long.getLong("sync.rows", 200_000L);
+
+    @Autowired
+    private UserSyncEngine userSyncEngine;
+
+    @Autowired
+    private SecondaryUserMapper secondaryUserMapper;
+
+    @Autowired
+    private SyncCheckpointMapper checkpointMapper;
+
+    private JdbcTemplate primary;
+
+    private long maxId;
+
+    @BeforeEach
+    void setUp(@Autowired @Qualifier("primaryDataSource") DataSource primaryDataSource,
+               @Autowired @Qualifier("secondaryDataSource") DataSource secondaryDataSource) {
+        primary = new JdbcTemplate(primaryDataSource);
+        primary.execute("DELETE FROM users");
+        primary.update("INSERT INTO users (name, email) "
+                + "SELECT CONCAT('user-', X), CONCAT('user-', X, '@primary.com') FROM SYSTEM_RANGE(1, ?)", ROWS);
+        maxId = primary.queryForObject("SELECT MAX(id) FROM users", Long.class);
+
+        JdbcTemplate secondary = new JdbcTemplate(secondaryDataSource);
+        secondary.execute("DELETE FROM users WHERE source_id IS NOT NULL");
+        secondary.execute("DELETE FROM sync_checkpoint");
+    }
+
+    @Test
+    @DisplayName("测试全量同步")
+    void testFullSync() {
+        SyncReport report = userSyncEngine.sync(SyncMode.FULL);
+
+        log.info("{}", report);
+        assertThat(report.getRows()).isEqualTo(ROWS);
+        assertThat(report.getHighWaterMark()).isEqualTo(maxId);
+        assertThat(secondaryUserMapper.countSynced()).isEqualTo(ROWS);
+        assertThat(userSyncEngine.getHighWaterMark()).isEqualTo(maxId);
+
+        // 再次全量同步是 upsert，不会产生重复数据
+        primary.update("UPDATE users SET name = 'renamed' WHERE id = ?", maxId);
+        userSyncEngine.sync(SyncMode.FULL);
+        assertThat(secondaryUserMapper.countSynced()).isEqualTo(ROWS);
+        assertThat(secondaryUserMapper.findByName("renamed")).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("测试增量同步只处理高水位之后的新用户")
+    void testIncrementalSync() {
+        userSyncEngine.sync(SyncMode.FULL);
+
+        primary.update("INSERT INTO users (name, email) "
+                + "SELECT CONCAT('new-', X), CONCAT('new-', X, '@primary.com') FROM SYSTEM_RANGE(1, 2500)");
+        SyncReport report = userSyncEngine.sync(SyncMode.INCREMENTAL);
+
+        log.info("{}", report);
+        assertThat(report.getFromId()).isEqualTo(maxId);
+        assertThat(report.getRows()).isEqualTo(2500);
+        assertThat(report.getChunks()).isEqualTo(3);
+        assertThat(secondaryUserMapper.countSynced()).isEqualTo(ROWS + 2500);
+
+        assertThat(userSyncEngine.sync(SyncMode.INCREMENTAL).getRows()).isZero();
+    }
+
+    @Test
+    @DisplayName("测试中断后从检查点恢复")
+    void testResumeFromCheckpoint() {
+        // 模拟同步到一半中断：前一半的数据和检查点已经提交
+        long minId = primary.queryForObject("SELECT MIN(id) FROM users", Long.class);
+        long half = minId + ROWS / 2 - 1;
+        primary.query("SELECT * FROM users WHERE id <= ?", rs -> {
+            User user = new User(
+                    rs.getLong("id"), rs.getString("name"), rs.getString("email"));
+            secondaryUserMapper.upsertBySourceId(user);
+        }, half);
+        checkpointMapper.save(UserSyncEngine.JOB_NAME, half);
+
+        SyncReport report = userSyncEngine.sync(SyncMode.INCREMENTAL);
+
+        log.info("{}", report);
+        assertThat(report.getRows()).isEqualTo(ROWS - ROWS / 2);
+        assertThat(secondaryUserMapper.countSynced()).isEqualTo(ROWS);
+    }
+}
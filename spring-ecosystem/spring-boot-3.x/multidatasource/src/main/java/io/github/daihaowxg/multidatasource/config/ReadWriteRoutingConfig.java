@@ -0,0 +1,111 @@
+package io.github.daihaowxg.multidatasource.config;
+
+import io.github.daihaowxg.multidatasource.routing.LoadBalanceStrategy;
+import io.github.daihaowxg.multidatasource.routing.ReadOnly;
+import io.github.daihaowxg.multidatasource.routing.ReadOnlyRoutingInterceptor;
+import io.github.daihaowxg.multidatasource.routing.ReadWriteRoutingDataSource;
+import io.github.daihaowxg.multidatasource.routing.RoutingContextFilter;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * 读写分离配置示例
+ * <p>
+ * 在 {@link MultiDataSourceConfig} 的两个数据源之上构建一个路由数据源：主数据源负责写，
+ * 第二个数据源充当从库负责读，调用方不再需要手动挑选 JdbcTemplate。
+ * <p>
+ * <b>Bean 结构:</b>
+ * <ul>
+ * <li>readWriteRoutingDataSource - {@link ReadWriteRoutingDataSource}，根据读写标记选择主库或从库</li>
+ * <li>routingDataSource - {@link LazyConnectionDataSourceProxy}，推迟获取连接，保证路由时能看到事务的 readOnly 标记</li>
+ * <li>routingJdbcTemplate / routingTransactionManager - 基于 routingDataSource</li>
+ * <li>routingContextFilter - {@link RoutingContextFilter}，请求结束时清理 read-your-writes 标记</li>
+ * </ul>
+ * <p>
+ * <b>配置文件示例 (application.yml):</b>
+ *
+ * <pre>
+ * spring:
+ *   datasource:
+ *     routing:
+ *       load-balance: round-robin        # 或 least-active
+ *       max-replica-latency: 500ms
+ *       health-check-interval: 5s
+ * </pre>
+ */
+@Configuration
+public class ReadWriteRoutingConfig {
+
+    @Bean(name = "readWriteRoutingDataSource")
+    public ReadWriteRoutingDataSource readWriteRoutingDataSource(
+            @Qualifier("primaryDataSource") DataSource primaryDataSource,
+            @Qualifier("secondaryDataSource") DataSource secondaryDataSource,
+            @Value("${spring.datasource.routing.load-balance:round-robin}") String loadBalance,
+            @Value("${spring.datasource.routing.max-replica-latency:500ms}") Duration maxReplicaLatency,
+            @Value("${spring.datasource.routing.health-check-interval:5s}") Duration healthCheckInterval) {
+        ReadWriteRoutingDataSource dataSource = new ReadWriteRoutingDataSource(primaryDataSource,
+                Map.of("secondary", secondaryDataSource),
+                LoadBalanceStrategy.valueOf(loadBalance.toUpperCase().replace('-', '_')));
+        dataSource.setMaxReplicaLatency(maxReplicaLatency);
+        dataSource.setHealthCheckInterval(healthCheckInterval);
+        return dataSource;
+    }
+
+    @Bean(name = "routingDataSource")
+    public DataSource routingDataSource(
+            @Qualifier("readWriteRoutingDataSource") ReadWriteRoutingDataSource readWriteRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(readWriteRoutingDataSource);
+    }
+
+    @Bean(name = "routingJdbcTemplate")
+    public JdbcTemplate routingJdbcTemplate(@Qualifier("routingDataSource") DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    @Bean(name = "routingTransactionManager")
+    public PlatformTransactionManager routingTransactionManager(@Qualifier("routingDataSource") DataSource dataSource) {
+        return new DataSourceTransactionManager(dataSource);
+    }
+
+    @Bean
+    public FilterRegistrationBean<RoutingContextFilter> routingContextFilter() {
+        FilterRegistrationBean<RoutingContextFilter> registration = new FilterRegistrationBean<>(new RoutingContextFilter());
+        // 尽量靠前，其他 Filter 中访问数据库留下的标记也能被清理
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    /**
+     * 让 {@link ReadOnly} 注解生效
+     * <p>
+     * 声明为基础设施 Bean，这样 {@code @EnableTransactionManagement} 注册的自动代理创建器也会应用它，
+     * 不需要引入 AspectJ。
+     */
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor readOnlyRoutingAdvisor() {
+        ComposablePointcut pointcut = new ComposablePointcut(new AnnotationMatchingPointcut(ReadOnly.class, true))
+                .union(new AnnotationMatchingPointcut(null, ReadOnly.class, true));
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(pointcut, new ReadOnlyRoutingInterceptor());
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.daihaowxg.multidatasource.repository;
+
+import io.github.daihaowxg.multidatasource.entity.User;
+import io.github.daihaowxg.multidatasource.routing.ReadOnly;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 读写分离 JdbcTemplate 使用示例
+ * <p>
+ * 与 {@link MultiDataSourceRepository} 不同，这里只注入一个 routingJdbcTemplate，
+ * 由路由数据源根据读写标记决定访问主库还是从库。
+ * <p>
+ * <b>核心要点:</b>
+ * <ul>
+ * <li>写操作使用读写事务，走主库</li>
+ * <li>读操作使用 {@code @Transactional(readOnly = true)} 或 {@code @ReadOnly}，走从库</li>
+ * <li>同一请求中写过主库之后，读操作也会走主库（read-your-writes）</li>
+ * </ul>
+ */
+@Slf4j
+@Repository
+public class RoutingUserRepository {
+
+    private static final String SELECT_USER = "SELECT id, name, email FROM users";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RoutingUserRepository(@Qualifier("routingJdbcTemplate") JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 写操作：读写事务，路由到主库
+     */
+    @Transactional(transactionManager = "routingTransactionManager")
+    public void save(User user) {
+        log.info("保存用户: {}", user);
+        jdbcTemplate.update("INSERT INTO users (name, email) VALUES (?, ?)", user.getName(), user.getEmail());
+    }
+
+    /**
+     * 只读事务，路由到从库
+     */
+    @Transactional(transactionManager = "routingTransactionManager", readOnly = true)
+    public Optional<User> findById(Long id) {
+        log.info("查询用户: id={}", id);
+        return jdbcTemplate.query(SELECT_USER + " WHERE id = ?", (rs, rowNum) -> new User(
+                rs.getLong("id"),
+                rs.getString("name"),
+                rs.getString("email")), id).stream().findFirst();
+    }
+
+    /**
+     * 没有事务的只读查询，通过 {@link ReadOnly} 路由到从库
+     */
+    @ReadOnly
+    public List<User> findAll() {
+        log.info("查询所有用户");
+        return jdbcTemplate.query(SELECT_USER, (rs, rowNum) -> new User(
+                rs.getLong("id"),
+                rs.getString("name"),
+                rs.getString("email")));
+    }
+
+    /**
+     * 没有任何标记，默认走主库
+     */
+    public int count() {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Integer.class);
+        return count != null ? count : 0;
+    }
+}
@@ -0,0 +1,17 @@
+package io.github.daihaowxg.multidatasource.routing;
+
+/**
+ * 从库负载均衡策略
+ */
+public enum LoadBalanceStrategy {
+
+    /**
+     * 轮询：依次选择健康的从库
+     */
+    ROUND_ROBIN,
+
+    /**
+     * 最少活跃：选择当前借出连接数最少的健康从库，连接数相同时按轮询顺序
+     */
+    LEAST_ACTIVE
+}
@@ -0,0 +1,19 @@
+package io.github.daihaowxg.multidatasource.routing;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记只读方法，由 {@link ReadWriteRoutingDataSource} 路由到从库
+ * <p>
+ * 与 {@code @Transactional(readOnly = true)} 效果相同，但不需要开启事务，适合单条查询。
+ * 标注在类上时对类中所有 public 方法生效。
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface ReadOnly {
+}
@@ -0,0 +1,20 @@
+package io.github.daihaowxg.multidatasource.routing;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * {@link ReadOnly} 注解的拦截器，在方法执行期间把当前线程标记为只读
+ */
+public class ReadOnlyRoutingInterceptor implements MethodInterceptor {
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        RoutingContext.enterReadOnly();
+        try {
+            return invocation.proceed();
+        } finally {
+            RoutingContext.exitReadOnly();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package io.github.daihaowxg.multidatasource.routing;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 读写分离路由数据源
+ * <p>
+ * 写操作走主库，读操作按负载均衡策略分发到健康的从库。
+ * <p>
+ * <b>路由规则:</b>
+ * <ul>
+ * <li>{@code @Transactional(readOnly = true)} 或 {@link ReadOnly} 标注的方法 → 从库</li>
+ * <li>其他操作 → 主库</li>
+ * <li>本次请求已在读写事务中写过主库（见 {@link RoutingContext}）→ 后续的读也走主库</li>
+ * <li>没有健康的从库 → 主库</li>
+ * </ul>
+ * <p>
+ * <b>注意:</b> DataSourceTransactionManager 在开启事务时就会获取连接，此时 readOnly 标记还没有绑定到线程，
+ * 所以必须用 {@link LazyConnectionDataSourceProxy} 包装本数据源，把真正获取连接推迟到第一条 SQL 执行时。
+ * <p>
+ * <b>健康检查:</b> 定期在每个从库上执行 {@code SELECT 1}，失败或耗时超过 maxReplicaLatency 的节点被摘除，
+ * 之后检查通过时自动恢复。
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+
+    public static final String PRIMARY = "primary";
+
+    private final List<ReplicaNode> replicas = new ArrayList<>();
+
+    private final LoadBalanceStrategy strategy;
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    private Duration maxReplicaLatency = Duration.ofMillis(500);
+
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+
+    private ScheduledExecutorService healthChecker;
+
+    /**
+     * @param primary  主库
+     * @param replicas 从库，key 为节点名称
+     * @param strategy 从库负载均衡策略
+     */
+    public ReadWriteRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                      LoadBalanceStrategy strategy) {
+        this.strategy = strategy;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        replicas.forEach((name, dataSource) -> {
+            ReplicaNode node = new ReplicaNode(name, dataSource);
+            this.replicas.add(node);
+            targets.put(name, node);
+        });
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    /**
+     * 健康检查允许的最大耗时，超过则摘除该从库
+     */
+    public void setMaxReplicaLatency(Duration maxReplicaLatency) {
+        this.maxReplicaLatency = maxReplicaLatency;
+    }
+
+    /**
+     * 健康检查间隔，{@link Duration#ZERO} 表示不启动定时检查（可以手动调用 {@link #checkReplicas()}）
+     */
+    public void setHealthCheckInterval(Duration healthCheckInterval) {
+        this.healthCheckInterval = healthCheckInterval;
+    }
+
+    public List<ReplicaNode> getReplicas() {
+        return Collections.unmodifiableList(replicas);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        if (!replicas.isEmpty() && !healthCheckInterval.isZero()) {
+            healthChecker = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "replica-health-check");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = healthCheckInterval.toMillis();
+            healthChecker.scheduleWithFixedDelay(this::checkReplicas, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (healthChecker != null) {
+            healthChecker.shutdownNow();
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean readOnly = RoutingContext.isReadOnly()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        if (!readOnly) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                RoutingContext.markWritten();
+            }
+            return PRIMARY;
+        }
+        if (RoutingContext.isWritten()) {
+            // read-your-writes：本次请求写过主库，继续读主库
+            return PRIMARY;
+        }
+        ReplicaNode replica = selectReplica();
+        return replica != null ? replica.getName() : PRIMARY;
+    }
+
+    /**
+     * 按负载均衡策略选择一个健康的从库，没有健康的从库时返回 null
+     */
+    ReplicaNode selectReplica() {
+        int size = replicas.size();
+        if (size == 0) {
+            return null;
+        }
+        int start = Math.floorMod(counter.getAndIncrement(), size);
+        ReplicaNode selected = null;
+        for (int i = 0; i < size; i++) {
+            ReplicaNode node = replicas.get((start + i) % size);
+            if (!node.isHealthy()) {
+                continue;
+            }
+            if (strategy == LoadBalanceStrategy.ROUND_ROBIN) {
+                return node;
+            }
+            if (selected == null || node.getActive() < selected.getActive()) {
+                selected = node;
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * 检查所有从库，摘除失败或过慢的节点，恢复已经正常的节点
+     */
+    public void checkReplicas() {
+        for (ReplicaNode node : replicas) {
+            boolean healthy;
+            long start = System.nanoTime();
+            // 直接使用目标数据源，不计入活跃连接数
+            try (Connection conn = node.getTargetDataSource().getConnection();
+                 Statement stmt = conn.createStatement()) {
+                stmt.setQueryTimeout((int) Math.max(1, maxReplicaLatency.toSeconds()));
+                stmt.execute("SELECT 1");
+                healthy = System.nanoTime() - start <= maxReplicaLatency.toNanos();
+            } catch (Exception e) {
+                log.warn("从库健康检查失败: {}", node.getName(), e);
+                healthy = false;
+            }
+            long latency = System.nanoTime() - start;
+            node.setLastLatencyNanos(latency);
+            if (node.isHealthy() != healthy) {
+                log.warn("从库 {} {}，检查耗时 {} ms", node.getName(), healthy ? "恢复" : "被摘除",
+                        TimeUnit.NANOSECONDS.toMillis(latency));
+                node.setHealthy(healthy);
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package io.github.daihaowxg.multidatasource.routing;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 从库节点
+ * <p>
+ * 包装从库的 DataSource，统计当前借出的连接数（供最少活跃策略使用），并记录健康检查结果。
+ */
+public class ReplicaNode extends DelegatingDataSource {
+
+    private final String name;
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    private volatile boolean healthy = true;
+
+    private volatile long lastLatencyNanos;
+
+    public ReplicaNode(String name, DataSource target) {
+        super(target);
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 当前借出、尚未归还的连接数
+     */
+    public int getActive() {
+        return active.get();
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    void setHealthy(boolean healthy) {
+        this.healthy = healthy;
+    }
+
+    public long getLastLatencyNanos() {
+        return lastLatencyNanos;
+    }
+
+    void setLastLatencyNanos(long lastLatencyNanos) {
+        this.lastLatencyNanos = lastLatencyNanos;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return track(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return track(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    /**
+     * 返回一个代理连接，close() 时把活跃数减回去（只减一次）
+     */
+    private Connection track(Connection target) {
+        active.incrementAndGet();
+        AtomicBoolean closed = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if ("close".equals(method.getName()) && closed.compareAndSet(false, true)) {
+                        active.decrementAndGet();
+                    }
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+
+    @Override
+    public String toString() {
+        return name + (healthy ? "" : "(ejected)") + "[active=" + active.get() + "]";
+    }
+}
@@ -0,0 +1,91 @@
+package io.github.daihaowxg.multidatasource.routing;
+
+import java.util.function.Supplier;
+
+/**
+ * 当前线程的读写路由上下文
+ * <p>
+ * 记录两件事：
+ * <ul>
+ * <li>是否处于 {@link ReadOnly} 方法中（可嵌套）</li>
+ * <li>本次请求是否已经写过主库。写过之后，同一请求内的读也走主库，保证读到自己刚写的数据
+ * （read-your-writes），避免主从复制延迟导致"写完查不到"</li>
+ * </ul>
+ * <p>
+ * <b>注意:</b> 上下文绑定在线程上，请求结束时必须调用 {@link #clear()}，否则线程被复用后，
+ * 下一个请求的读也会一直走主库。Web 请求由 {@link RoutingContextFilter} 清理；
+ * 定时任务、消息监听等其他入口用 {@link #runInRequest(Supplier)} 包住一次处理。
+ */
+public final class RoutingContext {
+
+    private static final ThreadLocal<int[]> READ_ONLY_DEPTH = ThreadLocal.withInitial(() -> new int[1]);
+
+    private static final ThreadLocal<Boolean> WRITTEN = new ThreadLocal<>();
+
+    private RoutingContext() {
+    }
+
+    /**
+     * 进入只读区域，需要与 {@link #exitReadOnly()} 成对调用
+     */
+    public static void enterReadOnly() {
+        READ_ONLY_DEPTH.get()[0]++;
+    }
+
+    /**
+     * 离开只读区域
+     */
+    public static void exitReadOnly() {
+        int[] depth = READ_ONLY_DEPTH.get();
+        if (--depth[0] <= 0) {
+            READ_ONLY_DEPTH.remove();
+        }
+    }
+
+    public static boolean isReadOnly() {
+        return READ_ONLY_DEPTH.get()[0] > 0;
+    }
+
+    /**
+     * 标记本次请求已经写过主库
+     */
+    public static void markWritten() {
+        WRITTEN.set(Boolean.TRUE);
+    }
+
+    public static boolean isWritten() {
+        return Boolean.TRUE.equals(WRITTEN.get());
+    }
+
+    /**
+     * 把一次处理当作一个请求执行，结束后（包括抛出异常时）清理上下文
+     * <p>
+     * 不要嵌套调用：内层结束时会清掉外层的写标记。
+     */
+    public static <T> T runInRequest(Supplier<T> action) {
+        try {
+            return action.get();
+        } finally {
+            clear();
+        }
+    }
+
+    /**
+     * 同 {@link #runInRequest(Supplier)}，没有返回值
+     */
+    public static void runInRequest(Runnable action) {
+        try {
+            action.run();
+        } finally {
+            clear();
+        }
+    }
+
+    /**
+     * 清理上下文，请求结束时调用
+     */
+    public static void clear() {
+        READ_ONLY_DEPTH.remove();
+        WRITTEN.remove();
+    }
+}
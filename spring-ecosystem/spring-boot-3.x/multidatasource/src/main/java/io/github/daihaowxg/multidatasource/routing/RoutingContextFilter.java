@@ -0,0 +1,28 @@
+package io.github.daihaowxg.multidatasource.routing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 每个 HTTP 请求结束时清理 {@link RoutingContext}
+ * <p>
+ * 写标记保存在线程上，Servlet 容器的工作线程会被后续请求复用。不清理的话，
+ * 一个线程只要处理过一次写请求，之后经过它的所有读都会走主库，从库形同虚设。
+ */
+public class RoutingContextFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RoutingContext.clear();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package io.github.daihaowxg.multidatasource;
+
+import io.github.daihaowxg.multidatasource.entity.User;
+import io.github.daihaowxg.multidatasource.repository.RoutingUserRepository;
+import io.github.daihaowxg.multidatasource.routing.RoutingContext;
+import io.github.daihaowxg.multidatasource.routing.RoutingContextFilter;
+import io.github.daihaowxg.sqlprofiler.QueryBudget;
+import io.github.daihaowxg.sqlprofiler.SqlProfile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 读写分离路由测试
+ * <p>
+ * 两个 H2 内存库分别充当主库和从库。两边预置不同的数据，通过查询结果判断请求落在了哪个库。
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.primary.jdbc-url=jdbc:h2:mem:rw-primary",
+        "spring.datasource.secondary.jdbc-url=jdbc:h2:mem:rw-replica",
+        "spring.datasource.routing.health-check-interval=0s"
+})
+class ReadWriteRoutingTest {
+
+    @Autowired
+    private RoutingUserRepository routingUserRepository;
+
+    @Autowired
+    private FilterRegistrationBean<RoutingContextFilter> routingContextFilter;
+
+    @Autowired
+    @Qualifier("primaryJdbcTemplate")
+    private JdbcTemplate primaryJdbcTemplate;
+
+    @Autowired
+    @Qualifier("secondaryJdbcTemplate")
+    private JdbcTemplate replicaJdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        RoutingContext.clear();
+        init(primaryJdbcTemplate, "primary-user");
+        init(replicaJdbcTemplate, "replica-user");
+    }
+
+    @AfterEach
+    void tearDown() {
+        RoutingContext.clear();
+    }
+
+    @Test
+    @DisplayName("写操作路由到主库")
+    void testWriteGoesToPrimary() {
+        routingUserRepository.save(new User(null, "new-user", "new@example.com"));
+
+        assertThat(countUsers(primaryJdbcTemplate)).isEqualTo(2);
+        assertThat(countUsers(replicaJdbcTemplate)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("只读事务路由到从库")
+    void testReadOnlyTransactionGoesToReplica() {
+        assertThat(routingUserRepository.findById(1L))
+                .map(User::getName)
+                .hasValue("replica-user");
+    }
+
+    @Test
+    @DisplayName("@ReadOnly 方法路由到从库")
+    void testReadOnlyAnnotationGoesToReplica() {
+        assertThat(routingUserRepository.findAll())
+                .extracting(User::getName)
+                .containsExactly("replica-user");
+    }
+
+    @Test
+    @DisplayName("没有标记的操作默认走主库")
+    void testUnmarkedReadGoesToPrimary() {
+        primaryJdbcTemplate.update("INSERT INTO users (name, email) VALUES ('another', 'another@primary.com')");
+
+        assertThat(routingUserRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("同一请求写过主库后，读也走主库")
+    void testReadYourWrites() {
+        List<User> sameRequest = RoutingContext.runInRequest(() -> {
+            routingUserRepository.save(new User(null, "new-user", "new@example.com"));
+            return routingUserRepository.findAll();
+        });
+        assertThat(sameRequest).extracting(User::getName).containsExactly("primary-user", "new-user");
+        assertThat(RoutingContext.isWritten()).isFalse();
+
+        // 同一线程上的下一个请求重新读从库
+        assertThat(RoutingContext.runInRequest(routingUserRepository::findAll))
+                .extracting(User::getName)
+                .containsExactly("replica-user");
+    }
+
+    @Test
+    @DisplayName("Web 请求结束后清理写标记，同一线程的下一个请求读从库")
+    void testFilterClearsContextBetweenRequests() throws Exception {
+        List<String> names = new ArrayList<>();
+        // 两个请求在同一线程上依次处理，和 Servlet 容器复用工作线程一样
+        routingContextFilter.getFilter().doFilter(new MockHttpServletRequest("POST", "/users"),
+                new MockHttpServletResponse(), (request, response) -> {
+                    routingUserRepository.save(new User(null, "new-user", "new@example.com"));
+                    routingUserRepository.findAll().forEach(user -> names.add(user.getName()));
+                });
+        assertThat(names).containsExactly("primary-user", "new-user");
+        assertThat(RoutingContext.isWritten()).isFalse();
+
+        names.clear();
+        routingContextFilter.getFilter().doFilter(new MockHttpServletRequest("GET", "/users"),
+                new MockHttpServletResponse(), (request, response) ->
+                        routingUserRepository.findAll().forEach(user -> names.add(user.getName())));
+        assertThat(names).containsExactly("replica-user");
+    }
+
+    @Test
+    @DisplayName("主从库都被分析，经过路由的语句只记录一次")
+    void testRoutedStatementsAreProfiledOnce() {
+        SqlProfile profile = QueryBudget.maxStatements(2).run(() -> {
+            routingUserRepository.save(new User(null, "new-user", "new@example.com"));
+            RoutingContext.clear();
+            routingUserRepository.findAll();
+        });
+
+        assertThat(profile.getShapes())
+                .extracting(SqlProfile.ShapeStats::getFingerprint)
+                .containsExactly("insert users", "select users");
+        assertThat(profile.getRowsFetched()).isEqualTo(1);
+    }
+
+    private static void init(JdbcTemplate jdbcTemplate, String name) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS users");
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "name VARCHAR(100) NOT NULL, email VARCHAR(100) NOT NULL)");
+        jdbcTemplate.update("INSERT INTO users (name, email) VALUES (?, ?)", name, name + "@example.com");
+    }
+
+    private static Integer countUsers(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Integer.class);
+    }
+}
@@ -0,0 +1,147 @@
+package io.github.daihaowxg.multidatasource.routing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 从库负载均衡与健康检查测试
+ * <p>
+ * 每个库里有一张 node 表，记录自己的名字，通过查询它判断连接来自哪个库。
+ */
+class ReadWriteRoutingDataSourceTest {
+
+    private final SlowDataSource replica2 = new SlowDataSource(node("replica-2"));
+
+    @AfterEach
+    void tearDown() {
+        RoutingContext.clear();
+    }
+
+    @Test
+    @DisplayName("轮询策略依次选择从库")
+    void testRoundRobin() throws SQLException {
+        ReadWriteRoutingDataSource routing = routing(LoadBalanceStrategy.ROUND_ROBIN);
+
+        RoutingContext.enterReadOnly();
+        assertThat(new String[]{read(routing), read(routing), read(routing), read(routing)})
+                .containsExactly("replica-1", "replica-2", "replica-1", "replica-2");
+        RoutingContext.exitReadOnly();
+
+        assertThat(read(routing)).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("最少活跃策略避开连接被占用的从库")
+    void testLeastActive() throws SQLException {
+        ReadWriteRoutingDataSource routing = routing(LoadBalanceStrategy.LEAST_ACTIVE);
+
+        RoutingContext.enterReadOnly();
+        try (Connection held = routing.getConnection()) {
+            String busy = nodeName(held);
+            String idle = busy.equals("replica-1") ? "replica-2" : "replica-1";
+            for (int i = 0; i < 4; i++) {
+                assertThat(read(routing)).isEqualTo(idle);
+            }
+        }
+        assertThat(routing.getReplicas()).allMatch(node -> node.getActive() == 0);
+    }
+
+    @Test
+    @DisplayName("健康检查摘除慢节点，恢复后重新加入")
+    void testHealthCheckEjectsSlowReplica() throws SQLException {
+        ReadWriteRoutingDataSource routing = routing(LoadBalanceStrategy.ROUND_ROBIN);
+        routing.setMaxReplicaLatency(Duration.ofMillis(100));
+
+        replica2.delayMillis = 300;
+        routing.checkReplicas();
+        assertThat(routing.getReplicas()).extracting(ReplicaNode::isHealthy).containsExactly(true, false);
+
+        RoutingContext.enterReadOnly();
+        for (int i = 0; i < 4; i++) {
+            assertThat(read(routing)).isEqualTo("replica-1");
+        }
+
+        replica2.delayMillis = 0;
+        routing.checkReplicas();
+        assertThat(read(routing) + read(routing)).contains("replica-2");
+    }
+
+    @Test
+    @DisplayName("没有健康的从库时读主库")
+    void testFallbackToPrimary() throws SQLException {
+        ReadWriteRoutingDataSource routing = routing(LoadBalanceStrategy.LEAST_ACTIVE);
+        routing.getReplicas().forEach(node -> node.setHealthy(false));
+
+        RoutingContext.enterReadOnly();
+        assertThat(read(routing)).isEqualTo("primary");
+    }
+
+    private ReadWriteRoutingDataSource routing(LoadBalanceStrategy strategy) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", node("replica-1"));
+        replicas.put("replica-2", replica2);
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(node("primary"), replicas, strategy);
+        routing.setHealthCheckInterval(Duration.ZERO);
+        routing.afterPropertiesSet();
+        return routing;
+    }
+
+    private static DataSource node(String name) {
+        DataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS node (name VARCHAR(32))");
+        jdbcTemplate.execute("DELETE FROM node");
+        jdbcTemplate.update("INSERT INTO node (name) VALUES (?)", name);
+        return dataSource;
+    }
+
+    private static String read(DataSource dataSource) throws SQLException {
+        try (Connection conn = dataSource.getConnection()) {
+            return nodeName(conn);
+        }
+    }
+
+    private static String nodeName(Connection conn) throws SQLException {
+        try (var stmt = conn.createStatement(); var rs = stmt.executeQuery("SELECT name FROM node")) {
+            rs.next();
+            return rs.getString(1);
+        }
+    }
+
+    /**
+     * 获取连接前人为等待，模拟响应变慢的从库
+     */
+    private static class SlowDataSource extends DelegatingDataSource {
+
+        volatile long delayMillis;
+
+        SlowDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.getConnection();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package io.github.daihaowxg.executor;
+
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.BusySpinWaitStrategy;
+import com.lmax.disruptor.EventTranslatorOneArg;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.SleepingWaitStrategy;
+import com.lmax.disruptor.TimeoutException;
+import com.lmax.disruptor.WaitStrategy;
+import com.lmax.disruptor.WorkHandler;
+import com.lmax.disruptor.YieldingWaitStrategy;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 基于 Disruptor 环形缓冲区的任务执行器
+ * <p>
+ * {@code ThreadPoolTaskExecutor} 默认使用 {@code LinkedBlockingQueue}，每提交一个任务都要分配一个链表节点，
+ * 并且生产者和消费者都要竞争同一把锁。这里把任务放进预分配的槽位（{@link TaskSlot}）中，
+ * 槽位在执行完成后被复用，提交路径上只有一次序号 CAS，没有锁也没有额外的对象分配。
+ * <p>
+ * 多个工作线程通过 WorkerPool 共享一个工作序号，每个任务只会被一个线程执行。
+ * 环满时与 {@code CallerRunsPolicy} 一致，由提交任务的线程自己执行。
+ *
+ * @author wxg
+ */
+@Slf4j
+public class RingBufferTaskExecutor implements TaskExecutor, DisposableBean {
+
+    private static final EventTranslatorOneArg<TaskSlot, Runnable> TRANSLATOR = (slot, sequence, task) -> slot.task = task;
+
+    private final Disruptor<TaskSlot> disruptor;
+    private final RingBuffer<TaskSlot> ringBuffer;
+    private final long awaitTerminationSeconds;
+
+    /**
+     * @param threadNamePrefix        线程名前缀
+     * @param workers                 工作线程数
+     * @param bufferSize              环大小，必须是 2 的幂
+     * @param waitStrategy            工作线程空闲时的等待策略
+     * @param awaitTerminationSeconds 关闭时等待剩余任务执行完成的最长时间
+     */
+    @SuppressWarnings("unchecked")
+    public RingBufferTaskExecutor(String threadNamePrefix, int workers, int bufferSize,
+                                  WaitStrategyType waitStrategy, long awaitTerminationSeconds) {
+        this.awaitTerminationSeconds = awaitTerminationSeconds;
+        this.disruptor = new Disruptor<>(TaskSlot::new, bufferSize, new CustomizableThreadFactory(threadNamePrefix),
+                ProducerType.MULTI, waitStrategy.create());
+
+        WorkHandler<TaskSlot>[] handlers = new WorkHandler[workers];
+        for (int i = 0; i < workers; i++) {
+            handlers[i] = RingBufferTaskExecutor::runTask;
+        }
+        this.disruptor.handleEventsWithWorkerPool(handlers);
+        this.ringBuffer = disruptor.start();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        if (!ringBuffer.tryPublishEvent(TRANSLATOR, task)) {
+            // 环已满：调用方线程执行，形成自然的背压
+            task.run();
+        }
+    }
+
+    private static void runTask(TaskSlot slot) {
+        Runnable task = slot.task;
+        // 先清空槽位，避免已完成的任务被环长期引用
+        slot.task = null;
+        try {
+            task.run();
+        } catch (Throwable ex) {
+            log.error("Unexpected error occurred in ring buffer task", ex);
+        }
+    }
+
+    /**
+     * 等待已提交的任务执行完成后关闭工作线程
+     */
+    @Override
+    public void destroy() {
+        try {
+            disruptor.shutdown(awaitTerminationSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException ex) {
+            log.warn("Timed out waiting for ring buffer tasks to complete, halting");
+            disruptor.halt();
+        }
+    }
+
+    /**
+     * 可复用的任务槽位
+     */
+    static final class TaskSlot {
+        private Runnable task;
+    }
+
+    /**
+     * 工作线程的等待策略，在延迟与 CPU 占用之间权衡
+     */
+    public enum WaitStrategyType {
+        /**
+         * 锁 + 条件变量，CPU 占用最低，延迟最高，适合任务稀疏的场景
+         */
+        BLOCKING(BlockingWaitStrategy::new),
+        /**
+         * 先自旋再 yield 最后 park，兼顾延迟与 CPU
+         */
+        SLEEPING(SleepingWaitStrategy::new),
+        /**
+         * 自旋后 yield，低延迟，工作线程数应小于 CPU 核数
+         */
+        YIELDING(YieldingWaitStrategy::new),
+        /**
+         * 纯自旋，延迟最低，每个工作线程独占一个核
+         */
+        BUSY_SPIN(BusySpinWaitStrategy::new);
+
+        private final Supplier<WaitStrategy> factory;
+
+        WaitStrategyType(Supplier<WaitStrategy> factory) {
+            this.factory = factory;
+        }
+
+        public WaitStrategy create() {
+            return factory.get();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package io.github.daihaowxg.executor;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * RingBufferTaskExecutor 与 ThreadPoolTaskExecutor 对比测试
+ * <p>
+ * 两者使用相同的工作线程数（5）和容量（1024），满载时都由调用线程执行。
+ * 统计提交吞吐量以及任务从提交到开始执行的延迟分布（p50 / p99 / p99.9）。
+ * <p>
+ * {@link #testBenchmark()} 标记为 benchmark，默认不运行，需要时用
+ * {@code mvn test -Pbenchmark -Dtest=TaskExecutorBenchmarkTest}。
+ *
+ * @author wxg
+ */
+@DisplayName("环形缓冲区执行器对比测试")
+class TaskExecutorBenchmarkTest {
+
+    private static final int WORKERS = 5;
+    private static final int CAPACITY = 1024;
+
+    @Test
+    @DisplayName("所有任务都会被执行，任务异常不影响工作线程")
+    void testAllTasksExecuted() throws Exception {
+        RingBufferTaskExecutor executor = new RingBufferTaskExecutor("test-ring-", WORKERS, CAPACITY,
+                RingBufferTaskExecutor.WaitStrategyType.BLOCKING, 10);
+        // 任务数小于环容量，保证不会退化为调用线程执行
+        int tasks = CAPACITY - 24;
+        AtomicInteger executed = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(tasks);
+        for (int i = 0; i < tasks; i++) {
+            int n = i;
+            executor.execute(() -> {
+                executed.incrementAndGet();
+                done.countDown();
+                if (n % 100 == 0) {
+                    throw new IllegalStateException("模拟任务异常: " + n);
+                }
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(tasks, executed.get());
+        executor.destroy();
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("提交吞吐量与尾延迟：ThreadPoolTaskExecutor vs RingBufferTaskExecutor")
+    void testBenchmark() throws Exception {
+        System.out.println("\n========== 空任务（纯调度开销），100000 个 ==========");
+        runAll(100_000, 0);
+        System.out.println("\n========== 模拟 processOrderAsync（每个任务 50µs），20000 个 ==========");
+        runAll(20_000, 50_000);
+    }
+
+    private void runAll(int tasks, long workNanos) throws Exception {
+        ThreadPoolTaskExecutor threadPool = new ThreadPoolTaskExecutor();
+        threadPool.setCorePoolSize(WORKERS);
+        threadPool.setMaxPoolSize(WORKERS);
+        threadPool.setQueueCapacity(CAPACITY);
+        threadPool.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        threadPool.initialize();
+        run("ThreadPoolTaskExecutor", threadPool, tasks, workNanos);
+        threadPool.shutdown();
+
+        for (RingBufferTaskExecutor.WaitStrategyType type : new RingBufferTaskExecutor.WaitStrategyType[]{
+                RingBufferTaskExecutor.WaitStrategyType.BLOCKING,
+                RingBufferTaskExecutor.WaitStrategyType.SLEEPING,
+                RingBufferTaskExecutor.WaitStrategyType.YIELDING}) {
+            RingBufferTaskExecutor ring = new RingBufferTaskExecutor("bench-ring-", WORKERS, CAPACITY, type, 10);
+            run("RingBuffer(" + type + ")", ring, tasks, workNanos);
+            ring.destroy();
+        }
+    }
+
+    private void run(String name, Executor executor, int tasks, long workNanos) throws InterruptedException {
+        long[] latencies = new long[tasks];
+        CountDownLatch done = new CountDownLatch(tasks);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < tasks; i++) {
+            int index = i;
+            long submitted = System.nanoTime();
+            executor.execute(() -> {
+                latencies[index] = System.nanoTime() - submitted;
+                if (workNanos > 0) {
+                    LockSupport.parkNanos(workNanos);
+                }
+                done.countDown();
+            });
+        }
+        long submitElapsed = System.nanoTime() - start;
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+
+        Arrays.sort(latencies);
+        System.out.printf("%-26s submit %,12.0f tasks/s | latency p50 %,9dns p99 %,11dns p99.9 %,11dns%n",
+                name, tasks * 1_000_000_000.0 / submitElapsed,
+                latencies[tasks / 2], latencies[(int) (tasks * 0.99)], latencies[(int) (tasks * 0.999)]);
+    }
+}
@@ -1,5 +1,8 @@
 package io.github.daihaowxg.async.config;
 
+import io.github.daihaowxg.executor.RingBufferTaskExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
@@ -13,6 +16,12 @@ import java.util.concurrent.ThreadPoolExecutor;
  * <p>
  * 演示如何配置自定义线程池来执行异步任务
  * 生产环境建议使用自定义线程池，而不是默认的 SimpleAsyncTaskExecutor
+ * <p>
+ * 通过 {@code async.executor.type} 选择执行器实现：
+ * <ul>
+ *     <li>{@code thread-pool}（默认）：ThreadPoolTaskExecutor</li>
+ *     <li>{@code ring-buffer}：基于 Disruptor 预分配槽位的 {@link RingBufferTaskExecutor}</li>
+ * </ul>
  *
  * @author wxg
  */
@@ -28,6 +37,7 @@ public class CustomAsyncConfig {
      * @return 线程池执行器
      */
     @Bean(name = "taskExecutor")
+    @ConditionalOnProperty(name = "async.executor.type", havingValue = "thread-pool", matchIfMissing = true)
     public Executor taskExecutor() {
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
 
@@ -59,4 +69,19 @@ public class CustomAsyncConfig {
         executor.initialize();
         return executor;
     }
+
+    /**
+     * 基于环形缓冲区的异步任务执行器
+     * <p>
+     * 工作线程数与上面线程池的核心线程数保持一致，环满时由调用线程执行（等价于 CallerRunsPolicy）
+     *
+     * @param waitStrategy 工作线程的等待策略：blocking / sleeping / yielding / busy-spin
+     * @return 环形缓冲区执行器
+     */
+    @Bean(name = "taskExecutor")
+    @ConditionalOnProperty(name = "async.executor.type", havingValue = "ring-buffer")
+    public Executor ringBufferTaskExecutor(
+            @Value("${async.executor.wait-strategy:blocking}") RingBufferTaskExecutor.WaitStrategyType waitStrategy) {
+        return new RingBufferTaskExecutor("async-ring-", 5, 1024, waitStrategy, 60);
+    }
 }
@@ -0,0 +1,44 @@
+package io.github.daihaowxg.async;
+
+import io.github.daihaowxg.async.service.AsyncService;
+import io.github.daihaowxg.executor.RingBufferTaskExecutor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+/**
+ * 切换到环形缓冲区执行器后的 @Async 测试
+ *
+ * @author wxg
+ */
+@SpringBootTest(properties = {
+        "async.executor.type=ring-buffer",
+        "async.executor.wait-strategy=sleeping"
+})
+@DisplayName("@Async 使用环形缓冲区执行器测试")
+class RingBufferAsyncServiceTest {
+
+    @Autowired
+    @Qualifier("taskExecutor")
+    private Executor taskExecutor;
+
+    @Autowired
+    private AsyncService asyncService;
+
+    @Test
+    @DisplayName("async.executor.type=ring-buffer 时 @Async 方法在环形缓冲区执行器中执行")
+    void testAsyncOnRingBuffer() throws Exception {
+        assertInstanceOf(RingBufferTaskExecutor.class, taskExecutor);
+
+        String userInfo = asyncService.getUserInfoAsync(12345L).get(5, TimeUnit.SECONDS);
+        assertEquals("User-12345 (Name: Alice)", userInfo);
+    }
+}
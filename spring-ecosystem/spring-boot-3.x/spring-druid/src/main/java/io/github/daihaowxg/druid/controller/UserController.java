@@ -1,10 +1,19 @@
 package io.github.daihaowxg.druid.controller;
 
 import io.github.daihaowxg.druid.entity.User;
+import io.github.daihaowxg.druid.export.UserNdjsonExporter;
+import io.github.daihaowxg.druid.paging.Cursor;
+import io.github.daihaowxg.druid.paging.CursorPage;
+import io.github.daihaowxg.druid.repository.OptimisticUpdateResult;
+import io.github.daihaowxg.druid.repository.VersionConflict;
 import io.github.daihaowxg.druid.service.UserService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -18,8 +27,15 @@ import java.util.List;
 @RequiredArgsConstructor
 public class UserController {
     
+    /**
+     * 分页接口单页最大条数
+     */
+    private static final int MAX_PAGE_SIZE = 1000;
+    
     private final UserService userService;
     
+    private final UserNdjsonExporter userExporter;
+    
     /**
      * 获取所有用户
      *
@@ -30,6 +46,44 @@ public class UserController {
         return userService.getAllUsers();
     }
     
+    /**
+     * 游标分页获取用户
+     * <p>
+     * 第一页不传 cursor，之后传上一页返回的 nextCursor，nextCursor 为 null 表示没有更多数据
+     *
+     * @param cursor 上一页返回的游标
+     * @param size   每页条数，1 到 1000
+     * @return 当前页和下一页的游标
+     */
+    @GetMapping("/page")
+    public CursorPage<User> getUsersPage(@RequestParam(required = false) String cursor,
+                                         @RequestParam(defaultValue = "20") int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        long afterId;
+        try {
+            afterId = Cursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        return userService.getUsersPage(afterId, size);
+    }
+    
+    /**
+     * 以 NDJSON 流式导出所有用户
+     * <p>
+     * 边查询边写出，内存占用与用户数无关，第一行查到后立即发送
+     *
+     * @param response HTTP 响应
+     */
+    @GetMapping(value = "/export", produces = UserNdjsonExporter.MEDIA_TYPE)
+    public void exportUsers(HttpServletResponse response) throws IOException {
+        response.setContentType(UserNdjsonExporter.MEDIA_TYPE);
+        response.setCharacterEncoding("UTF-8");
+        userExporter.export(response.getOutputStream());
+    }
+    
     /**
      * 根据ID获取用户
      *
@@ -52,6 +106,17 @@ public class UserController {
         return userService.searchByUsername(username);
     }
     
+    /**
+     * 按邮箱搜索用户
+     *
+     * @param email 邮箱中的任意一段
+     * @return 用户列表
+     */
+    @GetMapping("/search/email")
+    public List<User> searchUsersByEmail(@RequestParam String email) {
+        return userService.searchByEmail(email);
+    }
+    
     /**
      * 创建用户
      *
@@ -65,6 +130,8 @@ public class UserController {
     
     /**
      * 更新用户
+     * <p>
+     * 请求体带 version 时按版本更新：版本不一致返回 409，用户不存在返回 404；不带 version 时直接覆盖
      *
      * @param id 用户ID
      * @param user 用户对象
@@ -73,7 +140,37 @@ public class UserController {
     @PutMapping("/{id}")
     public boolean updateUser(@PathVariable Long id, @RequestBody User user) {
         user.setId(id);
-        return userService.updateUser(user);
+        if (user.getVersion() == null) {
+            return userService.updateUser(user);
+        }
+        OptimisticUpdateResult result = userService.updateUsers(List.of(user));
+        if (!result.isFullyApplied()) {
+            VersionConflict conflict = result.conflicts().get(0);
+            if (conflict.isDeleted()) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "user " + id + " not found");
+            }
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "user " + id + " was modified, current version is " + conflict.currentVersion());
+        }
+        return true;
+    }
+    
+    /**
+     * 按版本号批量更新用户
+     * <p>
+     * 每个用户都必须带 version；冲突的行不会写入，在结果的 conflicts 中逐行返回
+     *
+     * @param users 用户列表
+     * @return 写入成功的用户和冲突的行
+     */
+    @PutMapping("/batch")
+    public OptimisticUpdateResult updateUsers(@RequestBody List<User> users) {
+        for (User user : users) {
+            if (user.getId() == null || user.getVersion() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "id and version are required");
+            }
+        }
+        return userService.updateUsers(users);
     }
     
     /**
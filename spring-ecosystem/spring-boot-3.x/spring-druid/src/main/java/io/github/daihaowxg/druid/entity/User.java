@@ -45,4 +45,9 @@ public class User {
      * 更新时间
      */
     private LocalDateTime updatedTime;
+    
+    /**
+     * 乐观锁版本号，读取时带出，按版本更新时作为条件
+     */
+    private Integer version;
 }
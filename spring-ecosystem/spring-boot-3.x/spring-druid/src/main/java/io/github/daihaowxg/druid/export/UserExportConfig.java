@@ -0,0 +1,23 @@
+package io.github.daihaowxg.druid.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.daihaowxg.druid.repository.UserRepository;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 用户导出配置
+ *
+ * @author daihaowxg
+ */
+@Configuration
+@EnableConfigurationProperties(UserExportProperties.class)
+public class UserExportConfig {
+
+    @Bean
+    public UserNdjsonExporter userNdjsonExporter(UserRepository userRepository, ObjectMapper objectMapper,
+                                                 UserExportProperties properties) {
+        return new UserNdjsonExporter(userRepository, objectMapper, properties);
+    }
+}
@@ -0,0 +1,38 @@
+package io.github.daihaowxg.druid.export;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * 用户导出配置
+ *
+ * <pre>
+ * druid:
+ *   export:
+ *     fetch-size: 500
+ *     buffer-size: 64KB
+ *     flush-rows: 1000
+ * </pre>
+ *
+ * @author daihaowxg
+ */
+@Data
+@ConfigurationProperties(prefix = "druid.export")
+public class UserExportProperties {
+
+    /**
+     * 流式查询每次从数据库拉取的行数
+     */
+    private int fetchSize = 500;
+
+    /**
+     * 响应缓冲区大小，写满后发送给客户端，导出占用的内存以此为上限
+     */
+    private DataSize bufferSize = DataSize.ofKilobytes(64);
+
+    /**
+     * 每写出多少行主动发送一次，行很小时客户端也能持续收到数据；第一行总是立即发送
+     */
+    private int flushRows = 1000;
+}
@@ -0,0 +1,83 @@
+package io.github.daihaowxg.druid.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.daihaowxg.druid.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * 以 NDJSON（每行一个 JSON 对象）导出所有用户
+ *
+ * <p>从流式 ResultSet（{@link UserRepository#forEach}）逐行读取，逐行序列化后写入固定大小的缓冲区，
+ * 缓冲区写满就发送给客户端。整个导出过程内存占用与表大小无关；第一行读到后立即发送，
+ * 客户端不用等整个查询结束才收到第一个字节。</p>
+ *
+ * <p>客户端读得慢时写操作阻塞，ResultSet 也随之停止拉取，形成天然的背压。代价是导出期间一直占用一个连接：
+ * 连接池的 removeAbandonedTimeout 必须大于最长的导出时间，否则连接会在导出中途被回收。
+ * 不希望长时间占用连接的客户端应该使用游标分页接口。</p>
+ *
+ * @author daihaowxg
+ */
+@Slf4j
+public class UserNdjsonExporter {
+
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private final UserRepository userRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final UserExportProperties properties;
+
+    public UserNdjsonExporter(UserRepository userRepository, ObjectMapper objectMapper,
+                              UserExportProperties properties) {
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+    }
+
+    /**
+     * 导出所有用户，按 id 升序
+     *
+     * <p>写出失败（通常是客户端断开）时抛出 IOException，查询随之中止、连接归还连接池。
+     * 已经发送的数据无法撤回，客户端只能通过连接异常断开识别不完整的导出。</p>
+     *
+     * @param out 响应输出流，方法返回时已经 flush，但不会关闭
+     * @return 导出的行数
+     */
+    public long export(OutputStream out) throws IOException {
+        BufferedOutputStream buffer = new BufferedOutputStream(out, (int) properties.getBufferSize().toBytes());
+        long[] rows = {0};
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(buffer)) {
+            // 关闭生成器只把数据交给缓冲区，不关闭响应流；flush 也只到缓冲区，由下面决定何时发送
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+            // 顶层对象之间默认以空格分隔，改为每行末尾写换行
+            generator.setRootValueSeparator(null);
+            userRepository.forEach(properties.getFetchSize(), user -> {
+                try {
+                    generator.writeObject(user);
+                    generator.writeRaw('\n');
+                    long written = ++rows[0];
+                    if (written == 1 || written % properties.getFlushRows() == 0) {
+                        generator.flush();
+                        buffer.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            log.warn("导出用户中止，已写出 {} 行: {}", rows[0], e.getCause().getMessage());
+            throw e.getCause();
+        }
+        buffer.flush();
+        log.debug("导出用户完成，共 {} 行", rows[0]);
+        return rows[0];
+    }
+}
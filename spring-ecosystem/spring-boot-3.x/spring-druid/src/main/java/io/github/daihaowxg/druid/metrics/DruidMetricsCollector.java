@@ -0,0 +1,331 @@
+package io.github.daihaowxg.druid.metrics;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import com.alibaba.druid.stat.JdbcDataSourceStat;
+import com.alibaba.druid.stat.JdbcSqlStat;
+import io.github.daihaowxg.sqlprofiler.SqlShape;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Druid 统计数据采集器
+ *
+ * <p>定期读取 {@link DruidDataSource} 和 stat filter 的统计数据，发布为 Micrometer 指标：</p>
+ * <ul>
+ *   <li><b>连接池：</b>活跃/空闲连接数、等待线程数、使用率、获取连接的等待次数与耗时、连接持有时间分布、
+ *       removeAbandoned 回收次数</li>
+ *   <li><b>SQL：</b>按 {@link SqlShape#fingerprint()}（操作 + 表名，与 sql-profiler 相同）聚合的执行次数、执行耗时、错误数、读取行数，
+ *       以及执行耗时和"执行 + 读取结果集"耗时的分布</li>
+ *   <li><b>饱和告警：</b>{@code druid.pool.saturated}，在请求因 maxWait 超时之前变为 1，并打印 WARN 日志</li>
+ * </ul>
+ *
+ * <p>分布类指标使用 Druid 自带的分桶（1ms、10ms、100ms、1s、10s、100s、1000s、+Inf），
+ * 以累计计数的方式导出，标签 {@code le} 表示桶的上界。</p>
+ *
+ * <p>Druid 的 SQL 统计表会淘汰条目（超过 maxSqlSize），也会被 resetStat 清零，直接读取会让计数器变小。
+ * 因此每次采集按条目 id 与上次的值比较，只把增量累加到 {@link Counter} 上：新出现的条目（包括淘汰后重新出现的）
+ * 全部计入，数值变小说明条目被清零过，当前值就是清零后的增量。</p>
+ *
+ * <p><b>注意：</b>SQL 统计依赖 stat filter（{@code filters: stat}），没有开启时只导出连接池指标。</p>
+ *
+ * @author daihaowxg
+ */
+@Slf4j
+public class DruidMetricsCollector implements MeterBinder {
+
+    /**
+     * Druid 直方图的桶上界（毫秒），最后一个桶是 +Inf
+     */
+    static final String[] HISTOGRAM_BOUNDS = {"1", "10", "100", "1000", "10000", "100000", "1000000", "+Inf"};
+
+    private static final String OTHER = "other";
+
+    private final DruidDataSource dataSource;
+
+    private final DruidMetricsProperties properties;
+
+    private final Map<String, SqlStats> sqlStats = new ConcurrentHashMap<>();
+
+    /**
+     * 上次采集时每个 SQL 统计条目的值，按 {@link JdbcSqlStat#getId()} 索引
+     */
+    private Map<Long, SqlSnapshot> lastSnapshots = new HashMap<>();
+
+    private volatile MeterRegistry registry;
+
+    private Tags tags;
+
+    private long lastWaitCount;
+
+    private long lastWaitNanos;
+
+    private volatile double recentWaitMillis;
+
+    private volatile boolean saturated;
+
+    public DruidMetricsCollector(DruidDataSource dataSource, DruidMetricsProperties properties) {
+        this.dataSource = dataSource;
+        this.properties = properties;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.tags = Tags.of("pool", String.valueOf(dataSource.getName()));
+
+        Gauge.builder("druid.pool.active", dataSource, DruidDataSource::getActiveCount)
+                .tags(tags).description("借出未归还的连接数").register(registry);
+        Gauge.builder("druid.pool.idle", dataSource, DruidDataSource::getPoolingCount)
+                .tags(tags).description("池中空闲的连接数").register(registry);
+        Gauge.builder("druid.pool.max.active", dataSource, DruidDataSource::getMaxActive)
+                .tags(tags).description("最大活跃连接数").register(registry);
+        Gauge.builder("druid.pool.wait.threads", dataSource, DruidDataSource::getWaitThreadCount)
+                .tags(tags).description("正在等待连接的线程数").register(registry);
+        Gauge.builder("druid.pool.utilization", dataSource, DruidMetricsCollector::utilization)
+                .tags(tags).description("active / maxActive").register(registry);
+        Gauge.builder("druid.pool.wait.recent", this, collector -> collector.recentWaitMillis)
+                .tags(tags).baseUnit("milliseconds").description("最近一个采集周期内获取连接的平均等待时间")
+                .register(registry);
+        Gauge.builder("druid.pool.saturated", this, collector -> collector.saturated ? 1 : 0)
+                .tags(tags).description("连接池是否饱和").register(registry);
+
+        FunctionTimer.builder("druid.pool.wait", dataSource,
+                        DruidDataSource::getNotEmptyWaitCount, DruidDataSource::getNotEmptyWaitNanos, TimeUnit.NANOSECONDS)
+                .tags(tags).description("池中没有空闲连接时获取连接的等待").register(registry);
+        FunctionCounter.builder("druid.pool.abandoned.removed", dataSource, DruidDataSource::getRemoveAbandonedCount)
+                .tags(tags).description("被 removeAbandoned 强制回收的连接数").register(registry);
+
+        JdbcDataSourceStat stat = dataSource.getDataSourceStat();
+        if (stat != null) {
+            int buckets = stat.getConnectionHistogramValues().length;
+            for (int i = 0; i < buckets; i++) {
+                int bucket = i;
+                FunctionCounter.builder("druid.pool.connection.hold.histogram", stat,
+                                s -> cumulative(s.getConnectionHistogramValues(), bucket))
+                        .tags(tags).tag("le", HISTOGRAM_BOUNDS[Math.min(bucket, HISTOGRAM_BOUNDS.length - 1)])
+                        .description("连接持有时间分布（毫秒，累计）").register(registry);
+            }
+        }
+
+        this.registry = registry;
+    }
+
+    /**
+     * 采集一次统计数据
+     */
+    @Scheduled(fixedDelayString = "${druid.metrics.scrape-interval:10s}")
+    public synchronized void scrape() {
+        if (registry == null) {
+            return;
+        }
+        scrapePool();
+        scrapeSql();
+    }
+
+    public boolean isSaturated() {
+        return saturated;
+    }
+
+    private void scrapePool() {
+        long waitCount = dataSource.getNotEmptyWaitCount();
+        long waitNanos = dataSource.getNotEmptyWaitNanos();
+        long deltaCount = waitCount - lastWaitCount;
+        recentWaitMillis = deltaCount > 0 ? (waitNanos - lastWaitNanos) / (double) deltaCount / 1_000_000 : 0;
+        lastWaitCount = waitCount;
+        lastWaitNanos = waitNanos;
+
+        double utilization = utilization(dataSource);
+        int waitThreads = dataSource.getWaitThreadCount();
+        long maxWait = dataSource.getMaxWait();
+        boolean nowSaturated = (utilization >= properties.getUtilizationThreshold() && waitThreads > 0)
+                || (maxWait > 0 && recentWaitMillis >= maxWait * properties.getWaitRatioThreshold());
+
+        if (nowSaturated != saturated) {
+            if (nowSaturated) {
+                log.warn("Druid 连接池饱和: active={}/{}, 等待线程={}, 最近平均等待={}ms, maxWait={}ms",
+                        dataSource.getActiveCount(), dataSource.getMaxActive(), waitThreads,
+                        String.format("%.1f", recentWaitMillis), maxWait);
+            } else {
+                log.info("Druid 连接池恢复: active={}/{}", dataSource.getActiveCount(), dataSource.getMaxActive());
+            }
+            saturated = nowSaturated;
+        }
+    }
+
+    private void scrapeSql() {
+        JdbcDataSourceStat stat = dataSource.getDataSourceStat();
+        if (stat == null) {
+            return;
+        }
+
+        Map<Long, SqlSnapshot> snapshots = new HashMap<>();
+        for (JdbcSqlStat sqlStat : stat.getSqlStatMap().values()) {
+            SqlSnapshot current = SqlSnapshot.of(sqlStat);
+            snapshots.put(sqlStat.getId(), current);
+            SqlSnapshot delta = current.since(lastSnapshots.get(sqlStat.getId()));
+            if (delta.isEmpty()) {
+                continue;
+            }
+            String fingerprint = SqlShape.of(sqlStat.getSql()).fingerprint();
+            if (!sqlStats.containsKey(fingerprint) && sqlStats.size() >= properties.getMaxFingerprints()) {
+                fingerprint = OTHER;
+            }
+            sqlStats.computeIfAbsent(fingerprint, this::register).add(delta);
+        }
+        // 已经被淘汰的条目不再保留
+        lastSnapshots = snapshots;
+    }
+
+    private SqlStats register(String fingerprint) {
+        Tags sqlTags = tags.and("sql", fingerprint);
+        Counter[] executeHistogram = new Counter[HISTOGRAM_BOUNDS.length];
+        Counter[] fetchHistogram = new Counter[HISTOGRAM_BOUNDS.length];
+        for (int i = 0; i < HISTOGRAM_BOUNDS.length; i++) {
+            executeHistogram[i] = Counter.builder("druid.sql.execute.histogram")
+                    .tags(sqlTags).tag("le", HISTOGRAM_BOUNDS[i])
+                    .description("SQL 执行耗时分布（毫秒，累计）").register(registry);
+            fetchHistogram[i] = Counter.builder("druid.sql.fetch.histogram")
+                    .tags(sqlTags).tag("le", HISTOGRAM_BOUNDS[i])
+                    .description("SQL 执行 + 读取结果集耗时分布（毫秒，累计）").register(registry);
+        }
+        SqlStats stats = new SqlStats(fingerprint,
+                Counter.builder("druid.sql.executions")
+                        .tags(sqlTags).description("SQL 执行次数").register(registry),
+                Counter.builder("druid.sql.errors")
+                        .tags(sqlTags).description("SQL 执行出错次数").register(registry),
+                Counter.builder("druid.sql.fetched.rows")
+                        .tags(sqlTags).description("从结果集读取的行数").register(registry),
+                executeHistogram, fetchHistogram);
+        FunctionTimer.builder("druid.sql.execute", stats, s -> s.executeCount, s -> s.executeMillis,
+                        TimeUnit.MILLISECONDS)
+                .tags(sqlTags).description("SQL 执行耗时").register(registry);
+        return stats;
+    }
+
+    private static double utilization(DruidDataSource dataSource) {
+        int maxActive = dataSource.getMaxActive();
+        return maxActive == 0 ? 0 : (double) dataSource.getActiveCount() / maxActive;
+    }
+
+    /**
+     * 把 Druid 的分桶计数转换成 "小于等于第 bucket 个上界" 的累计计数
+     */
+    private static double cumulative(long[] histogram, int bucket) {
+        long sum = 0;
+        for (int i = 0; i <= bucket && i < histogram.length; i++) {
+            sum += histogram[i];
+        }
+        return sum;
+    }
+
+    /**
+     * 某个 SQL 统计条目在一次采集时的值，或两次采集之间的增量
+     */
+    private record SqlSnapshot(long executeCount, long executeMillis, long errorCount, long fetchRowCount,
+                               long[] executeHistogram, long[] fetchHistogram) {
+
+        static SqlSnapshot of(JdbcSqlStat stat) {
+            return new SqlSnapshot(stat.getExecuteCount(), stat.getExecuteMillisTotal(), stat.getErrorCount(),
+                    stat.getFetchRowCount(), stat.getHistogramValues(), stat.getExecuteAndResultHoldTimeHistogramValues());
+        }
+
+        /**
+         * 相对上次采集的增量。没有上次的值，或者有任何一项变小（条目被清零过）时，当前值就是增量
+         */
+        SqlSnapshot since(SqlSnapshot previous) {
+            if (previous == null || executeCount < previous.executeCount || executeMillis < previous.executeMillis
+                    || errorCount < previous.errorCount || fetchRowCount < previous.fetchRowCount
+                    || decreased(executeHistogram, previous.executeHistogram)
+                    || decreased(fetchHistogram, previous.fetchHistogram)) {
+                return this;
+            }
+            return new SqlSnapshot(executeCount - previous.executeCount, executeMillis - previous.executeMillis,
+                    errorCount - previous.errorCount, fetchRowCount - previous.fetchRowCount,
+                    minus(executeHistogram, previous.executeHistogram), minus(fetchHistogram, previous.fetchHistogram));
+        }
+
+        boolean isEmpty() {
+            return executeCount == 0 && errorCount == 0 && fetchRowCount == 0;
+        }
+
+        private static boolean decreased(long[] current, long[] previous) {
+            for (int i = 0; i < current.length && i < previous.length; i++) {
+                if (current[i] < previous[i]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static long[] minus(long[] current, long[] previous) {
+            long[] result = current.clone();
+            for (int i = 0; i < result.length && i < previous.length; i++) {
+                result[i] -= previous[i];
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 同一指纹下所有 SQL 的指标，只由采集线程累加增量
+     */
+    private static final class SqlStats {
+
+        private final String fingerprint;
+
+        private final Counter executions;
+
+        private final Counter errors;
+
+        private final Counter fetchedRows;
+
+        private final Counter[] executeHistogram;
+
+        private final Counter[] fetchHistogram;
+
+        /**
+         * {@code druid.sql.execute} 的次数和总耗时，只增不减
+         */
+        private volatile long executeCount;
+
+        private volatile long executeMillis;
+
+        SqlStats(String fingerprint, Counter executions, Counter errors, Counter fetchedRows,
+                 Counter[] executeHistogram, Counter[] fetchHistogram) {
+            this.fingerprint = fingerprint;
+            this.executions = executions;
+            this.errors = errors;
+            this.fetchedRows = fetchedRows;
+            this.executeHistogram = executeHistogram;
+            this.fetchHistogram = fetchHistogram;
+        }
+
+        void add(SqlSnapshot delta) {
+            executeCount += delta.executeCount();
+            executeMillis += delta.executeMillis();
+            executions.increment(delta.executeCount());
+            errors.increment(delta.errorCount());
+            fetchedRows.increment(delta.fetchRowCount());
+            for (int i = 0; i < HISTOGRAM_BOUNDS.length; i++) {
+                executeHistogram[i].increment(cumulative(delta.executeHistogram(), i));
+                fetchHistogram[i].increment(cumulative(delta.fetchHistogram(), i));
+            }
+        }
+
+        @Override
+        public String toString() {
+            return fingerprint + "[executions=" + executeCount + "]";
+        }
+    }
+}
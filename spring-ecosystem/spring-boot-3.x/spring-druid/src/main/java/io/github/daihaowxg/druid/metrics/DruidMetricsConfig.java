@@ -0,0 +1,29 @@
+package io.github.daihaowxg.druid.metrics;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Druid 指标导出配置
+ *
+ * <p>注册 {@link DruidMetricsCollector}，Spring Boot 会自动把它绑定到 MeterRegistry，
+ * 指标可以通过 {@code /actuator/metrics} 和 {@code /actuator/prometheus} 查看。</p>
+ *
+ * @author daihaowxg
+ */
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(DruidMetricsProperties.class)
+@ConditionalOnProperty(prefix = "druid.metrics", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class DruidMetricsConfig {
+
+    @Bean
+    public DruidMetricsCollector druidMetricsCollector(DruidDataSource dataSource,
+                                                       DruidMetricsProperties properties) {
+        return new DruidMetricsCollector(dataSource, properties);
+    }
+}
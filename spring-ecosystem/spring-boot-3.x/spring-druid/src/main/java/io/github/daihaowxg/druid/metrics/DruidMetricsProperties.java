@@ -0,0 +1,53 @@
+package io.github.daihaowxg.druid.metrics;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Druid 指标导出配置
+ *
+ * <pre>
+ * druid:
+ *   metrics:
+ *     enabled: true
+ *     scrape-interval: 10s
+ *     max-fingerprints: 50
+ *     utilization-threshold: 0.9
+ *     wait-ratio-threshold: 0.5
+ * </pre>
+ *
+ * @author daihaowxg
+ */
+@Data
+@ConfigurationProperties(prefix = "druid.metrics")
+public class DruidMetricsProperties {
+
+    /**
+     * 是否开启 Druid 指标导出
+     */
+    private boolean enabled = true;
+
+    /**
+     * 采集 Druid 统计数据的间隔
+     */
+    private Duration scrapeInterval = Duration.ofSeconds(10);
+
+    /**
+     * SQL 指纹的最大数量，超出的 SQL 归入 "other"，避免指标数量失控
+     */
+    private int maxFingerprints = 50;
+
+    /**
+     * 连接池使用率（active / maxActive）达到此比例且有线程在等待连接时，判定为饱和
+     */
+    private double utilizationThreshold = 0.9;
+
+    /**
+     * 最近一个采集周期内的平均等待时间达到 maxWait 的此比例时，判定为饱和
+     * <p>
+     * 在请求真正因为 maxWait 超时失败之前发出告警
+     */
+    private double waitRatioThreshold = 0.5;
+}
@@ -0,0 +1,62 @@
+package io.github.daihaowxg.druid.paging;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * 键集分页的游标令牌
+ *
+ * <p>令牌是上一页最后一条记录 id 的 URL 安全 Base64 编码，对客户端不透明：客户端只负责原样传回，
+ * 以后换成复合键（例如 {@code created_time, id}）时不需要改接口。带上版本前缀，旧令牌解码失败时返回 400，
+ * 而不是被误读成别的位置。</p>
+ *
+ * @author daihaowxg
+ */
+public final class Cursor {
+
+    private static final String PREFIX = "v1:";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private Cursor() {
+    }
+
+    /**
+     * @param lastId 当前页最后一条记录的 id
+     * @return 下一页的游标
+     */
+    public static String encode(long lastId) {
+        return ENCODER.encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param cursor 客户端传回的游标，为空表示第一页
+     * @return 从该 id 之后继续查询
+     * @throws IllegalArgumentException 游标无法解析
+     */
+    public static long decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0L;
+        }
+        String value;
+        try {
+            value = new String(DECODER.decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+        if (!value.startsWith(PREFIX)) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        try {
+            long lastId = Long.parseLong(value.substring(PREFIX.length()));
+            if (lastId < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return lastId;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
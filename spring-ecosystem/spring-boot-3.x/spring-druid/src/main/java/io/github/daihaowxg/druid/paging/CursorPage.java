@@ -0,0 +1,30 @@
+package io.github.daihaowxg.druid.paging;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * 游标分页的一页结果
+ *
+ * @param items      当前页数据，按 id 升序
+ * @param nextCursor 下一页的游标，已经是最后一页时为 null
+ * @author daihaowxg
+ */
+public record CursorPage<T>(List<T> items, String nextCursor) {
+
+    /**
+     * 由多查一条的结果构造一页：查询 size + 1 条，多出来的那条只用来判断是否还有下一页，
+     * 最后一页不需要客户端再发一次请求拿到空列表才知道结束
+     *
+     * @param rows        按 id 升序查询的 size + 1 条数据
+     * @param size        每页条数
+     * @param idExtractor 取排序键
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int size, ToLongFunction<T> idExtractor) {
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, size);
+        return new CursorPage<>(items, Cursor.encode(idExtractor.applyAsLong(items.get(size - 1))));
+    }
+}
@@ -0,0 +1,34 @@
+package io.github.daihaowxg.druid.pool;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 自适应连接池大小配置
+ *
+ * <p>默认关闭，设置 {@code druid.adaptive.enabled=true} 后在数据源上挂载 {@link PoolLatencyFilter}，
+ * 并按 {@code druid.adaptive.interval} 定期执行 {@link AdaptivePoolSizer#adjust()}。</p>
+ *
+ * @author daihaowxg
+ */
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(AdaptivePoolProperties.class)
+@ConditionalOnProperty(prefix = "druid.adaptive", name = "enabled", havingValue = "true")
+public class AdaptivePoolConfig {
+
+    @Bean
+    public PoolLatencyFilter poolLatencyFilter(DruidDataSource dataSource) {
+        return PoolLatencyFilter.install(dataSource);
+    }
+
+    @Bean
+    public AdaptivePoolSizer adaptivePoolSizer(DruidDataSource dataSource, PoolLatencyFilter filter,
+                                               AdaptivePoolProperties properties) {
+        return new AdaptivePoolSizer(dataSource, filter, properties);
+    }
+}
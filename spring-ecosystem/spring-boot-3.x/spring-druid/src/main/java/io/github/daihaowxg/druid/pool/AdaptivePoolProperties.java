@@ -0,0 +1,70 @@
+package io.github.daihaowxg.druid.pool;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 自适应连接池大小配置
+ *
+ * <pre>
+ * druid:
+ *   adaptive:
+ *     enabled: true
+ *     interval: 1s
+ *     min-max-active: 5
+ *     max-max-active: 50
+ * </pre>
+ *
+ * @author daihaowxg
+ */
+@Data
+@ConfigurationProperties(prefix = "druid.adaptive")
+public class AdaptivePoolProperties {
+
+    /**
+     * 是否开启自适应调整
+     */
+    private boolean enabled = false;
+
+    /**
+     * 调整间隔
+     */
+    private Duration interval = Duration.ofSeconds(1);
+
+    /**
+     * maxActive 的下限
+     */
+    private int minMaxActive = 5;
+
+    /**
+     * maxActive 的上限，不应超过数据库允许的连接数
+     */
+    private int maxMaxActive = 50;
+
+    /**
+     * minIdle 的下限
+     */
+    private int minIdleFloor = 2;
+
+    /**
+     * 在 Little 定律估算的并发连接数之上预留的余量
+     */
+    private double headroom = 1.2;
+
+    /**
+     * 获取连接的平均等待超过此值（毫秒）时扩容
+     */
+    private double waitThresholdMillis = 1;
+
+    /**
+     * 查询延迟达到基线的此倍数时，认为数据库本身已经过载，不再扩容而是收缩
+     */
+    private double latencyTolerance = 2.0;
+
+    /**
+     * 连续多少个周期负载偏低才收缩，避免在突发流量的间隙里来回抖动
+     */
+    private int shrinkAfterIntervals = 10;
+}
@@ -0,0 +1,202 @@
+package io.github.daihaowxg.druid.pool;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.sql.SQLException;
+
+/**
+ * 自适应连接池大小控制器
+ *
+ * <p>固定的 maxActive 很难兼顾突发流量和数据库的承受能力：配小了请求排队等连接，配大了数据库被压垮。
+ * 这里每个周期根据 {@link PoolLatencyFilter} 的采样在 [minMaxActive, maxMaxActive] 范围内调整
+ * maxActive 和 minIdle：</p>
+ * <ul>
+ *   <li><b>Little 定律：</b>需要的并发连接数 L = λ × W，λ 是每秒借用次数，W 是平均持有时间，
+ *       在此基础上乘以 headroom 作为目标大小</li>
+ *   <li><b>扩容：</b>有线程在等连接（或平均借用延迟超过阈值）时，扩到目标大小并加上等待线程数，
+ *       单次最多翻倍</li>
+ *   <li><b>延迟梯度：</b>查询延迟相对基线升高到 latencyTolerance 倍时，说明瓶颈在数据库而不在连接池，
+ *       继续加连接只会更慢，此时反而收缩 10%</li>
+ *   <li><b>缩容：</b>连续 shrinkAfterIntervals 个周期目标大小都低于当前的 70% 才缩 25%，避免抖动</li>
+ * </ul>
+ *
+ * <p>每次调整都会打印 INFO 日志，说明调整原因和依据的采样值。</p>
+ *
+ * @author daihaowxg
+ */
+@Slf4j
+public class AdaptivePoolSizer {
+
+    private final DruidDataSource dataSource;
+
+    private final PoolLatencyFilter filter;
+
+    private final AdaptivePoolProperties properties;
+
+    private long lastSampleNanos = System.nanoTime();
+
+    private long lastBorrowCount;
+
+    private long lastBorrowNanos;
+
+    private long lastHoldCount;
+
+    private long lastHoldNanos;
+
+    private long lastQueryCount;
+
+    private long lastQueryNanos;
+
+    /**
+     * 查询延迟基线（纳秒），取观察到的最小值，并缓慢向当前值漂移，防止一次偶然的快查询把基线压得过低
+     */
+    private double baselineQueryNanos;
+
+    private int lowLoadIntervals;
+
+    private volatile String lastDecision = "none";
+
+    private volatile int adjustments;
+
+    public AdaptivePoolSizer(DruidDataSource dataSource, PoolLatencyFilter filter,
+                             AdaptivePoolProperties properties) {
+        this.dataSource = dataSource;
+        this.filter = filter;
+        this.properties = properties;
+        this.lastBorrowCount = filter.getBorrowCount();
+        this.lastBorrowNanos = filter.getBorrowNanos();
+        this.lastHoldCount = filter.getHoldCount();
+        this.lastHoldNanos = filter.getHoldNanos();
+        this.lastQueryCount = filter.getQueryCount();
+        this.lastQueryNanos = filter.getQueryNanos();
+    }
+
+    @Scheduled(fixedDelayString = "${druid.adaptive.interval:1s}")
+    public void scheduledAdjust() {
+        adjust();
+    }
+
+    /**
+     * 采样一次并按需调整连接池大小
+     *
+     * @return 调整后的 maxActive
+     */
+    public synchronized int adjust() {
+        long now = System.nanoTime();
+        double seconds = Math.max(now - lastSampleNanos, 1) / 1e9;
+        lastSampleNanos = now;
+
+        long borrowCount = filter.getBorrowCount();
+        long borrowNanos = filter.getBorrowNanos();
+        long holdCount = filter.getHoldCount();
+        long holdNanos = filter.getHoldNanos();
+        long queryCount = filter.getQueryCount();
+        long queryNanos = filter.getQueryNanos();
+
+        long borrows = borrowCount - lastBorrowCount;
+        double avgBorrowMillis = borrows == 0 ? 0 : (borrowNanos - lastBorrowNanos) / 1e6 / borrows;
+        long holds = holdCount - lastHoldCount;
+        double avgHoldSeconds = holds == 0 ? 0 : (holdNanos - lastHoldNanos) / 1e9 / holds;
+        long queries = queryCount - lastQueryCount;
+        double avgQueryNanos = queries == 0 ? 0 : (double) (queryNanos - lastQueryNanos) / queries;
+
+        lastBorrowCount = borrowCount;
+        lastBorrowNanos = borrowNanos;
+        lastHoldCount = holdCount;
+        lastHoldNanos = holdNanos;
+        lastQueryCount = queryCount;
+        lastQueryNanos = queryNanos;
+
+        double arrivalRate = borrows / seconds;
+        double concurrency = arrivalRate * avgHoldSeconds;
+        int waiting = dataSource.getWaitThreadCount();
+
+        double gradient = latencyGradient(avgQueryNanos);
+
+        int current = dataSource.getMaxActive();
+        int target = (int) Math.ceil(concurrency * properties.getHeadroom());
+        int next = current;
+        String reason = null;
+
+        if (gradient < 1 / properties.getLatencyTolerance()) {
+            next = (int) Math.floor(current * 0.9);
+            reason = String.format("查询延迟升高到基线的 %.1f 倍，数据库已过载", 1 / gradient);
+            lowLoadIntervals = 0;
+        } else if (waiting > 0 || avgBorrowMillis > properties.getWaitThresholdMillis()) {
+            next = Math.min(Math.max(target + waiting, current + waiting), current * 2);
+            reason = String.format("%d 个线程在等待连接，平均借用延迟 %.2fms", waiting, avgBorrowMillis);
+            lowLoadIntervals = 0;
+        } else if (target < current * 0.7) {
+            if (++lowLoadIntervals >= properties.getShrinkAfterIntervals()) {
+                next = Math.max(target, (int) Math.floor(current * 0.75));
+                reason = String.format("连续 %d 个周期负载偏低", lowLoadIntervals);
+                lowLoadIntervals = 0;
+            }
+        } else {
+            lowLoadIntervals = 0;
+        }
+
+        next = clamp(next, properties.getMinMaxActive(), properties.getMaxMaxActive());
+        int nextMinIdle = clamp((int) Math.ceil(concurrency), properties.getMinIdleFloor(), next);
+
+        if (next != current || (reason != null && nextMinIdle != dataSource.getMinIdle())) {
+            apply(current, next, nextMinIdle, waiting);
+            adjustments++;
+            lastDecision = String.format("maxActive %d -> %d, minIdle -> %d: %s", current, next, nextMinIdle, reason);
+            log.info("[{}] {} (λ={}/s, W={}ms, L={}, query gradient={})", dataSource.getName(), lastDecision,
+                    String.format("%.1f", arrivalRate), String.format("%.2f", avgHoldSeconds * 1000),
+                    String.format("%.1f", concurrency), String.format("%.2f", gradient));
+        }
+        return next;
+    }
+
+    /**
+     * 基线延迟 / 当前延迟，1 表示和基线持平，越小说明数据库越慢
+     */
+    private double latencyGradient(double avgQueryNanos) {
+        if (avgQueryNanos <= 0) {
+            return 1;
+        }
+        if (baselineQueryNanos <= 0 || avgQueryNanos < baselineQueryNanos) {
+            baselineQueryNanos = avgQueryNanos;
+            return 1;
+        }
+        double gradient = baselineQueryNanos / avgQueryNanos;
+        baselineQueryNanos = baselineQueryNanos * 0.95 + avgQueryNanos * 0.05;
+        return gradient;
+    }
+
+    /**
+     * minIdle 不能大于 maxActive：扩容时先调 maxActive，缩容时先调 minIdle
+     */
+    private void apply(int current, int next, int nextMinIdle, int waiting) {
+        if (next >= current) {
+            dataSource.setMaxActive(next);
+            dataSource.setMinIdle(nextMinIdle);
+            int wanted = Math.min(next, dataSource.getActiveCount() + dataSource.getPoolingCount() + waiting);
+            try {
+                // 提前建好连接，等待中的线程不必再等创建线程逐个创建
+                dataSource.fill(wanted);
+            } catch (SQLException e) {
+                log.warn("[{}] 预建连接失败: {}", dataSource.getName(), e.getMessage());
+            }
+        } else {
+            dataSource.setMinIdle(nextMinIdle);
+            dataSource.setMaxActive(next);
+        }
+    }
+
+    private static int clamp(int value, int min, int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    public String getLastDecision() {
+        return lastDecision;
+    }
+
+    public int getAdjustments() {
+        return adjustments;
+    }
+}
@@ -0,0 +1,148 @@
+package io.github.daihaowxg.druid.pool;
+
+import com.alibaba.druid.filter.FilterChain;
+import com.alibaba.druid.filter.FilterEventAdapter;
+import com.alibaba.druid.pool.DruidDataSource;
+import com.alibaba.druid.pool.DruidPooledConnection;
+import com.alibaba.druid.proxy.jdbc.ResultSetProxy;
+import com.alibaba.druid.proxy.jdbc.StatementProxy;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 连接池延迟统计 Filter
+ *
+ * <p>Druid 自带的统计只有"池空时的等待"和毫秒级的 SQL 耗时，这里补充纳秒级的三类数据，
+ * 供 {@link AdaptivePoolSizer} 计算：</p>
+ * <ul>
+ *   <li><b>借用延迟：</b>getConnection() 的耗时（包括池空时的等待）</li>
+ *   <li><b>持有时间：</b>从借出到归还的时间，即 Little 定律中的 W</li>
+ *   <li><b>查询延迟：</b>语句执行的耗时，用于判断数据库本身是否变慢</li>
+ * </ul>
+ *
+ * <p>所有计数都是累计值，使用方自己计算两次采样之间的差值。</p>
+ *
+ * @author daihaowxg
+ */
+public class PoolLatencyFilter extends FilterEventAdapter {
+
+    private final LongAdder borrowCount = new LongAdder();
+    private final LongAdder borrowNanos = new LongAdder();
+    private final LongAdder holdCount = new LongAdder();
+    private final LongAdder holdNanos = new LongAdder();
+    private final LongAdder queryCount = new LongAdder();
+    private final LongAdder queryNanos = new LongAdder();
+
+    private final Map<DruidPooledConnection, Long> borrowedAt = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<long[]> queryStart = ThreadLocal.withInitial(() -> new long[1]);
+
+    /**
+     * 创建 Filter 并挂到已经初始化的数据源上
+     */
+    public static PoolLatencyFilter install(DruidDataSource dataSource) {
+        PoolLatencyFilter filter = new PoolLatencyFilter();
+        filter.init(dataSource);
+        dataSource.getProxyFilters().add(filter);
+        return filter;
+    }
+
+    @Override
+    public DruidPooledConnection dataSource_getConnection(FilterChain chain, DruidDataSource dataSource,
+                                                          long maxWaitMillis) throws SQLException {
+        long start = System.nanoTime();
+        DruidPooledConnection connection = super.dataSource_getConnection(chain, dataSource, maxWaitMillis);
+        long now = System.nanoTime();
+        borrowCount.increment();
+        borrowNanos.add(now - start);
+        borrowedAt.put(connection, now);
+        return connection;
+    }
+
+    @Override
+    public void dataSource_releaseConnection(FilterChain chain, DruidPooledConnection connection)
+            throws SQLException {
+        Long start = borrowedAt.remove(connection);
+        if (start != null) {
+            holdCount.increment();
+            holdNanos.add(System.nanoTime() - start);
+        }
+        super.dataSource_releaseConnection(chain, connection);
+    }
+
+    @Override
+    protected void statementExecuteBefore(StatementProxy statement, String sql) {
+        queryStarted();
+    }
+
+    @Override
+    protected void statementExecuteAfter(StatementProxy statement, String sql, boolean result) {
+        queryFinished();
+    }
+
+    @Override
+    protected void statementExecuteQueryBefore(StatementProxy statement, String sql) {
+        queryStarted();
+    }
+
+    @Override
+    protected void statementExecuteQueryAfter(StatementProxy statement, String sql, ResultSetProxy resultSet) {
+        queryFinished();
+    }
+
+    @Override
+    protected void statementExecuteUpdateBefore(StatementProxy statement, String sql) {
+        queryStarted();
+    }
+
+    @Override
+    protected void statementExecuteUpdateAfter(StatementProxy statement, String sql, int updateCount) {
+        queryFinished();
+    }
+
+    @Override
+    protected void statementExecuteBatchBefore(StatementProxy statement) {
+        queryStarted();
+    }
+
+    @Override
+    protected void statementExecuteBatchAfter(StatementProxy statement, int[] result) {
+        queryFinished();
+    }
+
+    private void queryStarted() {
+        queryStart.get()[0] = System.nanoTime();
+    }
+
+    private void queryFinished() {
+        queryCount.increment();
+        queryNanos.add(System.nanoTime() - queryStart.get()[0]);
+    }
+
+    public long getBorrowCount() {
+        return borrowCount.sum();
+    }
+
+    public long getBorrowNanos() {
+        return borrowNanos.sum();
+    }
+
+    public long getHoldCount() {
+        return holdCount.sum();
+    }
+
+    public long getHoldNanos() {
+        return holdNanos.sum();
+    }
+
+    public long getQueryCount() {
+        return queryCount.sum();
+    }
+
+    public long getQueryNanos() {
+        return queryNanos.sum();
+    }
+}
@@ -0,0 +1,25 @@
+package io.github.daihaowxg.druid.profiler;
+
+import io.github.daihaowxg.sqlprofiler.SqlProfiler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * SQL 执行分析配置
+ *
+ * <p>sql-profiler 提供 {@link SqlProfiler}、按请求统计的 Filter 和指标导出，
+ * 这里注册 {@link DruidProfilingFilter}，由 Druid 的 starter 挂到数据源上（不能依赖数据源 Bean，否则形成循环依赖）。
+ * 语句数、N+1 警告见日志和 {@code sql.profiler.*} 指标。</p>
+ *
+ * @author daihaowxg
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "sql-profiler", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class DruidProfilerConfig {
+
+    @Bean
+    public DruidProfilingFilter druidProfilingFilter(SqlProfiler profiler) {
+        return new DruidProfilingFilter(profiler);
+    }
+}
@@ -0,0 +1,121 @@
+package io.github.daihaowxg.druid.profiler;
+
+import com.alibaba.druid.filter.FilterChain;
+import com.alibaba.druid.filter.FilterEventAdapter;
+import com.alibaba.druid.pool.DruidDataSource;
+import com.alibaba.druid.proxy.jdbc.PreparedStatementProxy;
+import com.alibaba.druid.proxy.jdbc.ResultSetProxy;
+import com.alibaba.druid.proxy.jdbc.StatementProxy;
+import io.github.daihaowxg.sqlprofiler.SqlProfiler;
+
+import java.sql.SQLException;
+
+/**
+ * 把 Druid 执行的语句交给 {@link SqlProfiler}
+ *
+ * <p>sql-profiler 默认用代理包装数据源 Bean，但本模块按 {@link DruidDataSource} 类型注入数据源，
+ * 所以关闭了包装（{@code sql-profiler.proxy-data-sources=false}），改为挂在 Druid 自己的 Filter 链上。
+ * 声明为 Bean 即可，druid-spring-boot-3-starter 会把容器中的 Filter 加到数据源上：</p>
+ * <ul>
+ *   <li>语句执行完成（包括失败）时记录耗时</li>
+ *   <li>结果集关闭时按 Druid 统计的 fetchRowCount 补充取回的行数</li>
+ * </ul>
+ *
+ * @author daihaowxg
+ */
+public class DruidProfilingFilter extends FilterEventAdapter {
+
+    /**
+     * 结果集上保存本次执行的属性名
+     */
+    private static final String EXECUTION = DruidProfilingFilter.class.getName() + ".execution";
+
+    private final SqlProfiler profiler;
+
+    private final ThreadLocal<long[]> executeStart = ThreadLocal.withInitial(() -> new long[1]);
+
+    public DruidProfilingFilter(SqlProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    @Override
+    protected void statementExecuteBefore(StatementProxy statement, String sql) {
+        started();
+    }
+
+    @Override
+    protected void statementExecuteAfter(StatementProxy statement, String sql, boolean result) {
+        // execute() 的结果集通过 getResultSet() 获取，先保存在语句上
+        statement.putAttribute(EXECUTION, finished(sql));
+    }
+
+    @Override
+    protected void statementExecuteQueryBefore(StatementProxy statement, String sql) {
+        started();
+    }
+
+    @Override
+    protected void statementExecuteQueryAfter(StatementProxy statement, String sql, ResultSetProxy resultSet) {
+        SqlProfiler.Execution execution = finished(sql);
+        if (resultSet != null) {
+            resultSet.putAttribute(EXECUTION, execution);
+        }
+    }
+
+    @Override
+    protected void statementExecuteUpdateBefore(StatementProxy statement, String sql) {
+        started();
+    }
+
+    @Override
+    protected void statementExecuteUpdateAfter(StatementProxy statement, String sql, int updateCount) {
+        finished(sql);
+    }
+
+    @Override
+    protected void statementExecuteBatchBefore(StatementProxy statement) {
+        started();
+    }
+
+    @Override
+    protected void statementExecuteBatchAfter(StatementProxy statement, int[] result) {
+        finished(batchSql(statement));
+    }
+
+    @Override
+    protected void statement_executeErrorAfter(StatementProxy statement, String sql, Throwable error) {
+        finished(sql != null ? sql : batchSql(statement));
+    }
+
+    @Override
+    public ResultSetProxy statement_getResultSet(FilterChain chain, StatementProxy statement) throws SQLException {
+        ResultSetProxy resultSet = super.statement_getResultSet(chain, statement);
+        Object execution = statement.getAttribute(EXECUTION);
+        if (resultSet != null && execution != null) {
+            resultSet.putAttribute(EXECUTION, execution);
+        }
+        return resultSet;
+    }
+
+    @Override
+    public void resultSet_close(FilterChain chain, ResultSetProxy resultSet) throws SQLException {
+        // 关闭之后属性会被清空，先取出本次执行；重复关闭时取不到，不会重复计入
+        Object execution = resultSet.getAttribute(EXECUTION);
+        super.resultSet_close(chain, resultSet);
+        if (execution instanceof SqlProfiler.Execution recorded) {
+            recorded.rowsFetched(resultSet.getFetchRowCount());
+        }
+    }
+
+    private void started() {
+        executeStart.get()[0] = System.nanoTime();
+    }
+
+    private SqlProfiler.Execution finished(String sql) {
+        return profiler.record(sql, System.nanoTime() - executeStart.get()[0]);
+    }
+
+    private static String batchSql(StatementProxy statement) {
+        return statement instanceof PreparedStatementProxy prepared ? prepared.getSql() : statement.getBatchSql();
+    }
+}
@@ -0,0 +1,20 @@
+package io.github.daihaowxg.druid.repository;
+
+import io.github.daihaowxg.druid.entity.User;
+
+import java.util.List;
+
+/**
+ * 按版本批量更新的结果
+ *
+ * @param updated   写入成功的用户，version 已经是更新后的版本号
+ * @param conflicts 版本不一致或已被删除的行
+ * @param attempts  执行的轮数，不重试时为 1
+ * @author daihaowxg
+ */
+public record OptimisticUpdateResult(List<User> updated, List<VersionConflict> conflicts, int attempts) {
+
+    public boolean isFullyApplied() {
+        return conflicts.isEmpty();
+    }
+}
@@ -1,19 +1,39 @@
 package io.github.daihaowxg.druid.repository;
 
 import io.github.daihaowxg.druid.entity.User;
+import io.github.daihaowxg.druid.search.UserSearchIndex;
+import io.github.daihaowxg.keyset.KeysetIterator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.dao.DataRetrievalFailureException;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * 用户数据访问层
  * 演示使用 JdbcTemplate 配合 Druid 连接池进行数据库操作
+ * <p>
+ * 用户名、邮箱的模糊查询优先使用 {@link UserSearchIndex}，插入、更新、删除时同步维护索引
  *
  * @author daihaowxg
  */
@@ -24,6 +44,13 @@ public class UserRepository {
     
     private final JdbcTemplate jdbcTemplate;
     
+    private final UserSearchIndex searchIndex;
+    
+    /**
+     * 按主键校验候选时每条 SQL 的 IN 列表长度
+     */
+    private static final int CANDIDATE_CHUNK = 1000;
+    
     /**
      * User 实体的 RowMapper
      */
@@ -35,6 +62,7 @@ public class UserRepository {
         user.setAge(rs.getInt("age"));
         user.setCreatedTime(rs.getTimestamp("created_time").toLocalDateTime());
         user.setUpdatedTime(rs.getTimestamp("updated_time").toLocalDateTime());
+        user.setVersion(rs.getInt("version"));
         return user;
     };
     
@@ -69,11 +97,57 @@ public class UserRepository {
      * @return 用户列表
      */
     public List<User> findByUsername(String username) {
+        long[] candidates = searchIndex.usernameCandidates(username);
+        if (candidates != null) {
+            return findCandidates(candidates, "username", username);
+        }
         String sql = "SELECT * FROM users WHERE username LIKE ?";
         log.debug("执行根据用户名查询: {}, 参数: {}", sql, username);
         return jdbcTemplate.query(sql, USER_ROW_MAPPER, "%" + username + "%");
     }
     
+    /**
+     * 根据邮箱模糊查询用户
+     *
+     * @param email 邮箱中的任意一段
+     * @return 用户列表
+     */
+    public List<User> findByEmail(String email) {
+        long[] candidates = searchIndex.emailCandidates(email);
+        if (candidates != null) {
+            return findCandidates(candidates, "email", email);
+        }
+        String sql = "SELECT * FROM users WHERE email LIKE ?";
+        log.debug("执行根据邮箱查询: {}, 参数: {}", sql, email);
+        return jdbcTemplate.query(sql, USER_ROW_MAPPER, "%" + email + "%");
+    }
+    
+    /**
+     * 按主键读取索引给出的候选行，并用原始的 LIKE 条件校验
+     * <p>
+     * 候选是真实结果的超集（大小写不同、三元组顺序不同、已更新或已回滚的行），
+     * 校验条件保证结果与 LIKE 扫描完全一致，只是数据库只需要按主键读取候选行
+     *
+     * @param candidates 升序的候选主键
+     * @param column     校验的列，只能是常量列名
+     */
+    private List<User> findCandidates(long[] candidates, String column, String keyword) {
+        log.debug("执行索引查询: {} LIKE {}, 候选数: {}", column, keyword, candidates.length);
+        List<User> users = new ArrayList<>();
+        for (int from = 0; from < candidates.length; from += CANDIDATE_CHUNK) {
+            int to = Math.min(candidates.length, from + CANDIDATE_CHUNK);
+            Object[] args = new Object[to - from + 1];
+            for (int i = from; i < to; i++) {
+                args[i - from] = candidates[i];
+            }
+            args[to - from] = "%" + keyword + "%";
+            String placeholders = String.join(", ", Collections.nCopies(to - from, "?"));
+            String sql = "SELECT * FROM users WHERE id IN (" + placeholders + ") AND " + column + " LIKE ? ORDER BY id";
+            users.addAll(jdbcTemplate.query(sql, USER_ROW_MAPPER, args));
+        }
+        return users;
+    }
+    
     /**
      * 插入用户
      *
@@ -83,19 +157,137 @@ public class UserRepository {
     public int insert(User user) {
         String sql = "INSERT INTO users (username, email, age) VALUES (?, ?, ?)";
         log.debug("执行插入用户: {}, 参数: {}", sql, user);
-        return jdbcTemplate.update(sql, user.getUsername(), user.getEmail(), user.getAge());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        int rows = jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, new String[]{"id"});
+            ps.setString(1, user.getUsername());
+            ps.setString(2, user.getEmail());
+            ps.setObject(3, user.getAge());
+            return ps;
+        }, keyHolder);
+        // 回填自增主键，搜索索引需要它
+        user.setId(keyHolder.getKeyAs(Long.class));
+        searchIndex.onInsert(user);
+        return rows;
+    }
+    
+    /**
+     * 按主键批量查询用户
+     *
+     * @param ids 用户ID
+     * @return 存在的用户，按 id 升序
+     */
+    public List<User> findByIds(Collection<Long> ids) {
+        List<Long> sorted = ids.stream().distinct().sorted().toList();
+        List<User> users = new ArrayList<>(sorted.size());
+        for (int from = 0; from < sorted.size(); from += CANDIDATE_CHUNK) {
+            List<Long> chunk = sorted.subList(from, Math.min(sorted.size(), from + CANDIDATE_CHUNK));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            String sql = "SELECT * FROM users WHERE id IN (" + placeholders + ") ORDER BY id";
+            log.debug("执行按主键批量查询: {}, 数量: {}", sql, chunk.size());
+            users.addAll(jdbcTemplate.query(sql, USER_ROW_MAPPER, chunk.toArray()));
+        }
+        return users;
     }
     
     /**
-     * 更新用户
+     * 更新用户，不检查版本号（后写覆盖先写），但同样会递增版本号，让按版本更新的写者能发现这次修改
      *
      * @param user 用户对象
      * @return 影响的行数
      */
     public int update(User user) {
-        String sql = "UPDATE users SET username = ?, email = ?, age = ? WHERE id = ?";
+        String sql = "UPDATE users SET username = ?, email = ?, age = ?, version = version + 1 WHERE id = ?";
         log.debug("执行更新用户: {}, 参数: {}", sql, user);
-        return jdbcTemplate.update(sql, user.getUsername(), user.getEmail(), user.getAge(), user.getId());
+        int rows = jdbcTemplate.update(sql, user.getUsername(), user.getEmail(), user.getAge(), user.getId());
+        if (rows > 0) {
+            searchIndex.onUpdate(user);
+        }
+        return rows;
+    }
+    
+    /**
+     * 按版本号批量更新用户（乐观锁）
+     * <p>
+     * 一个 JDBC 批次执行 {@code UPDATE ... WHERE id = ? AND version = ?}，影响行数为 0 的行说明读取之后
+     * 已被别人修改或删除，不会覆盖别人的修改，而是作为冲突返回；冲突行再用一条 IN 查询取回当前版本号，
+     * 区分"版本过期"和"已删除"。不加行锁读取，也不会让读者等待写者。
+     * <p>
+     * 按 id 排序后执行，并发的批次以相同顺序对行加锁，不会互相死锁。
+     * 依赖驱动返回每一行的影响行数：MySQL 开启 rewriteBatchedStatements 后只返回 SUCCESS_NO_INFO，
+     * 无法判断哪一行冲突，此时抛出异常。
+     *
+     * @param users 要更新的用户，version 为读取时的版本号
+     * @return 写入成功的用户（version 已加一）和冲突的行
+     */
+    public OptimisticUpdateResult updateIfVersion(List<User> users) {
+        for (User user : users) {
+            if (user.getId() == null || user.getVersion() == null) {
+                throw new IllegalArgumentException("id and version are required for optimistic update: " + user);
+            }
+        }
+        List<User> sorted = new ArrayList<>(users);
+        sorted.sort(Comparator.comparing(User::getId));
+        String sql = "UPDATE users SET username = ?, email = ?, age = ?, version = version + 1 WHERE id = ? AND version = ?";
+        log.debug("执行按版本批量更新: {}, 数量: {}", sql, sorted.size());
+        int[] rows = jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                User user = sorted.get(i);
+                ps.setString(1, user.getUsername());
+                ps.setString(2, user.getEmail());
+                ps.setObject(3, user.getAge());
+                ps.setLong(4, user.getId());
+                ps.setInt(5, user.getVersion());
+            }
+            
+            @Override
+            public int getBatchSize() {
+                return sorted.size();
+            }
+        });
+        
+        List<User> updated = new ArrayList<>(sorted.size());
+        List<User> stale = new ArrayList<>();
+        for (int i = 0; i < rows.length; i++) {
+            if (rows[i] == Statement.SUCCESS_NO_INFO) {
+                throw new InvalidDataAccessResourceUsageException(
+                        "JDBC driver did not report per-row update counts; disable batch rewriting for optimistic updates");
+            }
+            User user = sorted.get(i);
+            if (rows[i] > 0) {
+                user.setVersion(user.getVersion() + 1);
+                searchIndex.onUpdate(user);
+                updated.add(user);
+            } else {
+                stale.add(user);
+            }
+        }
+        return new OptimisticUpdateResult(updated, conflictsOf(stale), 1);
+    }
+    
+    /**
+     * 取回冲突行的当前版本号
+     */
+    private List<VersionConflict> conflictsOf(List<User> stale) {
+        if (stale.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Integer> current = new HashMap<>();
+        for (int from = 0; from < stale.size(); from += CANDIDATE_CHUNK) {
+            List<User> chunk = stale.subList(from, Math.min(stale.size(), from + CANDIDATE_CHUNK));
+            String placeholders = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            jdbcTemplate.query("SELECT id, version FROM users WHERE id IN (" + placeholders + ")",
+                    rs -> {
+                        current.put(rs.getLong("id"), rs.getInt("version"));
+                    },
+                    chunk.stream().map(User::getId).toArray());
+        }
+        List<VersionConflict> conflicts = new ArrayList<>(stale.size());
+        for (User user : stale) {
+            conflicts.add(new VersionConflict(user.getId(), user.getVersion(), current.get(user.getId())));
+        }
+        return conflicts;
     }
     
     /**
@@ -107,7 +299,11 @@ public class UserRepository {
     public int deleteById(Long id) {
         String sql = "DELETE FROM users WHERE id = ?";
         log.debug("执行删除用户: {}, 参数: {}", sql, id);
-        return jdbcTemplate.update(sql, id);
+        int rows = jdbcTemplate.update(sql, id);
+        if (rows > 0) {
+            searchIndex.onDelete(id);
+        }
+        return rows;
     }
     
     /**
@@ -132,10 +328,94 @@ public class UserRepository {
         String sql = "INSERT INTO users (username, email, age) VALUES (?, ?, ?)";
         log.debug("执行批量插入用户: {}, 数量: {}", sql, users.size());
         
-        List<Object[]> batchArgs = users.stream()
-                .map(user -> new Object[]{user.getUsername(), user.getEmail(), user.getAge()})
-                .toList();
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        int[] rows = jdbcTemplate.batchUpdate(con -> con.prepareStatement(sql, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        User user = users.get(i);
+                        ps.setString(1, user.getUsername());
+                        ps.setString(2, user.getEmail());
+                        ps.setObject(3, user.getAge());
+                    }
+                    
+                    @Override
+                    public int getBatchSize() {
+                        return users.size();
+                    }
+                }, keyHolder);
         
-        return jdbcTemplate.batchUpdate(sql, batchArgs);
+        // 回填自增主键并加入搜索索引；拿不到主键时索引会漏掉这些行，抛出异常让事务回滚
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        if (keys.size() != users.size()) {
+            throw new DataRetrievalFailureException(
+                    "Expected " + users.size() + " generated keys from batch insert but got " + keys.size());
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            User user = users.get(i);
+            user.setId(((Number) keys.get(i).values().iterator().next()).longValue());
+            searchIndex.onInsert(user);
+        }
+        return rows;
+    }
+    
+    /**
+     * 流式查询所有用户
+     * <p>
+     * 使用只进、只读结果集和 fetchSize 分批拉取，内存占用与表大小无关。
+     * 返回的 Stream 持有数据库连接，调用方必须关闭（推荐 try-with-resources）。
+     *
+     * @param fetchSize 每次从数据库拉取的行数
+     * @return 惰性的用户流
+     */
+    public Stream<User> streamAll(int fetchSize) {
+        String sql = "SELECT * FROM users ORDER BY id";
+        log.debug("执行流式查询所有用户: {}, fetchSize: {}", sql, fetchSize);
+        return jdbcTemplate.queryForStream(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, USER_ROW_MAPPER);
+    }
+    
+    /**
+     * 游标回调方式遍历所有用户，方法返回时连接已归还
+     *
+     * @param fetchSize 每次从数据库拉取的行数
+     * @param consumer  每行的处理逻辑
+     */
+    public void forEach(int fetchSize, Consumer<User> consumer) {
+        String sql = "SELECT * FROM users ORDER BY id";
+        log.debug("执行游标遍历所有用户: {}, fetchSize: {}", sql, fetchSize);
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, rs -> {
+            consumer.accept(USER_ROW_MAPPER.mapRow(rs, rs.getRow()));
+        });
+    }
+    
+    /**
+     * 键集分页：查询 id 大于 afterId 的一页用户
+     *
+     * @param afterId 上一页最后一条记录的 id，第一页传 0
+     * @param limit   每页条数
+     * @return 按 id 升序的用户列表
+     */
+    public List<User> findPageAfter(long afterId, int limit) {
+        String sql = "SELECT * FROM users WHERE id > ? ORDER BY id LIMIT ?";
+        log.debug("执行键集分页查询: {}, 参数: {}, {}", sql, afterId, limit);
+        return jdbcTemplate.query(sql, USER_ROW_MAPPER, afterId, limit);
+    }
+    
+    /**
+     * 按 id 顺序逐页遍历所有用户，每页单独借用、归还连接
+     *
+     * @param pageSize 每页条数
+     * @return 用户迭代器
+     */
+    public Iterator<User> iterateByKeyset(int pageSize) {
+        return new KeysetIterator<>(this::findPageAfter, User::getId, pageSize);
     }
 }
@@ -0,0 +1,19 @@
+package io.github.daihaowxg.druid.repository;
+
+/**
+ * 按版本更新时未能写入的一行
+ *
+ * @param id              用户ID
+ * @param expectedVersion 更新时携带的版本号
+ * @param currentVersion  数据库中的当前版本号，行已被删除时为 null
+ * @author daihaowxg
+ */
+public record VersionConflict(Long id, Integer expectedVersion, Integer currentVersion) {
+
+    /**
+     * 行已被删除，重试也不会成功
+     */
+    public boolean isDeleted() {
+        return currentVersion == null;
+    }
+}
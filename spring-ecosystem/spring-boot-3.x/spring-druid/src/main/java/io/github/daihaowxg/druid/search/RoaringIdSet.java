@@ -0,0 +1,326 @@
+package io.github.daihaowxg.druid.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/**
+ * 压缩的主键集合，思路与 Roaring Bitmap 相同
+ * <p>
+ * 主键的高 48 位作为容器键，低 16 位放入对应的容器：
+ * <ul>
+ *   <li>容器内元素不超过 {@value #ARRAY_MAX} 个时使用有序 {@code char[]}，每个主键只占 2 字节</li>
+ *   <li>超过后转换为 1024 个 long 组成的位图，固定 8KB，每个主键只占 1 位</li>
+ * </ul>
+ * 自增主键在同一容器内很密集，压缩效果好；查询时也不需要把主键装箱成 Long。
+ * <p>
+ * 非线程安全，由 {@link UserSearchIndex} 负责加锁。
+ *
+ * @author daihaowxg
+ */
+final class RoaringIdSet {
+
+    /**
+     * 数组容器的上限，超过后位图（8KB）更省空间
+     */
+    static final int ARRAY_MAX = 4096;
+
+    private long[] keys = new long[0];
+
+    private Container[] containers = new Container[0];
+
+    private int containerCount;
+
+    private long cardinality;
+
+    /**
+     * @return 集合中原来没有该主键时返回 true
+     */
+    boolean add(long id) {
+        long key = id >>> 16;
+        char low = (char) id;
+        int i = Arrays.binarySearch(keys, 0, containerCount, key);
+        if (i < 0) {
+            i = -i - 1;
+            insertContainer(i, key, new ArrayContainer());
+        }
+        Container container = containers[i];
+        if (!container.add(low)) {
+            return false;
+        }
+        if (container instanceof ArrayContainer array && array.size > ARRAY_MAX) {
+            containers[i] = array.toBitmap();
+        }
+        cardinality++;
+        return true;
+    }
+
+    boolean contains(long id) {
+        int i = Arrays.binarySearch(keys, 0, containerCount, id >>> 16);
+        return i >= 0 && containers[i].contains((char) id);
+    }
+
+    long cardinality() {
+        return cardinality;
+    }
+
+    /**
+     * 按升序遍历所有主键
+     */
+    void forEach(LongConsumer consumer) {
+        for (int i = 0; i < containerCount; i++) {
+            containers[i].forEach(keys[i] << 16, consumer);
+        }
+    }
+
+    /**
+     * 估算占用的字节数，用于日志和基准
+     */
+    long sizeInBytes() {
+        long bytes = 16L * keys.length;
+        for (int i = 0; i < containerCount; i++) {
+            bytes += containers[i].sizeInBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * 求多个集合的交集，按升序返回
+     * <p>
+     * 与 Roaring Bitmap 一样按容器求交：两个集合只有相同高位的容器才需要比较，
+     * 数组与数组归并，数组与位图逐个测试，位图与位图按 long 做与运算。从最小的集合开始，结果为空时提前结束
+     */
+    static long[] intersect(List<RoaringIdSet> sets) {
+        if (sets.isEmpty()) {
+            return new long[0];
+        }
+        List<RoaringIdSet> ordered = new ArrayList<>(sets);
+        ordered.sort(Comparator.comparingLong(RoaringIdSet::cardinality));
+        RoaringIdSet result = ordered.get(0);
+        for (int i = 1; i < ordered.size() && result.cardinality > 0; i++) {
+            result = and(result, ordered.get(i));
+        }
+        return result.toArray();
+    }
+
+    private static RoaringIdSet and(RoaringIdSet a, RoaringIdSet b) {
+        RoaringIdSet result = new RoaringIdSet();
+        int i = 0;
+        int j = 0;
+        while (i < a.containerCount && j < b.containerCount) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                Container container = a.containers[i].and(b.containers[j]);
+                if (container.cardinality() > 0) {
+                    result.insertContainer(result.containerCount, a.keys[i], container);
+                    result.cardinality += container.cardinality();
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    long[] toArray() {
+        long[] ids = new long[(int) cardinality];
+        int[] size = {0};
+        forEach(id -> ids[size[0]++] = id);
+        return ids;
+    }
+
+    private void insertContainer(int index, long key, Container container) {
+        if (containerCount == keys.length) {
+            int capacity = Math.max(4, containerCount * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+        }
+        System.arraycopy(keys, index, keys, index + 1, containerCount - index);
+        System.arraycopy(containers, index, containers, index + 1, containerCount - index);
+        keys[index] = key;
+        containers[index] = container;
+        containerCount++;
+    }
+
+    private interface Container {
+
+        boolean add(char value);
+
+        boolean contains(char value);
+
+        int cardinality();
+
+        Container and(Container other);
+
+        void forEach(long high, LongConsumer consumer);
+
+        long sizeInBytes();
+    }
+
+    /**
+     * 有序 char 数组容器
+     */
+    private static final class ArrayContainer implements Container {
+
+        private char[] values = new char[4];
+
+        private int size;
+
+        @Override
+        public boolean add(char value) {
+            // 自增主键几乎总是追加在末尾，先判断末尾可以省掉二分查找
+            if (size > 0 && values[size - 1] < value) {
+                append(value);
+                return true;
+            }
+            int i = Arrays.binarySearch(values, 0, size, value);
+            if (i >= 0) {
+                return false;
+            }
+            i = -i - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grow());
+            }
+            System.arraycopy(values, i, values, i + 1, size - i);
+            values[i] = value;
+            size++;
+            return true;
+        }
+
+        private void append(char value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, grow());
+            }
+            values[size++] = value;
+        }
+
+        private int grow() {
+            return Math.min(ARRAY_MAX + 1, size + (size >> 1) + 1);
+        }
+
+        @Override
+        public boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, size, value) >= 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return size;
+        }
+
+        @Override
+        public Container and(Container other) {
+            ArrayContainer result = new ArrayContainer();
+            result.values = new char[size];
+            if (other instanceof ArrayContainer array) {
+                int i = 0;
+                int j = 0;
+                while (i < size && j < array.size) {
+                    if (values[i] < array.values[j]) {
+                        i++;
+                    } else if (values[i] > array.values[j]) {
+                        j++;
+                    } else {
+                        result.values[result.size++] = values[i];
+                        i++;
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < size; i++) {
+                    if (other.contains(values[i])) {
+                        result.values[result.size++] = values[i];
+                    }
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public void forEach(long high, LongConsumer consumer) {
+            for (int i = 0; i < size; i++) {
+                consumer.accept(high | values[i]);
+            }
+        }
+
+        @Override
+        public long sizeInBytes() {
+            return 16 + 2L * values.length;
+        }
+
+        BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < size; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+
+    /**
+     * 65536 位的位图容器
+     */
+    private static final class BitmapContainer implements Container {
+
+        private final long[] words = new long[1024];
+
+        private int cardinality;
+
+        @Override
+        public boolean add(char value) {
+            long mask = 1L << value;
+            long word = words[value >>> 6];
+            if ((word & mask) != 0) {
+                return false;
+            }
+            words[value >>> 6] = word | mask;
+            cardinality++;
+            return true;
+        }
+
+        @Override
+        public boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        public int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        public Container and(Container other) {
+            if (!(other instanceof BitmapContainer bitmap)) {
+                return other.and(this);
+            }
+            BitmapContainer result = new BitmapContainer();
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i] & bitmap.words[i];
+                result.words[i] = word;
+                result.cardinality += Long.bitCount(word);
+            }
+            return result;
+        }
+
+        @Override
+        public void forEach(long high, LongConsumer consumer) {
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    consumer.accept(high | ((long) i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        public long sizeInBytes() {
+            return 16 + 8L * words.length;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package io.github.daihaowxg.druid.search;
+
+import io.github.daihaowxg.druid.entity.User;
+import io.github.daihaowxg.druid.repository.UserRepository;
+import io.github.daihaowxg.druid.service.UserService;
+import io.github.daihaowxg.outbox.ChangeEvent;
+import io.github.daihaowxg.outbox.ChangeSubscriber;
+import io.github.daihaowxg.outbox.ChangeType;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 把其他实例的用户变更同步到本实例的搜索索引
+ *
+ * <p>{@link UserSearchIndex} 只在本实例写入时维护，多实例部署时其他实例的插入、更新不会进入本地索引，
+ * 搜索会漏掉这些行（删除不影响结果，数据库校验会过滤）。这里订阅发件箱中的用户事件：</p>
+ * <ul>
+ *   <li>跳过本实例写入的事件，它们已经在写入时同步记入索引</li>
+ *   <li>同一批内同一个用户只处理最后一条事件；插入、更新按主键批量重新读取最新数据，读不到说明已被删除</li>
+ *   <li>重复投递时重复记入索引，只会增加过期条目，由重建清理</li>
+ * </ul>
+ *
+ * @author daihaowxg
+ */
+@Slf4j
+public class SearchIndexChangeSubscriber implements ChangeSubscriber {
+
+    private final UserSearchIndex index;
+
+    private final UserRepository userRepository;
+
+    private final String instanceId;
+
+    public SearchIndexChangeSubscriber(UserSearchIndex index, UserRepository userRepository, String instanceId) {
+        this.index = index;
+        this.userRepository = userRepository;
+        this.instanceId = instanceId;
+    }
+
+    @Override
+    public void onChanges(List<ChangeEvent> events) {
+        Map<Long, ChangeType> latest = new LinkedHashMap<>();
+        for (ChangeEvent event : events) {
+            if (UserService.AGGREGATE_TYPE.equals(event.aggregateType()) && !instanceId.equals(event.origin())) {
+                latest.put(Long.valueOf(event.aggregateId()), event.changeType());
+            }
+        }
+        if (latest.isEmpty()) {
+            return;
+        }
+        List<Long> changed = latest.entrySet().stream()
+                .filter(entry -> entry.getValue() != ChangeType.DELETE)
+                .map(Map.Entry::getKey)
+                .toList();
+        Map<Long, User> current = userRepository.findByIds(changed).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        latest.forEach((id, changeType) -> {
+            User user = current.get(id);
+            if (user == null) {
+                index.onDelete(id);
+            } else if (changeType == ChangeType.INSERT) {
+                index.onInsert(user);
+            } else {
+                index.onUpdate(user);
+            }
+        });
+        log.debug("同步其他实例的用户变更到搜索索引: {} 个用户", latest.size());
+    }
+}
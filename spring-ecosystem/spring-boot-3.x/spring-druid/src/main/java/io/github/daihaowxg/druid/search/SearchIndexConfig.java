@@ -0,0 +1,54 @@
+package io.github.daihaowxg.druid.search;
+
+import io.github.daihaowxg.druid.repository.UserRepository;
+import io.github.daihaowxg.outbox.OutboxProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 用户搜索索引配置
+ *
+ * <p>{@link UserSearchIndex} 总是注册，由 {@link UserRepository} 在写入时维护；
+ * 只有 {@code druid.search.enabled=true}（默认）时才注册 {@link SearchIndexLoader} 构建索引，
+ * 关闭后索引始终未就绪，搜索全部走 LIKE 扫描。其他实例的写入由 {@link SearchIndexChangeSubscriber}
+ * 从发件箱同步过来，{@code outbox.enabled=false} 时不注册，只能看到本实例的写入。</p>
+ *
+ * @author daihaowxg
+ */
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(SearchIndexProperties.class)
+public class SearchIndexConfig {
+
+    @Bean
+    public UserSearchIndex userSearchIndex(SearchIndexProperties properties) {
+        return new UserSearchIndex(properties.getMaxCandidates());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "druid.search", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public SearchIndexLoader searchIndexLoader(UserSearchIndex index, UserRepository userRepository,
+                                               SearchIndexProperties properties) {
+        return new SearchIndexLoader(index, userRepository, properties);
+    }
+
+    /**
+     * 和发件箱自动配置使用同一个开关。这里不能用 @ConditionalOnBean(OutboxPoller.class)：
+     * 应用配置先于自动配置处理，判断时拉取器还没有注册，而且拉取器创建时需要先拿到全部订阅者
+     */
+    @Configuration
+    @ConditionalOnProperty(prefix = "outbox", name = "enabled", havingValue = "true", matchIfMissing = true)
+    @EnableConfigurationProperties(OutboxProperties.class)
+    static class OutboxSubscriberConfig {
+
+        @Bean
+        public SearchIndexChangeSubscriber searchIndexChangeSubscriber(UserSearchIndex index,
+                                                                       UserRepository userRepository,
+                                                                       OutboxProperties outboxProperties) {
+            return new SearchIndexChangeSubscriber(index, userRepository, outboxProperties.getInstanceId());
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package io.github.daihaowxg.druid.search;
+
+import io.github.daihaowxg.druid.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * 在应用启动后构建用户搜索索引，并在过期条目过多时重建
+ *
+ * <p>构建时通过 {@link UserRepository#forEach} 流式扫描全表，内存中只保留一批行。
+ * 构建完成前的搜索回退到 LIKE 扫描。</p>
+ *
+ * @author daihaowxg
+ */
+@RequiredArgsConstructor
+public class SearchIndexLoader {
+
+    private final UserSearchIndex index;
+
+    private final UserRepository userRepository;
+
+    private final SearchIndexProperties properties;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${druid.search.rebuild-check-interval:1m}")
+    public void rebuildIfStale() {
+        if (index.needsRebuild(properties.getRebuildStaleRatio())) {
+            rebuild();
+        }
+    }
+
+    public void rebuild() {
+        index.rebuild(consumer -> userRepository.forEach(properties.getFetchSize(), consumer));
+    }
+}
@@ -0,0 +1,51 @@
+package io.github.daihaowxg.druid.search;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 用户搜索索引配置
+ *
+ * <pre>
+ * druid:
+ *   search:
+ *     enabled: true
+ *     max-candidates: 10000
+ *     fetch-size: 1000
+ *     rebuild-stale-ratio: 0.2
+ *     rebuild-check-interval: 1m
+ * </pre>
+ *
+ * @author daihaowxg
+ */
+@Data
+@ConfigurationProperties(prefix = "druid.search")
+public class SearchIndexProperties {
+
+    /**
+     * 是否在启动后构建索引，关闭时所有搜索都走 LIKE 扫描
+     */
+    private boolean enabled = true;
+
+    /**
+     * 候选主键超过此数量时回退到 LIKE 扫描
+     */
+    private int maxCandidates = 10_000;
+
+    /**
+     * 构建索引时流式扫描的 fetchSize
+     */
+    private int fetchSize = 1000;
+
+    /**
+     * 过期条目（更新、删除次数）占索引行数的比例超过此值时重建
+     */
+    private double rebuildStaleRatio = 0.2;
+
+    /**
+     * 检查是否需要重建的间隔
+     */
+    private Duration rebuildCheckInterval = Duration.ofMinutes(1);
+}
@@ -0,0 +1,133 @@
+package io.github.daihaowxg.druid.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 三元组（trigram）倒排索引
+ * <p>
+ * 把文本拆成所有长度为 3 的子串，每个三元组对应一个 {@link RoaringIdSet}，记录包含它的行的主键。
+ * 子串查询 {@code LIKE '%keyword%'} 的结果一定包含 keyword 的所有三元组，
+ * 所以对这些三元组的倒排表求交集就得到候选集合。候选集合是结果的超集（三元组都出现不代表顺序也一致），
+ * 需要再用原始条件校验。
+ * <p>
+ * 三元组按小写字符编码为一个 long（每个字符 21 位），不区分大小写，候选集合因此也覆盖区分大小写的匹配。
+ * <p>
+ * 非线程安全，由 {@link UserSearchIndex} 负责加锁。
+ *
+ * @author daihaowxg
+ */
+final class TrigramIndex {
+
+    static final int GRAM = 3;
+
+    private final Map<Long, RoaringIdSet> postings = new HashMap<>();
+
+    /**
+     * 把文本的所有三元组加入索引，重复添加没有副作用
+     */
+    void add(long id, String text) {
+        if (text == null) {
+            return;
+        }
+        for (long trigram : trigrams(text)) {
+            postings.computeIfAbsent(trigram, key -> new RoaringIdSet()).add(id);
+        }
+    }
+
+    /**
+     * 查询匹配 {@code LIKE '%keyword%'} 的候选主键，按升序返回
+     * <p>
+     * keyword 中的 {@code %} 和 {@code _} 按 LIKE 通配符处理，只使用通配符之间的字面量片段的三元组
+     *
+     * @return 没有长度达到 {@value #GRAM} 的字面量片段、无法使用索引时返回 null
+     */
+    long[] candidates(String keyword) {
+        long[] trigrams = patternTrigrams(keyword);
+        if (trigrams.length == 0) {
+            return null;
+        }
+        List<RoaringIdSet> sets = new ArrayList<>(trigrams.length);
+        for (long trigram : trigrams) {
+            RoaringIdSet set = postings.get(trigram);
+            if (set == null) {
+                // 有一个三元组从未出现过，不可能有匹配
+                return new long[0];
+            }
+            sets.add(set);
+        }
+        return RoaringIdSet.intersect(sets);
+    }
+
+    int trigramCount() {
+        return postings.size();
+    }
+
+    long sizeInBytes() {
+        // HashMap 每个条目约 48 字节（Node + 装箱的 Long）
+        long bytes = 48L * postings.size();
+        for (RoaringIdSet set : postings.values()) {
+            bytes += set.sizeInBytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * LIKE 模式中各个字面量片段的三元组
+     */
+    static long[] patternTrigrams(String pattern) {
+        long[] trigrams = new long[0];
+        int start = 0;
+        for (int i = 0; i <= pattern.length(); i++) {
+            if (i == pattern.length() || pattern.charAt(i) == '%' || pattern.charAt(i) == '_') {
+                long[] segment = trigrams(pattern.substring(start, i));
+                if (segment.length > 0) {
+                    trigrams = Arrays.copyOf(trigrams, trigrams.length + segment.length);
+                    System.arraycopy(segment, 0, trigrams, trigrams.length - segment.length, segment.length);
+                }
+                start = i + 1;
+            }
+        }
+        return trigrams;
+    }
+
+    /**
+     * 文本中所有不重复的三元组，不足 {@value #GRAM} 个字符时为空
+     */
+    static long[] trigrams(String text) {
+        int count = text.length() - GRAM + 1;
+        if (count <= 0) {
+            return new long[0];
+        }
+        long[] trigrams = new long[count];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            long trigram = encode(text.charAt(i), text.charAt(i + 1), text.charAt(i + 2));
+            if (!contains(trigrams, size, trigram)) {
+                trigrams[size++] = trigram;
+            }
+        }
+        return size == count ? trigrams : Arrays.copyOf(trigrams, size);
+    }
+
+    private static long encode(char a, char b, char c) {
+        return ((long) Character.toLowerCase(a) << 42)
+                | ((long) Character.toLowerCase(b) << 21)
+                | Character.toLowerCase(c);
+    }
+
+    /**
+     * 用户名、邮箱都很短，线性查重比建一个 Set 更快
+     */
+    private static boolean contains(long[] values, int size, long value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,322 @@
+package io.github.daihaowxg.druid.search;
+
+import io.github.daihaowxg.druid.entity.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * 用户名、邮箱的内存子串索引
+ * <p>
+ * {@code username LIKE '%x%'} 以通配符开头，用不上 idx_username，每次都要全表扫描。
+ * 这里为用户名和邮箱各维护一个 {@link TrigramIndex}，查询时先从索引拿到候选主键，
+ * 再由数据库按主键校验原始条件，只读取候选行。
+ * <p>
+ * 索引始终保证是已提交数据的<b>超集</b>，所以校验后的结果与 LIKE 扫描一致：
+ * <ul>
+ *   <li>插入、更新时立即加入新值的三元组；事务回滚只会留下多余的候选，校验时被过滤</li>
+ *   <li>更新不删除旧值的三元组（索引里没有保存旧值），同样只会产生多余的候选</li>
+ *   <li>删除在事务提交后才记入墓碑集合，避免回滚后漏掉仍然存在的行</li>
+ *   <li>事务中的插入、更新在事务结束前记为"进行中"，重建开始时先加入新索引，
+ *       因为重建的全表扫描读不到尚未提交的数据</li>
+ * </ul>
+ * 多余的候选会随更新、删除逐渐积累，超过 {@code druid.search.rebuild-stale-ratio} 后由
+ * {@link SearchIndexLoader} 重建。重建时新索引在后台构建，期间的写入同时记入新旧两份索引，构建完成后整体替换。
+ * <p>
+ * 关键字按 LIKE 模式处理：{@code %}、{@code _} 之间的字面量片段用来查三元组，最终语义由数据库校验保证。
+ * 索引尚未构建完成、没有长度达到 3 的字面量片段、含有转义字符或候选过多时返回 null，由调用方回退到 LIKE 扫描。
+ *
+ * @author daihaowxg
+ */
+@Slf4j
+public class UserSearchIndex {
+
+    /**
+     * 重建时每批加入的行数，批内只加一次写锁
+     */
+    private static final int BUILD_BATCH = 1000;
+
+    private final int maxCandidates;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * 同一时间只允许一次重建。重建期间流式扫描整张表，用 ReentrantLock 而不是 synchronized，
+     * 在虚拟线程上等待时不会固定载体线程
+     */
+    private final Lock rebuildLock = new ReentrantLock();
+
+    private Snapshot current;
+
+    private Snapshot building;
+
+    /**
+     * 尚未提交的事务中插入、更新的行
+     */
+    private final Set<Entry> inFlight = new HashSet<>();
+
+    /**
+     * @param maxCandidates 候选超过这个数量时放弃使用索引，按主键校验大量候选不如直接扫描
+     */
+    public UserSearchIndex(int maxCandidates) {
+        this.maxCandidates = maxCandidates;
+    }
+
+    /**
+     * 用户名包含 keyword 的候选主键，按升序返回；无法使用索引时返回 null
+     */
+    public long[] usernameCandidates(String keyword) {
+        return candidates(keyword, true);
+    }
+
+    /**
+     * 邮箱包含 keyword 的候选主键，按升序返回；无法使用索引时返回 null
+     */
+    public long[] emailCandidates(String keyword) {
+        return candidates(keyword, false);
+    }
+
+    private long[] candidates(String keyword, boolean username) {
+        if (keyword == null || keyword.indexOf('\\') >= 0) {
+            // 反斜杠是 LIKE 的转义字符，转义后的语义交给数据库处理
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            if (current == null) {
+                return null;
+            }
+            long[] ids = (username ? current.usernames : current.emails).candidates(keyword);
+            if (ids == null) {
+                return null;
+            }
+            int size = 0;
+            for (long id : ids) {
+                if (!current.deleted.contains(id)) {
+                    ids[size++] = id;
+                }
+            }
+            if (size > maxCandidates) {
+                log.debug("关键字 {} 的候选过多: {}，回退到 LIKE 扫描", keyword, size);
+                return null;
+            }
+            return size == ids.length ? ids : Arrays.copyOf(ids, size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 插入新用户后调用，user 必须已经有主键
+     */
+    public void onInsert(User user) {
+        Entry entry = Entry.of(user);
+        write(() -> {
+            track(entry);
+            forEachSnapshot(snapshot -> snapshot.add(entry));
+        });
+    }
+
+    /**
+     * 更新用户后调用，旧值的三元组保留在索引中，计为过期条目
+     */
+    public void onUpdate(User user) {
+        Entry entry = Entry.of(user);
+        write(() -> {
+            track(entry);
+            forEachSnapshot(snapshot -> {
+                snapshot.index(entry);
+                snapshot.stale++;
+            });
+        });
+    }
+
+    /**
+     * 删除用户后调用，在事务提交后才生效
+     */
+    public void onDelete(long id) {
+        Runnable markDeleted = () -> write(() -> forEachSnapshot(snapshot -> {
+            if (snapshot.deleted.add(id)) {
+                snapshot.stale++;
+            }
+        }));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    markDeleted.run();
+                }
+            });
+        } else {
+            markDeleted.run();
+        }
+    }
+
+    /**
+     * 在事务中时把这一行记为进行中，事务结束（提交或回滚）后移除；调用方持有写锁
+     */
+    private void track(Entry entry) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        inFlight.add(entry);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                write(() -> inFlight.remove(entry));
+            }
+        });
+    }
+
+    /**
+     * 同时写入当前索引和正在构建的索引；两者都不存在时（还没开始构建）直接忽略，
+     * 之后构建时的全表扫描会读到这些数据。调用方持有写锁
+     */
+    private void forEachSnapshot(Consumer<Snapshot> action) {
+        if (current != null) {
+            action.accept(current);
+        }
+        if (building != null) {
+            action.accept(building);
+        }
+    }
+
+    private void write(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 重新构建索引，完成后替换当前索引，期间查询继续使用旧索引（首次构建时回退到 LIKE）
+     *
+     * @param scanner 流式遍历所有用户，把每一行交给传入的 Consumer
+     */
+    public void rebuild(Consumer<Consumer<User>> scanner) {
+        rebuildLock.lock();
+        try {
+            long start = System.nanoTime();
+            Snapshot next = new Snapshot();
+            write(() -> {
+                building = next;
+                inFlight.forEach(next::index);
+            });
+
+            List<User> batch = new ArrayList<>(BUILD_BATCH);
+            try {
+                scanner.accept(user -> {
+                    batch.add(user);
+                    if (batch.size() == BUILD_BATCH) {
+                        addBatch(next, batch);
+                    }
+                });
+                addBatch(next, batch);
+            } catch (RuntimeException e) {
+                write(() -> building = null);
+                throw e;
+            }
+
+            write(() -> {
+                current = next;
+                building = null;
+            });
+            log.info("用户搜索索引构建完成: {} 行, {} 个三元组, 约 {} KB, 耗时 {} ms",
+                    next.rows, next.usernames.trigramCount() + next.emails.trigramCount(),
+                    next.sizeInBytes() / 1024, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private void addBatch(Snapshot snapshot, List<User> batch) {
+        write(() -> batch.forEach(user -> snapshot.add(Entry.of(user))));
+        batch.clear();
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return current != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 过期条目（更新、删除次数）占索引行数的比例超过 ratio 时需要重建
+     */
+    public boolean needsRebuild(double ratio) {
+        lock.readLock().lock();
+        try {
+            return current != null && building == null && current.stale > ratio * Math.max(current.rows, 1);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 估算当前索引占用的字节数
+     */
+    public long sizeInBytes() {
+        lock.readLock().lock();
+        try {
+            return current == null ? 0 : current.sizeInBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 被索引的字段，与调用方的 User 对象解耦，避免之后的修改影响进行中的记录
+     */
+    private record Entry(long id, String username, String email) {
+
+        static Entry of(User user) {
+            return new Entry(user.getId(), user.getUsername(), user.getEmail());
+        }
+    }
+
+    /**
+     * 一份完整的索引
+     */
+    private static final class Snapshot {
+
+        private final TrigramIndex usernames = new TrigramIndex();
+
+        private final TrigramIndex emails = new TrigramIndex();
+
+        private final RoaringIdSet deleted = new RoaringIdSet();
+
+        private long rows;
+
+        private long stale;
+
+        private void add(Entry entry) {
+            index(entry);
+            rows++;
+        }
+
+        private void index(Entry entry) {
+            usernames.add(entry.id(), entry.username());
+            emails.add(entry.id(), entry.email());
+        }
+
+        private long sizeInBytes() {
+            return usernames.sizeInBytes() + emails.sizeInBytes() + deleted.sizeInBytes();
+        }
+    }
+}
@@ -2,18 +2,36 @@ package io.github.daihaowxg.druid.service;
 
 import com.alibaba.druid.pool.DruidDataSource;
 import io.github.daihaowxg.druid.entity.User;
+import io.github.daihaowxg.druid.paging.CursorPage;
+import io.github.daihaowxg.druid.repository.OptimisticUpdateResult;
 import io.github.daihaowxg.druid.repository.UserRepository;
+import io.github.daihaowxg.druid.repository.VersionConflict;
+import io.github.daihaowxg.outbox.ChangeType;
+import io.github.daihaowxg.outbox.OutboxWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
 
 /**
  * 用户服务层
  * 演示 Druid 连接池的使用和监控
+ * <p>
+ * 所有写操作在同一个事务中向发件箱记录变更事件（{@link OutboxWriter}），
+ * 其他实例据此更新各自内存中的搜索索引；{@code outbox.enabled=false} 时不记录
  *
  * @author daihaowxg
  */
@@ -22,8 +40,15 @@ import java.util.List;
 @RequiredArgsConstructor
 public class UserService {
     
+    /**
+     * 发件箱中用户变更事件的对象类型
+     */
+    public static final String AGGREGATE_TYPE = "user";
+    
     private final UserRepository userRepository;
+    private final ObjectProvider<OutboxWriter> outboxWriter;
     private final DataSource dataSource;
+    private final TransactionTemplate transactionTemplate;
     
     /**
      * 查询所有用户
@@ -35,6 +60,20 @@ public class UserService {
         return userRepository.findAll();
     }
     
+    /**
+     * 游标分页查询用户
+     * <p>
+     * 按 id 键集分页，每一页都直接走主键索引定位，翻到多深都一样快；多查一条判断是否还有下一页
+     *
+     * @param afterId 上一页最后一条记录的 id，第一页传 0
+     * @param size    每页条数
+     * @return 当前页和下一页的游标
+     */
+    public CursorPage<User> getUsersPage(long afterId, int size) {
+        log.info("游标分页查询用户: afterId={}, size={}", afterId, size);
+        return CursorPage.of(userRepository.findPageAfter(afterId, size + 1), size, User::getId);
+    }
+    
     /**
      * 根据ID查询用户
      *
@@ -57,6 +96,17 @@ public class UserService {
         return userRepository.findByUsername(username);
     }
     
+    /**
+     * 根据邮箱搜索用户
+     *
+     * @param email 邮箱中的任意一段
+     * @return 用户列表
+     */
+    public List<User> searchByEmail(String email) {
+        log.info("根据邮箱搜索: {}", email);
+        return userRepository.findByEmail(email);
+    }
+    
     /**
      * 创建用户
      *
@@ -67,6 +117,9 @@ public class UserService {
     public boolean createUser(User user) {
         log.info("创建用户: {}", user);
         int rows = userRepository.insert(user);
+        if (rows > 0) {
+            recordChange(user.getId(), ChangeType.INSERT);
+        }
         return rows > 0;
     }
     
@@ -80,9 +133,123 @@ public class UserService {
     public boolean updateUser(User user) {
         log.info("更新用户: {}", user);
         int rows = userRepository.update(user);
+        if (rows > 0) {
+            recordChange(user.getId(), ChangeType.UPDATE);
+        }
         return rows > 0;
     }
     
+    /**
+     * 按版本号批量更新用户，只执行一轮，冲突的行原样返回给调用方处理
+     *
+     * @param users 要更新的用户，version 为读取时的版本号
+     * @return 写入成功的用户和冲突的行
+     */
+    @Transactional(rollbackFor = Exception.class)
+    public OptimisticUpdateResult updateUsers(List<User> users) {
+        log.info("按版本批量更新用户，数量: {}", users.size());
+        OptimisticUpdateResult result = userRepository.updateIfVersion(users);
+        recordUpdated(result);
+        return result;
+    }
+    
+    /**
+     * 按版本号批量更新用户，冲突时重新读取最新数据再次应用修改
+     * <p>
+     * 每一轮在一个短事务中读取、修改、按版本写回，成功的行立即提交，只有冲突的行进入下一轮，
+     * 不持有行锁等待别人，高并发时吞吐比悲观锁（SELECT ... FOR UPDATE）高。
+     * 因为各轮分别提交，整批更新不是原子的：超过最大轮数仍然冲突的行会留在结果中。
+     * 两轮之间随机退避，避免多个写者以相同节奏反复冲突。
+     * <p>
+     * modifier 会作用在每一轮重新读取的数据上，可能对同一行执行多次，必须基于读到的值计算
+     * （例如 {@code user.setAge(user.getAge() + 1)}），不能依赖外部状态。
+     *
+     * @param ids         要更新的用户ID
+     * @param modifier    对读取到的用户做的修改
+     * @param maxAttempts 最多执行的轮数
+     * @return 写入成功的用户、最终仍然冲突或已被删除的行
+     */
+    public OptimisticUpdateResult updateUsersWithRetry(Collection<Long> ids, Consumer<User> modifier, int maxAttempts) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be positive");
+        }
+        Set<Long> pending = new TreeSet<>(ids);
+        List<User> updated = new ArrayList<>();
+        List<VersionConflict> deleted = new ArrayList<>();
+        List<VersionConflict> stale = List.of();
+        int attempt = 0;
+        while (!pending.isEmpty() && attempt < maxAttempts) {
+            if (attempt > 0 && !backoff(attempt)) {
+                break;
+            }
+            attempt++;
+            OptimisticUpdateResult result = transactionTemplate.execute(status -> {
+                List<User> users = userRepository.findByIds(pending);
+                users.forEach(modifier);
+                OptimisticUpdateResult applied = userRepository.updateIfVersion(users);
+                recordUpdated(applied);
+                return applied;
+            });
+            updated.addAll(result.updated());
+            result.updated().forEach(user -> pending.remove(user.getId()));
+            stale = new ArrayList<>();
+            Set<Long> staleIds = new HashSet<>();
+            for (VersionConflict conflict : result.conflicts()) {
+                if (conflict.isDeleted()) {
+                    deleted.add(conflict);
+                    pending.remove(conflict.id());
+                } else {
+                    stale.add(conflict);
+                    staleIds.add(conflict.id());
+                }
+            }
+            // 剩下的是读取时已经不存在的行
+            for (Iterator<Long> it = pending.iterator(); it.hasNext(); ) {
+                Long id = it.next();
+                if (!staleIds.contains(id)) {
+                    deleted.add(new VersionConflict(id, null, null));
+                    it.remove();
+                }
+            }
+            log.debug("按版本更新第 {} 轮: 成功 {}, 冲突 {}", attempt, result.updated().size(), stale.size());
+        }
+        List<VersionConflict> conflicts = new ArrayList<>(deleted);
+        conflicts.addAll(stale);
+        if (!stale.isEmpty()) {
+            log.warn("按版本更新 {} 轮后仍有 {} 行冲突", attempt, stale.size());
+        }
+        return new OptimisticUpdateResult(updated, conflicts, attempt);
+    }
+    
+    private void recordUpdated(OptimisticUpdateResult result) {
+        recordChanges(result.updated(), ChangeType.UPDATE);
+    }
+    
+    private void recordChange(Long id, ChangeType changeType) {
+        outboxWriter.ifAvailable(writer -> writer.record(AGGREGATE_TYPE, id, changeType));
+    }
+    
+    private void recordChanges(List<User> users, ChangeType changeType) {
+        outboxWriter.ifAvailable(writer ->
+                writer.recordAll(AGGREGATE_TYPE, users.stream().map(User::getId).toList(), changeType));
+    }
+    
+    /**
+     * 指数退避加随机抖动，最长 64ms
+     *
+     * @return 被中断时返回 false，停止重试
+     */
+    private boolean backoff(int attempt) {
+        long maxMillis = 1L << Math.min(attempt, 6);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(maxMillis + 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
     /**
      * 删除用户
      *
@@ -93,6 +260,9 @@ public class UserService {
     public boolean deleteUser(Long id) {
         log.info("删除用户: {}", id);
         int rows = userRepository.deleteById(id);
+        if (rows > 0) {
+            recordChange(id, ChangeType.DELETE);
+        }
         return rows > 0;
     }
     
@@ -106,6 +276,7 @@ public class UserService {
     public int batchCreateUsers(List<User> users) {
         log.info("批量创建用户，数量: {}", users.size());
         int[] rows = userRepository.batchInsert(users);
+        recordChanges(users, ChangeType.INSERT);
         return rows.length;
     }
     
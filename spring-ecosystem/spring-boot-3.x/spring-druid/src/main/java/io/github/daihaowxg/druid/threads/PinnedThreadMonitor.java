@@ -0,0 +1,120 @@
+package io.github.daihaowxg.druid.threads;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 虚拟线程固定（pinning）监控
+ *
+ * <p>虚拟线程在 {@code synchronized} 块或方法中阻塞（等待 JDBC、Redis 响应，或者等待另一把监视器锁）时无法卸载，
+ * 会一直占住载体线程。载体线程的数量等于 CPU 核数，几个被固定的请求就能让其余虚拟线程全部排队。</p>
+ *
+ * <p>这里用 JFR 订阅 {@code jdk.VirtualThreadPinned} 事件（JDK 21+），按固定点（栈上第一个本项目的帧）汇总：</p>
+ * <ul>
+ *   <li>每个固定点第一次出现时打印 WARN 日志和调用栈</li>
+ *   <li>计数记录到 {@code jvm.threads.virtual.pinned} 指标，标签 {@code site} 为固定点</li>
+ * </ul>
+ * <p>修复方式是把阻塞调用外面的 {@code synchronized} 换成 {@link java.util.concurrent.locks.ReentrantLock}。
+ * 也可以在启动参数中加 {@code -Djdk.tracePinnedThreads=full}，由 JVM 直接打印固定时的调用栈。</p>
+ *
+ * @author daihaowxg
+ */
+@Slf4j
+public class PinnedThreadMonitor implements SmartLifecycle {
+
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private static final String APPLICATION_PACKAGE = "io.github.daihaowxg.";
+
+    private final VirtualThreadProperties properties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, LongAdder> pinnedSites = new ConcurrentHashMap<>();
+
+    private volatile RecordingStream stream;
+
+    public PinnedThreadMonitor(VirtualThreadProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void start() {
+        RecordingStream recording = new RecordingStream();
+        recording.enable(PINNED_EVENT).withThreshold(properties.getPinnedThreshold()).withStackTrace();
+        recording.onEvent(PINNED_EVENT, this::onPinned);
+        recording.startAsync();
+        stream = recording;
+        log.info("虚拟线程固定监控已启动，阈值 {} ms", properties.getPinnedThreshold().toMillis());
+    }
+
+    @Override
+    public void stop() {
+        RecordingStream recording = stream;
+        stream = null;
+        if (recording != null) {
+            recording.close();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return stream != null;
+    }
+
+    /**
+     * 各固定点累计的固定次数
+     */
+    public Map<String, Long> getPinnedSites() {
+        Map<String, Long> sites = new TreeMap<>();
+        pinnedSites.forEach((site, count) -> sites.put(site, count.sum()));
+        return sites;
+    }
+
+    private void onPinned(RecordedEvent event) {
+        List<String> frames = framesOf(event.getStackTrace());
+        String site = siteOf(frames);
+        pinnedSites.computeIfAbsent(site, key -> {
+            log.warn("虚拟线程在 {} 固定载体线程 {} ms（同一位置只报告一次）:\n\tat {}", key, event.getDuration().toMillis(),
+                    String.join("\n\tat ", frames.subList(0, Math.min(frames.size(), properties.getStackDepth()))));
+            return new LongAdder();
+        }).increment();
+        meterRegistry.counter("jvm.threads.virtual.pinned", "site", site).increment();
+    }
+
+    private static List<String> framesOf(RecordedStackTrace stackTrace) {
+        List<String> frames = new ArrayList<>();
+        if (stackTrace != null) {
+            for (RecordedFrame frame : stackTrace.getFrames()) {
+                frames.add(frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                        + ":" + frame.getLineNumber());
+            }
+        }
+        return frames;
+    }
+
+    /**
+     * 固定点：栈上第一个本项目的帧，没有时取栈顶
+     */
+    static String siteOf(List<String> frames) {
+        for (String frame : frames) {
+            if (frame.startsWith(APPLICATION_PACKAGE)) {
+                return frame;
+            }
+        }
+        return frames.isEmpty() ? "unknown" : frames.get(0);
+    }
+}
@@ -0,0 +1,40 @@
+package io.github.daihaowxg.druid.threads;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * 虚拟线程模式
+ *
+ * <p>激活 {@code virtual-threads} profile（即 {@code spring.threads.virtual.enabled=true}）后，
+ * Spring Boot 把 Tomcat 的请求处理、{@code @Async} 的默认执行器和 {@code @Scheduled} 的调度器都换成虚拟线程。
+ * 这里补充两件事：JDK 21 以下该配置不生效时给出警告；生效时用 {@link PinnedThreadMonitor} 报告固定载体线程的代码。</p>
+ *
+ * @author daihaowxg
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(VirtualThreadProperties.class)
+@ConditionalOnProperty(prefix = "spring.threads.virtual", name = "enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    public VirtualThreadConfig(Environment environment) {
+        if (!Threading.VIRTUAL.isActive(environment)) {
+            log.warn("已开启 spring.threads.virtual.enabled，但当前 JDK {} 不支持虚拟线程（需要 21+），仍使用平台线程",
+                    Runtime.version().feature());
+        }
+    }
+
+    @Bean
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public PinnedThreadMonitor pinnedThreadMonitor(VirtualThreadProperties properties, MeterRegistry meterRegistry) {
+        return new PinnedThreadMonitor(properties, meterRegistry);
+    }
+}
@@ -0,0 +1,32 @@
+package io.github.daihaowxg.druid.threads;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 虚拟线程诊断配置
+ *
+ * <pre>
+ * virtual-threads:
+ *   pinned-threshold: 20ms
+ *   stack-depth: 16
+ * </pre>
+ *
+ * @author daihaowxg
+ */
+@Data
+@ConfigurationProperties(prefix = "virtual-threads")
+public class VirtualThreadProperties {
+
+    /**
+     * 虚拟线程固定载体线程超过此时长时上报
+     */
+    private Duration pinnedThreshold = Duration.ofMillis(20);
+
+    /**
+     * 日志中打印的栈帧数
+     */
+    private int stackDepth = 16;
+}
@@ -7,9 +7,33 @@ CREATE TABLE users (
     email VARCHAR(100) COMMENT '邮箱',
     age INT COMMENT '年龄',
     created_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
-    updated_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'
+    updated_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    version INT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号，每次更新加一'
 );
 
 -- 创建索引
 CREATE INDEX idx_username ON users(username);
 CREATE INDEX idx_email ON users(email);
+
+-- 事务性发件箱：与业务数据在同一事务中写入的变更事件 (change-outbox 模块)
+DROP TABLE IF EXISTS change_outbox;
+
+CREATE TABLE change_outbox (
+    seq BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '事件序号',
+    aggregate_type VARCHAR(50) NOT NULL COMMENT '对象类型',
+    aggregate_id VARCHAR(64) NOT NULL COMMENT '对象ID',
+    change_type VARCHAR(10) NOT NULL COMMENT '变更类型: INSERT/UPDATE/DELETE',
+    origin VARCHAR(100) NOT NULL COMMENT '写入事件的实例',
+    created_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL COMMENT '写入时间'
+);
+
+CREATE INDEX idx_outbox_created_time ON change_outbox(created_time);
+
+-- 每个消费者已确认的高水位
+DROP TABLE IF EXISTS change_outbox_offset;
+
+CREATE TABLE change_outbox_offset (
+    consumer VARCHAR(100) PRIMARY KEY COMMENT '消费者名称',
+    last_seq BIGINT NOT NULL COMMENT '已确认的最大事件序号',
+    updated_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL COMMENT '更新时间'
+);
@@ -0,0 +1,186 @@
+package io.github.daihaowxg.druid;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import io.github.daihaowxg.druid.pool.AdaptivePoolProperties;
+import io.github.daihaowxg.druid.pool.AdaptivePoolSizer;
+import io.github.daihaowxg.druid.pool.PoolLatencyFilter;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 自适应连接池大小测试
+ *
+ * <p>用突发负载（32 个线程同时涌入，每次持有连接约 5ms，突发之间有空闲间隔）压一个初始只有 4 个连接的池，
+ * 对比固定大小和开启 {@link AdaptivePoolSizer} 时的平均借用等待时间。</p>
+ *
+ * @author daihaowxg
+ */
+class AdaptivePoolSizerTest {
+
+    private static final int THREADS = 32;
+    private static final int BURSTS = 5;
+    private static final int ITERATIONS_PER_BURST = 10;
+    private static final long HOLD_MILLIS = 5;
+    private static final long GAP_MILLIS = 200;
+
+    /**
+     * 测试突发负载下自适应调整能显著降低借用等待
+     */
+    @Test
+    void testAdaptiveSizingReducesBorrowWait() throws Exception {
+        double staticWaitMillis;
+        try (DruidDataSource dataSource = newDataSource("static")) {
+            PoolLatencyFilter filter = PoolLatencyFilter.install(dataSource);
+            dataSource.init();
+            runBurstyLoad(dataSource);
+            staticWaitMillis = averageBorrowMillis(filter);
+            assertEquals(4, dataSource.getMaxActive());
+        }
+
+        double adaptiveWaitMillis;
+        int adaptiveMaxActive;
+        AdaptivePoolSizer sizer;
+        try (DruidDataSource dataSource = newDataSource("adaptive")) {
+            PoolLatencyFilter filter = PoolLatencyFilter.install(dataSource);
+            dataSource.init();
+            sizer = new AdaptivePoolSizer(dataSource, filter, properties());
+
+            ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+            scheduler.scheduleWithFixedDelay(sizer::adjust, 100, 100, TimeUnit.MILLISECONDS);
+            try {
+                runBurstyLoad(dataSource);
+            } finally {
+                scheduler.shutdownNow();
+                scheduler.awaitTermination(1, TimeUnit.SECONDS);
+            }
+            adaptiveWaitMillis = averageBorrowMillis(filter);
+            adaptiveMaxActive = dataSource.getMaxActive();
+        }
+
+        System.out.printf("平均借用等待: 固定大小 %.2fms, 自适应 %.2fms (maxActive 4 -> %d, 调整 %d 次, 最后一次: %s)%n",
+                staticWaitMillis, adaptiveWaitMillis, adaptiveMaxActive, sizer.getAdjustments(),
+                sizer.getLastDecision());
+
+        assertTrue(adaptiveMaxActive > 4, "突发负载下应该扩容");
+        assertTrue(adaptiveMaxActive <= 32, "不能超过 maxMaxActive");
+        assertTrue(adaptiveWaitMillis < staticWaitMillis / 2,
+                "自适应的平均借用等待应该明显低于固定大小");
+    }
+
+    /**
+     * 测试查询延迟相对基线明显升高时，判定为数据库过载，收缩而不是扩容
+     */
+    @Test
+    void testBacksOffWhenDatabaseSlowsDown() throws Exception {
+        try (DruidDataSource dataSource = newDataSource("backoff")) {
+            dataSource.setMaxActive(10);
+            PoolLatencyFilter filter = PoolLatencyFilter.install(dataSource);
+            dataSource.init();
+            AdaptivePoolProperties properties = properties();
+            // 这里只验证延迟梯度，单线程下借用偶尔超过 1ms 不应触发扩容
+            properties.setWaitThresholdMillis(1000);
+            AdaptivePoolSizer sizer = new AdaptivePoolSizer(dataSource, filter, properties);
+
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("CREATE ALIAS IF NOT EXISTS SLEEP FOR 'java.lang.Thread.sleep'");
+                for (int i = 0; i < 100; i++) {
+                    statement.executeQuery("SELECT 1").close();
+                }
+            }
+            // 第一个周期只建立查询延迟基线
+            assertEquals(10, sizer.adjust());
+
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                for (int i = 0; i < 5; i++) {
+                    statement.execute("CALL SLEEP(20)");
+                }
+            }
+            int maxActive = sizer.adjust();
+
+            System.out.println("数据库变慢后: " + sizer.getLastDecision());
+            assertEquals(9, maxActive);
+            assertEquals(9, dataSource.getMaxActive());
+            assertTrue(dataSource.getMinIdle() <= dataSource.getMaxActive());
+            assertTrue(sizer.getLastDecision().contains("过载"));
+        }
+    }
+
+    private static DruidDataSource newDataSource(String name) {
+        DruidDataSource dataSource = new DruidDataSource();
+        dataSource.setName(name);
+        dataSource.setUrl("jdbc:h2:mem:adaptive-" + name + ";DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        dataSource.setInitialSize(2);
+        dataSource.setMinIdle(2);
+        dataSource.setMaxActive(4);
+        dataSource.setMaxWait(10_000);
+        return dataSource;
+    }
+
+    private static AdaptivePoolProperties properties() {
+        AdaptivePoolProperties properties = new AdaptivePoolProperties();
+        properties.setMinMaxActive(4);
+        properties.setMaxMaxActive(32);
+        // H2 内存库的查询只有几微秒，并发时抖动很大，放宽容忍度避免把正常抖动当成数据库过载
+        properties.setLatencyTolerance(10);
+        return properties;
+    }
+
+    /**
+     * 每次突发 {@link #THREADS} 个线程同时开始，每个线程借 {@link #ITERATIONS_PER_BURST} 次连接，
+     * 每次执行一条查询后持有约 {@link #HOLD_MILLIS}ms
+     */
+    private static void runBurstyLoad(DruidDataSource dataSource) throws Exception {
+        for (int burst = 0; burst < BURSTS; burst++) {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<>();
+            List<Throwable> errors = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                Thread thread = new Thread(() -> {
+                    try {
+                        start.await();
+                        for (int i = 0; i < ITERATIONS_PER_BURST; i++) {
+                            try (Connection connection = dataSource.getConnection();
+                                 Statement statement = connection.createStatement();
+                                 ResultSet rs = statement.executeQuery("SELECT 1")) {
+                                rs.next();
+                                Thread.sleep(HOLD_MILLIS);
+                            }
+                        }
+                    } catch (Throwable e) {
+                        synchronized (errors) {
+                            errors.add(e);
+                        }
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertTrue(errors.isEmpty(), () -> "负载线程出错: " + errors);
+            Thread.sleep(GAP_MILLIS);
+        }
+    }
+
+    private static double averageBorrowMillis(PoolLatencyFilter filter) {
+        assertEquals((long) THREADS * BURSTS * ITERATIONS_PER_BURST, filter.getBorrowCount());
+        return filter.getBorrowNanos() / 1e6 / filter.getBorrowCount();
+    }
+}
@@ -9,8 +9,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
 import javax.sql.DataSource;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -228,6 +230,28 @@ class DruidApplicationTests {
         System.out.println("查询完成，可以在 Druid 监控页面查看 SQL 执行统计");
     }
     
+    /**
+     * 测试流式查询与键集分页
+     */
+    @Test
+    void testStreamAndKeysetIteration() {
+        long count = userRepository.count();
+        
+        try (Stream<User> users = userRepository.streamAll(2)) {
+            assertEquals(count, users.count());
+        }
+        
+        List<Long> forEachIds = new ArrayList<>();
+        userRepository.forEach(2, user -> forEachIds.add(user.getId()));
+        assertEquals(count, forEachIds.size());
+        
+        List<Long> keysetIds = new ArrayList<>();
+        userRepository.iterateByKeyset(2).forEachRemaining(user -> keysetIds.add(user.getId()));
+        System.out.println("\n=== 键集分页遍历 ===");
+        System.out.println("遍历的用户ID: " + keysetIds);
+        assertEquals(forEachIds, keysetIds);
+    }
+    
     /**
      * 辅助方法：创建用户对象
      */
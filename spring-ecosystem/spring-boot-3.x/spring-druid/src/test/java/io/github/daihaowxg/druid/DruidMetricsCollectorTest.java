@@ -0,0 +1,153 @@
+package io.github.daihaowxg.druid;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import io.github.daihaowxg.druid.metrics.DruidMetricsCollector;
+import io.github.daihaowxg.druid.service.UserService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Druid 指标导出测试
+ *
+ * @author daihaowxg
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:druid-metrics;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        // 发件箱拉取器每 200ms 借一次连接，连接池被占满时它也会排队，干扰等待线程数
+        "outbox.enabled=false"
+})
+class DruidMetricsCollectorTest {
+
+    @Autowired
+    private DruidDataSource dataSource;
+
+    @Autowired
+    private DruidMetricsCollector collector;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private UserService userService;
+
+    /**
+     * 测试 SQL 统计按指纹导出
+     */
+    @Test
+    void testSqlMetrics() {
+        for (int i = 0; i < 5; i++) {
+            userService.getAllUsers();
+        }
+        collector.scrape();
+
+        Counter executions = registry.find("druid.sql.executions").tag("sql", "select users").counter();
+        assertNotNull(executions, "应该有 select users 的执行次数指标");
+        assertTrue(executions.count() >= 5);
+
+        FunctionTimer timer = registry.find("druid.sql.execute").tag("sql", "select users").functionTimer();
+        assertNotNull(timer);
+        assertTrue(timer.count() >= 5);
+
+        Counter rows = registry.find("druid.sql.fetched.rows").tag("sql", "select users").counter();
+        assertNotNull(rows);
+        assertTrue(rows.count() > 0);
+
+        // 累计分桶：+Inf 桶等于总次数
+        Counter inf = registry.find("druid.sql.execute.histogram")
+                .tags("sql", "select users", "le", "+Inf").counter();
+        assertNotNull(inf);
+        assertEquals(executions.count(), inf.count());
+
+        System.out.println("select users 执行次数: " + executions.count()
+                + ", 平均耗时: " + timer.mean(TimeUnit.MILLISECONDS) + "ms");
+    }
+
+    /**
+     * 测试 Druid 清空 SQL 统计后计数器不回退：只累加增量。
+     * 查询只有本测试使用的表，不受后台任务执行的 SQL 影响
+     */
+    @Test
+    void testSqlCountersSurviveStatReset() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS metrics_probe (id BIGINT PRIMARY KEY)");
+        jdbcTemplate.queryForList("SELECT id FROM metrics_probe", Long.class);
+        collector.scrape();
+        Counter executions = registry.get("druid.sql.executions").tag("sql", "select metrics_probe").counter();
+        FunctionTimer timer = registry.get("druid.sql.execute").tag("sql", "select metrics_probe").functionTimer();
+        assertEquals(1, executions.count());
+
+        // 清空统计表，相当于条目被淘汰后重新出现
+        dataSource.getDataSourceStat().reset();
+        collector.scrape();
+        assertEquals(1, executions.count());
+
+        for (int i = 0; i < 3; i++) {
+            jdbcTemplate.queryForList("SELECT id FROM metrics_probe", Long.class);
+        }
+        collector.scrape();
+        assertEquals(4, executions.count());
+        assertEquals(4, timer.count());
+
+        // 没有新的执行时不重复计入
+        collector.scrape();
+        assertEquals(4, executions.count());
+    }
+
+    /**
+     * 测试连接池指标和饱和告警：占满连接池并让一个线程等待连接
+     */
+    @Test
+    void testPoolSaturation() throws Exception {
+        collector.scrape();
+        assertFalse(collector.isSaturated());
+
+        List<Connection> held = new ArrayList<>();
+        for (int i = 0; i < dataSource.getMaxActive(); i++) {
+            held.add(dataSource.getConnection());
+        }
+        CountDownLatch borrowed = new CountDownLatch(1);
+        Thread waiter = new Thread(() -> {
+            try (Connection ignored = dataSource.getConnection()) {
+                borrowed.countDown();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        try {
+            waiter.start();
+            while (dataSource.getWaitThreadCount() == 0) {
+                Thread.sleep(10);
+            }
+
+            collector.scrape();
+            assertTrue(collector.isSaturated(), "连接池占满且有线程等待时应该判定为饱和");
+            assertEquals(1.0, registry.get("druid.pool.saturated").gauge().value());
+            assertEquals(1.0, registry.get("druid.pool.utilization").gauge().value());
+            // 应用中的后台任务（索引重建、连接池调节）也可能恰好在等待连接，只要求至少有这一个
+            assertTrue(registry.get("druid.pool.wait.threads").gauge().value() >= 1);
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+        }
+        borrowed.await();
+        waiter.join();
+
+        collector.scrape();
+        assertFalse(collector.isSaturated(), "连接归还后应该恢复");
+        assertTrue(registry.get("druid.pool.wait").functionTimer().count() >= 1);
+    }
+}
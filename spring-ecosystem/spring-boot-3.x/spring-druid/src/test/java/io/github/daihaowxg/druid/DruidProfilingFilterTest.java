@@ -0,0 +1,114 @@
+package io.github.daihaowxg.druid;
+
+import io.github.daihaowxg.druid.entity.User;
+import io.github.daihaowxg.druid.service.UserService;
+import io.github.daihaowxg.sqlprofiler.QueryBudget;
+import io.github.daihaowxg.sqlprofiler.SqlProfile;
+import io.github.daihaowxg.sqlprofiler.SqlProfilerListener;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * SQL 执行分析测试：Druid 的 Filter 把语句交给 sql-profiler，按请求统计语句数和行数，检测 N+1
+ *
+ * @author daihaowxg
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:druid-profiling;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+})
+@AutoConfigureMockMvc
+class DruidProfilingFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ProfileCapture capture;
+
+    @Test
+    void testProfilesEachRequest() throws Exception {
+        int users = userService.getAllUsers().size();
+        capture.finished.clear();
+
+        mockMvc.perform(get("/api/users")).andExpect(status().isOk());
+
+        SqlProfile profile = capture.finished.stream()
+                .filter(p -> p.getName().equals("GET /api/users"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(1, profile.getStatementCount());
+        assertEquals(users, profile.getRowsFetched());
+        assertEquals("select users", profile.getShapes().iterator().next().getFingerprint());
+    }
+
+    @Test
+    void testDetectsNPlusOneThroughDruid() {
+        List<Long> ids = userService.getAllUsers().stream().map(User::getId).toList();
+
+        // 没有事务时以作用域为单位，同一语句执行 6 次超过阈值 5
+        AssertionError error = assertThrows(AssertionError.class, () -> QueryBudget.unlimited().noNPlusOne().run(() -> {
+            for (int i = 0; i < 6; i++) {
+                userService.getUserById(ids.get(i % ids.size()));
+            }
+        }));
+        assertTrue(error.getMessage().contains("检测到 N+1"), error.getMessage());
+
+        // 一次查询全部，满足预算
+        QueryBudget.maxStatements(1).noNPlusOne().run(userService::getAllUsers);
+    }
+
+    @Test
+    void testExportsRequestMetricsOnly() throws Exception {
+        DistributionSummary requestStatements = meterRegistry.summary("sql.profiler.request.statements");
+        long before = requestStatements.count();
+
+        mockMvc.perform(get("/api/users")).andExpect(status().isOk());
+
+        assertEquals(before + 1, requestStatements.count());
+        // 每种语句的统计由 druid.sql.* 导出，不重复导出
+        assertNull(meterRegistry.find("sql.profiler.statements").timer());
+        assertNull(meterRegistry.find("sql.profiler.rows").counter());
+    }
+
+    @TestConfiguration
+    static class ProfileCaptureConfig {
+
+        @Bean
+        ProfileCapture profileCapture() {
+            return new ProfileCapture();
+        }
+    }
+
+    /**
+     * 收集结束的请求作用域
+     */
+    static class ProfileCapture implements SqlProfilerListener {
+
+        private final List<SqlProfile> finished = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void onProfileFinished(SqlProfile profile) {
+            finished.add(profile);
+        }
+    }
+}
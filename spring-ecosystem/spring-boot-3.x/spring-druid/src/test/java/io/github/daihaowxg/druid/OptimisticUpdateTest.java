@@ -0,0 +1,186 @@
+package io.github.daihaowxg.druid;
+
+import io.github.daihaowxg.druid.entity.User;
+import io.github.daihaowxg.druid.repository.OptimisticUpdateResult;
+import io.github.daihaowxg.druid.repository.UserRepository;
+import io.github.daihaowxg.druid.repository.VersionConflict;
+import io.github.daihaowxg.druid.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 乐观锁批量更新测试：逐行冲突报告、冲突后重新读取重试、多个写者并发更新同一批行不丢失修改
+ *
+ * @author daihaowxg
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:druid-optimistic;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+})
+class OptimisticUpdateTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<Long> created = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        created.forEach(userRepository::deleteById);
+    }
+
+    @Test
+    void testReportsConflictsPerRow() {
+        List<User> users = userRepository.findByIds(createUsers(3));
+        User fresh = users.get(0);
+        User modified = users.get(1);
+        User removed = users.get(2);
+
+        // 读取之后，另一个写者覆盖了第二行、删除了第三行
+        User other = userRepository.findById(modified.getId());
+        other.setAge(99);
+        userService.updateUser(other);
+        userService.deleteUser(removed.getId());
+
+        users.forEach(user -> user.setAge(user.getAge() + 1));
+        OptimisticUpdateResult result = userService.updateUsers(users);
+
+        assertEquals(List.of(fresh.getId()), result.updated().stream().map(User::getId).toList());
+        assertEquals(1, fresh.getVersion());
+        assertEquals(List.of(
+                new VersionConflict(modified.getId(), 0, 1),
+                new VersionConflict(removed.getId(), 0, null)), result.conflicts());
+        // 冲突的行没有被覆盖
+        assertEquals(99, userRepository.findById(modified.getId()).getAge());
+    }
+
+    @Test
+    void testRetryReloadsAndReappliesChange() throws Exception {
+        Long id = createUsers(1).get(0);
+        AtomicBoolean interfere = new AtomicBoolean(true);
+        ExecutorService other = Executors.newSingleThreadExecutor();
+        try {
+            OptimisticUpdateResult result = userService.updateUsersWithRetry(List.of(id), user -> {
+                if (interfere.getAndSet(false)) {
+                    // 第一轮读取之后，另一个事务抢先提交了修改
+                    Future<?> concurrent = other.submit(() -> {
+                        User latest = userRepository.findById(id);
+                        latest.setAge(100);
+                        userService.updateUser(latest);
+                    });
+                    try {
+                        concurrent.get();
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                user.setAge(user.getAge() + 1);
+            }, 3);
+
+            assertTrue(result.isFullyApplied());
+            assertEquals(2, result.attempts());
+        } finally {
+            other.shutdown();
+        }
+        // 第二轮基于最新的 100 加一，而不是覆盖
+        User user = userRepository.findById(id);
+        assertEquals(101, user.getAge());
+        assertEquals(2, user.getVersion());
+    }
+
+    @Test
+    void testRetryGivesUpAfterMaxAttempts() {
+        Long id = createUsers(1).get(0);
+
+        // 每一轮修改时都有别人抢先更新，重试不会成功
+        OptimisticUpdateResult result = userService.updateUsersWithRetry(List.of(id), user -> {
+            Thread writer = new Thread(() -> userService.updateUser(userRepository.findById(id)));
+            writer.start();
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }, 3);
+
+        assertEquals(3, result.attempts());
+        assertTrue(result.updated().isEmpty());
+        assertEquals(1, result.conflicts().size());
+        assertFalse(result.conflicts().get(0).isDeleted());
+    }
+
+    /**
+     * 多个写者并发地给同一批用户的年龄加一，每次更新整批行；按版本更新加重试，最终结果不丢失任何一次修改
+     */
+    @Test
+    void testConcurrentWritersDoNotLoseUpdates() throws Exception {
+        int writers = 8;
+        int rounds = 50;
+        List<Long> ids = createUsers(10);
+        List<User> before = userRepository.findByIds(ids);
+
+        ExecutorService pool = Executors.newFixedThreadPool(writers);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicLong attempts = new AtomicLong();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int r = 0; r < rounds; r++) {
+                    OptimisticUpdateResult result = userService.updateUsersWithRetry(ids,
+                            user -> user.setAge(user.getAge() + 1), 1000);
+                    assertTrue(result.isFullyApplied(), () -> "conflicts: " + result.conflicts());
+                    attempts.addAndGet(result.attempts());
+                }
+                return null;
+            }));
+        }
+        long startNanos = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        pool.shutdown();
+
+        int updates = writers * rounds;
+        List<User> after = userRepository.findByIds(ids);
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(before.get(i).getAge() + updates, after.get(i).getAge());
+            assertEquals(before.get(i).getVersion() + updates, after.get(i).getVersion());
+        }
+        System.out.printf("%d 个写者 x %d 次批量更新 (%d 行/批): 耗时 %d ms, 共 %d 轮, 因冲突重试 %d 轮%n",
+                writers, rounds, ids.size(), elapsedMillis, attempts.get(), attempts.get() - updates);
+    }
+
+    private List<Long> createUsers(int n) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            User user = new User();
+            user.setUsername("optimistic" + i);
+            user.setEmail("optimistic" + i + "@example.com");
+            user.setAge(20);
+            users.add(user);
+        }
+        userService.batchCreateUsers(users);
+        List<Long> ids = users.stream().map(User::getId).toList();
+        created.addAll(ids);
+        return ids;
+    }
+}
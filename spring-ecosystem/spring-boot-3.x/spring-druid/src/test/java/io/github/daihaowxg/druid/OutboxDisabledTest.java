@@ -0,0 +1,54 @@
+package io.github.daihaowxg.druid;
+
+import io.github.daihaowxg.druid.entity.User;
+import io.github.daihaowxg.druid.search.SearchIndexChangeSubscriber;
+import io.github.daihaowxg.druid.service.UserService;
+import io.github.daihaowxg.outbox.OutboxPoller;
+import io.github.daihaowxg.outbox.OutboxWriter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 关闭发件箱（{@code outbox.enabled=false}）时应用照常启动，写操作不再记录事件
+ *
+ * @author daihaowxg
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:druid-outbox-disabled;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "outbox.enabled=false"
+})
+class OutboxDisabledTest {
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testWritesWithoutOutbox() {
+        assertTrue(context.getBeansOfType(OutboxWriter.class).isEmpty());
+        assertTrue(context.getBeansOfType(OutboxPoller.class).isEmpty());
+        assertTrue(context.getBeansOfType(SearchIndexChangeSubscriber.class).isEmpty());
+
+        long before = countEvents();
+        User user = new User(null, "outbox_disabled", "disabled@example.com", 20, null, null, null);
+        assertTrue(userService.createUser(user));
+        user.setAge(21);
+        assertTrue(userService.updateUser(user));
+        assertTrue(userService.deleteUser(user.getId()));
+        assertEquals(before, countEvents());
+    }
+
+    private long countEvents() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM change_outbox", Long.class);
+    }
+}
@@ -0,0 +1,70 @@
+package io.github.daihaowxg.druid;
+
+import io.github.daihaowxg.druid.threads.PinnedThreadMonitor;
+import io.github.daihaowxg.druid.threads.VirtualThreadProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 虚拟线程固定监控测试
+ *
+ * @author daihaowxg
+ */
+class PinnedThreadMonitorTest {
+
+    private final Object monitor = new Object();
+
+    /**
+     * 在 synchronized 块中阻塞的虚拟线程应该被报告，固定点是本类中的方法。
+     * JDK 24 起 synchronized 不再固定载体线程（JEP 491），只在 21 ~ 23 上运行
+     */
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21, max = JRE.JAVA_23)
+    void testReportsBlockingInsideSynchronized() throws Exception {
+        VirtualThreadProperties properties = new VirtualThreadProperties();
+        properties.setPinnedThreshold(Duration.ofMillis(10));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PinnedThreadMonitor pinnedThreadMonitor = new PinnedThreadMonitor(properties, registry);
+        pinnedThreadMonitor.start();
+        try {
+            // 用反射创建虚拟线程执行器，源码仍按 JDK 17 编译
+            ExecutorService executor = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            try {
+                executor.submit(this::sleepWhileHoldingMonitor).get();
+            } finally {
+                executor.shutdown();
+            }
+
+            // JFR 事件流大约每秒刷新一次
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            Map<String, Long> sites = pinnedThreadMonitor.getPinnedSites();
+            while (sites.isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(100);
+                sites = pinnedThreadMonitor.getPinnedSites();
+            }
+            System.out.println("固定点: " + sites);
+            assertTrue(sites.keySet().stream().anyMatch(site -> site.contains("sleepWhileHoldingMonitor")), sites.toString());
+            assertTrue(registry.get("jvm.threads.virtual.pinned").counter().count() >= 1);
+        } finally {
+            pinnedThreadMonitor.stop();
+        }
+    }
+
+    private Void sleepWhileHoldingMonitor() throws InterruptedException {
+        synchronized (monitor) {
+            Thread.sleep(50);
+        }
+        return null;
+    }
+}
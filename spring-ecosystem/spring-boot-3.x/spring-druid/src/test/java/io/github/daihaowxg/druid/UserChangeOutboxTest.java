@@ -0,0 +1,156 @@
+package io.github.daihaowxg.druid;
+
+import io.github.daihaowxg.druid.entity.User;
+import io.github.daihaowxg.druid.search.UserSearchIndex;
+import io.github.daihaowxg.druid.service.UserService;
+import io.github.daihaowxg.outbox.OutboxPoller;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 用户变更发件箱测试：写操作在同一事务中记录事件，其他实例的写入经发件箱同步到本地搜索索引
+ *
+ * @author daihaowxg
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:druid-outbox;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "outbox.instance-id=test-instance",
+        "outbox.gap-timeout=100ms",
+        // 测试中手动拉取，后台线程不参与
+        "outbox.poll-interval=1h"
+})
+class UserChangeOutboxTest {
+
+    private static final String OTHER_INSTANCE = "other-instance";
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserSearchIndex searchIndex;
+
+    @Autowired
+    private OutboxPoller outboxPoller;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!searchIndex.isReady() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(searchIndex.isReady());
+        deliver();
+    }
+
+    @Test
+    void testServiceWritesRecordChangesInSameTransaction() {
+        User created = new User(null, "outbox_created", "created@example.com", 20, null, null, null);
+        userService.createUser(created);
+        assertEquals(List.of("INSERT"), changeTypes(created.getId()));
+        assertEquals("test-instance", jdbcTemplate.queryForObject(
+                "SELECT origin FROM change_outbox WHERE aggregate_id = ?", String.class, created.getId().toString()));
+
+        User rolledBack = new User(null, "outbox_rolled_back", "rolled@example.com", 21, null, null, null);
+        transactionTemplate.executeWithoutResult(status -> {
+            userService.createUser(rolledBack);
+            status.setRollbackOnly();
+        });
+        assertTrue(changeTypes(rolledBack.getId()).isEmpty());
+
+        created.setAge(30);
+        userService.updateUser(created);
+        userService.deleteUser(created.getId());
+        assertEquals(List.of("INSERT", "UPDATE", "DELETE"), changeTypes(created.getId()));
+
+        List<User> batch = List.of(
+                new User(null, "outbox_batch_1", "batch1@example.com", 22, null, null, null),
+                new User(null, "outbox_batch_2", "batch2@example.com", 23, null, null, null));
+        userService.batchCreateUsers(batch);
+        batch.forEach(user -> assertEquals(List.of("INSERT"), changeTypes(user.getId())));
+
+        userService.updateUsersWithRetry(batch.stream().map(User::getId).toList(),
+                user -> user.setAge(user.getAge() + 1), 3);
+        batch.forEach(user -> assertEquals(List.of("INSERT", "UPDATE"), changeTypes(user.getId())));
+    }
+
+    @Test
+    void testRemoteWritesReachLocalSearchIndex() throws InterruptedException {
+        // 模拟另一个实例：直接写库并记录事件，本实例的索引没有经过写入路径
+        Long id = transactionTemplate.execute(status -> {
+            jdbcTemplate.update("INSERT INTO users (username, email, age) VALUES ('remote_quokka', 'q@example.com', 5)");
+            Long newId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = 'remote_quokka'", Long.class);
+            recordRemote(newId, "INSERT");
+            return newId;
+        });
+        assertTrue(userService.searchByUsername("quokka").isEmpty());
+
+        deliver();
+        assertEquals(List.of(id), ids(userService.searchByUsername("quokka")));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE users SET username = 'remote_wombat', version = version + 1 WHERE id = ?", id);
+            recordRemote(id, "UPDATE");
+        });
+        assertTrue(userService.searchByUsername("wombat").isEmpty());
+
+        deliver();
+        assertEquals(List.of(id), ids(userService.searchByUsername("wombat")));
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM users WHERE id = ?", id);
+            recordRemote(id, "DELETE");
+        });
+        deliver();
+        assertTrue(userService.searchByUsername("wombat").isEmpty());
+    }
+
+    @Test
+    void testOffsetAndPurgeRunThroughDruidFilters() throws InterruptedException {
+        userService.createUser(new User(null, "outbox_offset", "offset@example.com", 40, null, null, null));
+        deliver();
+
+        Map<String, Object> offset = jdbcTemplate.queryForMap(
+                "SELECT last_seq FROM change_outbox_offset WHERE consumer = 'test-instance'");
+        assertEquals(outboxPoller.getHighWaterMark(), ((Number) offset.get("LAST_SEQ")).longValue());
+        // 保留 1 天，刚写入的事件不会被删除；这里确认删除语句能通过 WallFilter
+        assertEquals(0, outboxPoller.purgeExpired());
+    }
+
+    /**
+     * 拉取所有事件：空洞从被发现时开始计时，先拉取一次发现回滚留下的空洞，等待超时后再拉完
+     */
+    private void deliver() throws InterruptedException {
+        outboxPoller.drain();
+        Thread.sleep(150);
+        outboxPoller.drain();
+    }
+
+    private void recordRemote(Long id, String changeType) {
+        jdbcTemplate.update("INSERT INTO change_outbox (aggregate_type, aggregate_id, change_type, origin) "
+                + "VALUES (?, ?, ?, ?)", UserService.AGGREGATE_TYPE, id.toString(), changeType, OTHER_INSTANCE);
+    }
+
+    private List<String> changeTypes(Long id) {
+        return jdbcTemplate.queryForList("SELECT change_type FROM change_outbox WHERE aggregate_type = ? "
+                + "AND aggregate_id = ? ORDER BY seq", String.class, UserService.AGGREGATE_TYPE, id.toString());
+    }
+
+    private static List<Long> ids(List<User> users) {
+        return users.stream().map(User::getId).toList();
+    }
+}
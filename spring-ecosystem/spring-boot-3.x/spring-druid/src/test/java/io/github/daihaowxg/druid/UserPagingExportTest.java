@@ -0,0 +1,204 @@
+package io.github.daihaowxg.druid;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.daihaowxg.druid.entity.User;
+import io.github.daihaowxg.druid.export.UserNdjsonExporter;
+import io.github.daihaowxg.druid.paging.Cursor;
+import io.github.daihaowxg.druid.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 游标分页与 NDJSON 流式导出测试
+ *
+ * @author daihaowxg
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:druid-paging-export;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE"
+})
+@AutoConfigureMockMvc
+@Transactional
+class UserPagingExportTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserNdjsonExporter exporter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private DruidDataSource dataSource;
+
+    @Test
+    void testCursorPagingVisitsEveryUserOnce() throws Exception {
+        createUsers(25);
+        List<Long> expected = userService.getAllUsers().stream().map(User::getId).sorted().toList();
+
+        List<Long> ids = new ArrayList<>();
+        int pages = 0;
+        String cursor = null;
+        do {
+            MvcResult result = mockMvc.perform(get("/api/users/page").param("size", "7")
+                            .param("cursor", cursor == null ? "" : cursor))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            JsonNode page = objectMapper.readTree(result.getResponse().getContentAsString());
+            page.get("items").forEach(item -> ids.add(item.get("id").asLong()));
+            cursor = page.get("nextCursor").isNull() ? null : page.get("nextCursor").asText();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(expected, ids);
+        // 多查一条判断是否有下一页，不会在最后多出一次空页请求
+        assertEquals((expected.size() + 6) / 7, pages);
+    }
+
+    @Test
+    void testRejectsInvalidCursorAndSize() throws Exception {
+        mockMvc.perform(get("/api/users/page").param("cursor", "not-a-cursor")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/users/page").param("cursor", Cursor.encode(5).substring(1)))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/users/page").param("size", "0")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/users/page").param("size", "1001")).andExpect(status().isBadRequest());
+
+        assertEquals(42L, Cursor.decode(Cursor.encode(42)));
+        assertEquals(0L, Cursor.decode(null));
+    }
+
+    @Test
+    void testExportWritesOneUserPerLine() throws Exception {
+        createUsers(10);
+        long count = userService.getUserCount();
+
+        MvcResult result = mockMvc.perform(get("/api/users/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(UserNdjsonExporter.MEDIA_TYPE))
+                .andReturn();
+
+        String body = result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+        assertTrue(body.endsWith("\n"));
+        String[] lines = body.split("\n");
+        assertEquals(count, lines.length);
+        long previousId = 0;
+        for (String line : lines) {
+            User user = objectMapper.readValue(line, User.class);
+            assertTrue(user.getId() > previousId, "导出应按 id 升序");
+            assertNotNull(user.getCreatedTime());
+            previousId = user.getId();
+        }
+    }
+
+    @Test
+    void testExportStreamsThroughBoundedBuffer() throws IOException {
+        createUsers(3000);
+        long count = userService.getUserCount();
+        RecordingOutputStream out = new RecordingOutputStream(Long.MAX_VALUE);
+
+        assertEquals(count, exporter.export(out));
+
+        // 第一行读到后立即发送
+        assertEquals(1, out.linesAtFirstFlush);
+        // 之后每 1000 行发送一次，加上结束时的一次
+        assertTrue(out.flushes >= count / 1000 + 1, "flushes: " + out.flushes);
+        // 每次写给客户端的数据不超过缓冲区大小
+        assertTrue(out.maxWrite <= 64 * 1024, "max write: " + out.maxWrite);
+        assertEquals(count, out.lines);
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testClientAbortStopsQueryAndReleasesConnection() {
+        int active = dataSource.getActiveCount();
+
+        // 模拟客户端在收到第一批数据时断开
+        IOException error = assertThrows(IOException.class, () -> exporter.export(new RecordingOutputStream(0)));
+
+        assertEquals("Broken pipe", error.getMessage());
+        assertEquals(active, dataSource.getActiveCount());
+    }
+
+    private void createUsers(int n) {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            User user = new User();
+            user.setUsername("export" + i);
+            user.setEmail("export" + i + "@example.com");
+            user.setAge(20 + i % 30);
+            users.add(user);
+        }
+        userService.batchCreateUsers(users);
+    }
+
+    /**
+     * 记录写出的数据量和 flush 时机，写出超过 limit 字节后模拟连接断开
+     */
+    private static class RecordingOutputStream extends OutputStream {
+
+        private final long limit;
+
+        private long bytes;
+
+        private long lines;
+
+        private long linesAtFirstFlush = -1;
+
+        private int flushes;
+
+        private int maxWrite;
+
+        RecordingOutputStream(long limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (bytes + len > limit) {
+                throw new IOException("Broken pipe");
+            }
+            bytes += len;
+            maxWrite = Math.max(maxWrite, len);
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+            if (flushes++ == 0) {
+                linesAtFirstFlush = lines;
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package io.github.daihaowxg.druid;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import io.github.daihaowxg.druid.entity.User;
+import io.github.daihaowxg.druid.repository.UserRepository;
+import io.github.daihaowxg.druid.search.UserSearchIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 用户搜索索引测试
+ *
+ * <p>校验索引查询与 LIKE 扫描结果一致、写入路径正确维护索引，并对比两者在大表上的查询耗时。
+ * 基准的行数可以通过 {@code -Dsearch.rows=...} 调整，默认 100 万行。</p>
+ *
+ * @author daihaowxg
+ */
+class UserSearchIndexTest {
+
+    private static final int BENCHMARK_ROWS = Integer.getInteger("search.rows", 1_000_000);
+
+    private static final String[] NAMES = {"alice", "bob", "carol", "dave", "erin", "frank", "grace", "heidi"};
+
+    private DruidDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private UserSearchIndex index;
+    private UserRepository repository;
+
+    @AfterEach
+    void tearDown() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+    }
+
+    /**
+     * 测试索引查询与 LIKE 扫描的结果一致，包括大小写不同、关键字过短、含通配符的情况
+     */
+    @Test
+    void testIndexMatchesLikeScan() {
+        setUp("search-match", 20_000, 10_000);
+
+        String[] keywords = {"1234", "alice_1", "ICE_1", "Alice", "e_19999", "ob_", "ol_7", "zzz", "ab", "a%e", "ace%99", "r_nk_1", "@example", "rank1"};
+        for (String keyword : keywords) {
+            assertEquals(likeScan("username", keyword), repository.findByUsername(keyword), "username: " + keyword);
+            assertEquals(likeScan("email", keyword), repository.findByEmail(keyword), "email: " + keyword);
+        }
+        // 没有长度达到 3 的字面量片段、候选过多时不使用索引
+        assertNull(index.usernameCandidates("ab"));
+        assertNull(index.usernameCandidates("a%e"));
+        assertNull(index.emailCandidates("@example"));
+        assertNotNull(index.usernameCandidates("alice_1"));
+    }
+
+    /**
+     * 测试插入、更新、删除都会维护索引，删除在事务回滚后不影响查询结果
+     */
+    @Test
+    void testWritePathsMaintainIndex() {
+        setUp("search-write", 1_000, 10_000);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        User user = new User(null, "zebra_one", "zebra@zoo.org", 30, null, null, null);
+        repository.insert(user);
+        assertNotNull(user.getId());
+        assertEquals(List.of(user.getId()), ids(repository.findByUsername("ebra_o")));
+
+        user.setUsername("okapi_one");
+        repository.update(user);
+        assertTrue(repository.findByUsername("zebra").isEmpty());
+        assertEquals(List.of(user.getId()), ids(repository.findByUsername("kapi")));
+
+        // 回滚的删除不能让行从搜索结果中消失
+        transactionTemplate.executeWithoutResult(status -> {
+            repository.deleteById(user.getId());
+            status.setRollbackOnly();
+        });
+        assertEquals(List.of(user.getId()), ids(repository.findByUsername("kapi")));
+
+        // 回滚的插入只会留下多余的候选，被数据库校验过滤
+        transactionTemplate.executeWithoutResult(status -> {
+            repository.insert(new User(null, "okapi_two", "two@zoo.org", 20, null, null, null));
+            status.setRollbackOnly();
+        });
+        assertEquals(List.of(user.getId()), ids(repository.findByUsername("kapi")));
+
+        repository.batchInsert(List.of(
+                new User(null, "okapi_three", "three@zoo.org", 21, null, null, null),
+                new User(null, "okapi_four", "four@zoo.org", 22, null, null, null)));
+        assertEquals(3, repository.findByUsername("kapi").size());
+
+        transactionTemplate.executeWithoutResult(status -> repository.deleteById(user.getId()));
+        assertEquals(2, repository.findByUsername("kapi").size());
+        assertEquals(likeScan("email", "zoo.org"), repository.findByEmail("zoo.org"));
+    }
+
+    /**
+     * 基准：对比 LIKE 全表扫描和索引查询的平均耗时
+     */
+    @Test
+    void benchmarkIndexAgainstLikeScan() {
+        long loadStart = System.nanoTime();
+        setUp("search-benchmark", BENCHMARK_ROWS, 10_000);
+        System.out.printf("%n=== 用户搜索索引基准: %,d 行, 准备耗时 %,d ms, 索引约 %,d KB ===%n",
+                BENCHMARK_ROWS, (System.nanoTime() - loadStart) / 1_000_000, index.sizeInBytes() / 1024);
+
+        String[][] queries = {
+                {"username", "123456"},
+                {"username", "grace_777"},
+                {"username", "grace_77"},
+                {"username", "Frank_4242"},
+                {"email", "dave9999"},
+                {"email", "31337@"},
+        };
+        for (String[] query : queries) {
+            String column = query[0];
+            String keyword = query[1];
+            List<User> expected = likeScan(column, keyword);
+            List<User> actual = "username".equals(column)
+                    ? repository.findByUsername(keyword) : repository.findByEmail(keyword);
+            assertEquals(expected, actual, column + ": " + keyword);
+
+            long[] candidates = "username".equals(column)
+                    ? index.usernameCandidates(keyword) : index.emailCandidates(keyword);
+            double likeMillis = averageMillis(5, () -> likeScan(column, keyword));
+            double indexMillis = averageMillis(50, () -> {
+                if ("username".equals(column)) {
+                    repository.findByUsername(keyword);
+                } else {
+                    repository.findByEmail(keyword);
+                }
+            });
+            System.out.printf("%-8s %-12s %5d 行  %-10s LIKE 扫描 %8.2f ms  索引 %6.3f ms  %6.0fx%n",
+                    column, keyword, expected.size(),
+                    candidates == null ? "回退 LIKE" : candidates.length + " 候选",
+                    likeMillis, indexMillis, likeMillis / indexMillis);
+        }
+    }
+
+    private void setUp(String name, int rows, int maxCandidates) {
+        dataSource = new DruidDataSource();
+        dataSource.setUrl("jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setPassword("");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        StringBuilder nameCase = new StringBuilder("CASE MOD(X, " + NAMES.length + ")");
+        for (int i = 0; i < NAMES.length; i++) {
+            nameCase.append(" WHEN ").append(i).append(" THEN '").append(NAMES[i]).append("'");
+        }
+        nameCase.append(" END");
+        jdbcTemplate.update("INSERT INTO users (username, email, age) SELECT "
+                + "CONCAT(" + nameCase + ", '_', X), CONCAT(" + nameCase + ", X, '@example.com'), MOD(X, 60) + 18 "
+                + "FROM SYSTEM_RANGE(1, " + rows + ")");
+
+        index = new UserSearchIndex(maxCandidates);
+        repository = new UserRepository(jdbcTemplate, index);
+        index.rebuild(consumer -> repository.forEach(1000, consumer));
+        assertTrue(index.isReady());
+    }
+
+    private List<User> likeScan(String column, String keyword) {
+        return jdbcTemplate.query("SELECT * FROM users WHERE " + column + " LIKE ? ORDER BY id",
+                (rs, rowNum) -> {
+                    User user = new User();
+                    user.setId(rs.getLong("id"));
+                    user.setUsername(rs.getString("username"));
+                    user.setEmail(rs.getString("email"));
+                    user.setAge(rs.getInt("age"));
+                    user.setCreatedTime(rs.getTimestamp("created_time").toLocalDateTime());
+                    user.setUpdatedTime(rs.getTimestamp("updated_time").toLocalDateTime());
+                    user.setVersion(rs.getInt("version"));
+                    return user;
+                }, "%" + keyword + "%");
+    }
+
+    private static List<Long> ids(List<User> users) {
+        return users.stream().map(User::getId).toList();
+    }
+
+    private static double averageMillis(int iterations, Runnable action) {
+        action.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            action.run();
+        }
+        return (System.nanoTime() - start) / 1e6 / iterations;
+    }
+}
@@ -0,0 +1,144 @@
+package io.github.daihaowxg.druid;
+
+import io.github.daihaowxg.druid.service.UserService;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 慢请求压测：保持 2000 个并发请求访问 {@code GET /api/users/{id}}，每个请求在服务层额外阻塞一段时间（模拟调用下游服务），
+ * 对比 Tomcat 平台线程池（默认最多 200 个线程）和虚拟线程（{@code spring.threads.virtual.enabled=true}）的吞吐。
+ *
+ * <p>虚拟线程需要 JDK 21+，更低版本的 JDK 上只运行平台线程一组。并发数、请求总数和延迟可以通过
+ * {@code -Dload.concurrency=... -Dload.requests=... -Dload.latency-ms=...} 调整。</p>
+ *
+ * @author daihaowxg
+ */
+class VirtualThreadLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 2000);
+
+    private static final int REQUESTS = Integer.getInteger("load.requests", 10_000);
+
+    private static final long LATENCY_MS = Long.getLong("load.latency-ms", 100);
+
+    @Test
+    void compareThroughput() throws Exception {
+        LoadResult platform = run(false);
+        System.out.printf("%n=== %,d 个请求, 并发 %,d, 每个请求阻塞 %d ms ===%n", REQUESTS, CONCURRENCY, LATENCY_MS);
+        System.out.println("平台线程: " + platform);
+        assertEquals(0, platform.errors());
+
+        if (Runtime.version().feature() >= 21) {
+            LoadResult virtual = run(true);
+            System.out.println("虚拟线程: " + virtual);
+            assertEquals(0, virtual.errors());
+        } else {
+            System.out.println("虚拟线程: 跳过，需要 JDK 21+（当前 " + Runtime.version().feature() + "）");
+        }
+    }
+
+    private static LoadResult run(boolean virtualThreads) throws Exception {
+        String name = virtualThreads ? "virtual" : "platform";
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(DruidApplication.class, SlowServiceConfig.class)
+                // 以命令行参数传入，优先级高于 application.yml
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--spring.datasource.url=jdbc:h2:mem:load-" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1",
+                        "--druid.search.enabled=false",
+                        "--logging.level.io.github.daihaowxg.druid=warn",
+                        "--logging.level.com.alibaba.druid=warn")) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI uri = URI.create("http://localhost:" + port + "/api/users/1");
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            // 预热：建立连接、触发 JIT
+            load(client, uri, Math.min(REQUESTS, 1000), Math.min(CONCURRENCY, 100));
+            return load(client, uri, REQUESTS, CONCURRENCY);
+        }
+    }
+
+    /**
+     * 始终保持 concurrency 个请求在途，直到发出 requests 个请求
+     */
+    private static LoadResult load(HttpClient client, URI uri, int requests, int concurrency) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri).GET().build();
+        Semaphore inFlight = new Semaphore(concurrency);
+        CountDownLatch done = new CountDownLatch(requests);
+        AtomicInteger errors = new AtomicInteger();
+        long[] latencies = new long[requests];
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            inFlight.acquire();
+            int index = i;
+            long sent = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                latencies[index] = System.nanoTime() - sent;
+                if (error != null || response.statusCode() != 200) {
+                    errors.incrementAndGet();
+                }
+                inFlight.release();
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(5, TimeUnit.MINUTES), "压测超时");
+        long elapsedNanos = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        return new LoadResult(requests * 1e9 / elapsedNanos, latencies[requests / 2] / 1_000_000,
+                latencies[(int) (requests * 0.99)] / 1_000_000, errors.get());
+    }
+
+    private record LoadResult(double throughput, long p50Millis, long p99Millis, int errors) {
+
+        @Override
+        public String toString() {
+            return String.format("%,.0f 请求/秒, p50 %,d ms, p99 %,d ms, 失败 %d", throughput, p50Millis, p99Millis, errors);
+        }
+    }
+
+    /**
+     * 在 UserService.getUserById 之前阻塞 LATENCY_MS，阻塞时不占用数据库连接，相当于先调用一个慢的下游服务。
+     * 没有标注 {@code @Configuration}，不会被其他测试的组件扫描加载
+     */
+    static class SlowServiceConfig {
+
+        @Bean
+        static BeanPostProcessor slowUserService() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof UserService)) {
+                        return bean;
+                    }
+                    ProxyFactory factory = new ProxyFactory(bean);
+                    factory.setProxyTargetClass(true);
+                    factory.addAdvice((MethodInterceptor) invocation -> {
+                        if (invocation.getMethod().getName().equals("getUserById")) {
+                            Thread.sleep(LATENCY_MS);
+                        }
+                        return invocation.proceed();
+                    });
+                    return factory.getProxy();
+                }
+            };
+        }
+    }
+}
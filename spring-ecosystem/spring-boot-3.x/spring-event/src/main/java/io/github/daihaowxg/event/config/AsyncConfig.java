@@ -1,19 +1,42 @@
 package io.github.daihaowxg.event.config;
 
+import io.github.daihaowxg.executor.RingBufferTaskExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 
+import java.util.concurrent.Executor;
+
 /**
  * 异步配置
  * <p>
  * 启用 Spring 的异步方法执行功能
  * 使用 @Async 注解的方法将在独立的线程池中执行
+ * <p>
+ * 默认使用 Spring Boot 自动配置的 ThreadPoolTaskExecutor；
+ * 设置 {@code async.executor.type=ring-buffer} 时改用 {@link RingBufferTaskExecutor}
  *
  * @author wxg
  */
 @Configuration
 @EnableAsync
 public class AsyncConfig {
-    // 使用 Spring Boot 默认的异步配置
-    // 如需自定义线程池，可以配置 TaskExecutor Bean
+
+    /**
+     * 基于环形缓冲区的异步事件执行器
+     * <p>
+     * 注册后 Spring Boot 默认的 applicationTaskExecutor 不再创建，@Async 监听器都会在这里执行，
+     * 工作线程数与默认线程池的核心线程数（8）保持一致
+     *
+     * @param waitStrategy 工作线程的等待策略：blocking / sleeping / yielding / busy-spin
+     * @return 环形缓冲区执行器
+     */
+    @Bean(name = "taskExecutor")
+    @ConditionalOnProperty(name = "async.executor.type", havingValue = "ring-buffer")
+    public Executor ringBufferTaskExecutor(
+            @Value("${async.executor.wait-strategy:blocking}") RingBufferTaskExecutor.WaitStrategyType waitStrategy) {
+        return new RingBufferTaskExecutor("event-ring-", 8, 1024, waitStrategy, 60);
+    }
 }
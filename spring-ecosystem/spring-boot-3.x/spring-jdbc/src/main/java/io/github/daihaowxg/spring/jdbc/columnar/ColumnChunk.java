@@ -0,0 +1,60 @@
+package io.github.daihaowxg.spring.jdbc.columnar;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一批行的列式数据，每列一个 {@link ColumnVector}，列名统一为小写。
+ */
+public final class ColumnChunk {
+
+    private final List<ColumnVector> columns;
+    private final int rowCount;
+
+    ColumnChunk(ColumnVector[] columns, int rowCount) {
+        this.columns = Collections.unmodifiableList(Arrays.asList(columns));
+        this.rowCount = rowCount;
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    public List<ColumnVector> columns() {
+        return columns;
+    }
+
+    public ColumnVector column(String name) {
+        for (ColumnVector column : columns) {
+            if (column.getName().equalsIgnoreCase(name)) {
+                return column;
+            }
+        }
+        throw new IllegalArgumentException("No column named " + name);
+    }
+
+    public LongVector longs(String name) {
+        return column(name, LongVector.class);
+    }
+
+    public IntVector ints(String name) {
+        return column(name, IntVector.class);
+    }
+
+    public StringVector strings(String name) {
+        return column(name, StringVector.class);
+    }
+
+    public DictionaryVector dictionary(String name) {
+        return column(name, DictionaryVector.class);
+    }
+
+    private <T extends ColumnVector> T column(String name, Class<T> type) {
+        ColumnVector column = column(name);
+        if (!type.isInstance(column)) {
+            throw new IllegalArgumentException("Column " + name + " is " + column.type());
+        }
+        return type.cast(column);
+    }
+}
@@ -0,0 +1,27 @@
+package io.github.daihaowxg.spring.jdbc.columnar;
+
+/**
+ * 列向量的存储类型。
+ */
+public enum ColumnType {
+
+    /**
+     * BIGINT，存为 {@code long[]}
+     */
+    LONG,
+
+    /**
+     * INTEGER / SMALLINT / TINYINT，存为 {@code int[]}
+     */
+    INT,
+
+    /**
+     * 字符串，UTF-8 字节连续存放在一个 {@code byte[]} 中，另用 {@code int[]} 记录每一行的起始偏移
+     */
+    STRING,
+
+    /**
+     * 字典编码的字符串，每一行只存 {@code int} 编码，适合取值很少的列
+     */
+    DICTIONARY
+}
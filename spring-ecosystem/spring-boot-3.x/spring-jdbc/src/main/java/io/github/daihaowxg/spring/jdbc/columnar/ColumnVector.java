@@ -0,0 +1,84 @@
+package io.github.daihaowxg.spring.jdbc.columnar;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.BitSet;
+
+/**
+ * 一个分块中一列的数据。
+ * <p>
+ * 值存放在基本类型数组中，不为每个值创建对象；NULL 记录在位图中，对应位置的值为 0（字典列为 -1）。
+ */
+public abstract class ColumnVector {
+
+    private final String name;
+
+    /**
+     * 只有出现过 NULL 时才创建
+     */
+    private BitSet nulls;
+
+    protected int size;
+
+    protected ColumnVector(String name, int size, BitSet nulls) {
+        this.name = name;
+        this.size = size;
+        this.nulls = nulls;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public abstract ColumnType type();
+
+    public boolean isNull(int row) {
+        return nulls != null && nulls.get(row);
+    }
+
+    protected boolean hasNulls() {
+        return nulls != null;
+    }
+
+    protected void markNull(int row) {
+        if (nulls == null) {
+            nulls = new BitSet();
+        }
+        nulls.set(row);
+    }
+
+    BitSet nulls() {
+        return nulls;
+    }
+
+    /**
+     * 把结果集当前行的第 columnIndex 列追加到末尾
+     */
+    abstract void append(ResultSet rs, int columnIndex) throws SQLException;
+
+    /**
+     * 分块装满或结果集读完后调用，释放多余的容量
+     */
+    abstract void trim();
+
+    /**
+     * 从选择向量中去掉 NULL 行。过滤循环本身不检查 NULL，有 NULL 时再单独处理一遍
+     */
+    protected Selection withoutNulls(Selection selection) {
+        if (nulls == null) {
+            return selection;
+        }
+        int[] rows = selection.rows();
+        int n = 0;
+        for (int i = 0; i < selection.size(); i++) {
+            if (!nulls.get(rows[i])) {
+                rows[n++] = rows[i];
+            }
+        }
+        return new Selection(rows, n);
+    }
+}
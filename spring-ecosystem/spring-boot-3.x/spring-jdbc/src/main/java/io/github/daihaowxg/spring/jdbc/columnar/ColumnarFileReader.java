@@ -0,0 +1,130 @@
+package io.github.daihaowxg.spring.jdbc.columnar;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * 读取 {@link ColumnarFileWriter} 写出的文件，格式见 {@link ColumnarFileWriter}。
+ */
+public class ColumnarFileReader implements Closeable {
+
+    private final FileChannel channel;
+    private final String[] names;
+    private final ColumnType[] types;
+    private final Dictionary[] dictionaries;
+
+    public ColumnarFileReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        ByteBuffer header = read(12);
+        if (header.getInt() != ColumnarFileWriter.MAGIC) {
+            throw new IOException("Not a columnar file: " + path);
+        }
+        int version = header.getInt();
+        if (version != ColumnarFileWriter.VERSION) {
+            throw new IOException("Unsupported columnar file version " + version);
+        }
+        int count = header.getInt();
+        names = new String[count];
+        types = new ColumnType[count];
+        dictionaries = new Dictionary[count];
+        for (int i = 0; i < count; i++) {
+            ByteBuffer column = read(5);
+            types[i] = ColumnType.values()[column.get()];
+            names[i] = readString(column.getInt());
+            if (types[i] == ColumnType.DICTIONARY) {
+                dictionaries[i] = new Dictionary();
+            }
+        }
+    }
+
+    /**
+     * 读取下一个分块，没有更多分块时返回 null
+     */
+    public ColumnChunk next() throws IOException {
+        if (channel.position() == channel.size()) {
+            return null;
+        }
+        int rows = read(4).getInt();
+        ColumnVector[] columns = new ColumnVector[names.length];
+        for (int i = 0; i < names.length; i++) {
+            BitSet nulls = readNulls();
+            columns[i] = switch (types[i]) {
+                case LONG -> new LongVector(names[i], readLongs(rows), rows, nulls);
+                case INT -> new IntVector(names[i], readInts(rows), rows, nulls);
+                case STRING -> {
+                    int[] offsets = readInts(rows + 1);
+                    byte[] bytes = new byte[offsets[rows]];
+                    read(bytes.length).get(bytes);
+                    yield new StringVector(names[i], bytes, offsets, rows, nulls);
+                }
+                case DICTIONARY -> {
+                    int entries = read(4).getInt();
+                    for (int e = 0; e < entries; e++) {
+                        dictionaries[i].encode(readString(read(4).getInt()));
+                    }
+                    yield new DictionaryVector(names[i], dictionaries[i], readInts(rows), rows, nulls);
+                }
+            };
+        }
+        return new ColumnChunk(columns, rows);
+    }
+
+    /**
+     * 读取剩余的全部分块
+     */
+    public ColumnarTable readAll() throws IOException {
+        List<ColumnChunk> chunks = new ArrayList<>();
+        for (ColumnChunk chunk = next(); chunk != null; chunk = next()) {
+            chunks.add(chunk);
+        }
+        return new ColumnarTable(chunks);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private BitSet readNulls() throws IOException {
+        int words = read(4).getInt();
+        return words == 0 ? null : BitSet.valueOf(readLongs(words));
+    }
+
+    private long[] readLongs(int length) throws IOException {
+        long[] values = new long[length];
+        read(length * 8).asLongBuffer().get(values);
+        return values;
+    }
+
+    private int[] readInts(int length) throws IOException {
+        int[] values = new int[length];
+        read(length * 4).asIntBuffer().get(values);
+        return values;
+    }
+
+    private String readString(int length) throws IOException {
+        byte[] bytes = new byte[length];
+        read(length).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private ByteBuffer read(int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Truncated columnar file");
+            }
+        }
+        return buffer.flip();
+    }
+}
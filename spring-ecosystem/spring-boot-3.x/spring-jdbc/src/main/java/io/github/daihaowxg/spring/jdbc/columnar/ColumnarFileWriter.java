@@ -0,0 +1,129 @@
+package io.github.daihaowxg.spring.jdbc.columnar;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * 把列式分块写入紧凑的二进制文件，由 {@link ColumnarFileReader} 读回。
+ * <p>
+ * 文件格式（小端序）：
+ * <pre>
+ * 文件头: int 魔数 "UCOL", int 版本, int 列数, 每列 { byte 类型, int 名称长度, 名称 UTF-8 }
+ * 分块:   int 行数, 每列 { int NULL 位图的 long 个数, long[] 位图, 数据 }
+ *   LONG:       long[行数]
+ *   INT:        int[行数]
+ *   STRING:     int[行数 + 1] 偏移, byte[最后一个偏移] UTF-8
+ *   DICTIONARY: int 新增字典项个数, 每项 { int 长度, UTF-8 }, int[行数] 编码
+ * </pre>
+ * 数组按块整体拷贝进缓冲区，不逐个值写入；字典只写上一个分块之后新增的项。
+ */
+public class ColumnarFileWriter implements Closeable {
+
+    static final int MAGIC = 0x55434F4C;
+    static final int VERSION = 1;
+
+    private final FileChannel channel;
+
+    /**
+     * 每个字典列已经写出的字典项个数，第一个分块写出文件头时创建
+     */
+    private int[] writtenEntries;
+
+    public ColumnarFileWriter(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    public void write(ColumnChunk chunk) throws IOException {
+        List<ColumnVector> columns = chunk.columns();
+        if (writtenEntries == null) {
+            writeHeader(columns);
+            writtenEntries = new int[columns.size()];
+        }
+        flush(buffer(4).putInt(chunk.rowCount()));
+        for (int i = 0; i < columns.size(); i++) {
+            ColumnVector column = columns.get(i);
+            writeNulls(column.nulls());
+            int rows = column.size();
+            switch (column.type()) {
+                case LONG -> writeLongs(((LongVector) column).values(), rows);
+                case INT -> writeInts(((IntVector) column).values(), rows);
+                case STRING -> {
+                    StringVector strings = (StringVector) column;
+                    int length = strings.offsets()[rows];
+                    writeInts(strings.offsets(), rows + 1);
+                    flush(buffer(length).put(strings.bytes(), 0, length));
+                }
+                case DICTIONARY -> {
+                    DictionaryVector dictionary = (DictionaryVector) column;
+                    writeEntries(dictionary.dictionary(), i);
+                    writeInts(dictionary.codes(), rows);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void writeHeader(List<ColumnVector> columns) throws IOException {
+        flush(buffer(12).putInt(MAGIC).putInt(VERSION).putInt(columns.size()));
+        for (ColumnVector column : columns) {
+            byte[] name = column.getName().getBytes(StandardCharsets.UTF_8);
+            flush(buffer(5L + name.length).put((byte) column.type().ordinal()).putInt(name.length).put(name));
+        }
+    }
+
+    private void writeNulls(BitSet nulls) throws IOException {
+        long[] words = nulls == null ? new long[0] : nulls.toLongArray();
+        flush(buffer(4).putInt(words.length));
+        writeLongs(words, words.length);
+    }
+
+    private void writeEntries(Dictionary dictionary, int column) throws IOException {
+        int from = writtenEntries[column];
+        int to = dictionary.size();
+        flush(buffer(4).putInt(to - from));
+        for (int code = from; code < to; code++) {
+            byte[] value = dictionary.decode(code).getBytes(StandardCharsets.UTF_8);
+            flush(buffer(4L + value.length).putInt(value.length).put(value));
+        }
+        writtenEntries[column] = to;
+    }
+
+    private void writeLongs(long[] values, int length) throws IOException {
+        ByteBuffer buffer = buffer(length * 8L);
+        buffer.asLongBuffer().put(values, 0, length);
+        flush(buffer.position(length * 8));
+    }
+
+    private void writeInts(int[] values, int length) throws IOException {
+        ByteBuffer buffer = buffer(length * 4L);
+        buffer.asIntBuffer().put(values, 0, length);
+        flush(buffer.position(length * 4));
+    }
+
+    /**
+     * 写出 buffer 中已经填充的内容
+     */
+    private void flush(ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static ByteBuffer buffer(long size) {
+        return ByteBuffer.allocate(Math.toIntExact(size)).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
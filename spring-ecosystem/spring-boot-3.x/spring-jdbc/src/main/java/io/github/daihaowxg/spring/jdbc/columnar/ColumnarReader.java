@@ -0,0 +1,143 @@
+package io.github.daihaowxg.spring.jdbc.columnar;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 把查询结果按列读入基本类型数组。
+ * <p>
+ * 分析任务通常只关心少数几列的过滤和聚合，用 RowMapper 映射成实体时每一行都要创建实体对象、
+ * 包装类型和 String，全部留在堆上。这里按结果集元数据为每一列分配一个向量：
+ * <ul>
+ *   <li>BIGINT → {@link LongVector}，INTEGER / SMALLINT / TINYINT → {@link IntVector}</li>
+ *   <li>字符串 → {@link StringVector}（UTF-8 字节连续存放）</li>
+ *   <li>dictionaryColumns 中的字符串列 → {@link DictionaryVector}，适合取值很少的列</li>
+ * </ul>
+ * 每 chunkSize 行组成一个 {@link ColumnChunk}，分块可以逐个处理后丢弃（常量内存），也可以收集成 {@link ColumnarTable}。
+ */
+public class ColumnarReader {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ColumnarReader(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 逐块读取查询结果，consumer 返回后该分块不再被引用
+     *
+     * @param chunkSize         每个分块的行数，同时作为 fetchSize
+     * @param dictionaryColumns 做字典编码的列名（不区分大小写）
+     */
+    public void forEachChunk(String sql, int chunkSize, Set<String> dictionaryColumns, Consumer<ColumnChunk> consumer) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(chunkSize);
+            return ps;
+        }, (ResultSet rs) -> {
+            Schema schema = Schema.of(rs.getMetaData(), dictionaryColumns);
+            ColumnVector[] columns = schema.allocate(chunkSize);
+            int rows = 0;
+            while (rs.next()) {
+                for (int i = 0; i < columns.length; i++) {
+                    columns[i].append(rs, i + 1);
+                }
+                if (++rows == chunkSize) {
+                    consumer.accept(seal(columns, rows));
+                    columns = schema.allocate(chunkSize);
+                    rows = 0;
+                }
+            }
+            if (rows > 0) {
+                consumer.accept(seal(columns, rows));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * 读取全部结果
+     */
+    public ColumnarTable read(String sql, int chunkSize, Set<String> dictionaryColumns) {
+        List<ColumnChunk> chunks = new ArrayList<>();
+        forEachChunk(sql, chunkSize, dictionaryColumns, chunks::add);
+        return new ColumnarTable(chunks);
+    }
+
+    /**
+     * 释放多余的容量：最后一个分块没有装满，字符串列的字节数组按倍数扩容，通常也有富余
+     */
+    private static ColumnChunk seal(ColumnVector[] columns, int rows) {
+        for (ColumnVector column : columns) {
+            column.trim();
+        }
+        return new ColumnChunk(columns, rows);
+    }
+
+    /**
+     * 列名和类型，字典列在所有分块中共用同一个字典
+     */
+    private record Schema(String[] names, ColumnType[] types, Dictionary[] dictionaries) {
+
+        static Schema of(ResultSetMetaData metaData, Set<String> dictionaryColumns) throws SQLException {
+            int count = metaData.getColumnCount();
+            String[] names = new String[count];
+            ColumnType[] types = new ColumnType[count];
+            Dictionary[] dictionaries = new Dictionary[count];
+            for (int i = 0; i < count; i++) {
+                names[i] = metaData.getColumnLabel(i + 1).toLowerCase(Locale.ROOT);
+                types[i] = typeOf(metaData.getColumnType(i + 1), names[i]);
+                if (types[i] == ColumnType.STRING && containsIgnoreCase(dictionaryColumns, names[i])) {
+                    types[i] = ColumnType.DICTIONARY;
+                    dictionaries[i] = new Dictionary();
+                }
+            }
+            return new Schema(names, types, dictionaries);
+        }
+
+        ColumnVector[] allocate(int capacity) {
+            ColumnVector[] columns = new ColumnVector[names.length];
+            for (int i = 0; i < names.length; i++) {
+                columns[i] = switch (types[i]) {
+                    case LONG -> new LongVector(names[i], capacity);
+                    case INT -> new IntVector(names[i], capacity);
+                    case STRING -> new StringVector(names[i], capacity);
+                    case DICTIONARY -> new DictionaryVector(names[i], dictionaries[i], capacity);
+                };
+            }
+            return columns;
+        }
+
+        private static ColumnType typeOf(int sqlType, String name) {
+            return switch (sqlType) {
+                case Types.BIGINT -> ColumnType.LONG;
+                case Types.INTEGER, Types.SMALLINT, Types.TINYINT -> ColumnType.INT;
+                case Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR, Types.NCHAR, Types.NVARCHAR, Types.LONGNVARCHAR ->
+                        ColumnType.STRING;
+                default -> throw new IllegalArgumentException("Unsupported type " + sqlType + " of column " + name);
+            };
+        }
+
+        private static boolean containsIgnoreCase(Set<String> names, String name) {
+            for (String candidate : names) {
+                if (candidate.equalsIgnoreCase(name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
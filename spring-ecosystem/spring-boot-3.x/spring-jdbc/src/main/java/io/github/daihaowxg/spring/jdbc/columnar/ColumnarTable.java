@@ -0,0 +1,100 @@
+package io.github.daihaowxg.spring.jdbc.columnar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 整个查询结果的列式数据，由若干 {@link ColumnChunk} 组成。
+ * <p>
+ * 聚合方法逐个分块调用向量上的过滤、聚合方法再合并结果；字典列在所有分块中共用一个字典，分组可以直接按编码合并。
+ */
+public final class ColumnarTable {
+
+    private final List<ColumnChunk> chunks;
+
+    public ColumnarTable(List<ColumnChunk> chunks) {
+        this.chunks = Collections.unmodifiableList(new ArrayList<>(chunks));
+    }
+
+    public List<ColumnChunk> chunks() {
+        return chunks;
+    }
+
+    public long rowCount() {
+        long rows = 0;
+        for (ColumnChunk chunk : chunks) {
+            rows += chunk.rowCount();
+        }
+        return rows;
+    }
+
+    /**
+     * longColumn 取值在 [min, max] 之间的行数
+     */
+    public long countBetween(String longColumn, long min, long max) {
+        long count = 0;
+        for (ColumnChunk chunk : chunks) {
+            count += chunk.longs(longColumn).between(min, max, null).size();
+        }
+        return count;
+    }
+
+    public long sum(String longColumn) {
+        long sum = 0;
+        for (ColumnChunk chunk : chunks) {
+            sum += chunk.longs(longColumn).sum(null);
+        }
+        return sum;
+    }
+
+    /**
+     * 按字典列分组计数，结果按编码（即值首次出现的顺序）排列
+     */
+    public Map<String, Long> countBy(String dictionaryColumn) {
+        long[] total = new long[0];
+        Dictionary dictionary = null;
+        for (ColumnChunk chunk : chunks) {
+            DictionaryVector keys = chunk.dictionary(dictionaryColumn);
+            dictionary = keys.dictionary();
+            total = merge(total, keys.countByCode(null));
+        }
+        return toMap(dictionary, total);
+    }
+
+    /**
+     * 按字典列分组对 longColumn 求和
+     */
+    public Map<String, Long> sumBy(String dictionaryColumn, String longColumn) {
+        long[] total = new long[0];
+        Dictionary dictionary = null;
+        for (ColumnChunk chunk : chunks) {
+            DictionaryVector keys = chunk.dictionary(dictionaryColumn);
+            dictionary = keys.dictionary();
+            total = merge(total, keys.sumByCode(chunk.longs(longColumn), null));
+        }
+        return toMap(dictionary, total);
+    }
+
+    /**
+     * 后面分块的字典可能更大，结果数组按较长的一个对齐
+     */
+    static long[] merge(long[] total, long[] partial) {
+        long[] merged = partial.length > total.length ? Arrays.copyOf(total, partial.length) : total;
+        for (int code = 0; code < partial.length; code++) {
+            merged[code] += partial[code];
+        }
+        return merged;
+    }
+
+    static Map<String, Long> toMap(Dictionary dictionary, long[] valuesByCode) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int code = 0; code < valuesByCode.length; code++) {
+            result.put(dictionary.decode(code), valuesByCode[code]);
+        }
+        return result;
+    }
+}
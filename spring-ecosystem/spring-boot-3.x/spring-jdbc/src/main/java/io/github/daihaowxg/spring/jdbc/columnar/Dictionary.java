@@ -0,0 +1,46 @@
+package io.github.daihaowxg.spring.jdbc.columnar;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 字符串字典，编码从 0 开始按首次出现的顺序分配。
+ * <p>
+ * 同一次查询的所有分块共用一个字典，所以不同分块中相同的编码代表相同的值，分组结果可以直接按编码累加。
+ */
+public final class Dictionary {
+
+    private final List<String> values = new ArrayList<>();
+    private final Map<String, Integer> codes = new HashMap<>();
+
+    /**
+     * 返回 value 的编码，第一次出现时分配新编码
+     */
+    public int encode(String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            code = values.size();
+            values.add(value);
+            codes.put(value, code);
+        }
+        return code;
+    }
+
+    /**
+     * 返回 value 的编码，字典中没有时返回 -1
+     */
+    public int codeOf(String value) {
+        Integer code = codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    public String decode(int code) {
+        return values.get(code);
+    }
+
+    public int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,136 @@
+package io.github.daihaowxg.spring.jdbc.columnar;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * 字典编码的字符串列，每一行只存一个 {@code int} 编码，NULL 的编码为 -1。
+ * <p>
+ * 等值过滤先在字典中查一次编码，之后只比较整数；分组聚合直接用编码做数组下标，不需要哈希表。
+ */
+public final class DictionaryVector extends ColumnVector {
+
+    private final Dictionary dictionary;
+    private int[] codes;
+
+    DictionaryVector(String name, Dictionary dictionary, int capacity) {
+        this(name, dictionary, new int[capacity], 0, null);
+    }
+
+    DictionaryVector(String name, Dictionary dictionary, int[] codes, int size, BitSet nulls) {
+        super(name, size, nulls);
+        this.dictionary = dictionary;
+        this.codes = codes;
+    }
+
+    @Override
+    public ColumnType type() {
+        return ColumnType.DICTIONARY;
+    }
+
+    public Dictionary dictionary() {
+        return dictionary;
+    }
+
+    public int code(int row) {
+        return codes[row];
+    }
+
+    /**
+     * 第 row 行的值，NULL 时返回 null
+     */
+    public String get(int row) {
+        int code = codes[row];
+        return code < 0 ? null : dictionary.decode(code);
+    }
+
+    /**
+     * 底层编码数组，长度可能大于 {@link #size()}
+     */
+    public int[] codes() {
+        return codes;
+    }
+
+    /**
+     * input 中等于 value 的行
+     */
+    public Selection equalTo(String value, Selection input) {
+        int target = dictionary.codeOf(value);
+        if (target < 0) {
+            return new Selection(new int[0], 0);
+        }
+        int[] c = codes;
+        int n = 0;
+        int[] out;
+        if (input == null) {
+            out = new int[size];
+            for (int row = 0; row < size; row++) {
+                out[n] = row;
+                n += c[row] == target ? 1 : 0;
+            }
+        } else {
+            int[] in = input.rows();
+            out = new int[input.size()];
+            for (int i = 0; i < input.size(); i++) {
+                int row = in[i];
+                out[n] = row;
+                n += c[row] == target ? 1 : 0;
+            }
+        }
+        return new Selection(out, n);
+    }
+
+    /**
+     * 按编码统计 selection 中的行数，结果下标即编码；NULL 行不计入
+     */
+    public long[] countByCode(Selection selection) {
+        long[] counts = new long[dictionary.size()];
+        int[] c = codes;
+        int count = selection == null ? size : selection.size();
+        for (int i = 0; i < count; i++) {
+            int code = c[selection == null ? i : selection.row(i)];
+            if (code >= 0) {
+                counts[code]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * 按编码对 values 求和，结果下标即编码；values 必须来自同一个分块
+     */
+    public long[] sumByCode(LongVector values, Selection selection) {
+        long[] sums = new long[dictionary.size()];
+        int[] c = codes;
+        long[] v = values.values();
+        int count = selection == null ? size : selection.size();
+        for (int i = 0; i < count; i++) {
+            int row = selection == null ? i : selection.row(i);
+            int code = c[row];
+            if (code >= 0) {
+                sums[code] += v[row];
+            }
+        }
+        return sums;
+    }
+
+    @Override
+    void append(ResultSet rs, int columnIndex) throws SQLException {
+        String value = rs.getString(columnIndex);
+        if (value == null) {
+            markNull(size);
+            codes[size++] = -1;
+        } else {
+            codes[size++] = dictionary.encode(value);
+        }
+    }
+
+    @Override
+    void trim() {
+        if (codes.length > size) {
+            codes = Arrays.copyOf(codes, size);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package io.github.daihaowxg.spring.jdbc.columnar;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * BIGINT 列。
+ */
+public final class LongVector extends ColumnVector {
+
+    private long[] values;
+
+    LongVector(String name, int capacity) {
+        this(name, new long[capacity], 0, null);
+    }
+
+    LongVector(String name, long[] values, int size, BitSet nulls) {
+        super(name, size, nulls);
+        this.values = values;
+    }
+
+    @Override
+    public ColumnType type() {
+        return ColumnType.LONG;
+    }
+
+    public long get(int row) {
+        return values[row];
+    }
+
+    /**
+     * 底层数组，长度可能大于 {@link #size()}，NULL 行的值为 0
+     */
+    public long[] values() {
+        return values;
+    }
+
+    /**
+     * input 中取值在 [min, max] 之间的行
+     */
+    public Selection between(long min, long max, Selection input) {
+        long[] v = values;
+        int n = 0;
+        int[] out;
+        if (input == null) {
+            out = new int[size];
+            for (int row = 0; row < size; row++) {
+                out[n] = row;
+                // 比较结果转成 0/1 累加到下标上，循环中没有分支
+                n += (v[row] >= min & v[row] <= max) ? 1 : 0;
+            }
+        } else {
+            int[] in = input.rows();
+            out = new int[input.size()];
+            for (int i = 0; i < input.size(); i++) {
+                int row = in[i];
+                out[n] = row;
+                n += (v[row] >= min & v[row] <= max) ? 1 : 0;
+            }
+        }
+        return withoutNulls(new Selection(out, n));
+    }
+
+    /**
+     * selection 中各行的和，NULL 不计入；selection 为 null 时对全部行求和
+     */
+    public long sum(Selection selection) {
+        long[] v = values;
+        long sum = 0;
+        if (selection == null) {
+            for (int row = 0; row < size; row++) {
+                sum += v[row];
+            }
+        } else {
+            int[] rows = selection.rows();
+            for (int i = 0; i < selection.size(); i++) {
+                sum += v[rows[i]];
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    void append(ResultSet rs, int columnIndex) throws SQLException {
+        long value = rs.getLong(columnIndex);
+        if (rs.wasNull()) {
+            markNull(size);
+        }
+        values[size++] = value;
+    }
+
+    @Override
+    void trim() {
+        if (values.length > size) {
+            values = Arrays.copyOf(values, size);
+        }
+    }
+}
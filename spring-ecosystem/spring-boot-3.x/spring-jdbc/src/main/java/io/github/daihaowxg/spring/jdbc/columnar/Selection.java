@@ -0,0 +1,30 @@
+package io.github.daihaowxg.spring.jdbc.columnar;
+
+/**
+ * 选择向量：过滤后留下的行号，按升序排列。
+ * <p>
+ * 过滤不复制列数据，只产出行号，后续的过滤和聚合只访问这些行。
+ * 各个向量的过滤方法接收 null 表示分块中的全部行。
+ */
+public final class Selection {
+
+    private final int[] rows;
+    private final int size;
+
+    Selection(int[] rows, int size) {
+        this.rows = rows;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int row(int index) {
+        return rows[index];
+    }
+
+    int[] rows() {
+        return rows;
+    }
+}
@@ -0,0 +1,95 @@
+package io.github.daihaowxg.spring.jdbc.columnar;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * 字符串列。
+ * <p>
+ * 所有值的 UTF-8 字节连续存放在一个数组中，第 i 行是 {@code bytes[offsets[i], offsets[i + 1])}。
+ * 每个值只占字节数加 4 字节偏移，没有 String 对象和对象头；{@link #get(int)} 时才创建 String。
+ */
+public final class StringVector extends ColumnVector {
+
+    private byte[] bytes;
+    private int[] offsets;
+
+    StringVector(String name, int capacity) {
+        this(name, new byte[Math.max(16, capacity * 16)], new int[capacity + 1], 0, null);
+    }
+
+    StringVector(String name, byte[] bytes, int[] offsets, int size, BitSet nulls) {
+        super(name, size, nulls);
+        this.bytes = bytes;
+        this.offsets = offsets;
+    }
+
+    @Override
+    public ColumnType type() {
+        return ColumnType.STRING;
+    }
+
+    /**
+     * 第 row 行的值，NULL 时返回 null
+     */
+    public String get(int row) {
+        if (isNull(row)) {
+            return null;
+        }
+        return new String(bytes, offsets[row], offsets[row + 1] - offsets[row], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * input 中等于 value 的行，直接比较字节，不创建 String
+     */
+    public Selection equalTo(String value, Selection input) {
+        byte[] target = value.getBytes(StandardCharsets.UTF_8);
+        int count = input == null ? size : input.size();
+        int[] out = new int[count];
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            int row = input == null ? i : input.row(i);
+            out[n] = row;
+            n += Arrays.equals(bytes, offsets[row], offsets[row + 1], target, 0, target.length) ? 1 : 0;
+        }
+        return withoutNulls(new Selection(out, n));
+    }
+
+    byte[] bytes() {
+        return bytes;
+    }
+
+    int[] offsets() {
+        return offsets;
+    }
+
+    @Override
+    void append(ResultSet rs, int columnIndex) throws SQLException {
+        String value = rs.getString(columnIndex);
+        int start = offsets[size];
+        if (value == null) {
+            markNull(size);
+        } else {
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            if (start + encoded.length > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, start + encoded.length));
+            }
+            System.arraycopy(encoded, 0, bytes, start, encoded.length);
+            start += encoded.length;
+        }
+        offsets[++size] = start;
+    }
+
+    @Override
+    void trim() {
+        if (offsets.length > size + 1) {
+            offsets = Arrays.copyOf(offsets, size + 1);
+        }
+        if (bytes.length > offsets[size]) {
+            bytes = Arrays.copyOf(bytes, offsets[size]);
+        }
+    }
+}
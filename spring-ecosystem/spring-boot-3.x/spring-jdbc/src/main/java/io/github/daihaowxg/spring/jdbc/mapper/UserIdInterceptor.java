@@ -0,0 +1,58 @@
+package io.github.daihaowxg.spring.jdbc.mapper;
+
+import io.github.daihaowxg.spring.jdbc.entity.User;
+import io.github.daihaowxg.spring.jdbc.repository.SequenceIdAllocator;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * MyBatis 插件：执行 INSERT 之前给参数中还没有 id 的 {@link User} 分配主键。
+ * <p>
+ * users 表没有自增列，主键统一由 {@link SequenceIdAllocator} 分配。XML 中的插入语句直接写入 {@code #{id}}，
+ * 不再使用 useGeneratedKeys。参数可以是单个 User，也可以是 {@code @Param} 包装的 User 列表，
+ * 对普通执行器和 BATCH 执行器同样生效。
+ * <p>
+ * 分配器和各仓库注入的是同一个 users 序列 Bean。容器中的 Interceptor Bean 会被 MyBatis 自动配置注册；手动创建 SqlSessionFactory 时需要通过
+ * {@code SqlSessionFactoryBean#setPlugins} 注册。
+ */
+@Component
+@Intercepts(@Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}))
+public class UserIdInterceptor implements Interceptor {
+
+    private final SequenceIdAllocator userIds;
+
+    public UserIdInterceptor(SequenceIdAllocator userIds) {
+        this.userIds = userIds;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+        if (statement.getSqlCommandType() == SqlCommandType.INSERT) {
+            assignIds(invocation.getArgs()[1]);
+        }
+        return invocation.proceed();
+    }
+
+    private void assignIds(Object parameter) {
+        if (parameter instanceof User user) {
+            if (user.getId() == null) {
+                user.setId(userIds.nextId());
+            }
+        } else if (parameter instanceof Collection<?> collection) {
+            collection.forEach(this::assignIds);
+        } else if (parameter instanceof Map<?, ?> params) {
+            // @Param 的参数表中同一个列表会以 users 和 param1 两个名字出现，已有 id 的用户会被跳过
+            params.values().forEach(this::assignIds);
+        }
+    }
+}
@@ -24,10 +24,18 @@ public interface UserMapper {
 
     /**
      * 保存用户。
-     * 对应的 XML 配置使用了 useGeneratedKeys="true" 来自动回填主键到 User 对象。
+     * 主键由 {@link UserIdInterceptor} 在执行前分配并回填到 User 对象，XML 中直接插入 {@code #{id}}。
      */
     void save(User user);
 
+    /**
+     * 批量保存用户。
+     * XML 中用 {@code <foreach>} 拼接成一条多行 INSERT，一次往返写入整个列表，主键同样由拦截器预先分配。
+     * 语句长度随列表增长，调用方应按几百到一千行分组调用。
+     * 行数更多时也可以用 BATCH 执行器的 SqlSession 逐条调用 {@link #save(User)}。
+     */
+    void saveAll(@Param("users") List<User> users);
+
     /**
      * 根据 ID 查询用户。
      * XML 中的 resultMap 负责将数据库列映射到 User 对象属性。
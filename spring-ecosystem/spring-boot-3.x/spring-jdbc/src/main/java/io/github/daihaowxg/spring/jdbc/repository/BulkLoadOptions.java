@@ -0,0 +1,49 @@
+package io.github.daihaowxg.spring.jdbc.repository;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * 批量导入参数。
+ * <p>
+ * 用法：
+ * <pre>
+ * BulkLoadOptions options = BulkLoadOptions.builder()
+ *         .chunkSize(5000)
+ *         .rowsPerStatement(100)
+ *         .parallelism(4)
+ *         .build();
+ * </pre>
+ */
+@Value
+@Builder
+public class BulkLoadOptions {
+
+    /**
+     * 每个分块的行数。每个分块是一次 executeBatch + 一次 commit，失败时按分块重试。
+     */
+    @Builder.Default
+    int chunkSize = 1000;
+
+    /**
+     * 每条 INSERT 语句包含的行数。
+     * <p>
+     * 1 表示普通的单行 {@code INSERT ... VALUES (?, ?)} + addBatch；
+     * 大于 1 时拼接多行 {@code VALUES (?, ?), (?, ?), ...}，相当于 MySQL 驱动的 rewriteBatchedStatements，
+     * 减少语句解析和网络往返的次数。
+     */
+    @Builder.Default
+    int rowsPerStatement = 1;
+
+    /**
+     * 并行写入的线程数，每个线程独占一个连接。
+     */
+    @Builder.Default
+    int parallelism = 1;
+
+    /**
+     * 单个分块失败后的最大重试次数。只有连接中断、死锁、锁超时这类瞬时故障才会重试（连接中断时换新连接），违反约束等错误直接失败。
+     */
+    @Builder.Default
+    int maxRetries = 2;
+}
@@ -11,7 +11,6 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -52,8 +51,14 @@ public class DataSourceUtilsRepository {
     @NonNull
     private final DataSource dataSource;
 
-    public DataSourceUtilsRepository(@NonNull DataSource dataSource) {
+    /**
+     * 主键和其他仓库一样来自 users 序列，号段在独立的短事务中预留，不受这里的事务回滚影响
+     */
+    private final SequenceIdAllocator userIds;
+
+    public DataSourceUtilsRepository(@NonNull DataSource dataSource, @NonNull SequenceIdAllocator userIds) {
         this.dataSource = dataSource;
+        this.userIds = userIds;
     }
 
     /**
@@ -173,18 +178,16 @@ public class DataSourceUtilsRepository {
         Connection con = DataSourceUtils.getConnection(dataSource);
         try {
             // 插入用户
-            String sql = "INSERT INTO users (name, email) VALUES (?, ?)";
-            try (PreparedStatement ps = con.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-                ps.setString(1, user.getName());
-                ps.setString(2, user.getEmail());
+            if (user.getId() == null) {
+                user.setId(userIds.nextId());
+            }
+            String sql = "INSERT INTO users (id, name, email) VALUES (?, ?, ?)";
+            try (PreparedStatement ps = con.prepareStatement(sql)) {
+                ps.setLong(1, user.getId());
+                ps.setString(2, user.getName());
+                ps.setString(3, user.getEmail());
                 ps.executeUpdate();
-
-                try (ResultSet rs = ps.getGeneratedKeys()) {
-                    if (rs.next()) {
-                        user.setId(rs.getLong(1));
-                        System.out.println("Inserted user with id: " + user.getId());
-                    }
-                }
+                System.out.println("Inserted user with id: " + user.getId());
             }
 
             // 模拟业务异常 - 这会导致事务回滚
@@ -208,11 +211,15 @@ public class DataSourceUtilsRepository {
     public void batchInsert(List<User> users) {
         Connection con = DataSourceUtils.getConnection(dataSource);
         try {
-            String sql = "INSERT INTO users (name, email) VALUES (?, ?)";
+            String sql = "INSERT INTO users (id, name, email) VALUES (?, ?, ?)";
             try (PreparedStatement ps = con.prepareStatement(sql)) {
                 for (User user : users) {
-                    ps.setString(1, user.getName());
-                    ps.setString(2, user.getEmail());
+                    if (user.getId() == null) {
+                        user.setId(userIds.nextId());
+                    }
+                    ps.setLong(1, user.getId());
+                    ps.setString(2, user.getName());
+                    ps.setString(3, user.getEmail());
                     ps.addBatch();
                 }
 
@@ -226,6 +233,45 @@ public class DataSourceUtilsRepository {
         }
     }
 
+    /**
+     * 示例 4（续）：分块批量操作。
+     * <p>
+     * 上面的 batchInsert 把整个列表放进一个 batch，列表很大时驱动要在内存中攒下全部参数。
+     * 这里每 chunkSize 行执行一次 executeBatch，仍然在同一个事务、同一个连接中，
+     * 所以依旧是"要么全部成功，要么全部失败"。需要按块提交、并行写入时请使用
+     * {@link StandardJdbcRepository#bulkInsert(List, BulkLoadOptions)}。
+     */
+    @Transactional
+    public void batchInsert(List<User> users, int chunkSize) {
+        Connection con = DataSourceUtils.getConnection(dataSource);
+        try {
+            String sql = "INSERT INTO users (id, name, email) VALUES (?, ?, ?)";
+            try (PreparedStatement ps = con.prepareStatement(sql)) {
+                int pending = 0;
+                for (User user : users) {
+                    if (user.getId() == null) {
+                        user.setId(userIds.nextId());
+                    }
+                    ps.setLong(1, user.getId());
+                    ps.setString(2, user.getName());
+                    ps.setString(3, user.getEmail());
+                    ps.addBatch();
+                    if (++pending == chunkSize) {
+                        ps.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    ps.executeBatch();
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to batch insert users", e);
+        } finally {
+            DataSourceUtils.releaseConnection(con, dataSource);
+        }
+    }
+
     /**
      * 示例 5：非事务环境中使用。
      * <p>
@@ -0,0 +1,271 @@
+package io.github.daihaowxg.spring.jdbc.repository;
+
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.util.ClassUtils;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandles;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 运行时生成字节码的 RowMapper。
+ * <p>
+ * 手写的 {@code rs.getLong("id")} 每一行都要按列名查找列下标，
+ * Spring 的 {@code BeanPropertyRowMapper} 每一行还要走一遍反射和类型转换。这里把这些开销都挪到了
+ * "每种结果集形状一次"：第一次遇到某种列组合时读取 {@link ResultSetMetaData}，把列按名称
+ * （忽略大小写和下划线）匹配到属性，然后生成一个隐藏类，它的代码和手写的按下标映射完全一样：
+ * <pre>
+ * User user = new User();
+ * long id = rs.getLong(1);
+ * user.setId(rs.wasNull() ? null : id);
+ * user.setName(rs.getString(2));
+ * ...
+ * </pre>
+ * 之所以不直接在循环里调用保存下来的 MethodHandle 或 setter 函数，是因为每一列都是一次无法内联的多态调用，
+ * 开销和按列名查找差不多；生成的代码每行只有一次调用，其余都是可以内联的直接调用。
+ * <p>
+ * 同一个 mapper 可以被多个线程共享；不同 SQL 的结果集形状不同，按列名和列类型的组合分别生成。
+ * 映射代码只缓存形状，不引用任何结果集；为了同一个结果集的后续行不再读取元数据，上一次的结果集
+ * 只以弱引用记住，结果集关闭后不会因为 mapper（通常是单例）还在而一直可达。
+ * 基本类型属性遇到 SQL NULL 时得到 0/false，包装类型得到 null。
+ *
+ * @param <T> 目标类型，需要公开的无参构造器和公开的 setter
+ */
+public final class GeneratedRowMapper<T> implements RowMapper<T> {
+
+    private static final String RESULT_SET = Type.getInternalName(ResultSet.class);
+
+    private static final String SHAPE_MAPPER = Type.getInternalName(ShapeMapper.class);
+
+    /**
+     * 基本类型对应的 ResultSet 读取方法
+     */
+    private static final Map<Class<?>, String> PRIMITIVE_GETTERS = Map.of(
+            long.class, "getLong",
+            int.class, "getInt",
+            short.class, "getShort",
+            byte.class, "getByte",
+            boolean.class, "getBoolean",
+            double.class, "getDouble",
+            float.class, "getFloat");
+
+    private final Class<T> type;
+
+    /**
+     * 规范化的属性名（小写、去掉下划线）到 setter 的映射
+     */
+    private final Map<String, Method> setters = new HashMap<>();
+
+    private final Map<String, ShapeMapper> shapes = new ConcurrentHashMap<>();
+
+    /**
+     * 上一次映射的结果集（弱引用）及其形状的映射代码，同一个结果集的后续行直接复用，不再读取元数据
+     */
+    private volatile Bound last;
+
+    private GeneratedRowMapper(Class<T> type) {
+        if (!Modifier.isPublic(type.getModifiers())) {
+            throw new IllegalArgumentException(type.getName() + " must be public");
+        }
+        try {
+            type.getConstructor();
+            for (PropertyDescriptor descriptor : Introspector.getBeanInfo(type, Object.class).getPropertyDescriptors()) {
+                Method setter = descriptor.getWriteMethod();
+                if (setter != null && Modifier.isPublic(setter.getDeclaringClass().getModifiers())) {
+                    setters.put(normalize(descriptor.getName()), setter);
+                }
+            }
+        } catch (NoSuchMethodException | IntrospectionException e) {
+            throw new IllegalArgumentException("Cannot create row mapper for " + type.getName(), e);
+        }
+        this.type = type;
+    }
+
+    public static <T> GeneratedRowMapper<T> newInstance(Class<T> type) {
+        return new GeneratedRowMapper<>(type);
+    }
+
+    @Override
+    public T mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Bound bound = last;
+        if (bound == null || bound.resultSet.get() != rs) {
+            bound = new Bound(new WeakReference<>(rs), resolve(rs.getMetaData()));
+            last = bound;
+        }
+        return type.cast(bound.mapper.map(rs));
+    }
+
+    /**
+     * 按结果集的列名和列类型组合取得映射代码，同一形状只生成一次。
+     */
+    private ShapeMapper resolve(ResultSetMetaData metaData) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        Method[] columns = new Method[columnCount];
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < columnCount; i++) {
+            String label = metaData.getColumnLabel(i + 1);
+            key.append(label).append(':').append(metaData.getColumnType(i + 1)).append(',');
+            columns[i] = setters.get(normalize(label));
+        }
+        return shapes.computeIfAbsent(key.toString(), k -> generate(columns));
+    }
+
+    /**
+     * 生成 {@link ShapeMapper} 的实现，columns[i] 是第 i + 1 列对应的 setter，没有对应属性的列为 null。
+     */
+    private ShapeMapper generate(Method[] columns) {
+        String owner = Type.getInternalName(GeneratedRowMapper.class) + "$Shape";
+        String target = Type.getInternalName(type);
+
+        // 分支汇合处栈上没有值、局部变量类型一致，不需要计算公共父类
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES) {
+            @Override
+            protected String getCommonSuperClass(String type1, String type2) {
+                return "java/lang/Object";
+            }
+        };
+        cw.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, owner, null,
+                "java/lang/Object", new String[]{SHAPE_MAPPER});
+
+        MethodVisitor init = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        init.visitCode();
+        init.visitVarInsn(Opcodes.ALOAD, 0);
+        init.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        init.visitInsn(Opcodes.RETURN);
+        init.visitMaxs(0, 0);
+        init.visitEnd();
+
+        // 局部变量：0 = this，1 = rs，2 = target，3/4 = 读取的基本类型值
+        MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "map",
+                "(L" + RESULT_SET + ";)Ljava/lang/Object;", null, new String[]{Type.getInternalName(SQLException.class)});
+        mv.visitCode();
+        mv.visitTypeInsn(Opcodes.NEW, target);
+        mv.visitInsn(Opcodes.DUP);
+        mv.visitMethodInsn(Opcodes.INVOKESPECIAL, target, "<init>", "()V", false);
+        mv.visitVarInsn(Opcodes.ASTORE, 2);
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i] != null) {
+                bindColumn(mv, i + 1, columns[i]);
+            }
+        }
+        mv.visitVarInsn(Opcodes.ALOAD, 2);
+        mv.visitInsn(Opcodes.ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+        cw.visitEnd();
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(cw.toByteArray(), true);
+            return (ShapeMapper) lookup.lookupClass().getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot generate row mapper for " + type.getName(), e);
+        }
+    }
+
+    /**
+     * 生成一列的读取和赋值代码。
+     */
+    private static void bindColumn(MethodVisitor mv, int index, Method setter) {
+        Class<?> propertyType = setter.getParameterTypes()[0];
+        Class<?> primitive = propertyType.isPrimitive() ? propertyType : unwrap(propertyType);
+
+        if (primitive != null && PRIMITIVE_GETTERS.containsKey(primitive)) {
+            Type primitiveType = Type.getType(primitive);
+            mv.visitVarInsn(Opcodes.ALOAD, 1);
+            pushInt(mv, index);
+            mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, RESULT_SET, PRIMITIVE_GETTERS.get(primitive),
+                    "(I)" + primitiveType.getDescriptor(), true);
+            if (propertyType.isPrimitive()) {
+                // target.setX(rs.getX(index))：SQL NULL 时驱动返回 0/false
+                mv.visitVarInsn(primitiveType.getOpcode(Opcodes.ISTORE), 3);
+                mv.visitVarInsn(Opcodes.ALOAD, 2);
+                mv.visitVarInsn(primitiveType.getOpcode(Opcodes.ILOAD), 3);
+            } else {
+                // target.setX(rs.wasNull() ? null : Wrapper.valueOf(value))
+                Label isNull = new Label();
+                Label set = new Label();
+                mv.visitVarInsn(primitiveType.getOpcode(Opcodes.ISTORE), 3);
+                mv.visitVarInsn(Opcodes.ALOAD, 1);
+                mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, RESULT_SET, "wasNull", "()Z", true);
+                mv.visitJumpInsn(Opcodes.IFNE, isNull);
+                mv.visitVarInsn(Opcodes.ALOAD, 2);
+                mv.visitVarInsn(primitiveType.getOpcode(Opcodes.ILOAD), 3);
+                mv.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(propertyType), "valueOf",
+                        "(" + primitiveType.getDescriptor() + ")" + Type.getDescriptor(propertyType), false);
+                mv.visitJumpInsn(Opcodes.GOTO, set);
+                mv.visitLabel(isNull);
+                mv.visitVarInsn(Opcodes.ALOAD, 2);
+                mv.visitInsn(Opcodes.ACONST_NULL);
+                mv.visitLabel(set);
+            }
+        } else {
+            mv.visitVarInsn(Opcodes.ALOAD, 2);
+            mv.visitVarInsn(Opcodes.ALOAD, 1);
+            pushInt(mv, index);
+            if (propertyType == String.class) {
+                mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, RESULT_SET, "getString", "(I)Ljava/lang/String;", true);
+            } else if (propertyType == BigDecimal.class) {
+                mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, RESULT_SET, "getBigDecimal",
+                        "(I)Ljava/math/BigDecimal;", true);
+            } else {
+                // 其他类型（如 LocalDateTime）交给驱动转换：rs.getObject(index, Type.class)
+                mv.visitLdcInsn(Type.getType(propertyType));
+                mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, RESULT_SET, "getObject",
+                        "(ILjava/lang/Class;)Ljava/lang/Object;", true);
+                mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(propertyType));
+            }
+        }
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, Type.getInternalName(setter.getDeclaringClass()),
+                setter.getName(), Type.getMethodDescriptor(setter), false);
+    }
+
+    private static Class<?> unwrap(Class<?> wrapper) {
+        for (Class<?> primitive : PRIMITIVE_GETTERS.keySet()) {
+            if (ClassUtils.resolvePrimitiveIfNecessary(primitive) == wrapper) {
+                return primitive;
+            }
+        }
+        return null;
+    }
+
+    private static void pushInt(MethodVisitor mv, int value) {
+        if (value <= 5) {
+            mv.visitInsn(Opcodes.ICONST_0 + value);
+        } else if (value <= Byte.MAX_VALUE) {
+            mv.visitIntInsn(Opcodes.BIPUSH, value);
+        } else {
+            mv.visitIntInsn(Opcodes.SIPUSH, value);
+        }
+    }
+
+    private static String normalize(String name) {
+        return name.replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    private record Bound(WeakReference<ResultSet> resultSet, ShapeMapper mapper) {
+    }
+
+    /**
+     * 生成的隐藏类实现的接口，每种结果集形状一个实现。
+     */
+    interface ShapeMapper {
+        Object map(ResultSet rs) throws SQLException;
+    }
+}
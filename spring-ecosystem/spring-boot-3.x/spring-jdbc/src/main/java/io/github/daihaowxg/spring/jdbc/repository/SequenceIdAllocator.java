@@ -0,0 +1,194 @@
+package io.github.daihaowxg.spring.jdbc.repository;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 基于序列表的主键分配器（pooled 优化器）。
+ * <p>
+ * 自增主键要求每插入一行就通过 {@code RETURN_GENERATED_KEYS} 取回主键，既多一次结果集处理，
+ * 也让部分驱动无法把多条 INSERT 合并成一个批次。这里改为在客户端分配主键：
+ * <ul>
+ *   <li>序列表 {@code id_sequence(name, next_val)} 中每个序列一行，{@code next_val} 是下一个未被预留的主键</li>
+ *   <li>每次用一个独立的短事务把 {@code next_val} 加上 blockSize，预留 {@code [next_val, next_val + blockSize)}
+ *       这一段主键，之后的 blockSize 次分配都不用访问数据库</li>
+ *   <li>内存中的分配是无锁的（{@link AtomicLong#getAndIncrement()}），只有当前号段用完时才有一个线程去预留新号段</li>
+ * </ul>
+ * 号段的预留由数据库的行锁保证互斥，所以多个分配器实例、多个 JVM 共用同一个序列也不会重复。
+ * 代价是主键不连续：进程重启或事务回滚时，已预留但未使用的主键会被跳过。
+ * <p>
+ * <b>注意：</b>同一张表的主键只能有一个来源。如果还有代码依赖自增列插入，
+ * 自增值可能落入某个已预留的号段，造成主键冲突。所以 users 表不再定义自增列，
+ * 各仓库的 save、saveAll、批量导入以及 MyBatis 的插入（见 {@code UserIdInterceptor}）都从 users 序列取主键，
+ * 并且注入同一个分配器 Bean（见 {@link SequenceIdAllocatorConfig}），共用内存中的号段。
+ */
+public class SequenceIdAllocator {
+
+    private static final String RESERVE_SQL = "UPDATE id_sequence SET next_val = next_val + ? WHERE name = ?";
+    private static final String SELECT_SQL = "SELECT next_val FROM id_sequence WHERE name = ?";
+    private static final String INSERT_SQL = "INSERT INTO id_sequence (name, next_val) VALUES (?, 1)";
+
+    private final DataSource dataSource;
+
+    private final String sequenceName;
+
+    private final int blockSize;
+
+    private final AtomicReference<Block> current = new AtomicReference<>(Block.EMPTY);
+
+    private final AtomicLong reservations = new AtomicLong();
+
+    /**
+     * 预留号段要访问数据库，用 ReentrantLock 而不是 synchronized，虚拟线程等待时不会固定载体线程
+     */
+    private final Lock refillLock = new ReentrantLock();
+
+    /**
+     * @param sequenceName 序列表中的序列名，不存在时从 1 开始创建
+     * @param blockSize    每次预留的主键个数，越大访问数据库越少，重启时浪费的主键也越多
+     */
+    public SequenceIdAllocator(DataSource dataSource, String sequenceName, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize must be positive");
+        }
+        this.dataSource = dataSource;
+        this.sequenceName = sequenceName;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * 同一个序列、不同号段大小的分配器，用于一次要分配大量主键的场景（如按块批量导入，每块预留一次）。
+     */
+    public SequenceIdAllocator withBlockSize(int blockSize) {
+        return new SequenceIdAllocator(dataSource, sequenceName, blockSize);
+    }
+
+    /**
+     * 分配一个主键。
+     */
+    public long nextId() {
+        while (true) {
+            Block block = current.get();
+            long id = block.next.getAndIncrement();
+            if (id < block.end) {
+                return id;
+            }
+            refill(block);
+        }
+    }
+
+    /**
+     * 当前号段用完时预留新号段，只有一个线程会真正访问数据库，其余线程等它完成后重试。
+     */
+    private void refill(Block exhausted) {
+        refillLock.lock();
+        try {
+            if (current.get() == exhausted) {
+                long start = reserve();
+                current.set(new Block(start, start + blockSize));
+            }
+        } finally {
+            refillLock.unlock();
+        }
+    }
+
+    /**
+     * 在独立的事务中预留一个号段，不参与调用方的事务：调用方回滚时号段也不会被退回，
+     * 否则其他分配器可能再次拿到同一段主键。
+     *
+     * @return 号段的起始值
+     */
+    private long reserve() {
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                long next = reserve(conn);
+                conn.commit();
+                reservations.incrementAndGet();
+                return next - blockSize;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error reserving ids from sequence " + sequenceName, e);
+        }
+    }
+
+    /**
+     * UPDATE 会锁住序列行，直到事务提交，所以随后读到的 next_val 只属于当前事务。
+     *
+     * @return 预留后的 next_val，即号段的结束值（不含）
+     */
+    private long reserve(Connection conn) throws SQLException {
+        for (int attempt = 0; ; attempt++) {
+            try (PreparedStatement update = conn.prepareStatement(RESERVE_SQL)) {
+                update.setInt(1, blockSize);
+                update.setString(2, sequenceName);
+                if (update.executeUpdate() == 1) {
+                    try (PreparedStatement select = conn.prepareStatement(SELECT_SQL)) {
+                        select.setString(1, sequenceName);
+                        try (ResultSet rs = select.executeQuery()) {
+                            rs.next();
+                            return rs.getLong(1);
+                        }
+                    }
+                }
+            }
+            if (attempt > 0) {
+                throw new SQLException("Sequence " + sequenceName + " could not be created");
+            }
+            createSequence(conn);
+        }
+    }
+
+    private void createSequence(Connection conn) throws SQLException {
+        try (PreparedStatement insert = conn.prepareStatement(INSERT_SQL)) {
+            insert.setString(1, sequenceName);
+            insert.executeUpdate();
+        } catch (SQLException e) {
+            // 其他分配器同时创建了这一行：主键冲突，直接重试 UPDATE 即可
+            if (e.getSQLState() == null || !e.getSQLState().startsWith("23")) {
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 访问数据库预留号段的次数，便于测试和监控。
+     */
+    public long getReservations() {
+        return reservations.get();
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    /**
+     * 一段已预留的主键 [next, end)。
+     */
+    private static final class Block {
+
+        private static final Block EMPTY = new Block(0, 0);
+
+        private final AtomicLong next;
+
+        private final long end;
+
+        private Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
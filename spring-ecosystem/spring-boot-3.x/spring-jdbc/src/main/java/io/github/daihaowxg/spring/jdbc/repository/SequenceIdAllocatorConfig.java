@@ -0,0 +1,24 @@
+package io.github.daihaowxg.spring.jdbc.repository;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * 主键分配器配置。
+ * <p>
+ * 每个序列只声明一个 {@link SequenceIdAllocator} Bean，各仓库和 MyBatis 插件注入同一个实例。
+ * 各自创建分配器时，每个实例都会预留自己的号段，重启时浪费的主键成倍增加，号段预留也更频繁。
+ */
+@Configuration
+public class SequenceIdAllocatorConfig {
+
+    /**
+     * users 表的主键序列
+     */
+    @Bean
+    public SequenceIdAllocator userIdAllocator(DataSource dataSource) {
+        return new SequenceIdAllocator(dataSource, "users", 100);
+    }
+}
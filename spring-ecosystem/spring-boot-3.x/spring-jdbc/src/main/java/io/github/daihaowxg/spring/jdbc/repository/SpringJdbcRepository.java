@@ -1,16 +1,22 @@
 package io.github.daihaowxg.spring.jdbc.repository;
 
+import io.github.daihaowxg.spring.jdbc.columnar.ColumnChunk;
+import io.github.daihaowxg.spring.jdbc.columnar.ColumnarReader;
+import io.github.daihaowxg.spring.jdbc.columnar.ColumnarTable;
 import io.github.daihaowxg.spring.jdbc.entity.User;
+import io.github.daihaowxg.keyset.KeysetIterator;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
-import org.springframework.jdbc.support.GeneratedKeyHolder;
-import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
 
 import java.sql.PreparedStatement;
-import java.sql.Statement;
+import java.sql.ResultSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Spring JDBC 用户仓库实现。
@@ -26,43 +32,70 @@ import java.util.Optional;
 @Repository
 public class SpringJdbcRepository {
 
+    private static final int BATCH_SIZE = 1000;
+
+    /**
+     * 分析查询：邮箱域名取值很少，做字典编码，便于按域名分组
+     */
+    private static final String COLUMNAR_SQL = "SELECT id, name, email, "
+            + "SUBSTRING(email, LOCATE('@', email) + 1) AS email_domain FROM users ORDER BY id";
+
     private final JdbcTemplate jdbcTemplate;
 
-    public SpringJdbcRepository(JdbcTemplate jdbcTemplate) {
+    private final SequenceIdAllocator userIds;
+
+    private final ColumnarReader columnarReader;
+
+    public SpringJdbcRepository(JdbcTemplate jdbcTemplate, SequenceIdAllocator userIds) {
         this.jdbcTemplate = jdbcTemplate;
+        this.userIds = userIds;
+        this.columnarReader = new ColumnarReader(jdbcTemplate);
     }
 
     // RowMapper 定义了如何将 ResultSet 的一行映射为 User 对象
-    // 这可以被多个查询方法复用，避免了代码重复
-    private final RowMapper<User> userRowMapper = (rs, rowNum) -> new User(
-        rs.getLong("id"),
-        rs.getString("name"),
-        rs.getString("email")
-    );
+    // 这可以被多个查询方法复用，避免了代码重复。
+    // 这里没有手写 rs.getLong("id") 这样按列名读取，而是每种结果集只解析一次列下标，
+    // 并生成按下标读取、直接调用 setter 的映射代码（见 GeneratedRowMapper）
+    private final RowMapper<User> userRowMapper = GeneratedRowMapper.newInstance(User.class);
 
     /**
      * 保存用户。
      * <p>
-     * 即使是复杂的获取生成主键的操作，Spring 也提供了 KeyHolder 辅助类来简化。
+     * 主键由 {@link SequenceIdAllocator} 在插入前分配，和 {@link #saveAll(List)} 共用同一个序列，
+     * 不需要用 KeyHolder 取回自增主键，一次 {@code update} 即可。已经有 id 的用户保持原 id。
      */
     public User save(User user) {
-        String sql = "INSERT INTO users (name, email) VALUES (?, ?)";
-        KeyHolder keyHolder = new GeneratedKeyHolder();
-
-        //即使需要使用回调来创建 Statement，依然不需要关心资源的关闭
-        jdbcTemplate.update(connection -> {
-            PreparedStatement ps = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
-            ps.setString(1, user.getName());
-            ps.setString(2, user.getEmail());
-            return ps;
-        }, keyHolder);
-
-        if (keyHolder.getKey() != null) {
-            user.setId(keyHolder.getKey().longValue());
+        if (user.getId() == null) {
+            user.setId(userIds.nextId());
         }
+        String sql = "INSERT INTO users (id, name, email) VALUES (?, ?, ?)";
+        jdbcTemplate.update(sql, user.getId(), user.getName(), user.getEmail());
         return user;
     }
 
+    /**
+     * 批量保存用户。
+     * <p>
+     * 主键由 {@link SequenceIdAllocator} 预先分配，{@code batchUpdate} 每 {@code BATCH_SIZE} 行执行一次批次。
+     * 不在事务中调用时每个批次单独提交，需要整体成功或失败时由调用方开启事务。
+     *
+     * @return 传入的用户列表，id 已回填
+     */
+    public List<User> saveAll(List<User> users) {
+        for (User user : users) {
+            if (user.getId() == null) {
+                user.setId(userIds.nextId());
+            }
+        }
+        String sql = "INSERT INTO users (id, name, email) VALUES (?, ?, ?)";
+        jdbcTemplate.batchUpdate(sql, users, BATCH_SIZE, (ps, user) -> {
+            ps.setLong(1, user.getId());
+            ps.setString(2, user.getName());
+            ps.setString(3, user.getEmail());
+        });
+        return users;
+    }
+
     /**
      * 根据 ID 查询用户。
      * <p>
@@ -102,4 +135,70 @@ public class SpringJdbcRepository {
         String sql = "DELETE FROM users WHERE id = ?";
         jdbcTemplate.update(sql, id);
     }
+
+    /**
+     * 流式查询所有用户。
+     * <p>
+     * {@link JdbcTemplate#queryForStream} 返回的 Stream 在关闭时会释放 ResultSet、Statement 和连接，
+     * 所以调用方必须关闭它（推荐 try-with-resources）。这里通过 PreparedStatementCreator
+     * 指定只进、只读的结果集和 fetchSize，让驱动分批拉取，而不是把整张表读进内存。
+     *
+     * @param fetchSize 每次从数据库拉取的行数
+     */
+    public Stream<User> streamAll(int fetchSize) {
+        String sql = "SELECT id, name, email FROM users ORDER BY id";
+        return jdbcTemplate.queryForStream(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, userRowMapper);
+    }
+
+    /**
+     * 游标回调方式遍历所有用户。
+     * <p>
+     * 与 {@link #streamAll(int)} 相比不需要调用方关闭任何资源：方法返回时连接已经归还，
+     * 但消费逻辑只能写在回调里。
+     */
+    public void forEachUser(int fetchSize, Consumer<User> consumer) {
+        String sql = "SELECT id, name, email FROM users ORDER BY id";
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, rs -> {
+            consumer.accept(userRowMapper.mapRow(rs, rs.getRow()));
+        });
+    }
+
+    /**
+     * 查询 id 大于 afterId 的一页用户（键集分页）。
+     */
+    public List<User> findPageAfter(long afterId, int limit) {
+        String sql = "SELECT id, name, email FROM users WHERE id > ? ORDER BY id LIMIT ?";
+        return jdbcTemplate.query(sql, userRowMapper, afterId, limit);
+    }
+
+    /**
+     * 按 id 顺序逐页遍历所有用户，每页单独借用、归还连接。
+     */
+    public Iterator<User> iterateByKeyset(int pageSize) {
+        return new KeysetIterator<>(this::findPageAfter, User::getId, pageSize);
+    }
+
+    /**
+     * 按列分块遍历所有用户，列为 id、name、email 和字典编码的 email_domain。
+     * <p>
+     * 每个分块只有几个基本类型数组，不创建 User 对象，适合只做过滤、聚合或导出的分析任务。
+     */
+    public void forEachUserChunk(int chunkSize, Consumer<ColumnChunk> consumer) {
+        columnarReader.forEachChunk(COLUMNAR_SQL, chunkSize, Set.of("email_domain"), consumer);
+    }
+
+    /**
+     * 按列读取所有用户，列同 {@link #forEachUserChunk(int, Consumer)}。
+     */
+    public ColumnarTable findAllColumnar(int chunkSize) {
+        return columnarReader.read(COLUMNAR_SQL, chunkSize, Set.of("email_domain"));
+    }
 }
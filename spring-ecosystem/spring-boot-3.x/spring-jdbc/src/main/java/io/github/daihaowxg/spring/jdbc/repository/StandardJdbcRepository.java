@@ -1,6 +1,7 @@
 package io.github.daihaowxg.spring.jdbc.repository;
 
 import io.github.daihaowxg.spring.jdbc.entity.User;
+import io.github.daihaowxg.keyset.KeysetIterator;
 import org.springframework.stereotype.Repository;
 
 import javax.sql.DataSource;
@@ -8,10 +9,28 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.SQLTransientException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * 标准 JDBC 用户仓库实现。
@@ -27,82 +46,126 @@ import java.util.Optional;
  *   <li>此过程中极其重要的：手动关闭资源 (try-with-resources)</li>
  *   <li>处理受检异常 (SQLException)</li>
  * </ul>
+ * <p>
+ * 结果集通过 {@link GeneratedRowMapper} 按列下标映射，而不是每行按列名查找。
+ * 语句总是在连接池借出的连接上创建、用完即关，连接池才能在归还时清理语句、发现泄漏，
+ * sql-profiler 也能统计到；需要复用预编译语句时开启驱动或连接池的语句缓存
+ * （如 Druid 的 PSCache、MySQL 的 cachePrepStmts），H2 自己会在会话内缓存解析过的 SQL。
  */
 @Repository
 public class StandardJdbcRepository {
 
+    private static final String INSERT_SQL = "INSERT INTO users (id, name, email) VALUES (?, ?, ?)";
+    private static final String FIND_BY_ID_SQL = "SELECT id, name, email FROM users WHERE id = ?";
+    private static final String FIND_ALL_SQL = "SELECT id, name, email FROM users";
+    private static final String UPDATE_SQL = "UPDATE users SET name = ?, email = ? WHERE id = ?";
+    private static final String DELETE_SQL = "DELETE FROM users WHERE id = ?";
+    private static final String FIND_PAGE_AFTER_SQL = "SELECT id, name, email FROM users WHERE id > ? ORDER BY id LIMIT ?";
+
+    private static final GeneratedRowMapper<User> USER_ROW_MAPPER = GeneratedRowMapper.newInstance(User.class);
+
     private final DataSource dataSource;
 
-    public StandardJdbcRepository(DataSource dataSource) {
+    private final SequenceIdAllocator userIds;
+
+    /**
+     * @param userIds users 序列的分配器，和其他仓库共用同一个实例（见 {@link SequenceIdAllocatorConfig}）
+     */
+    public StandardJdbcRepository(DataSource dataSource, SequenceIdAllocator userIds) {
         this.dataSource = dataSource;
+        this.userIds = userIds;
     }
 
     /**
      * 保存用户。
      * <p>
-     * 演示了插入数据并获取自动生成的主键。
+     * 演示了插入数据的完整流程。主键不依赖自增列，而是由 {@link SequenceIdAllocator} 在插入前分配，
+     * 和 {@link #saveAll(List)}、{@link #bulkInsert(Iterator, BulkLoadOptions)} 共用同一个主键来源。
+     * 已经有 id 的用户保持原 id。
      * 注意这里大量的样板代码：
      * 1. try-with-resources 确保 Connection 和 PreparedStatement 被关闭。
      * 2. 定义 SQL。
      * 3. 设置参数 (index 从 1 开始)。
-     * 4. 显式请求 RETURN_GENERATED_KEYS。
-     * 5. 手动遍历 ResultSet 获取主键。
-     * 6. 异常处理 (SQLException 是受检异常，通常需要包装为运行时异常)。
+     * 4. 检查影响的行数。
+     * 5. 异常处理 (SQLException 是受检异常，通常需要包装为运行时异常)。
      */
     public User save(User user) {
-        String sql = "INSERT INTO users (name, email) VALUES (?, ?)";
-        // 1. 获取连接 (Connection) 和 预编译语句 (PreparedStatement)
-        // 使用 try-with-resources 自动关闭资源，这是 JDBC 最佳实践
+        if (user.getId() == null) {
+            user.setId(userIds.nextId());
+        }
+        // 1. 获取连接 (Connection)，使用 try-with-resources 自动归还，这是 JDBC 最佳实践
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            
+             // 预编译语句 (PreparedStatement)
+             PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
+
             // 2. 设置参数
-            pstmt.setString(1, user.getName());
-            pstmt.setString(2, user.getEmail());
-            
+            pstmt.setLong(1, user.getId());
+            pstmt.setString(2, user.getName());
+            pstmt.setString(3, user.getEmail());
+
             // 3. 执行更新
             int affectedRows = pstmt.executeUpdate();
             if (affectedRows == 0) {
                 throw new SQLException("Creating user failed, no rows affected.");
             }
+            return user;
+        } catch (SQLException e) {
+            // 4. 异常转换：将 SQL 异常转换为运行时异常
+            throw new RuntimeException("Error saving user", e);
+        }
+    }
 
-            // 4. 获取生成的主键
-            try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    user.setId(generatedKeys.getLong(1));
-                } else {
-                    throw new SQLException("Creating user failed, no ID obtained.");
+    /**
+     * 批量保存用户。
+     * <p>
+     * 主键由 {@link SequenceIdAllocator} 在客户端预先分配，插入时不需要取回主键，
+     * 所有行可以放进同一个批次、同一个事务提交。已经有 id 的用户保持原 id。
+     *
+     * @return 传入的用户列表，id 已回填
+     */
+    public List<User> saveAll(List<User> users) {
+        assignIds(users, userIds);
+        try (Connection conn = dataSource.getConnection()) {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
+                for (User user : users) {
+                    pstmt.setLong(1, user.getId());
+                    pstmt.setString(2, user.getName());
+                    pstmt.setString(3, user.getEmail());
+                    pstmt.addBatch();
                 }
+                pstmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
             }
-            return user;
         } catch (SQLException e) {
-            // 5. 异常转换：将 SQL 异常转换为运行时异常
-            throw new RuntimeException("Error saving user", e);
+            throw new RuntimeException("Error saving users", e);
         }
+        return users;
     }
 
     /**
      * 根据 ID 查询用户。
      * <p>
      * 演示了基本的 SELECT 查询。
-     * 需要手动从 ResultSet 中提取每一列的数据并组装成对象。
+     * 需要从 ResultSet 中提取每一列的数据并组装成对象。
      */
     public Optional<User> findById(Long id) {
-        String sql = "SELECT id, name, email FROM users WHERE id = ?";
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
+             PreparedStatement pstmt = conn.prepareStatement(FIND_BY_ID_SQL)) {
+
             pstmt.setLong(1, id);
-            
+
             try (ResultSet rs = pstmt.executeQuery()) {
                 // 手动判断是否有结果
                 if (rs.next()) {
-                    // 手动映射结果集到对象
-                    return Optional.of(new User(
-                        rs.getLong("id"),
-                        rs.getString("name"),
-                        rs.getString("email")
-                    ));
+                    // 把结果集的一行映射为对象
+                    return Optional.of(mapUser(rs));
                 }
             }
         } catch (SQLException e) {
@@ -117,19 +180,14 @@ public class StandardJdbcRepository {
      * 演示了查询列表。需要手动循环 ResultSet。
      */
     public List<User> findAll() {
-        String sql = "SELECT id, name, email FROM users";
         List<User> users = new ArrayList<>();
         try (Connection conn = dataSource.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            
+             PreparedStatement pstmt = conn.prepareStatement(FIND_ALL_SQL);
+             ResultSet rs = pstmt.executeQuery()) {
+
             // 循环遍历结果集
             while (rs.next()) {
-                users.add(new User(
-                    rs.getLong("id"),
-                    rs.getString("name"),
-                    rs.getString("email")
-                ));
+                users.add(mapUser(rs));
             }
         } catch (SQLException e) {
             throw new RuntimeException("Error finding all users", e);
@@ -141,10 +199,9 @@ public class StandardJdbcRepository {
      * 更新用户。
      */
     public void update(User user) {
-        String sql = "UPDATE users SET name = ?, email = ? WHERE id = ?";
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
+             PreparedStatement pstmt = conn.prepareStatement(UPDATE_SQL)) {
+
             pstmt.setString(1, user.getName());
             pstmt.setString(2, user.getEmail());
             pstmt.setLong(3, user.getId());
@@ -159,10 +216,9 @@ public class StandardJdbcRepository {
      * 根据 ID 删除用户。
      */
     public void deleteById(Long id) {
-        String sql = "DELETE FROM users WHERE id = ?";
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
+             PreparedStatement pstmt = conn.prepareStatement(DELETE_SQL)) {
+
             pstmt.setLong(1, id);
             
             pstmt.executeUpdate();
@@ -170,4 +226,362 @@ public class StandardJdbcRepository {
             throw new RuntimeException("Error deleting user", e);
         }
     }
+
+    /**
+     * 流式查询所有用户。
+     * <p>
+     * 与 {@link #findAll()} 一次性把整张表读进 List 不同，这里返回一个惰性的 Stream：
+     * 只使用只进（TYPE_FORWARD_ONLY）、只读的结果集，驱动每次从数据库取 fetchSize 行，
+     * 内存占用与表大小无关。
+     * <p>
+     * <b>注意：</b>Stream 背后持有 Connection、PreparedStatement 和 ResultSet，
+     * 调用方必须关闭 Stream（推荐 try-with-resources），否则连接不会归还。
+     * 部分驱动（如 PostgreSQL）只有在关闭自动提交时才会真正按 fetchSize 分批拉取。
+     *
+     * @param fetchSize 每次从数据库拉取的行数
+     */
+    public Stream<User> streamAll(int fetchSize) {
+        String sql = "SELECT id, name, email FROM users ORDER BY id";
+        Connection conn = null;
+        PreparedStatement pstmt = null;
+        try {
+            conn = dataSource.getConnection();
+            pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(fetchSize);
+            ResultSet rs = pstmt.executeQuery();
+
+            Spliterator<User> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                    Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super User> action) {
+                    try {
+                        if (!rs.next()) {
+                            return false;
+                        }
+                        action.accept(mapUser(rs));
+                        return true;
+                    } catch (SQLException e) {
+                        throw new RuntimeException("Error streaming users", e);
+                    }
+                }
+            };
+
+            Connection connToClose = conn;
+            PreparedStatement pstmtToClose = pstmt;
+            // Stream 关闭时按 ResultSet -> PreparedStatement -> Connection 的顺序释放资源
+            return StreamSupport.stream(spliterator, false)
+                    .onClose(() -> closeQuietly(rs, pstmtToClose, connToClose));
+        } catch (SQLException e) {
+            closeQuietly(null, pstmt, conn);
+            throw new RuntimeException("Error streaming users", e);
+        }
+    }
+
+    /**
+     * 查询 id 大于 afterId 的一页用户（键集分页）。
+     */
+    public List<User> findPageAfter(long afterId, int limit) {
+        List<User> users = new ArrayList<>(limit);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(FIND_PAGE_AFTER_SQL)) {
+
+            pstmt.setLong(1, afterId);
+            pstmt.setInt(2, limit);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    users.add(mapUser(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding users after id " + afterId, e);
+        }
+        return users;
+    }
+
+    /**
+     * 按 id 顺序逐页遍历所有用户，每页单独借用、归还连接。
+     */
+    public Iterator<User> iterateByKeyset(int pageSize) {
+        return new KeysetIterator<>(this::findPageAfter, User::getId, pageSize);
+    }
+
+    /**
+     * 批量导入用户。
+     */
+    public long bulkInsert(List<User> users, BulkLoadOptions options) {
+        return bulkInsert(users.iterator(), options);
+    }
+
+    /**
+     * 批量导入用户。
+     * <p>
+     * 与一次性 executeBatch 整个列表相比：
+     * <ul>
+     *   <li>按 chunkSize 分块，每块单独提交，瞬时故障只重试这一块，已提交的块不受影响：死锁、锁超时在同一连接上重试，
+     *   连接中断时换一个新连接重新写入；违反约束这类重试也不会成功的错误不重试</li>
+     *   <li>可选多行 VALUES，一条语句插入 rowsPerStatement 行</li>
+     *   <li>可选并行，每个工作线程从 DataSource 借用自己的连接，互不共享</li>
+     * </ul>
+     * 数据源是迭代器，工作线程按需从中取下一块，所以内存中最多只有 parallelism 个分块。
+     * 由于按块提交，整体不是一个事务：中途失败时之前的块已经写入。任何一块最终失败后，
+     * 其他工作线程不再取新的分块，等所有工作线程都停下后才抛出异常，返回时不会还有分块在提交。
+     * <p>
+     * 主键和 {@link #save(User)} 一样来自 users 序列，每次导入用一个号段大小等于 chunkSize 的分配器，
+     * 每块只预留一次号段；主键在写入前分配，重试时沿用同一组主键。
+     *
+     * @return 插入的总行数
+     */
+    public long bulkInsert(Iterator<User> users, BulkLoadOptions options) {
+        AtomicLong inserted = new AtomicLong();
+        Lock usersLock = new ReentrantLock();
+        AtomicBoolean aborted = new AtomicBoolean();
+        SequenceIdAllocator chunkIds = userIds.withBlockSize(options.getChunkSize());
+        if (options.getParallelism() <= 1) {
+            loadChunks(users, usersLock, aborted, chunkIds, options, inserted);
+            return inserted.get();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(options.getParallelism());
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < options.getParallelism(); i++) {
+            workers.add(executor.submit(() -> loadChunks(users, usersLock, aborted, chunkIds, options, inserted)));
+        }
+        executor.shutdown();
+
+        // 逐个等待所有工作线程，第一个失败只记录下来，其余线程看到 aborted 后写完手头的分块就会退出
+        Throwable failure = null;
+        for (Future<?> worker : workers) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                aborted.set(true);
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            } catch (InterruptedException e) {
+                aborted.set(true);
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Bulk insert interrupted", e);
+            }
+        }
+        if (failure != null) {
+            throw new RuntimeException("Error bulk inserting users", failure);
+        }
+        return inserted.get();
+    }
+
+    /**
+     * 单个工作线程：借用一个连接，不断取下一块写入，直到数据源耗尽或某个工作线程失败。
+     * 连接故障时换一个新连接继续，最后归还的是当时正在使用的连接。
+     */
+    private void loadChunks(Iterator<User> users, Lock usersLock, AtomicBoolean aborted, SequenceIdAllocator chunkIds,
+                            BulkLoadOptions options, AtomicLong inserted) {
+        Connection conn = null;
+        try {
+            conn = borrowChunkConnection();
+            List<User> chunk;
+            while (!(chunk = nextChunk(users, usersLock, aborted, options.getChunkSize())).isEmpty()) {
+                assignIds(chunk, chunkIds);
+                conn = insertChunkWithRetry(conn, chunk, options);
+                inserted.addAndGet(chunk.size());
+            }
+        } catch (SQLException e) {
+            aborted.set(true);
+            throw new RuntimeException("Error bulk inserting users", e);
+        } catch (RuntimeException e) {
+            // 迭代器也可能在取下一块时失败
+            aborted.set(true);
+            throw e;
+        } finally {
+            returnChunkConnection(conn);
+        }
+    }
+
+    private Connection borrowChunkConnection() throws SQLException {
+        Connection conn = dataSource.getConnection();
+        try {
+            conn.setAutoCommit(false);
+            return conn;
+        } catch (SQLException e) {
+            closeQuietly(conn);
+            throw e;
+        }
+    }
+
+    private static void returnChunkConnection(Connection conn) {
+        try {
+            if (conn != null && !conn.isClosed()) {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            // 连接已经不可用，交给连接池在 close 时处理
+        } finally {
+            closeQuietly(conn);
+        }
+    }
+
+    private static void closeQuietly(Connection conn) {
+        if (conn == null) {
+            return;
+        }
+        try {
+            conn.close();
+        } catch (SQLException e) {
+            // 连接已经断开，关闭失败不影响结果
+        }
+    }
+
+    private static List<User> nextChunk(Iterator<User> users, Lock usersLock, AtomicBoolean aborted, int chunkSize) {
+        // 多个工作线程共享同一个迭代器。迭代器可能边遍历边查库（如 KeysetIterator），
+        // 用 ReentrantLock 而不是 synchronized，虚拟线程在这里阻塞时不会固定载体线程
+        usersLock.lock();
+        try {
+            if (aborted.get() || !users.hasNext()) {
+                return Collections.emptyList();
+            }
+            List<User> chunk = new ArrayList<>(chunkSize);
+            while (chunk.size() < chunkSize && users.hasNext()) {
+                chunk.add(users.next());
+            }
+            return chunk;
+        } finally {
+            usersLock.unlock();
+        }
+    }
+
+    /**
+     * 写入一块并提交，返回之后继续使用的连接。
+     * <ul>
+     *   <li>事务冲突（SQLState 40，死锁、序列化失败）和其他 {@link SQLTransientException}：
+     *       连接本身没问题，回滚后在同一连接上重试</li>
+     *   <li>连接故障（SQLState 08、{@link SQLRecoverableException}、{@link SQLTransientConnectionException}）：
+     *       这个连接上的事务状态已经不可信，丢弃后从 DataSource 借一个新连接，整块重新写入</li>
+     *   <li>违反约束（23）等错误重试多少次结果都一样，直接失败</li>
+     * </ul>
+     */
+    private Connection insertChunkWithRetry(Connection conn, List<User> chunk, BulkLoadOptions options)
+            throws SQLException {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                insertChunk(conn, chunk, options.getRowsPerStatement());
+                conn.commit();
+                return conn;
+            } catch (SQLException e) {
+                boolean connectionFailure = isConnectionFailure(e);
+                if (connectionFailure) {
+                    closeQuietly(conn);
+                } else {
+                    conn.rollback();
+                }
+                if (attempt >= options.getMaxRetries() || !(connectionFailure || isTransient(e))) {
+                    throw new SQLException("Chunk of " + chunk.size() + " users starting with "
+                            + chunk.get(0) + " failed on attempt " + (attempt + 1), e);
+                }
+                if (connectionFailure) {
+                    conn = borrowChunkConnection();
+                }
+            }
+        }
+    }
+
+    /**
+     * 是否是连接故障。批量执行的异常可能只是外层包装，沿着 cause 逐层检查。
+     */
+    private static boolean isConnectionFailure(SQLException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLRecoverableException || cause instanceof SQLTransientConnectionException) {
+                return true;
+            }
+            if (cause instanceof SQLException sqlException && sqlException.getSQLState() != null
+                    && sqlException.getSQLState().startsWith("08")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 是否可以在同一连接上重试：事务回滚（SQLState 40）以及驱动标记为瞬时的异常。
+     */
+    private static boolean isTransient(SQLException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientException) {
+                return true;
+            }
+            if (cause instanceof SQLException sqlException && sqlException.getSQLState() != null
+                    && sqlException.getSQLState().startsWith("40")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void insertChunk(Connection conn, List<User> chunk, int rowsPerStatement) throws SQLException {
+        int fullStatements = chunk.size() / rowsPerStatement;
+        int offset = 0;
+        if (fullStatements > 0) {
+            try (PreparedStatement pstmt = conn.prepareStatement(multiRowInsertSql(rowsPerStatement))) {
+                for (int i = 0; i < fullStatements; i++) {
+                    bindRows(pstmt, chunk, offset, rowsPerStatement);
+                    pstmt.addBatch();
+                    offset += rowsPerStatement;
+                }
+                pstmt.executeBatch();
+            }
+        }
+        int remaining = chunk.size() - offset;
+        if (remaining > 0) {
+            try (PreparedStatement pstmt = conn.prepareStatement(multiRowInsertSql(remaining))) {
+                bindRows(pstmt, chunk, offset, remaining);
+                pstmt.executeUpdate();
+            }
+        }
+    }
+
+    private static void bindRows(PreparedStatement pstmt, List<User> chunk, int offset, int rows) throws SQLException {
+        int index = 1;
+        for (int i = offset; i < offset + rows; i++) {
+            User user = chunk.get(i);
+            pstmt.setLong(index++, user.getId());
+            pstmt.setString(index++, user.getName());
+            pstmt.setString(index++, user.getEmail());
+        }
+    }
+
+    private static String multiRowInsertSql(int rows) {
+        StringBuilder sql = new StringBuilder(INSERT_SQL);
+        for (int i = 1; i < rows; i++) {
+            sql.append(", (?, ?, ?)");
+        }
+        return sql.toString();
+    }
+
+    /**
+     * 给还没有 id 的用户分配主键
+     */
+    private static void assignIds(List<User> users, SequenceIdAllocator allocator) {
+        for (User user : users) {
+            if (user.getId() == null) {
+                user.setId(allocator.nextId());
+            }
+        }
+    }
+
+    private static User mapUser(ResultSet rs) throws SQLException {
+        return USER_ROW_MAPPER.mapRow(rs, rs.getRow());
+    }
+
+    private static void closeQuietly(ResultSet rs, Statement stmt, Connection conn) {
+        for (AutoCloseable resource : new AutoCloseable[]{rs, stmt, conn}) {
+            if (resource != null) {
+                try {
+                    resource.close();
+                } catch (Exception ignored) {
+                    // 关闭失败不影响后续资源的释放
+                }
+            }
+        }
+    }
 }
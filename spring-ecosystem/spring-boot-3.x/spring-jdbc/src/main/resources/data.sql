@@ -1,3 +1,9 @@
-INSERT INTO users (name, email) VALUES
-('John Doe', 'john.doe@example.com'),
-('Jane Smith', 'jane.smith@example.com');
+-- 多个测试上下文共用同一个内存库时脚本会重复执行，已存在的行保持不变
+MERGE INTO users (id, name, email) KEY (id) VALUES
+(1, 'John Doe', 'john.doe@example.com'),
+(2, 'Jane Smith', 'jane.smith@example.com');
+
+-- users 的主键序列从现有数据之后开始；序列已存在时不再改动，避免回退到已预留的号段
+INSERT INTO id_sequence (name, next_val)
+SELECT 'users', (SELECT COALESCE(MAX(id), 0) + 1 FROM users)
+WHERE NOT EXISTS (SELECT 1 FROM id_sequence WHERE name = 'users');
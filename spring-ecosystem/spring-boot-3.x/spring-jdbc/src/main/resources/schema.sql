@@ -1,5 +1,12 @@
+-- 主键由 SequenceIdAllocator 分配，不定义自增列，避免两个主键来源互相冲突
 CREATE TABLE IF NOT EXISTS users (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id BIGINT PRIMARY KEY,
     name VARCHAR(255) NOT NULL,
     email VARCHAR(255) NOT NULL
 );
+
+-- 主键序列表，SequenceIdAllocator 从这里按号段预留主键
+CREATE TABLE IF NOT EXISTS id_sequence (
+    name VARCHAR(64) PRIMARY KEY,
+    next_val BIGINT NOT NULL
+);
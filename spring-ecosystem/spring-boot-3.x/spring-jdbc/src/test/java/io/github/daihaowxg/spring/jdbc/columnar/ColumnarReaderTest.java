@@ -0,0 +1,241 @@
+package io.github.daihaowxg.spring.jdbc.columnar;
+
+import io.github.daihaowxg.spring.jdbc.entity.User;
+import io.github.daihaowxg.spring.jdbc.repository.SequenceIdAllocator;
+import io.github.daihaowxg.spring.jdbc.repository.SpringJdbcRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 列式读取测试：聚合结果与 SQL 一致、文件导出后能原样读回，并对比 List&lt;User&gt; 的堆占用和耗时。
+ * <p>
+ * 行数可以通过 {@code -Dcolumnar.rows=...} 调整，默认 50 万行。
+ * 默认 256 MB 的测试堆放不下 500 万个 User，对比 500 万行时需要同时调大堆：
+ * {@code mvn test -Dtest=ColumnarReaderTest -Dcolumnar.rows=5000000 -Dsurefire.heap=3g}
+ */
+class ColumnarReaderTest {
+
+    private static final long ROWS = Long.getLong("columnar.rows", 500_000L);
+    private static final int CHUNK_SIZE = 65_536;
+    private static final int DOMAINS = 16;
+
+    private static JdbcTemplate jdbcTemplate;
+    private static SpringJdbcRepository repository;
+
+    @BeforeAll
+    static void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:file:./target/columnar-test/users;LAZY_QUERY_EXECUTION=TRUE", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS users");
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "name VARCHAR(255) NOT NULL, email VARCHAR(255) NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS id_sequence (name VARCHAR(64) PRIMARY KEY, next_val BIGINT NOT NULL)");
+        jdbcTemplate.update("INSERT INTO users (id, name, email) SELECT X, CONCAT('user-', X), "
+                + "CONCAT('user-', X, '@domain', MOD(X, ?), '.example.com') FROM SYSTEM_RANGE(1, ?)", DOMAINS, ROWS);
+        repository = new SpringJdbcRepository(jdbcTemplate, new SequenceIdAllocator(dataSource, "users", 100));
+    }
+
+    @Test
+    void testAggregatesMatchSql() {
+        ColumnarTable table = repository.findAllColumnar(CHUNK_SIZE);
+
+        assertThat(table.rowCount()).isEqualTo(ROWS);
+        assertThat(table.chunks()).hasSize((int) ((ROWS + CHUNK_SIZE - 1) / CHUNK_SIZE));
+        assertThat(table.sum("id")).isEqualTo(sqlLong("SELECT SUM(id) FROM users"));
+        assertThat(table.countBetween("id", 1000, 2000)).isEqualTo(1001);
+        assertThat(table.countBy("email_domain")).isEqualTo(sqlGroupBy("COUNT(*)"));
+        assertThat(table.sumBy("email_domain", "id")).isEqualTo(sqlGroupBy("SUM(id)"));
+
+        ColumnChunk first = table.chunks().get(0);
+        assertThat(first.longs("id").get(41)).isEqualTo(42);
+        assertThat(first.strings("name").get(41)).isEqualTo("user-42");
+        assertThat(first.strings("email").get(41)).isEqualTo("user-42@domain10.example.com");
+        assertThat(first.dictionary("email_domain").get(41)).isEqualTo("domain10.example.com");
+    }
+
+    @Test
+    void testFiltersCombineSelections() {
+        long matched = 0;
+        for (ColumnChunk chunk : repository.findAllColumnar(CHUNK_SIZE).chunks()) {
+            Selection selection = chunk.longs("id").between(1, 10_000, null);
+            selection = chunk.dictionary("email_domain").equalTo("domain3.example.com", selection);
+            selection = chunk.strings("name").equalTo("user-19", selection);
+            matched += selection.size();
+            if (selection.size() > 0) {
+                assertThat(chunk.longs("id").get(selection.row(0))).isEqualTo(19);
+            }
+        }
+        assertThat(matched).isEqualTo(1);
+    }
+
+    @Test
+    void testChunkedAggregation() {
+        // 逐块聚合后丢弃分块，内存中最多只有一个分块
+        long[][] counts = {new long[0]};
+        Dictionary[] dictionary = new Dictionary[1];
+        long[] rows = new long[1];
+        repository.forEachUserChunk(CHUNK_SIZE, chunk -> {
+            DictionaryVector domains = chunk.dictionary("email_domain");
+            dictionary[0] = domains.dictionary();
+            counts[0] = ColumnarTable.merge(counts[0], domains.countByCode(null));
+            rows[0] += chunk.rowCount();
+        });
+
+        assertThat(rows[0]).isEqualTo(ROWS);
+        assertThat(ColumnarTable.toMap(dictionary[0], counts[0])).isEqualTo(sqlGroupBy("COUNT(*)"));
+    }
+
+    @Test
+    void testExportRoundTrip() throws IOException {
+        Path file = Paths.get("target/columnar-test/users.ucol");
+        long start = System.nanoTime();
+        try (ColumnarFileWriter writer = new ColumnarFileWriter(file)) {
+            repository.forEachUserChunk(CHUNK_SIZE, chunk -> {
+                try {
+                    writer.write(chunk);
+                } catch (IOException e) {
+                    throw new RuntimeException("Error exporting users", e);
+                }
+            });
+        }
+        long exportMs = (System.nanoTime() - start) / 1_000_000;
+
+        ColumnarTable table;
+        try (ColumnarFileReader reader = new ColumnarFileReader(file)) {
+            table = reader.readAll();
+        }
+        System.out.printf("exported %,d rows in %,d ms, file %,d bytes (%.1f bytes/row)%n",
+                ROWS, exportMs, Files.size(file), (double) Files.size(file) / ROWS);
+
+        assertThat(table.rowCount()).isEqualTo(ROWS);
+        assertThat(table.sum("id")).isEqualTo(sqlLong("SELECT SUM(id) FROM users"));
+        assertThat(table.countBy("email_domain")).isEqualTo(sqlGroupBy("COUNT(*)"));
+        ColumnChunk last = table.chunks().get(table.chunks().size() - 1);
+        int lastRow = last.rowCount() - 1;
+        assertThat(last.longs("id").get(lastRow)).isEqualTo(ROWS);
+        assertThat(last.strings("email").get(lastRow))
+                .isEqualTo("user-" + ROWS + "@domain" + ROWS % DOMAINS + ".example.com");
+    }
+
+    @Test
+    void testNullsAndIntColumns() throws IOException {
+        JdbcTemplate memory = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:columnar;DB_CLOSE_DELAY=-1", "sa", ""));
+        memory.execute("CREATE TABLE scores (id BIGINT, score INT, tag VARCHAR(16), note VARCHAR(64))");
+        memory.execute("INSERT INTO scores VALUES (1, 10, 'a', 'x'), (2, NULL, NULL, NULL), (NULL, 30, 'a', 'z')");
+
+        ColumnarTable table = new ColumnarReader(memory).read("SELECT * FROM scores ORDER BY score NULLS FIRST", 2, Set.of("TAG"));
+        Path file = Paths.get("target/columnar-test/scores.ucol");
+        try (ColumnarFileWriter writer = new ColumnarFileWriter(file)) {
+            for (ColumnChunk chunk : table.chunks()) {
+                writer.write(chunk);
+            }
+        }
+
+        for (ColumnarTable read : List.of(table, readAll(file))) {
+            ColumnChunk first = read.chunks().get(0);
+            ColumnChunk second = read.chunks().get(1);
+            assertThat(first.ints("score").isNull(0)).isTrue();
+            assertThat(first.strings("note").get(0)).isNull();
+            assertThat(first.dictionary("tag").get(0)).isNull();
+            assertThat(first.ints("score").sum(null)).isEqualTo(10);
+            assertThat(first.ints("score").between(0, 100, null).size()).isEqualTo(1);
+            assertThat(second.longs("id").isNull(0)).isTrue();
+            assertThat(second.longs("id").between(-1, 1, null).size()).isZero();
+            assertThat(read.countBy("tag")).containsExactly(Map.entry("a", 2L));
+        }
+    }
+
+    /**
+     * 对比 List&lt;User&gt; 与列式数据：读取耗时、读完后仍占用的堆、按邮箱域名分组计数的耗时
+     */
+    @Test
+    void compareWithUserList() {
+        Comparison list = measureUserList();
+        Comparison columnar = measureColumnar();
+        assertThat(columnar.groups()).isEqualTo(list.groups());
+
+        System.out.printf("%n=== 读取 %,d 行 users ===%n", ROWS);
+        System.out.printf("List<User>:    读取 %,d ms, 占用堆 %,d MB, 按域名分组 %,d ms%n",
+                list.readMs(), list.heapMb(), list.groupMs());
+        System.out.printf("ColumnarTable: 读取 %,d ms, 占用堆 %,d MB, 按域名分组 %,d ms%n",
+                columnar.readMs(), columnar.heapMb(), columnar.groupMs());
+    }
+
+    /**
+     * 两种写法分别放在独立的方法中，返回后结果不再可达，不会计入另一种写法的堆占用
+     */
+    private static Comparison measureUserList() {
+        long baseline = usedHeapAfterGc();
+        long start = System.nanoTime();
+        List<User> users = repository.findAll();
+        long readMs = (System.nanoTime() - start) / 1_000_000;
+        long heapMb = (usedHeapAfterGc() - baseline) / 1024 / 1024;
+
+        start = System.nanoTime();
+        Map<String, Long> groups = users.stream().collect(Collectors.groupingBy(
+                user -> user.getEmail().substring(user.getEmail().indexOf('@') + 1), Collectors.counting()));
+        long groupMs = (System.nanoTime() - start) / 1_000_000;
+        assertThat(users).hasSize((int) ROWS);
+        return new Comparison(readMs, heapMb, groupMs, groups);
+    }
+
+    private static Comparison measureColumnar() {
+        long baseline = usedHeapAfterGc();
+        long start = System.nanoTime();
+        ColumnarTable table = repository.findAllColumnar(CHUNK_SIZE);
+        long readMs = (System.nanoTime() - start) / 1_000_000;
+        long heapMb = (usedHeapAfterGc() - baseline) / 1024 / 1024;
+
+        start = System.nanoTime();
+        Map<String, Long> groups = table.countBy("email_domain");
+        long groupMs = (System.nanoTime() - start) / 1_000_000;
+        assertThat(table.rowCount()).isEqualTo(ROWS);
+        return new Comparison(readMs, heapMb, groupMs, groups);
+    }
+
+    private record Comparison(long readMs, long heapMb, long groupMs, Map<String, Long> groups) {
+    }
+
+    private static ColumnarTable readAll(Path file) throws IOException {
+        try (ColumnarFileReader reader = new ColumnarFileReader(file)) {
+            return reader.readAll();
+        }
+    }
+
+    private static long sqlLong(String sql) {
+        Long value = jdbcTemplate.queryForObject(sql, Long.class);
+        return value == null ? 0 : value;
+    }
+
+    private static Map<String, Long> sqlGroupBy(String aggregate) {
+        Map<String, Long> result = new HashMap<>();
+        jdbcTemplate.query("SELECT SUBSTRING(email, LOCATE('@', email) + 1) AS domain, " + aggregate
+                + " AS total FROM users GROUP BY domain", rs -> {
+            result.put(rs.getString("domain"), rs.getLong("total"));
+        });
+        return result;
+    }
+
+    private static long usedHeapAfterGc() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,133 @@
+package io.github.daihaowxg.spring.jdbc.mapper;
+
+import io.github.daihaowxg.spring.jdbc.entity.User;
+import io.github.daihaowxg.spring.jdbc.repository.SpringJdbcRepository;
+import io.github.daihaowxg.spring.jdbc.repository.StandardJdbcRepository;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * MyBatis 批量写入测试，对比逐条 save、BATCH 执行器和多行 saveAll 三种写法的吞吐。
+ * <p>
+ * 每 {@link #CHUNK} 行一个事务。行数可以通过 {@code -Dmybatis.rows=...} 调整，默认 10 万行。
+ */
+@SpringBootTest
+class UserMapperBatchTest {
+
+    private static final int ROWS = Integer.getInteger("mybatis.rows", 100_000);
+    private static final int CHUNK = 1000;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+
+    @Autowired
+    private SpringJdbcRepository springJdbcRepository;
+
+    @Autowired
+    private StandardJdbcRepository standardJdbcRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("DELETE FROM users");
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Test
+    void testSaveAllAssignsIds() {
+        List<User> users = users(0, 250);
+        userMapper.saveAll(users);
+
+        assertThat(users).extracting(User::getId).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(userMapper.findById(users.get(0).getId())).contains(users.get(0));
+        assertThat(userMapper.findById(users.get(249).getId())).contains(users.get(249));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class)).isEqualTo(250);
+    }
+
+    @Test
+    void testInsertPathsShareIdSequence() {
+        // MyBatis 和两个仓库交替写入，主键都来自 users 序列，不会互相冲突
+        List<User> users = users(0, 400);
+        userMapper.save(users.get(0));
+        springJdbcRepository.saveAll(users.subList(1, 150));
+        standardJdbcRepository.save(users.get(150));
+        userMapper.saveAll(users.subList(151, 300));
+        springJdbcRepository.save(users.get(300));
+        standardJdbcRepository.saveAll(users.subList(301, 400));
+
+        assertThat(users).extracting(User::getId).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class)).isEqualTo(400);
+    }
+
+    @Test
+    void testSingleRowSave() {
+        measure("mybatis, save() per row", users -> users.forEach(userMapper::save));
+    }
+
+    @Test
+    void testBatchExecutor() {
+        // BATCH 执行器：同一事务中的 save 先攒在 JDBC batch 中，flushStatements 时统一执行；主键在 save 时已由拦截器分配
+        SqlSessionTemplate batchSqlSession = new SqlSessionTemplate(sqlSessionFactory, ExecutorType.BATCH);
+        UserMapper batchUserMapper = batchSqlSession.getMapper(UserMapper.class);
+        measure("mybatis, BATCH executor x" + CHUNK, users -> {
+            users.forEach(batchUserMapper::save);
+            batchSqlSession.flushStatements();
+        });
+    }
+
+    @Test
+    void testMultiRowSaveAll() {
+        measure("mybatis, saveAll() x" + CHUNK, userMapper::saveAll);
+    }
+
+    /**
+     * 按 {@link #CHUNK} 行一组、每组一个事务调用 saver，打印吞吐并检查每一行都有主键
+     */
+    private void measure(String name, Consumer<List<User>> saver) {
+        long start = System.nanoTime();
+        List<Long> ids = new ArrayList<>(ROWS);
+        for (int offset = 0; offset < ROWS; offset += CHUNK) {
+            List<User> chunk = users(offset, Math.min(CHUNK, ROWS - offset));
+            transactionTemplate.executeWithoutResult(status -> saver.accept(chunk));
+            chunk.forEach(user -> ids.add(user.getId()));
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        System.out.printf("%-35s %,d rows in %,d ms, %,.0f rows/sec%n",
+                name, ROWS, elapsedNanos / 1_000_000, ROWS * 1e9 / elapsedNanos);
+
+        assertThat(ids).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class)).isEqualTo(ROWS);
+    }
+
+    private static List<User> users(int offset, int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = offset; i < offset + count; i++) {
+            users.add(new User(null, "user-" + i, "user-" + i + "@example.com"));
+        }
+        return users;
+    }
+}
@@ -0,0 +1,255 @@
+package io.github.daihaowxg.spring.jdbc.repository;
+
+import io.github.daihaowxg.spring.jdbc.entity.User;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 批量导入测试，同时打印各种写法的吞吐（rows/sec）。
+ * <p>
+ * 用户由迭代器按需生成，不会一次性放进内存。
+ * 行数可以通过 {@code -Dbulkload.rows=...} 调整，默认 5 万行，只校验导入结果；{@code -Pbenchmark} 时为 100 万行。
+ */
+class BulkLoadTest {
+
+    private static final long ROWS = Long.getLong("bulkload.rows", 50_000L);
+
+    private static JdbcTemplate jdbcTemplate;
+    private static StandardJdbcRepository standardJdbcRepository;
+    private static DataSourceUtilsRepository dataSourceUtilsRepository;
+    private static SequenceIdAllocator userIds;
+    private static TransactionTemplate transactionTemplate;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        // 每次从空文件开始，上次异常退出留下的文件可能已经损坏
+        FileSystemUtils.deleteRecursively(Path.of("target", "bulk-load-test"));
+        // DriverManagerDataSource 每次都新建连接，DB_CLOSE_DELAY=-1 避免最后一个连接关闭时反复关闭、压缩数据库文件
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:file:./target/bulk-load-test/users;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS users");
+        jdbcTemplate.execute("DROP TABLE IF EXISTS id_sequence");
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, "
+                + "name VARCHAR(255) NOT NULL, email VARCHAR(255) NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE id_sequence (name VARCHAR(64) PRIMARY KEY, next_val BIGINT NOT NULL)");
+
+        userIds = new SequenceIdAllocator(dataSource, "users", 100);
+        standardJdbcRepository = new StandardJdbcRepository(dataSource, userIds);
+        dataSourceUtilsRepository = new DataSourceUtilsRepository(dataSource, userIds);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @BeforeEach
+    void truncate() {
+        jdbcTemplate.execute("TRUNCATE TABLE users");
+    }
+
+    @Test
+    void testSingleRowBatches() {
+        load("single-row, 1 thread", BulkLoadOptions.builder().chunkSize(5000).build());
+    }
+
+    @Test
+    void testMultiRowValues() {
+        load("multi-row x100, 1 thread", BulkLoadOptions.builder()
+                .chunkSize(5000).rowsPerStatement(100).build());
+    }
+
+    @Test
+    void testParallelSingleRowBatches() {
+        load("single-row, 4 threads", BulkLoadOptions.builder()
+                .chunkSize(5000).parallelism(4).build());
+    }
+
+    @Test
+    void testParallelMultiRowValues() {
+        load("multi-row x100, 4 threads", BulkLoadOptions.builder()
+                .chunkSize(5000).rowsPerStatement(100).parallelism(4).build());
+    }
+
+    @Test
+    void testUnevenChunks() {
+        // 行数不是 chunkSize、rowsPerStatement 的整数倍
+        List<User> users = users(10_007);
+        long inserted = standardJdbcRepository.bulkInsert(users, BulkLoadOptions.builder()
+                .chunkSize(1000).rowsPerStatement(64).parallelism(3).build());
+        assertThat(inserted).isEqualTo(10_007);
+        assertThat(count()).isEqualTo(10_007);
+    }
+
+    @Test
+    void testFailedChunkDoesNotRollBackCommittedChunks() {
+        List<User> users = users(2500);
+        // 第 3 块（第 2000 ~ 2499 行）违反 NOT NULL，不是瞬时故障，不会重试
+        users.set(2100, User.builder().name(null).email("broken@example.com").build());
+
+        assertThatThrownBy(() -> standardJdbcRepository.bulkInsert(users, BulkLoadOptions.builder()
+                .chunkSize(1000).maxRetries(1).build()))
+                .isInstanceOf(RuntimeException.class)
+                .hasStackTraceContaining("failed on attempt 1");
+        // 按块提交：前两块已经写入
+        assertThat(count()).isEqualTo(2000);
+    }
+
+    @Test
+    void testConnectionFailureRetriesOnNewConnection() {
+        // 前两次准备插入语句时模拟连接中断
+        AtomicInteger failures = new AtomicInteger(2);
+        Set<Connection> failedConnections = ConcurrentHashMap.newKeySet();
+        Set<Connection> committedConnections = ConcurrentHashMap.newKeySet();
+        DataSource flaky = flaky(() -> failures.getAndDecrement() > 0
+                        ? new SQLTransientConnectionException("Connection reset", "08006") : null,
+                failedConnections, committedConnections);
+
+        long inserted = new StandardJdbcRepository(flaky, userIds).bulkInsert(users(2500), BulkLoadOptions.builder()
+                .chunkSize(1000).maxRetries(2).build());
+        assertThat(inserted).isEqualTo(2500);
+        assertThat(count()).isEqualTo(2500);
+        // 中断过的连接不再用于写入
+        assertThat(failedConnections).hasSize(2).doesNotContainAnyElementsOf(committedConnections);
+    }
+
+    @Test
+    void testTransactionRollbackRetriesOnSameConnection() {
+        // 第一次准备插入语句时模拟死锁
+        AtomicInteger failures = new AtomicInteger(1);
+        Set<Connection> failedConnections = ConcurrentHashMap.newKeySet();
+        Set<Connection> committedConnections = ConcurrentHashMap.newKeySet();
+        DataSource flaky = flaky(() -> failures.getAndDecrement() > 0
+                        ? new SQLTransactionRollbackException("Deadlock", "40001") : null,
+                failedConnections, committedConnections);
+
+        long inserted = new StandardJdbcRepository(flaky, userIds).bulkInsert(users(2500), BulkLoadOptions.builder()
+                .chunkSize(1000).maxRetries(1).build());
+        assertThat(inserted).isEqualTo(2500);
+        assertThat(count()).isEqualTo(2500);
+        assertThat(committedConnections).containsAll(failedConnections).hasSize(1);
+    }
+
+    @Test
+    void testParallelFailureStopsOtherWorkers() {
+        List<User> users = users(100_000);
+        // 第 1 块中有一行违反 NOT NULL，其余 99 块都是合法数据
+        users.set(500, User.builder().name(null).email("broken@example.com").build());
+
+        assertThatThrownBy(() -> standardJdbcRepository.bulkInsert(users, BulkLoadOptions.builder()
+                .chunkSize(1000).parallelism(4).build()))
+                .isInstanceOf(RuntimeException.class)
+                .hasStackTraceContaining("failed on attempt 1");
+        // 其他工作线程不再取新的分块，而且异常抛出时它们都已经停下：之后行数不再变化，也没有写了一半的分块
+        long committed = count();
+        assertThat(committed).isLessThan(99_000).isEqualTo(count());
+        assertThat(committed % 1000).isZero();
+    }
+
+    @Test
+    void testDataSourceUtilsChunkedBatchInsert() {
+        int rows = (int) Math.min(ROWS, 200_000);
+        List<User> users = users(rows);
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> dataSourceUtilsRepository.batchInsert(users, 5000));
+        report("DataSourceUtils chunked", rows, System.nanoTime() - start);
+        assertThat(count()).isEqualTo(rows);
+    }
+
+    /**
+     * 准备插入语句时按 {@code failure} 抛出异常的数据源，记录失败过和提交过写入的连接
+     */
+    private static DataSource flaky(Supplier<SQLException> failure, Set<Connection> failedConnections,
+                                    Set<Connection> committedConnections) {
+        return new DelegatingDataSource(jdbcTemplate.getDataSource()) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                Connection conn = super.getConnection();
+                AtomicBoolean wrote = new AtomicBoolean();
+                return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                        (proxy, method, args) -> {
+                            // 放进 Set 时按代理对象本身比较
+                            if (method.getName().equals("equals")) {
+                                return proxy == args[0];
+                            }
+                            if (method.getName().equals("hashCode")) {
+                                return System.identityHashCode(proxy);
+                            }
+                            if (method.getName().equals("prepareStatement")
+                                    && ((String) args[0]).startsWith("INSERT INTO users")) {
+                                SQLException error = failure.get();
+                                if (error != null) {
+                                    failedConnections.add((Connection) proxy);
+                                    throw error;
+                                }
+                                wrote.set(true);
+                            }
+                            if (method.getName().equals("commit") && wrote.get()) {
+                                committedConnections.add((Connection) proxy);
+                            }
+                            try {
+                                return method.invoke(conn, args);
+                            } catch (InvocationTargetException e) {
+                                throw e.getCause();
+                            }
+                        });
+            }
+        };
+    }
+
+    private static void load(String name, BulkLoadOptions options) {
+        long start = System.nanoTime();
+        long inserted = standardJdbcRepository.bulkInsert(generate(ROWS), options);
+        report(name, inserted, System.nanoTime() - start);
+        assertThat(inserted).isEqualTo(ROWS);
+        assertThat(count()).isEqualTo(ROWS);
+    }
+
+    private static void report(String name, long rows, long elapsedNanos) {
+        System.out.printf("%-26s %,10d rows in %,6d ms, %,10.0f rows/sec%n",
+                name, rows, elapsedNanos / 1_000_000, rows * 1e9 / elapsedNanos);
+    }
+
+    private static Iterator<User> generate(long rows) {
+        return LongStream.rangeClosed(1, rows)
+                .mapToObj(i -> User.builder().name("user-" + i).email("user-" + i + "@example.com").build())
+                .iterator();
+    }
+
+    private static List<User> users(int rows) {
+        List<User> users = new ArrayList<>(rows);
+        generate(rows).forEachRemaining(users::add);
+        return users;
+    }
+
+    private static long count() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class);
+        return count == null ? 0 : count;
+    }
+}
@@ -0,0 +1,265 @@
+package io.github.daihaowxg.spring.jdbc.repository;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.github.daihaowxg.spring.jdbc.entity.User;
+import io.github.daihaowxg.spring.jdbc.mapper.UserIdInterceptor;
+import io.github.daihaowxg.spring.jdbc.mapper.UserMapper;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionFactoryBean;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+
+/**
+ * 三种数据访问写法在 HikariCP 和 Druid 连接池上的 CRUD 混合负载 JMH 基准。
+ * <p>
+ * 每个线程循环执行同一组操作：1 次 save（主键来自 {@link SequenceIdAllocator}）、6 次 findById、2 次 update，
+ * 最后删除本线程刚插入的行，表的大小保持在 {@link #ROWS} 行左右。读和更新的主键从预置数据中随机选取，同一线程在各组合中使用相同的随机种子。
+ * <ul>
+ *   <li>{@link Style}：原生 JDBC（{@link StandardJdbcRepository}）、
+ *   {@link SpringJdbcRepository} 和 MyBatis {@link UserMapper}</li>
+ *   <li>{@link Pool}：HikariCP、Druid，以及开启 PSCache 的 Druid；池大小固定为 {@link #POOL_SIZE}，
+ *   Druid 不配置过滤器，和 HikariCP 一样只做连接池</li>
+ * </ul>
+ * 每个组合一个独立的 H2 内存库。线程数由启动参数决定，
+ * 由 {@link DataAccessBenchmarkTest#runBenchmark()} 按不同线程数启动并汇总吞吐、p99 延迟和每次操作的分配量。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DataAccessBenchmark {
+
+    static final int ROWS = 10_000;
+
+    static final int POOL_SIZE = 16;
+
+    /**
+     * 一轮操作的次数：第 0 次插入，1 ~ 6 次查询，7、8 次更新，第 9 次删除
+     */
+    static final int MIX_LENGTH = 10;
+
+    private static final int READS = 6;
+
+    private static final int UPDATES = 2;
+
+    private static final AtomicInteger DATABASE_COUNTER = new AtomicInteger();
+
+    @Param
+    public Style style;
+
+    @Param
+    public Pool pool;
+
+    private String url;
+
+    private DataSource dataSource;
+
+    private UserDao dao;
+
+    public enum Style {
+        STANDARD_JDBC {
+            @Override
+            UserDao create(DataSource dataSource) {
+                StandardJdbcRepository repository = new StandardJdbcRepository(dataSource, userIds(dataSource));
+                return new UserDao(repository::save, repository::findById, repository::update, repository::deleteById);
+            }
+        },
+        SPRING_JDBC {
+            @Override
+            UserDao create(DataSource dataSource) {
+                SpringJdbcRepository repository = new SpringJdbcRepository(new JdbcTemplate(dataSource),
+                        userIds(dataSource));
+                return new UserDao(repository::save, repository::findById, repository::update, repository::deleteById);
+            }
+        },
+        MYBATIS {
+            @Override
+            UserDao create(DataSource dataSource) throws Exception {
+                // 和应用的 mybatis 配置相同的 XML，不经过事务时 SqlSessionTemplate 每次调用自动提交
+                SqlSessionFactoryBean factoryBean = new SqlSessionFactoryBean();
+                factoryBean.setDataSource(dataSource);
+                factoryBean.setMapperLocations(new PathMatchingResourcePatternResolver().getResources("classpath:mapper/*.xml"));
+                factoryBean.setPlugins(new UserIdInterceptor(userIds(dataSource)));
+                SqlSessionFactory sqlSessionFactory = factoryBean.getObject();
+                UserMapper mapper = new SqlSessionTemplate(sqlSessionFactory).getMapper(UserMapper.class);
+                return new UserDao(mapper::save, mapper::findById, mapper::update, mapper::deleteById);
+            }
+        };
+
+        abstract UserDao create(DataSource dataSource) throws Exception;
+
+        /**
+         * 和应用中的 users 序列 Bean 配置相同
+         */
+        static SequenceIdAllocator userIds(DataSource dataSource) {
+            return new SequenceIdAllocator(dataSource, "users", 100);
+        }
+    }
+
+    public enum Pool {
+        HIKARI {
+            @Override
+            DataSource create(String url) {
+                HikariDataSource dataSource = new HikariDataSource();
+                dataSource.setJdbcUrl(url);
+                dataSource.setUsername("sa");
+                dataSource.setMaximumPoolSize(POOL_SIZE);
+                dataSource.setMinimumIdle(POOL_SIZE);
+                return dataSource;
+            }
+        },
+        DRUID {
+            @Override
+            DataSource create(String url) throws SQLException {
+                return druid(url, false);
+            }
+        },
+        /**
+         * Druid 的 PSCache：代理连接关闭语句时把语句留在池中的物理连接上，下次借用时复用，对所有写法都生效
+         */
+        DRUID_PSCACHE {
+            @Override
+            DataSource create(String url) throws SQLException {
+                return druid(url, true);
+            }
+        };
+
+        abstract DataSource create(String url) throws SQLException;
+
+        private static DataSource druid(String url, boolean poolPreparedStatements) throws SQLException {
+            DruidDataSource dataSource = new DruidDataSource();
+            dataSource.setUrl(url);
+            dataSource.setUsername("sa");
+            dataSource.setInitialSize(POOL_SIZE);
+            dataSource.setMinIdle(POOL_SIZE);
+            dataSource.setMaxActive(POOL_SIZE);
+            dataSource.setValidationQuery("SELECT 1");
+            dataSource.setPoolPreparedStatements(poolPreparedStatements);
+            dataSource.setMaxPoolPreparedStatementPerConnectionSize(20);
+            dataSource.init();
+            return dataSource;
+        }
+    }
+
+    /**
+     * 三种写法共有的 CRUD 操作
+     */
+    record UserDao(Consumer<User> save, LongFunction<Optional<User>> findById, Consumer<User> update,
+                   LongConsumer deleteById) {
+    }
+
+    /**
+     * 每个线程自己的操作进度、随机数和待删除的主键
+     */
+    @State(Scope.Thread)
+    public static class Worker {
+
+        private SplittableRandom random;
+
+        private int step;
+
+        private long insertedId;
+
+        @Setup(Level.Trial)
+        public void setUp(ThreadParams threadParams) {
+            init(threadParams.getThreadIndex());
+        }
+
+        void init(int threadIndex) {
+            // 各线程的主键序列不同，避免所有线程同时更新同一行；同一线程号在各组合中相同
+            random = new SplittableRandom(42 + threadIndex);
+            step = 0;
+        }
+
+        long randomSeededId() {
+            return random.nextLong(ROWS) + 1;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        url = "jdbc:h2:mem:data-access-" + style + "-" + pool + "-" + DATABASE_COUNTER.incrementAndGet()
+                + ";DB_CLOSE_DELAY=-1";
+        dataSource = pool.create(url);
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, "
+                    + "name VARCHAR(255) NOT NULL, email VARCHAR(255) NOT NULL)");
+            stmt.execute("CREATE TABLE id_sequence (name VARCHAR(64) PRIMARY KEY, next_val BIGINT NOT NULL)");
+            stmt.execute("INSERT INTO users SELECT X, CONCAT('user-', X), CONCAT('user-', X, '@example.com') "
+                    + "FROM SYSTEM_RANGE(1, " + ROWS + ")");
+            // 序列从 ROWS + 1 开始，save 才不会和预置数据冲突
+            stmt.execute("INSERT INTO id_sequence VALUES ('users', " + (ROWS + 1) + ")");
+        }
+        dao = style.create(dataSource);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        ((AutoCloseable) dataSource).close();
+        // DB_CLOSE_DELAY=-1 时连接池关闭后库仍在内存中，单独连上去关闭
+        try (Connection conn = DriverManager.getConnection(url, "sa", ""); Statement stmt = conn.createStatement()) {
+            stmt.execute("SHUTDOWN");
+        }
+    }
+
+    @Benchmark
+    public Object crudMix(Worker worker) {
+        int step = worker.step;
+        worker.step = (step + 1) % MIX_LENGTH;
+
+        if (step == 0) {
+            User user = new User(null, "bench", "bench@example.com");
+            dao.save().accept(user);
+            worker.insertedId = user.getId();
+            return user;
+        }
+        if (step <= READS) {
+            return dao.findById().apply(worker.randomSeededId());
+        }
+        if (step <= READS + UPDATES) {
+            long id = worker.randomSeededId();
+            User user = new User(id, "updated-" + id, "updated-" + id + "@example.com");
+            dao.update().accept(user);
+            return user;
+        }
+        dao.deleteById().accept(worker.insertedId);
+        return worker;
+    }
+
+    /**
+     * 当前表中的行数，供测试校验操作组合不会让表增长
+     */
+    long countRows() throws SQLException {
+        try (Connection conn = dataSource.getConnection(); Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM users")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package io.github.daihaowxg.spring.jdbc.repository;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * {@link DataAccessBenchmark} 的正确性校验和启动入口。
+ * <p>
+ * {@link #runBenchmark()} 对每个线程数运行一次全部组合，打印吞吐（ops/s）、p99 延迟和每次操作的分配量（B/op）。
+ * 它标记为 benchmark，默认不运行，需要时用 {@code mvn test -Pbenchmark -Dtest=DataAccessBenchmarkTest}。
+ * 线程数可以通过 {@code -Dbenchmark.threads=1,4,16} 调整，默认 1 和 4。
+ * 和 {@link GeneratedRowMapperTest#runBenchmark()} 一样不分叉、迭代很短，结果只作参考。
+ */
+class DataAccessBenchmarkTest {
+
+    private static final int[] THREADS = Arrays.stream(System.getProperty("benchmark.threads", "1,4").split(","))
+            .mapToInt(threads -> Integer.parseInt(threads.trim()))
+            .toArray();
+
+    private static final int COMBINATIONS = DataAccessBenchmark.Style.values().length
+            * DataAccessBenchmark.Pool.values().length;
+
+    @Test
+    void testCrudMixKeepsTableSize() throws Exception {
+        for (DataAccessBenchmark.Style style : DataAccessBenchmark.Style.values()) {
+            for (DataAccessBenchmark.Pool pool : DataAccessBenchmark.Pool.values()) {
+                // 每轮插入的行在同一轮中删除，读和更新都落在预置数据上
+                assertThat(runMix(style, pool, 100)).as("%s / %s", style, pool).isEqualTo(DataAccessBenchmark.ROWS);
+            }
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    void runBenchmark() throws Exception {
+        // 不分叉时所有组合共用一个 JVM，先把每个组合都跑一遍，否则先运行的组合要承担 JIT 编译的开销
+        for (DataAccessBenchmark.Style style : DataAccessBenchmark.Style.values()) {
+            for (DataAccessBenchmark.Pool pool : DataAccessBenchmark.Pool.values()) {
+                runMix(style, pool, 2_000);
+            }
+        }
+
+        List<RunResult> results = new ArrayList<>();
+        for (int threads : THREADS) {
+            Options options = new OptionsBuilder()
+                    .include(DataAccessBenchmark.class.getName())
+                    .forks(0)
+                    .threads(threads)
+                    .warmupIterations(1)
+                    .warmupTime(TimeValue.seconds(1))
+                    .measurementIterations(2)
+                    .measurementTime(TimeValue.seconds(1))
+                    .addProfiler(GCProfiler.class)
+                    .build();
+            Collection<RunResult> run = new Runner(options).run();
+            // 每个组合吞吐和采样两种模式各一个结果
+            assertThat(run).hasSize(COMBINATIONS * 2);
+            results.addAll(run);
+        }
+
+        System.out.printf("%-14s %-14s %7s %12s %10s %10s%n", "style", "pool", "threads", "ops/s", "p99 us", "B/op");
+        for (RunResult throughput : results) {
+            if (throughput.getParams().getMode() != Mode.Throughput) {
+                continue;
+            }
+            RunResult sample = results.stream()
+                    .filter(result -> result.getParams().getMode() == Mode.SampleTime)
+                    .filter(result -> sameCombination(result, throughput))
+                    .findFirst()
+                    .orElseThrow();
+            double opsPerSecond = throughput.getPrimaryResult().getScore() * 1_000_000;
+            double p99 = sample.getPrimaryResult().getStatistics().getPercentile(99);
+            Result<?> allocation = throughput.getSecondaryResults().get("gc.alloc.rate.norm");
+
+            assertThat(opsPerSecond).isPositive();
+            assertThat(p99).isPositive();
+            System.out.printf("%-14s %-14s %7d %,12.0f %10.1f %,10.0f%n",
+                    throughput.getParams().getParam("style"), throughput.getParams().getParam("pool"),
+                    throughput.getParams().getThreads(), opsPerSecond, p99,
+                    allocation == null ? Double.NaN : allocation.getScore());
+        }
+    }
+
+    /**
+     * 在当前线程中执行 rounds 轮操作组合，返回结束时表中的行数
+     */
+    private static long runMix(DataAccessBenchmark.Style style, DataAccessBenchmark.Pool pool, int rounds)
+            throws Exception {
+        DataAccessBenchmark benchmark = new DataAccessBenchmark();
+        benchmark.style = style;
+        benchmark.pool = pool;
+        benchmark.setUp();
+        try {
+            DataAccessBenchmark.Worker worker = new DataAccessBenchmark.Worker();
+            worker.init(0);
+            for (int i = 0; i < rounds * DataAccessBenchmark.MIX_LENGTH; i++) {
+                assertThat(benchmark.crudMix(worker)).isNotNull();
+            }
+            return benchmark.countRows();
+        } finally {
+            benchmark.tearDown();
+        }
+    }
+
+    private static boolean sameCombination(RunResult a, RunResult b) {
+        return a.getParams().getThreads() == b.getParams().getThreads()
+                && a.getParams().getParam("style").equals(b.getParams().getParam("style"))
+                && a.getParams().getParam("pool").equals(b.getParams().getParam("pool"));
+    }
+}
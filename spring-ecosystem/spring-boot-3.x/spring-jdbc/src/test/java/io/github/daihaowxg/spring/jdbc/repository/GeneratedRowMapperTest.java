@@ -0,0 +1,153 @@
+package io.github.daihaowxg.spring.jdbc.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.github.daihaowxg.spring.jdbc.entity.User;
+import lombok.Data;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.sql.ResultSet;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * GeneratedRowMapper 测试。
+ * <p>
+ * {@link #runBenchmark()} 运行 {@link RowMapperBenchmark}，默认不运行，需要时用 {@code mvn test -Pbenchmark}。
+ * 为了在 surefire 中运行不分叉 JVM（forks = 0），结果只作参考，精确测量可以用 JMH 的 Main 单独运行。
+ */
+class GeneratedRowMapperTest {
+
+    private static HikariDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:row-mapper-test;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setMaximumPoolSize(2);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, "
+                + "name VARCHAR(255) NOT NULL, email VARCHAR(255) NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE id_sequence (name VARCHAR(64) PRIMARY KEY, next_val BIGINT NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE accounts (account_id BIGINT, login_count INT, "
+                + "display_name VARCHAR(255), ignored_column VARCHAR(255))");
+    }
+
+    @AfterAll
+    static void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    void testMapsColumnsByResolvedIndex() {
+        // 序列从 1 开始分配，手工插入的行用 0 避开
+        jdbcTemplate.update("INSERT INTO users (id, name, email) VALUES (0, 'alice', 'alice@example.com')");
+        GeneratedRowMapper<User> mapper = GeneratedRowMapper.newInstance(User.class);
+
+        // 列的顺序和查询都不同，同一个 mapper 按结果集形状分别解析
+        List<User> users = jdbcTemplate.query("SELECT email, id, name FROM users WHERE name = 'alice'", mapper);
+        assertThat(users).singleElement().satisfies(user -> {
+            assertThat(user.getId()).isNotNull();
+            assertThat(user.getName()).isEqualTo("alice");
+            assertThat(user.getEmail()).isEqualTo("alice@example.com");
+        });
+
+        List<User> names = jdbcTemplate.query("SELECT name FROM users WHERE name = 'alice'", mapper);
+        assertThat(names).singleElement().satisfies(user -> {
+            assertThat(user.getId()).isNull();
+            assertThat(user.getName()).isEqualTo("alice");
+        });
+    }
+
+    @Test
+    void testSnakeCaseColumnsAndNulls() {
+        jdbcTemplate.update("INSERT INTO accounts VALUES (1, 3, 'Alice', 'x'), (2, NULL, NULL, NULL)");
+        List<Account> accounts = jdbcTemplate.query("SELECT * FROM accounts ORDER BY account_id",
+                GeneratedRowMapper.newInstance(Account.class));
+
+        assertThat(accounts).hasSize(2);
+        assertThat(accounts.get(0).getAccountId()).isEqualTo(1L);
+        assertThat(accounts.get(0).getLoginCount()).isEqualTo(3);
+        assertThat(accounts.get(0).getDisplayName()).isEqualTo("Alice");
+        // 基本类型遇到 SQL NULL 时保持默认值，包装类型为 null
+        assertThat(accounts.get(1).getLoginCount()).isZero();
+        assertThat(accounts.get(1).getDisplayName()).isNull();
+    }
+
+    @Test
+    void testDoesNotRetainClosedResultSet() throws InterruptedException {
+        jdbcTemplate.update("INSERT INTO users (id, name, email) VALUES (-1, 'bob', 'bob@example.com')");
+        GeneratedRowMapper<User> mapper = GeneratedRowMapper.newInstance(User.class);
+        @SuppressWarnings("unchecked")
+        WeakReference<ResultSet>[] seen = new WeakReference[1];
+
+        List<User> users = jdbcTemplate.query("SELECT id, name, email FROM users WHERE id = -1", (rs, rowNum) -> {
+            seen[0] = new WeakReference<>(rs);
+            return mapper.mapRow(rs, rowNum);
+        });
+        assertThat(users).singleElement().extracting(User::getName).isEqualTo("bob");
+
+        // 查询结束后结果集已关闭，mapper 仍然存活，但不应让结果集保持可达
+        for (int i = 0; i < 50 && seen[0].get() != null; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertThat(seen[0].get()).isNull();
+        Reference.reachabilityFence(mapper);
+    }
+
+    @Test
+    void testStandardJdbcRepositoryRoundTrip() {
+        StandardJdbcRepository repository = new StandardJdbcRepository(dataSource,
+                new SequenceIdAllocator(dataSource, "users", 100));
+        for (int i = 0; i < 20; i++) {
+            User saved = repository.save(new User(null, "mapped-" + i, "mapped-" + i + "@example.com"));
+            assertThat(repository.findById(saved.getId())).contains(saved);
+            saved.setEmail("changed-" + i + "@example.com");
+            repository.update(saved);
+            assertThat(repository.findById(saved.getId()).map(User::getEmail)).contains(saved.getEmail());
+            repository.deleteById(saved.getId());
+            assertThat(repository.findById(saved.getId())).isEmpty();
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    void runBenchmark() throws Exception {
+        Options options = new OptionsBuilder()
+                .include(RowMapperBenchmark.class.getName())
+                .forks(0)
+                .warmupIterations(3)
+                .warmupTime(TimeValue.seconds(2))
+                .measurementIterations(5)
+                .measurementTime(TimeValue.seconds(1))
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        assertThat(results).hasSize(6);
+        for (RunResult result : results) {
+            assertThat(result.getPrimaryResult().getScore()).isPositive();
+        }
+    }
+
+    @Data
+    public static class Account {
+        private Long accountId;
+        private int loginCount;
+        private String displayName;
+    }
+}
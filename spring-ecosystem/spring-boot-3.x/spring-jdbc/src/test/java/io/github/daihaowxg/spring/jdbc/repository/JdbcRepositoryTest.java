@@ -4,6 +4,7 @@ import io.github.daihaowxg.spring.jdbc.entity.User;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -24,6 +25,9 @@ class JdbcRepositoryTest {
     @Autowired
     private io.github.daihaowxg.spring.jdbc.mapper.UserMapper userMapper;
 
+    @Autowired
+    private ApplicationContext applicationContext;
+
     @Test
     void testStandardJdbcRepository() {
         testRepository(standardJdbcRepository);
@@ -39,6 +43,12 @@ class JdbcRepositoryTest {
         testRepository(userMapper);
     }
 
+    @Test
+    void testSingleUserIdAllocator() {
+        // 仓库和 MyBatis 插件注入同一个 users 序列分配器，不各自预留号段
+        assertThat(applicationContext.getBeansOfType(SequenceIdAllocator.class)).containsOnlyKeys("userIdAllocator");
+    }
+
     private void testRepository(Object repository) {
         User user = new User(null, "Test User", "test@example.com");
         User savedUser;
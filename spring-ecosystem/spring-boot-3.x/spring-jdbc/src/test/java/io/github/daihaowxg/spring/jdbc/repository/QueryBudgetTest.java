@@ -0,0 +1,102 @@
+package io.github.daihaowxg.spring.jdbc.repository;
+
+import io.github.daihaowxg.spring.jdbc.entity.User;
+import io.github.daihaowxg.sqlprofiler.QueryBudget;
+import io.github.daihaowxg.sqlprofiler.SqlProfile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 查询预算测试。
+ * <p>
+ * 容器中的数据源被 sql-profiler 包装，测试可以断言一段代码执行了多少条语句，
+ * 在循环中逐条查询（N+1）时失败，而不是等到线上变慢才发现。
+ */
+@SpringBootTest
+@Transactional
+class QueryBudgetTest {
+
+    @Autowired
+    private SpringJdbcRepository repository;
+
+    @Autowired
+    private StandardJdbcRepository standardRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> ids = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("DELETE FROM users");
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            users.add(new User(null, "user" + i, "user" + i + "@example.com"));
+        }
+        for (User user : repository.saveAll(users)) {
+            ids.add(user.getId());
+        }
+    }
+
+    @Test
+    void testFindAllIsSingleStatement() {
+        SqlProfile profile = QueryBudget.maxStatements(1).run(repository::findAll);
+
+        assertThat(profile.getRowsFetched()).isEqualTo(20);
+    }
+
+    @Test
+    void testLoadingOneByOneExceedsBudget() {
+        // 测试方法在事务中，同一条语句在事务内执行 20 次，超过默认阈值 5
+        assertThatThrownBy(() -> QueryBudget.maxStatements(5).noNPlusOne().run(() -> {
+            for (Long id : ids) {
+                repository.findById(id);
+            }
+        }))
+                .isInstanceOf(AssertionError.class)
+                .hasMessageContaining("语句数 20 超过预算 5")
+                .hasMessageContaining("检测到 N+1: select id, name, email from users where id = ?");
+    }
+
+    @Test
+    void testStandardJdbcStatementsAreProfiled() {
+        // 原生 JDBC 的语句也在连接池借出的（被包装的）连接上创建，和 JdbcTemplate 一样被统计
+        SqlProfile profile = QueryBudget.maxStatements(2).run(() -> {
+            standardRepository.findById(ids.get(0));
+            standardRepository.findById(ids.get(1));
+        });
+
+        assertThat(profile.getShape("SELECT id, name, email FROM users WHERE id = ?").getExecutions()).isEqualTo(2);
+    }
+
+    @Test
+    void testBatchInsertStaysWithinBudget() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            users.add(new User(null, "batch" + i, "batch" + i + "@example.com"));
+        }
+
+        // 每个批次算一条语句，插入只有 3 条
+        SqlProfile profile = QueryBudget.maxStatements(60).run(() -> repository.saveAll(users));
+
+        Map<String, Integer> executions = profile.getShapes().stream().collect(
+                Collectors.toMap(SqlProfile.ShapeStats::getSql, SqlProfile.ShapeStats::getExecutions));
+        assertThat(executions).containsEntry("insert into users (id, name, email) values (?, ?, ?)", 3);
+        // 号段大小为 100，批量插入 2500 行需要预留 25 次号段，每次一条 UPDATE 和一条 SELECT，被判定为 N+1
+        assertThat(executions).containsEntry("select next_val from id_sequence where name = ?", 25);
+        assertThat(profile.getNPlusOneShapes()).hasSize(2);
+    }
+}
@@ -0,0 +1,147 @@
+package io.github.daihaowxg.spring.jdbc.repository;
+
+import io.github.daihaowxg.spring.jdbc.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 行映射与语句缓存的 JMH 基准。
+ * <p>
+ * 映射类基准每次执行同一条查询读取 10,000 行并映射为 User，查询本身的开销各个基准相同，差异来自映射方式。
+ * 每个基准各自写一遍循环而不是共用一个方法，否则不分叉运行时共用方法里 mapRow 的类型剖析会被其他 mapper 污染；
+ * findById 类基准对比每次 prepareStatement 和在同一个连接上复用已经预编译的语句。由 {@link GeneratedRowMapperTest#runBenchmark()} 启动。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RowMapperBenchmark {
+
+    static final int ROWS = 10_000;
+
+    private static final String SELECT_ALL = "SELECT id, name, email FROM users ORDER BY id";
+    private static final String FIND_BY_ID = "SELECT id, name, email FROM users WHERE id = ?";
+
+    private final RowMapper<User> labelMapper = (rs, rowNum) -> new User(
+            rs.getLong("id"),
+            rs.getString("name"),
+            rs.getString("email")
+    );
+
+    private final RowMapper<User> generatedMapper = GeneratedRowMapper.newInstance(User.class);
+
+    private final RowMapper<User> beanPropertyMapper = BeanPropertyRowMapper.newInstance(User.class);
+
+    private Connection connection;
+
+    private PreparedStatement selectAll;
+
+    private PreparedStatement findByIdStatement;
+
+    private long nextId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:row-mapper-benchmark;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Statement stmt = connection.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS users");
+            stmt.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, name VARCHAR(255) NOT NULL, email VARCHAR(255) NOT NULL)");
+            stmt.execute("INSERT INTO users SELECT X, CONCAT('user-', X), CONCAT('user-', X, '@example.com') "
+                    + "FROM SYSTEM_RANGE(1, " + ROWS + ")");
+        }
+        selectAll = connection.prepareStatement(SELECT_ALL);
+        findByIdStatement = connection.prepareStatement(FIND_BY_ID);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Benchmark
+    public List<User> mapByLabel() throws SQLException {
+        List<User> users = new ArrayList<>(ROWS);
+        try (ResultSet rs = selectAll.executeQuery()) {
+            int rowNum = 0;
+            while (rs.next()) {
+                users.add(labelMapper.mapRow(rs, rowNum++));
+            }
+        }
+        return users;
+    }
+
+    @Benchmark
+    public List<User> mapByIndex() throws SQLException {
+        List<User> users = new ArrayList<>(ROWS);
+        try (ResultSet rs = selectAll.executeQuery()) {
+            while (rs.next()) {
+                users.add(new User(rs.getLong(1), rs.getString(2), rs.getString(3)));
+            }
+        }
+        return users;
+    }
+
+    @Benchmark
+    public List<User> mapByGeneratedCode() throws SQLException {
+        List<User> users = new ArrayList<>(ROWS);
+        try (ResultSet rs = selectAll.executeQuery()) {
+            int rowNum = 0;
+            while (rs.next()) {
+                users.add(generatedMapper.mapRow(rs, rowNum++));
+            }
+        }
+        return users;
+    }
+
+    @Benchmark
+    public List<User> mapByBeanProperty() throws SQLException {
+        List<User> users = new ArrayList<>(ROWS);
+        try (ResultSet rs = selectAll.executeQuery()) {
+            int rowNum = 0;
+            while (rs.next()) {
+                users.add(beanPropertyMapper.mapRow(rs, rowNum++));
+            }
+        }
+        return users;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public User findByIdPrepareEachCall() throws SQLException {
+        try (PreparedStatement pstmt = connection.prepareStatement(FIND_BY_ID)) {
+            return findById(pstmt);
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public User findByIdReusedStatement() throws SQLException {
+        return findById(findByIdStatement);
+    }
+
+    private User findById(PreparedStatement pstmt) throws SQLException {
+        nextId = nextId % ROWS + 1;
+        pstmt.setLong(1, nextId);
+        try (ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? generatedMapper.mapRow(rs, 0) : null;
+        }
+    }
+}
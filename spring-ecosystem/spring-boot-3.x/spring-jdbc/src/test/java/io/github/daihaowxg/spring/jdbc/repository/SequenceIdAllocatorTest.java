@@ -0,0 +1,181 @@
+package io.github.daihaowxg.spring.jdbc.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.github.daihaowxg.spring.jdbc.entity.User;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 主键预分配测试，同时对比逐条 save（每行一次往返）和批量 saveAll 的吞吐，两者的主键都来自序列。
+ * <p>
+ * 行数可以通过 {@code -Dsaveall.rows=...} 调整，默认 2 万行。
+ */
+class SequenceIdAllocatorTest {
+
+    private static final int ROWS = Integer.getInteger("saveall.rows", 20_000);
+    private static final int CHUNK = 1000;
+
+    private static HikariDataSource dataSource;
+    private static JdbcTemplate jdbcTemplate;
+    private static StandardJdbcRepository standardJdbcRepository;
+    private static SpringJdbcRepository springJdbcRepository;
+    private static SequenceIdAllocator userIds;
+
+    @BeforeAll
+    static void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:id-allocator-test;DB_CLOSE_DELAY=-1");
+        dataSource.setUsername("sa");
+        dataSource.setMaximumPoolSize(8);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, "
+                + "name VARCHAR(255) NOT NULL, email VARCHAR(255) NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE id_sequence (name VARCHAR(64) PRIMARY KEY, next_val BIGINT NOT NULL)");
+
+        userIds = new SequenceIdAllocator(dataSource, "users", 100);
+        standardJdbcRepository = new StandardJdbcRepository(dataSource, userIds);
+        springJdbcRepository = new SpringJdbcRepository(jdbcTemplate, userIds);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        dataSource.close();
+    }
+
+    @BeforeEach
+    void truncate() {
+        // 只重置测试专用的序列：仓库中的分配器还持有 users 序列的号段，重置 users 序列会再次分配到相同的主键
+        jdbcTemplate.execute("TRUNCATE TABLE users");
+        jdbcTemplate.execute("DELETE FROM id_sequence WHERE name = 'test'");
+    }
+
+    @Test
+    void testConcurrentAllocatorsNeverOverlap() throws Exception {
+        // 两个分配器实例共用同一个序列，相当于两个应用节点
+        SequenceIdAllocator first = new SequenceIdAllocator(dataSource, "test", 50);
+        SequenceIdAllocator second = new SequenceIdAllocator(dataSource, "test", 50);
+        int threads = 8;
+        int idsPerThread = 5000;
+
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                SequenceIdAllocator allocator = t % 2 == 0 ? first : second;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < idsPerThread; i++) {
+                        assertThat(ids.add(allocator.nextId())).isTrue();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        int total = threads * idsPerThread;
+        long reservations = first.getReservations() + second.getReservations();
+        System.out.printf("allocated %,d ids with %,d reservations%n", total, reservations);
+        assertThat(ids).hasSize(total);
+        // 每个号段 50 个，每个实例最多浪费最后一个号段
+        assertThat(reservations).isBetween((long) total / 50, (long) total / 50 + 2);
+        assertThat(jdbcTemplate.queryForObject("SELECT next_val FROM id_sequence WHERE name = 'test'", Long.class))
+                .isEqualTo(1 + reservations * 50);
+    }
+
+    @Test
+    void testSaveAllAssignsIds() {
+        List<User> users = users(0, 250);
+        users.get(0).setId(1_000_000L);
+        standardJdbcRepository.saveAll(users.subList(0, 100));
+        springJdbcRepository.saveAll(users.subList(100, 250));
+
+        assertThat(users).allSatisfy(user -> assertThat(user.getId()).isNotNull());
+        assertThat(users.get(0).getId()).isEqualTo(1_000_000L);
+        assertThat(users.stream().map(User::getId).distinct().count()).isEqualTo(250);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class)).isEqualTo(250);
+        assertThat(standardJdbcRepository.findById(users.get(200).getId())).contains(users.get(200));
+        assertThat(springJdbcRepository.findById(users.get(50).getId())).contains(users.get(50));
+    }
+
+    @Test
+    void testInsertPathsShareIdSequence() {
+        // 逐条保存、批量保存、批量导入交替写入，主键都来自 users 序列，不会互相冲突
+        DataSourceUtilsRepository dataSourceUtilsRepository = new DataSourceUtilsRepository(dataSource, userIds);
+        List<User> users = users(0, 1000);
+        standardJdbcRepository.save(users.get(0));
+        springJdbcRepository.saveAll(users.subList(1, 150));
+        springJdbcRepository.save(users.get(150));
+        standardJdbcRepository.bulkInsert(users.subList(151, 600), BulkLoadOptions.builder()
+                .chunkSize(50).rowsPerStatement(8).parallelism(2).build());
+        dataSourceUtilsRepository.batchInsert(users.subList(600, 800), 64);
+        standardJdbcRepository.saveAll(users.subList(800, 1000));
+
+        assertThat(users).extracting(User::getId).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class)).isEqualTo(1000);
+    }
+
+    @Test
+    void testStandardJdbcSingleRowSave() {
+        measure("standard jdbc, save() per row", users -> users.forEach(standardJdbcRepository::save));
+    }
+
+    @Test
+    void testStandardJdbcSaveAll() {
+        measure("standard jdbc, saveAll() x" + CHUNK, standardJdbcRepository::saveAll);
+    }
+
+    @Test
+    void testSpringJdbcSingleRowSave() {
+        measure("spring jdbc, save() per row", users -> users.forEach(springJdbcRepository::save));
+    }
+
+    @Test
+    void testSpringJdbcSaveAll() {
+        measure("spring jdbc, saveAll() x" + CHUNK, springJdbcRepository::saveAll);
+    }
+
+    /**
+     * 按 {@link #CHUNK} 行一组调用 saver，打印吞吐并检查每一行都有主键
+     */
+    private static void measure(String name, Consumer<List<User>> saver) {
+        long start = System.nanoTime();
+        List<Long> ids = new ArrayList<>(ROWS);
+        for (int offset = 0; offset < ROWS; offset += CHUNK) {
+            List<User> chunk = users(offset, Math.min(CHUNK, ROWS - offset));
+            saver.accept(chunk);
+            chunk.forEach(user -> ids.add(user.getId()));
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        System.out.printf("%-35s %,d rows in %,d ms, %,.0f rows/sec%n",
+                name, ROWS, elapsedNanos / 1_000_000, ROWS * 1e9 / elapsedNanos);
+
+        assertThat(ids).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class)).isEqualTo(ROWS);
+    }
+
+    private static List<User> users(int offset, int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = offset; i < offset + count; i++) {
+            users.add(new User(null, "user-" + i, "user-" + i + "@example.com"));
+        }
+        return users;
+    }
+}
@@ -0,0 +1,129 @@
+package io.github.daihaowxg.spring.jdbc.repository;
+
+import io.github.daihaowxg.spring.jdbc.entity.User;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 流式查询与键集分页测试。
+ * <p>
+ * 使用文件模式的 H2（数据不占用 JVM 堆）构造一张大表，surefire 限制了堆大小（见 pom.xml），
+ * 如果查询把整张表物化成 List&lt;User&gt;，这里会直接 OOM。
+ * 行数可以通过 {@code -Dstreaming.rows=...} 调整。默认 20 万行，只校验结果和资源释放；
+ * {@code -Pbenchmark} 时为 500 万行，远超过测试堆，才能验证内存占用与表大小无关。
+ */
+class StreamingQueryTest {
+
+    private static final long ROWS = Long.getLong("streaming.rows", 200_000L);
+    private static final int FETCH_SIZE = 1000;
+
+    private static DriverManagerDataSource dataSource;
+    private static StandardJdbcRepository standardJdbcRepository;
+    private static SpringJdbcRepository springJdbcRepository;
+
+    @BeforeAll
+    static void setUp() {
+        dataSource = new DriverManagerDataSource(
+                "jdbc:h2:file:./target/streaming-test/users;LAZY_QUERY_EXECUTION=TRUE", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS users");
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "name VARCHAR(255) NOT NULL, email VARCHAR(255) NOT NULL)");
+        jdbcTemplate.update("INSERT INTO users (id, name, email) "
+                + "SELECT X, CONCAT('user-', X), CONCAT('user-', X, '@example.com') FROM SYSTEM_RANGE(1, ?)", ROWS);
+
+        SequenceIdAllocator userIds = new SequenceIdAllocator(dataSource, "users", 100);
+        standardJdbcRepository = new StandardJdbcRepository(dataSource, userIds);
+        springJdbcRepository = new SpringJdbcRepository(jdbcTemplate, userIds);
+    }
+
+    @Test
+    void testStandardJdbcStreamAll() {
+        try (Stream<User> users = standardJdbcRepository.streamAll(FETCH_SIZE)) {
+            assertStreamed(users);
+        }
+    }
+
+    @Test
+    void testSpringJdbcStreamAll() {
+        try (Stream<User> users = springJdbcRepository.streamAll(FETCH_SIZE)) {
+            assertStreamed(users);
+        }
+    }
+
+    @Test
+    void testSpringJdbcForEachUser() {
+        AtomicLong count = new AtomicLong();
+        AtomicLong lastId = new AtomicLong();
+        springJdbcRepository.forEachUser(FETCH_SIZE, user -> {
+            count.incrementAndGet();
+            lastId.set(user.getId());
+        });
+        assertThat(count.get()).isEqualTo(ROWS);
+        assertThat(lastId.get()).isEqualTo(ROWS);
+    }
+
+    @Test
+    void testKeysetIterator() {
+        assertIterated(standardJdbcRepository.iterateByKeyset(10_000));
+        assertIterated(springJdbcRepository.iterateByKeyset(10_000));
+    }
+
+    @Test
+    void testStreamCloseReleasesConnection() {
+        try (Stream<User> users = standardJdbcRepository.streamAll(FETCH_SIZE)) {
+            assertThat(users.limit(10).count()).isEqualTo(10);
+            assertThat(openSessions()).isEqualTo(2);
+        }
+        // 只剩下统计会话自己
+        assertThat(openSessions()).isEqualTo(1);
+
+        try (Stream<User> users = springJdbcRepository.streamAll(FETCH_SIZE)) {
+            assertThat(users.limit(10).count()).isEqualTo(10);
+        }
+        assertThat(openSessions()).isEqualTo(1);
+    }
+
+    private static void assertStreamed(Stream<User> users) {
+        long[] countAndLastId = new long[2];
+        users.forEach(user -> {
+            countAndLastId[0]++;
+            countAndLastId[1] = user.getId();
+        });
+        System.out.printf("streamed %,d rows, heap used %,d MB%n", countAndLastId[0], usedHeapMb());
+        assertThat(countAndLastId[0]).isEqualTo(ROWS);
+        assertThat(countAndLastId[1]).isEqualTo(ROWS);
+    }
+
+    private static void assertIterated(Iterator<User> iterator) {
+        long count = 0;
+        long previousId = 0;
+        while (iterator.hasNext()) {
+            long id = iterator.next().getId();
+            assertThat(id).isGreaterThan(previousId);
+            previousId = id;
+            count++;
+        }
+        System.out.printf("iterated %,d rows by keyset, heap used %,d MB%n", count, usedHeapMb());
+        assertThat(count).isEqualTo(ROWS);
+    }
+
+    private static long openSessions() {
+        Long sessions = new JdbcTemplate(dataSource)
+                .queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.SESSIONS", Long.class);
+        return sessions == null ? 0 : sessions;
+    }
+
+    private static long usedHeapMb() {
+        Runtime runtime = Runtime.getRuntime();
+        return (runtime.totalMemory() - runtime.freeMemory()) / 1024 / 1024;
+    }
+}
@@ -14,6 +14,7 @@ import org.springframework.stereotype.Component;
  * 1. 三种常见的 bug 场景
  * 2. 正确的使用方式
  * 3. Spring 内部机制的详细展示
+ * 4. 事务内并行读取和提交后异步任务
  * 
  * @author daihaowxg
  */
@@ -26,6 +27,9 @@ public class ConnectionHolderBugDemoRunner implements CommandLineRunner {
     @Autowired
     private ConnectionHolderInternalDemo internalDemo;
 
+    @Autowired
+    private ParallelReadDemoService parallelReadDemoService;
+
     /**
      * 应用启动后自动执行的方法
      * 
@@ -88,6 +92,13 @@ public class ConnectionHolderBugDemoRunner implements CommandLineRunner {
         internalDemo.executeRunnable(runnable);
         System.out.println();
 
+        // 正确用法 2: 事务内并行读取
+        // 对比 Bug 场景 2，每个工作线程使用自己的只读事务和连接
+        System.out.println("--- 正确用法 2: 在事务中并行读取 ---");
+        parallelReadDemoService.parallelReadInTransaction();
+        Thread.sleep(100); // 等待提交后任务执行
+        System.out.println();
+
         System.out.println("========================================");
         System.out.println("演示完成");
         System.out.println("========================================\n");
@@ -1,9 +1,12 @@
 package io.github.daihaowxg.lab15_spring_transaction.demo;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.sql.DataSource;
+
 /**
  * ConnectionHolder 内部机制演示
  * 
@@ -20,6 +23,9 @@ import org.springframework.transaction.support.TransactionSynchronizationManager
 @Service
 public class ConnectionHolderInternalDemo {
 
+    @Autowired
+    private DataSource dataSource;
+
     /**
      * Bug 演示: 在事务外访问 ConnectionHolder
      * 
@@ -44,8 +50,8 @@ public class ConnectionHolderInternalDemo {
         System.out.println("是否有活动的事务: " + isTransactionActive);
         
         // 尝试获取 ConnectionHolder - 这将返回 null
-        // 因为 ThreadLocal 中没有事务资源
-        Object connectionHolder = TransactionSynchronizationManager.getResource(null);
+        // 因为 ThreadLocal 中没有事务资源（ConnectionHolder 以 DataSource 为 key 存放）
+        Object connectionHolder = TransactionSynchronizationManager.getResource(dataSource);
         System.out.println("ConnectionHolder (应该是 null): " + connectionHolder);
         
         if (connectionHolder == null) {
@@ -0,0 +1,55 @@
+package io.github.daihaowxg.lab15_spring_transaction.demo;
+
+import io.github.daihaowxg.lab15_spring_transaction.parallel.AfterCommitDispatcher;
+import io.github.daihaowxg.lab15_spring_transaction.parallel.ParallelReadExecutor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 事务内并行读取演示服务
+ *
+ * 对比 Bug 场景 2：同样是在 @Transactional 方法中使用多个线程，
+ * 这里每个工作线程都有自己的只读事务和连接，事务连接只在主线程中使用，
+ * 提交后的通知也不会碰到事务连接。
+ *
+ * H2 的 SESSION_ID() 可以区分不同的物理连接
+ *
+ * @author daihaowxg
+ */
+@Service
+public class ParallelReadDemoService {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ParallelReadExecutor parallelReadExecutor;
+
+    @Autowired
+    private AfterCommitDispatcher afterCommitDispatcher;
+
+    @Transactional
+    public void parallelReadInTransaction() {
+        Integer mainSession = jdbcTemplate.queryForObject("SELECT SESSION_ID()", Integer.class);
+        System.out.println("主线程: " + Thread.currentThread().getName() + ", 会话: " + mainSession);
+
+        // 每个子任务都在工作线程自己的只读事务中执行
+        Function<JdbcTemplate, String> task = jdbc -> Thread.currentThread().getName()
+                + ", 会话: " + jdbc.queryForObject("SELECT SESSION_ID()", Integer.class)
+                + ", 事务: " + TransactionSynchronizationManager.isActualTransactionActive()
+                + ", 只读: " + TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        List<String> results = parallelReadExecutor.readAll(List.of(task, task, task));
+        results.forEach(result -> System.out.println("工作线程: " + result));
+
+        // 提交后在独立线程中执行，此时没有事务上下文，也拿不到主线程的事务连接
+        afterCommitDispatcher.dispatch(() -> System.out.println("提交后任务: " + Thread.currentThread().getName()
+                + ", 事务: " + TransactionSynchronizationManager.isActualTransactionActive()));
+        System.out.println("主线程即将提交事务");
+    }
+}
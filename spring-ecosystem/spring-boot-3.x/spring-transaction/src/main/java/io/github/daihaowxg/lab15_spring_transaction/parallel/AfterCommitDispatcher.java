@@ -0,0 +1,59 @@
+package io.github.daihaowxg.lab15_spring_transaction.parallel;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.Executor;
+
+/**
+ * 事务提交后异步执行任务
+ * <p>
+ * 直接在 {@code TransactionSynchronization.afterCommit()} 中访问数据库有一个隐蔽的问题：
+ * afterCommit 回调时事务已经提交，但 ConnectionHolder 还没有从 ThreadLocal 中解绑，
+ * 回调里的 JdbcTemplate 仍会"加入"原事务、拿到这个连接，而原事务不会再提交一次，回调中的写入可能就此丢失。
+ * <p>
+ * 这里的回调只把任务交给独立的线程池，任务运行在没有任何事务上下文的线程中，
+ * 需要访问数据库时由它自己获取连接（或自己开启事务），不会碰到调用方的事务连接。
+ * 事务回滚时任务不会执行；当前没有事务时任务立即提交到线程池。
+ *
+ * @author daihaowxg
+ */
+@Slf4j
+public class AfterCommitDispatcher {
+
+    private final Executor executor;
+
+    public AfterCommitDispatcher(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * 在当前事务提交后异步执行任务
+     */
+    public void dispatch(Runnable task) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            executor.execute(guarded(task));
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                executor.execute(guarded(task));
+            }
+        });
+    }
+
+    /**
+     * 提交后任务的异常无法再影响事务结果，只记录日志，不让它中断线程池的工作线程
+     */
+    private static Runnable guarded(Runnable task) {
+        return () -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.error("After-commit task failed", e);
+            }
+        };
+    }
+}
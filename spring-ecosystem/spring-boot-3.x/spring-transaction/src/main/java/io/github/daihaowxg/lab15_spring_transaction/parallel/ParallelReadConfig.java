@@ -0,0 +1,53 @@
+package io.github.daihaowxg.lab15_spring_transaction.parallel;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * 并行读取和提交后异步任务的线程池配置
+ * <p>
+ * 两类任务使用各自的线程池：提交后任务积压时不会占满并行读取的线程，反之亦然。
+ *
+ * @author daihaowxg
+ */
+@Configuration
+@EnableConfigurationProperties(ParallelReadProperties.class)
+public class ParallelReadConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor parallelReadTaskExecutor(ParallelReadProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getParallelism());
+        executor.setMaxPoolSize(properties.getParallelism());
+        executor.setThreadNamePrefix("parallel-read-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor afterCommitTaskExecutor(ParallelReadProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getAfterCommitThreads());
+        executor.setMaxPoolSize(properties.getAfterCommitThreads());
+        executor.setThreadNamePrefix("after-commit-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    @Bean
+    public ParallelReadExecutor parallelReadExecutor(JdbcTemplate jdbcTemplate,
+                                                     PlatformTransactionManager transactionManager,
+                                                     ThreadPoolTaskExecutor parallelReadTaskExecutor,
+                                                     ParallelReadProperties properties) {
+        return new ParallelReadExecutor(jdbcTemplate, transactionManager, parallelReadTaskExecutor, properties.getTimeout());
+    }
+
+    @Bean
+    public AfterCommitDispatcher afterCommitDispatcher(ThreadPoolTaskExecutor afterCommitTaskExecutor) {
+        return new AfterCommitDispatcher(afterCommitTaskExecutor);
+    }
+}
@@ -0,0 +1,126 @@
+package io.github.daihaowxg.lab15_spring_transaction.parallel;
+
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * 在事务方法中并行执行多个只读查询
+ * <p>
+ * {@code ConnectionHolderBugDemoService.bugCase2_DifferentThread} 演示了直接开线程的问题：
+ * 事务上下文保存在 ThreadLocal 中，新线程里的 {@code DataSourceUtils.getConnection()}
+ * 拿到的是一个没有事务、用完也没人关闭的新连接。这里换一种做法：
+ * <ul>
+ *   <li>每个子任务在工作线程中开启<b>自己的</b>只读事务（REQUIRES_NEW + REPEATABLE_READ），
+ *       连接绑定到工作线程，由事务管理器负责释放，子任务里的 JdbcTemplate 都走这个连接</li>
+ *   <li>调用方的事务连接从不离开调用线程，也不会被多个线程同时使用</li>
+ *   <li>工作线程数有上限，所有子任务共享一个总超时，超时或失败时取消尚未开始的子任务</li>
+ * </ul>
+ * 限制：
+ * <ul>
+ *   <li>子任务运行在独立的事务中，<b>看不到</b>调用方事务中尚未提交的写入，只适合读取已提交的数据</li>
+ *   <li>每个子任务在自己的快照内是一致的，但各个子任务的快照时间点略有不同。
+ *       需要所有子任务共享同一个快照时，要依赖数据库的支持（如 PostgreSQL 的
+ *       {@code pg_export_snapshot()} / {@code SET TRANSACTION SNAPSHOT}）</li>
+ *   <li>调用方占着一个连接等待子任务，连接池大小要预留出并行度对应的连接</li>
+ * </ul>
+ *
+ * @author daihaowxg
+ */
+public class ParallelReadExecutor {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final Executor executor;
+
+    private final Duration timeout;
+
+    public ParallelReadExecutor(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                Executor executor, Duration timeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.executor = executor;
+        this.timeout = timeout;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        // 即使执行器在调用线程中运行任务，也不能加入调用方的事务
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readOnlyTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * 并行执行所有子任务，按传入顺序返回结果
+     *
+     * @param tasks 子任务，参数是绑定到工作线程只读事务的 JdbcTemplate
+     * @throws QueryTimeoutException 超过总超时时间仍未全部完成
+     */
+    public <T> List<T> readAll(List<? extends Function<JdbcTemplate, T>> tasks) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(tasks.size());
+        for (Function<JdbcTemplate, T> task : tasks) {
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> readOnlyTransaction.execute(status -> task.apply(jdbcTemplate)), executor));
+        }
+
+        CompletableFuture<Void> all = CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new));
+        // 任意一个子任务失败就不必再等其他子任务
+        futures.forEach(future -> future.whenComplete((result, ex) -> {
+            if (ex != null) {
+                all.completeExceptionally(ex);
+            }
+        }));
+
+        try {
+            all.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            cancel(futures);
+            throw new QueryTimeoutException("Parallel read did not finish within " + timeout);
+        } catch (InterruptedException e) {
+            cancel(futures);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for parallel read", e);
+        } catch (ExecutionException e) {
+            cancel(futures);
+            throw unwrap(e.getCause());
+        }
+
+        List<T> results = new ArrayList<>(futures.size());
+        for (CompletableFuture<T> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    /**
+     * 取消尚未开始的子任务；已经在执行的子任务会在自己的事务中正常结束并释放连接
+     */
+    private static void cancel(List<? extends CompletableFuture<?>> futures) {
+        futures.forEach(future -> future.cancel(false));
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException("Parallel read failed", cause);
+    }
+}
@@ -0,0 +1,33 @@
+package io.github.daihaowxg.lab15_spring_transaction.parallel;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 事务内并行读取和提交后异步任务的配置
+ *
+ * @author daihaowxg
+ */
+@Data
+@ConfigurationProperties(prefix = "transaction.parallel")
+public class ParallelReadProperties {
+
+    /**
+     * 并行读取的工作线程数，也就是最多同时占用的额外连接数。
+     * 连接池大小至少要能容纳"并发请求数 + parallelism"，否则持有事务连接的调用方
+     * 和等待连接的工作线程会互相等待，直到连接池超时。
+     */
+    private int parallelism = 4;
+
+    /**
+     * 一次并行读取的总超时时间
+     */
+    private Duration timeout = Duration.ofSeconds(10);
+
+    /**
+     * 执行提交后异步任务的线程数
+     */
+    private int afterCommitThreads = 2;
+}
@@ -0,0 +1,155 @@
+package io.github.daihaowxg.lab15_spring_transaction.parallel;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 事务内并行读取和提交后异步任务测试
+ *
+ * @author daihaowxg
+ */
+@SpringBootTest
+class ParallelReadExecutorTest {
+
+    private static final int SLEEP_MILLIS = 200;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ParallelReadExecutor parallelReadExecutor;
+
+    @Autowired
+    private AfterCommitDispatcher afterCommitDispatcher;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE ALIAS IF NOT EXISTS SLEEP FOR 'java.lang.Thread.sleep'");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS account (id BIGINT PRIMARY KEY, balance INT NOT NULL)");
+        jdbcTemplate.update("DELETE FROM account");
+        jdbcTemplate.update("INSERT INTO account VALUES (1, 100)");
+    }
+
+    @Test
+    void testWorkersUseTheirOwnReadOnlyTransactions() {
+        // 三个子任务都拿到连接后才返回，保证它们同时持有连接
+        CountDownLatch allStarted = new CountDownLatch(3);
+        Function<JdbcTemplate, String> task = jdbc -> {
+            assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isTrue();
+            assertThat(TransactionSynchronizationManager.isCurrentTransactionReadOnly()).isTrue();
+            String session = jdbc.queryForObject("SELECT SESSION_ID()", String.class);
+            allStarted.countDown();
+            try {
+                assertThat(allStarted.await(5, TimeUnit.SECONDS)).isTrue();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return session;
+        };
+
+        transactionTemplate.executeWithoutResult(status -> {
+            String mainSession = jdbcTemplate.queryForObject("SELECT SESSION_ID()", String.class);
+            List<String> workerSessions = parallelReadExecutor.readAll(List.of(task, task, task));
+
+            assertThat(workerSessions).doesNotContain(mainSession).doesNotHaveDuplicates();
+            // 主线程的事务连接没有被替换
+            assertThat(jdbcTemplate.queryForObject("SELECT SESSION_ID()", String.class)).isEqualTo(mainSession);
+        });
+    }
+
+    @Test
+    void testWorkersOnlySeeCommittedData() {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE account SET balance = 0 WHERE id = 1");
+            List<Integer> balances = parallelReadExecutor.readAll(List.of(
+                    jdbc -> jdbc.queryForObject("SELECT balance FROM account WHERE id = 1", Integer.class)));
+            assertThat(balances).containsExactly(100);
+            status.setRollbackOnly();
+        });
+    }
+
+    @Test
+    void testFanOutRunsInParallel() {
+        int tasks = 4;
+        List<Function<JdbcTemplate, Integer>> sleepers = Collections.nCopies(tasks,
+                jdbc -> jdbc.queryForObject("SELECT COUNT(SLEEP(" + SLEEP_MILLIS + "))", Integer.class));
+
+        long sequential = timed(() -> transactionTemplate.executeWithoutResult(
+                status -> sleepers.forEach(sleeper -> sleeper.apply(jdbcTemplate))));
+        long parallel = timed(() -> transactionTemplate.executeWithoutResult(
+                status -> parallelReadExecutor.readAll(sleepers)));
+
+        System.out.printf("%d reads of %d ms: sequential %d ms, parallel %d ms%n",
+                tasks, SLEEP_MILLIS, sequential, parallel);
+        assertThat(parallel).isLessThan(sequential / 2);
+    }
+
+    @Test
+    void testFailureIsPropagated() {
+        assertThatThrownBy(() -> parallelReadExecutor.readAll(List.of(
+                jdbc -> jdbc.queryForObject("SELECT 1", Integer.class),
+                jdbc -> jdbc.queryForObject("SELECT missing FROM account", Integer.class))))
+                .isInstanceOf(BadSqlGrammarException.class);
+    }
+
+    @Test
+    void testAfterCommitTaskRunsOutsideTransaction() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicBoolean committedBeforeRun = new AtomicBoolean();
+        AtomicReference<String> runner = new AtomicReference<>();
+        AtomicBoolean transactionActive = new AtomicBoolean(true);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("UPDATE account SET balance = 50 WHERE id = 1");
+            afterCommitDispatcher.dispatch(() -> {
+                runner.set(Thread.currentThread().getName());
+                transactionActive.set(TransactionSynchronizationManager.isActualTransactionActive());
+                // 任务用自己的连接读取，能看到已提交的数据
+                committedBeforeRun.set(Integer.valueOf(50).equals(
+                        jdbcTemplate.queryForObject("SELECT balance FROM account WHERE id = 1", Integer.class)));
+                done.countDown();
+            });
+        });
+
+        assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(runner.get()).startsWith("after-commit-");
+        assertThat(transactionActive).isFalse();
+        assertThat(committedBeforeRun).isTrue();
+    }
+
+    @Test
+    void testAfterCommitTaskSkippedOnRollback() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        transactionTemplate.executeWithoutResult(status -> {
+            afterCommitDispatcher.dispatch(done::countDown);
+            status.setRollbackOnly();
+        });
+        assertThat(done.await(300, TimeUnit.MILLISECONDS)).isFalse();
+    }
+
+    private static long timed(Runnable action) {
+        long start = System.nanoTime();
+        action.run();
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+}
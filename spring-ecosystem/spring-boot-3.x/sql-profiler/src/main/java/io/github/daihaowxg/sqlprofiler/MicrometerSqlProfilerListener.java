@@ -0,0 +1,91 @@
+package io.github.daihaowxg.sqlprofiler;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 把分析结果导出为 Micrometer 指标
+ *
+ * <ul>
+ *   <li>{@code sql.profiler.statements}（Timer，标签 fingerprint）：每种语句的执行次数和耗时</li>
+ *   <li>{@code sql.profiler.rows}（Counter，标签 fingerprint）：取回的行数</li>
+ *   <li>{@code sql.profiler.n_plus_one}（Counter，标签 fingerprint）：检测到的 N+1 次数</li>
+ *   <li>{@code sql.profiler.request.statements}（DistributionSummary）：每个请求执行的语句数</li>
+ * </ul>
+ *
+ * <p>标签使用 {@link SqlShape#fingerprint()}（操作 + 表名），取值数量与表的数量同级。
+ * 前两项可以关闭（{@code sql-profiler.statement-metrics=false}），由连接池自己的按语句统计代替。</p>
+ *
+ * @author daihaowxg
+ */
+public class MicrometerSqlProfilerListener implements SqlProfilerListener {
+
+    private final MeterRegistry registry;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    private final Map<String, Counter> rowCounters = new ConcurrentHashMap<>();
+
+    private final DistributionSummary requestStatements;
+
+    private final boolean statementMetrics;
+
+    public MicrometerSqlProfilerListener(MeterRegistry registry) {
+        this(registry, true);
+    }
+
+    /**
+     * @param statementMetrics 是否导出 {@code sql.profiler.statements} 和 {@code sql.profiler.rows}
+     */
+    public MicrometerSqlProfilerListener(MeterRegistry registry, boolean statementMetrics) {
+        this.registry = registry;
+        this.statementMetrics = statementMetrics;
+        this.requestStatements = DistributionSummary.builder("sql.profiler.request.statements")
+                .description("每个请求执行的 SQL 语句数")
+                .register(registry);
+    }
+
+    @Override
+    public void onStatement(SqlShape shape, long elapsedNanos) {
+        if (!statementMetrics) {
+            return;
+        }
+        timers.computeIfAbsent(shape.fingerprint(), fingerprint -> Timer.builder("sql.profiler.statements")
+                        .description("SQL 语句的执行耗时")
+                        .tag("fingerprint", fingerprint)
+                        .register(registry))
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void onRowsFetched(SqlShape shape, long rows) {
+        if (!statementMetrics) {
+            return;
+        }
+        rowCounters.computeIfAbsent(shape.fingerprint(), fingerprint -> Counter.builder("sql.profiler.rows")
+                        .description("从结果集取回的行数")
+                        .tag("fingerprint", fingerprint)
+                        .register(registry))
+                .increment(rows);
+    }
+
+    @Override
+    public void onNPlusOne(SqlShape shape, int executions) {
+        Counter.builder("sql.profiler.n_plus_one")
+                .description("检测到的 N+1 查询次数")
+                .tag("fingerprint", shape.fingerprint())
+                .register(registry)
+                .increment();
+    }
+
+    @Override
+    public void onProfileFinished(SqlProfile profile) {
+        requestStatements.record(profile.getStatementCount());
+    }
+}
@@ -0,0 +1,239 @@
+package io.github.daihaowxg.sqlprofiler;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+
+/**
+ * 记录 SQL 执行情况的数据源代理
+ *
+ * <p>用 JDK 动态代理包装连接、语句和结果集，语句执行完成后交给 {@link SqlProfiler} 记录耗时，
+ * 结果集关闭时补充取回的行数。{@code unwrap} 透传给连接池，依赖物理连接的代码（如语句缓存）不受影响，
+ * 但通过物理连接直接创建的语句也就不再被记录。</p>
+ *
+ * <p>继承 {@link DelegatingDataSource}，Spring Boot 的 {@code DataSourceUnwrapper} 能穿过代理找到 Hikari 等连接池，
+ * 连接池指标和 JMX 不受影响。</p>
+ *
+ * @author daihaowxg
+ */
+public class ProfilingDataSource extends DelegatingDataSource {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate",
+            "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private final SqlProfiler profiler;
+
+    public ProfilingDataSource(DataSource targetDataSource, SqlProfiler profiler) {
+        super(targetDataSource);
+        this.profiler = profiler;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+
+    private Connection wrap(Connection connection) {
+        // 多层数据源都被代理时（如路由数据源之下的各个节点），只记录一次
+        if (Proxy.isProxyClass(connection.getClass())
+                && Proxy.getInvocationHandler(connection) instanceof ConnectionHandler) {
+            return connection;
+        }
+        return (Connection) Proxy.newProxyInstance(ProfilingDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * 代理对象自身的 equals / hashCode / toString，不转发给目标对象
+     */
+    private static Object invokeObjectMethod(Object proxy, Object target, Method method, Object[] args) {
+        return switch (method.getName()) {
+            case "equals" -> proxy == args[0];
+            case "hashCode" -> System.identityHashCode(proxy);
+            default -> "Profiling[" + target + "]";
+        };
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+
+        private final Connection target;
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return invokeObjectMethod(proxy, target, method, args);
+            }
+            Object result = ProfilingDataSource.invoke(target, method, args);
+            return switch (method.getName()) {
+                case "createStatement" -> statement(proxy, Statement.class, (Statement) result, null);
+                case "prepareStatement" ->
+                        statement(proxy, PreparedStatement.class, (Statement) result, (String) args[0]);
+                case "prepareCall" -> statement(proxy, CallableStatement.class, (Statement) result, (String) args[0]);
+                default -> result;
+            };
+        }
+
+        private Statement statement(Object connection, Class<? extends Statement> type, Statement target, String sql) {
+            return (Statement) Proxy.newProxyInstance(ProfilingDataSource.class.getClassLoader(),
+                    new Class<?>[]{type}, new StatementHandler((Connection) connection, target, sql));
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Connection connection;
+
+        private final Statement target;
+
+        /**
+         * 预编译语句的 SQL；普通语句为 null，SQL 在执行时传入
+         */
+        private final String preparedSql;
+
+        /**
+         * 普通语句批量执行时第一条 SQL，批量执行作为一条语句记录
+         */
+        private String batchSql;
+
+        /**
+         * 最近一次执行，execute() 返回结果集时由 getResultSet() 关联
+         */
+        private SqlProfiler.Execution lastExecution;
+
+        StatementHandler(Connection connection, Statement target, String preparedSql) {
+            this.connection = connection;
+            this.target = target;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return invokeObjectMethod(proxy, target, method, args);
+            }
+            String name = method.getName();
+            if (EXECUTE_METHODS.contains(name)) {
+                return execute(proxy, method, args);
+            }
+            switch (name) {
+                case "addBatch":
+                    if (args != null && batchSql == null) {
+                        batchSql = (String) args[0];
+                    }
+                    break;
+                case "clearBatch":
+                    batchSql = null;
+                    break;
+                case "getConnection":
+                    return connection;
+                default:
+                    break;
+            }
+            Object result = ProfilingDataSource.invoke(target, method, args);
+            if ("getResultSet".equals(name) && result != null && lastExecution != null) {
+                return resultSet((Statement) proxy, (ResultSet) result, lastExecution);
+            }
+            return result;
+        }
+
+        private Object execute(Object proxy, Method method, Object[] args) throws Throwable {
+            String sql;
+            if (method.getName().endsWith("Batch")) {
+                sql = preparedSql != null ? preparedSql : batchSql;
+                batchSql = null;
+            } else {
+                sql = args != null && args.length > 0 ? (String) args[0] : preparedSql;
+            }
+            Object result;
+            long start = System.nanoTime();
+            try {
+                result = ProfilingDataSource.invoke(target, method, args);
+            } finally {
+                // 执行失败的语句同样发到了数据库，一并记录
+                lastExecution = profiler.record(sql, System.nanoTime() - start);
+            }
+            if (result instanceof ResultSet resultSet) {
+                return resultSet((Statement) proxy, resultSet, lastExecution);
+            }
+            return result;
+        }
+
+        private ResultSet resultSet(Statement statement, ResultSet target, SqlProfiler.Execution execution) {
+            return (ResultSet) Proxy.newProxyInstance(ProfilingDataSource.class.getClassLoader(),
+                    new Class<?>[]{ResultSet.class}, new ResultSetHandler(statement, target, execution));
+        }
+    }
+
+    private static final class ResultSetHandler implements InvocationHandler {
+
+        private final Statement statement;
+
+        private final ResultSet target;
+
+        private final SqlProfiler.Execution execution;
+
+        private long rows;
+
+        private boolean closed;
+
+        ResultSetHandler(Statement statement, ResultSet target, SqlProfiler.Execution execution) {
+            this.statement = statement;
+            this.target = target;
+            this.execution = execution;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return invokeObjectMethod(proxy, target, method, args);
+            }
+            switch (method.getName()) {
+                case "next":
+                    boolean hasRow = target.next();
+                    if (hasRow) {
+                        rows++;
+                    }
+                    return hasRow;
+                case "getStatement":
+                    return statement;
+                case "close":
+                    target.close();
+                    if (!closed) {
+                        closed = true;
+                        execution.rowsFetched(rows);
+                    }
+                    return null;
+                default:
+                    return ProfilingDataSource.invoke(target, method, args);
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package io.github.daihaowxg.sqlprofiler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 测试中的查询预算断言
+ *
+ * <p>在 {@link SqlProfiler} 作用域中执行一段代码，语句数、同一形状的重复次数超过预算，
+ * 或者检测到 N+1 时抛出 {@link AssertionError}，失败信息中包含 {@link SqlProfile#summary()}：</p>
+ *
+ * <pre>
+ * List&lt;User&gt; users = QueryBudget.maxStatements(2).noNPlusOne()
+ *         .call(() -&gt; userService.findUsersWithOrders());
+ * </pre>
+ *
+ * <p>只统计经过 {@link ProfilingDataSource}（或连接池扩展点）且在当前线程执行的语句。</p>
+ *
+ * @author daihaowxg
+ */
+public final class QueryBudget {
+
+    private int maxStatements = Integer.MAX_VALUE;
+
+    private int maxRepeatsPerShape = Integer.MAX_VALUE;
+
+    private boolean noNPlusOne;
+
+    private QueryBudget() {
+    }
+
+    /**
+     * 最多执行 max 条语句
+     */
+    public static QueryBudget maxStatements(int max) {
+        QueryBudget budget = new QueryBudget();
+        budget.maxStatements = max;
+        return budget;
+    }
+
+    /**
+     * 不限制语句数，通常接着设置 {@link #maxRepeatsPerShape(int)} 或 {@link #noNPlusOne()}
+     */
+    public static QueryBudget unlimited() {
+        return new QueryBudget();
+    }
+
+    /**
+     * 同一个形状最多执行 max 次，比 {@link #noNPlusOne()} 更严格，不依赖全局阈值
+     */
+    public QueryBudget maxRepeatsPerShape(int max) {
+        this.maxRepeatsPerShape = max;
+        return this;
+    }
+
+    /**
+     * 不允许出现 {@link SqlProfiler} 判定的 N+1
+     */
+    public QueryBudget noNPlusOne() {
+        this.noNPlusOne = true;
+        return this;
+    }
+
+    /**
+     * 执行 action 并检查预算
+     *
+     * @return 作用域内的统计，可以继续做更细的断言
+     */
+    public SqlProfile run(Runnable action) {
+        return profile(() -> {
+            action.run();
+            return null;
+        }).profile;
+    }
+
+    /**
+     * 执行 action 并检查预算
+     *
+     * @return action 的返回值
+     */
+    public <T> T call(Supplier<T> action) {
+        return profile(action).result;
+    }
+
+    /**
+     * 检查已有的统计
+     */
+    public void verify(SqlProfile profile) {
+        List<String> violations = new ArrayList<>();
+        if (profile.getStatementCount() > maxStatements) {
+            violations.add("语句数 " + profile.getStatementCount() + " 超过预算 " + maxStatements);
+        }
+        for (SqlProfile.ShapeStats shape : profile.getShapes()) {
+            if (shape.getExecutions() > maxRepeatsPerShape) {
+                violations.add("语句执行了 " + shape.getExecutions() + " 次, 超过预算 " + maxRepeatsPerShape
+                        + ": " + shape.getSql());
+            }
+        }
+        if (noNPlusOne) {
+            for (String shape : profile.getNPlusOneShapes()) {
+                violations.add("检测到 N+1: " + shape);
+            }
+        }
+        if (!violations.isEmpty()) {
+            throw new AssertionError("超出查询预算:\n  " + String.join("\n  ", violations)
+                    + "\n" + profile.summary());
+        }
+    }
+
+    private <T> Result<T> profile(Supplier<T> action) {
+        T result;
+        SqlProfile profile;
+        try (SqlProfiler.Scope scope = SqlProfiler.open("query-budget")) {
+            profile = scope.profile();
+            result = action.get();
+        }
+        verify(profile);
+        return new Result<>(result, profile);
+    }
+
+    private record Result<T>(T result, SqlProfile profile) {
+    }
+}
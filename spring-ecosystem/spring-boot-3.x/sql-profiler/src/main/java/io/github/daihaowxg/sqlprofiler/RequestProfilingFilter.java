@@ -0,0 +1,37 @@
+package io.github.daihaowxg.sqlprofiler;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * 为每个 HTTP 请求打开一个 {@link SqlProfiler} 作用域，请求结束时输出摘要、记录每请求语句数
+ *
+ * <p>N+1 检测在没有事务时以请求为单位：Controller 中循环调用各自开启事务的 Service 方法，
+ * 同样能被发现。</p>
+ *
+ * @author daihaowxg
+ */
+public class RequestProfilingFilter extends OncePerRequestFilter {
+
+    private final SqlProfiler profiler;
+
+    public RequestProfilingFilter(SqlProfiler profiler) {
+        this.profiler = profiler;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        SqlProfile profile;
+        try (SqlProfiler.Scope scope = SqlProfiler.open(request.getMethod() + " " + request.getRequestURI())) {
+            profile = scope.profile();
+            chain.doFilter(request, response);
+        }
+        profiler.finish(profile);
+    }
+}
@@ -0,0 +1,183 @@
+package io.github.daihaowxg.sqlprofiler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 一个作用域（一次请求、一段测试代码）内执行过的 SQL 汇总
+ *
+ * <p>由 {@link SqlProfiler#open(String)} 创建并绑定到当前线程，作用域内的语句按 {@link SqlShape} 分组，
+ * 记录执行次数、耗时和取回的行数。只在创建它的线程中修改，不是线程安全的。</p>
+ *
+ * @author daihaowxg
+ */
+public class SqlProfile {
+
+    /**
+     * {@link #summary()} 中最多列出的形状数量
+     */
+    private static final int SUMMARY_LIMIT = 10;
+
+    private final String name;
+
+    private final Map<String, ShapeStats> shapes = new LinkedHashMap<>();
+
+    private final Set<String> nPlusOneShapes = new LinkedHashSet<>();
+
+    private int statementCount;
+
+    private long elapsedNanos;
+
+    private long rowsFetched;
+
+    SqlProfile(String name) {
+        this.name = name;
+    }
+
+    ShapeStats record(SqlShape shape, long nanos) {
+        ShapeStats stats = shapes.computeIfAbsent(shape.sql(), sql -> new ShapeStats(shape));
+        stats.executions++;
+        stats.elapsedNanos += nanos;
+        statementCount++;
+        elapsedNanos += nanos;
+        return stats;
+    }
+
+    void addRows(ShapeStats stats, long rows) {
+        stats.rowsFetched += rows;
+        rowsFetched += rows;
+    }
+
+    void markNPlusOne(String shape) {
+        nPlusOneShapes.add(shape);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 作用域内执行的语句数，批量执行算一条
+     */
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    /**
+     * 作用域内所有语句的执行耗时之和，不包括遍历结果集的时间
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * 作用域内从结果集取回的行数，结果集关闭时计入
+     */
+    public long getRowsFetched() {
+        return rowsFetched;
+    }
+
+    /**
+     * 按首次执行的顺序排列的形状统计
+     */
+    public Collection<ShapeStats> getShapes() {
+        return Collections.unmodifiableCollection(shapes.values());
+    }
+
+    /**
+     * 指定形状的统计，没有执行过时返回 null
+     */
+    public ShapeStats getShape(String sql) {
+        return shapes.get(SqlShape.of(sql).sql());
+    }
+
+    /**
+     * 同一个形状的最大执行次数
+     */
+    public int getMaxRepeats() {
+        int max = 0;
+        for (ShapeStats stats : shapes.values()) {
+            max = Math.max(max, stats.executions);
+        }
+        return max;
+    }
+
+    /**
+     * 在一个事务（没有事务时为最外层作用域）内重复次数超过阈值的形状
+     */
+    public Set<String> getNPlusOneShapes() {
+        return Collections.unmodifiableSet(nPlusOneShapes);
+    }
+
+    /**
+     * 用于日志和断言失败信息的多行摘要，按执行次数从多到少列出形状
+     */
+    public String summary() {
+        StringBuilder summary = new StringBuilder(String.format("%s: %d 条语句, SQL 耗时 %.1f ms, 取回 %d 行",
+                name, statementCount, elapsedNanos / 1e6, rowsFetched));
+        if (!nPlusOneShapes.isEmpty()) {
+            summary.append(", N+1 嫌疑 ").append(nPlusOneShapes.size()).append(" 处");
+        }
+        List<ShapeStats> sorted = new ArrayList<>(shapes.values());
+        sorted.sort(Comparator.comparingInt(ShapeStats::getExecutions).reversed());
+        for (ShapeStats stats : sorted.subList(0, Math.min(SUMMARY_LIMIT, sorted.size()))) {
+            summary.append(String.format("%n  %5d 次 %8.1f ms %7d 行  %s%s", stats.executions,
+                    stats.elapsedNanos / 1e6, stats.rowsFetched, stats.shape.sql(),
+                    nPlusOneShapes.contains(stats.shape.sql()) ? "  [N+1]" : ""));
+        }
+        if (sorted.size() > SUMMARY_LIMIT) {
+            summary.append(String.format("%n  ... 另有 %d 种语句", sorted.size() - SUMMARY_LIMIT));
+        }
+        return summary.toString();
+    }
+
+    @Override
+    public String toString() {
+        return summary();
+    }
+
+    /**
+     * 一个形状在作用域内的统计
+     */
+    public static final class ShapeStats {
+
+        private final SqlShape shape;
+
+        private int executions;
+
+        private long elapsedNanos;
+
+        private long rowsFetched;
+
+        private ShapeStats(SqlShape shape) {
+            this.shape = shape;
+        }
+
+        public String getSql() {
+            return shape.sql();
+        }
+
+        public String getFingerprint() {
+            return shape.fingerprint();
+        }
+
+        public int getExecutions() {
+            return executions;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public long getRowsFetched() {
+            return rowsFetched;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package io.github.daihaowxg.sqlprofiler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SQL 执行分析器
+ *
+ * <p>{@link ProfilingDataSource}（或 Druid 的 Filter）在每条语句执行后调用 {@link #record(String, long)}，分析器：</p>
+ * <ul>
+ *   <li>把语句计入当前线程上所有打开的 {@link SqlProfile}：语句数、按形状汇总的耗时和取回的行数</li>
+ *   <li>检测 N+1：同一个形状在一个事务内执行的次数超过阈值时输出警告；没有事务时以最外层作用域为单位</li>
+ *   <li>通知 {@link SqlProfilerListener}，如导出指标</li>
+ * </ul>
+ *
+ * <p>作用域绑定在线程上，提交到其他线程执行的 SQL（{@code @Async}、并行流）不计入调用方的作用域。</p>
+ *
+ * @author daihaowxg
+ */
+public class SqlProfiler {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlProfiler.class);
+
+    private static final ThreadLocal<Deque<SqlProfile>> SCOPES = new ThreadLocal<>();
+
+    private static final SqlProfile[] NO_PROFILES = new SqlProfile[0];
+
+    private final int nPlusOneThreshold;
+
+    private final int statementWarnThreshold;
+
+    private final List<SqlProfilerListener> listeners;
+
+    /**
+     * @param nPlusOneThreshold      同一个形状在一个事务内允许执行的次数，超过即判定为 N+1
+     * @param statementWarnThreshold 一个请求作用域内的语句数超过此值时以 WARN 级别输出摘要
+     * @param listeners              事件回调
+     */
+    public SqlProfiler(int nPlusOneThreshold, int statementWarnThreshold, List<SqlProfilerListener> listeners) {
+        this.nPlusOneThreshold = nPlusOneThreshold;
+        this.statementWarnThreshold = statementWarnThreshold;
+        this.listeners = List.copyOf(listeners);
+    }
+
+    /**
+     * 在当前线程上打开一个作用域，作用域可以嵌套，语句同时计入所有打开的作用域
+     *
+     * <pre>
+     * try (SqlProfiler.Scope scope = SqlProfiler.open("导出报表")) {
+     *     reportService.export();
+     *     log.info(scope.profile().summary());
+     * }
+     * </pre>
+     */
+    public static Scope open(String name) {
+        Deque<SqlProfile> scopes = SCOPES.get();
+        if (scopes == null) {
+            scopes = new ArrayDeque<>();
+            SCOPES.set(scopes);
+        }
+        SqlProfile profile = new SqlProfile(name);
+        scopes.push(profile);
+        return new Scope(profile);
+    }
+
+    /**
+     * 当前线程最内层的作用域，没有时返回 null
+     */
+    public static SqlProfile current() {
+        Deque<SqlProfile> scopes = SCOPES.get();
+        return scopes == null ? null : scopes.peek();
+    }
+
+    /**
+     * 记录一条已经执行完成的语句
+     *
+     * @param sql          语句文本
+     * @param elapsedNanos 执行耗时
+     * @return 用于在结果集关闭时补充取回的行数
+     */
+    public Execution record(String sql, long elapsedNanos) {
+        SqlShape shape = SqlShape.of(sql);
+        Deque<SqlProfile> scopes = SCOPES.get();
+        SqlProfile[] profiles = scopes == null ? NO_PROFILES : scopes.toArray(NO_PROFILES);
+        SqlProfile.ShapeStats[] stats = new SqlProfile.ShapeStats[profiles.length];
+        for (int i = 0; i < profiles.length; i++) {
+            stats[i] = profiles[i].record(shape, elapsedNanos);
+        }
+        for (SqlProfilerListener listener : listeners) {
+            listener.onStatement(shape, elapsedNanos);
+        }
+        detectNPlusOne(shape, profiles, stats);
+        return new Execution(shape, profiles, stats);
+    }
+
+    /**
+     * 请求作用域结束：输出摘要并通知 {@link SqlProfilerListener#onProfileFinished(SqlProfile)}
+     */
+    public void finish(SqlProfile profile) {
+        if (profile.getStatementCount() > statementWarnThreshold) {
+            log.warn("语句数 {} 超过阈值 {}, {}", profile.getStatementCount(), statementWarnThreshold, profile.summary());
+        } else if (log.isDebugEnabled() && profile.getStatementCount() > 0) {
+            log.debug(profile.summary());
+        }
+        for (SqlProfilerListener listener : listeners) {
+            listener.onProfileFinished(profile);
+        }
+    }
+
+    /**
+     * 有事务时按事务计数；没有事务时每条语句自动提交，退而以最外层作用域计数（其统计中已经包含执行次数）
+     */
+    private void detectNPlusOne(SqlShape shape, SqlProfile[] profiles, SqlProfile.ShapeStats[] stats) {
+        int executions;
+        String unit;
+        TransactionCounts counts = transactionCounts();
+        if (counts != null) {
+            executions = counts.increment(shape.sql());
+            unit = "事务";
+        } else if (profiles.length > 0) {
+            executions = stats[stats.length - 1].getExecutions();
+            unit = "作用域 [" + profiles[profiles.length - 1].getName() + "] ";
+        } else {
+            return;
+        }
+        // 只在刚超过阈值时报告一次
+        if (executions != nPlusOneThreshold + 1) {
+            return;
+        }
+        log.warn("疑似 N+1 查询: 同一语句在{}内已执行 {} 次 (阈值 {}): {}", unit, executions, nPlusOneThreshold, shape.sql());
+        for (SqlProfile profile : profiles) {
+            profile.markNPlusOne(shape.sql());
+        }
+        for (SqlProfilerListener listener : listeners) {
+            listener.onNPlusOne(shape, executions);
+        }
+    }
+
+    /**
+     * 当前事务的形状计数，随事务同步一起挂起和恢复，REQUIRES_NEW 的内层事务单独计数
+     */
+    private static TransactionCounts transactionCounts() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            return null;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof TransactionCounts counts) {
+                return counts;
+            }
+        }
+        TransactionCounts counts = new TransactionCounts();
+        TransactionSynchronizationManager.registerSynchronization(counts);
+        return counts;
+    }
+
+    /**
+     * 一个已经记录的语句，结果集关闭时通过它补充取回的行数
+     */
+    public final class Execution {
+
+        private final SqlShape shape;
+
+        /**
+         * 语句执行时打开的作用域，结果集关闭时作用域可能已经变化
+         */
+        private final SqlProfile[] profiles;
+
+        private final SqlProfile.ShapeStats[] stats;
+
+        private Execution(SqlShape shape, SqlProfile[] profiles, SqlProfile.ShapeStats[] stats) {
+            this.shape = shape;
+            this.profiles = profiles;
+            this.stats = stats;
+        }
+
+        public void rowsFetched(long rows) {
+            for (int i = 0; i < profiles.length; i++) {
+                profiles[i].addRows(stats[i], rows);
+            }
+            for (SqlProfilerListener listener : listeners) {
+                listener.onRowsFetched(shape, rows);
+            }
+        }
+    }
+
+    /**
+     * 当前线程上的一个作用域，关闭后不再计入新的语句
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private final SqlProfile profile;
+
+        private Scope(SqlProfile profile) {
+            this.profile = profile;
+        }
+
+        public SqlProfile profile() {
+            return profile;
+        }
+
+        @Override
+        public void close() {
+            Deque<SqlProfile> scopes = SCOPES.get();
+            if (scopes != null) {
+                scopes.remove(profile);
+                if (scopes.isEmpty()) {
+                    SCOPES.remove();
+                }
+            }
+        }
+    }
+
+    private static final class TransactionCounts implements TransactionSynchronization {
+
+        private final Map<String, Integer> executions = new HashMap<>();
+
+        int increment(String shape) {
+            return executions.merge(shape, 1, Integer::sum);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package io.github.daihaowxg.sqlprofiler;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.sql.DataSource;
+import java.util.stream.Collectors;
+
+/**
+ * SQL 执行分析自动配置
+ *
+ * <p>引入依赖即生效，设置 {@code sql-profiler.enabled=false} 关闭：</p>
+ * <ul>
+ *   <li>{@link SqlProfiler}：有 MeterRegistry 时同时导出指标</li>
+ *   <li>容器中的连接池数据源包装为 {@link ProfilingDataSource}；路由数据源和 Spring 的数据源代理只是转发，
+ *       不包装，避免重复记录</li>
+ *   <li>Servlet Web 应用中注册 {@link RequestProfilingFilter}，按请求统计</li>
+ * </ul>
+ *
+ * @author daihaowxg
+ */
+@AutoConfiguration(afterName = "org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration")
+@EnableConfigurationProperties(SqlProfilerProperties.class)
+@ConditionalOnProperty(prefix = "sql-profiler", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class SqlProfilerAutoConfiguration {
+
+    @Bean
+    public SqlProfiler sqlProfiler(SqlProfilerProperties properties, ObjectProvider<SqlProfilerListener> listeners) {
+        return new SqlProfiler(properties.getNPlusOneThreshold(), properties.getRequestStatementWarnThreshold(),
+                listeners.orderedStream().collect(Collectors.toList()));
+    }
+
+    /**
+     * 后置处理器必须是静态方法，延迟获取 SqlProfiler，避免配置类和分析器过早初始化
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "sql-profiler", name = "proxy-data-sources", havingValue = "true",
+            matchIfMissing = true)
+    public static BeanPostProcessor profilingDataSourcePostProcessor(ObjectProvider<SqlProfiler> profiler) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ProfilingDataSource)
+                        && !(bean instanceof DelegatingDataSource) && !(bean instanceof AbstractRoutingDataSource)) {
+                    return new ProfilingDataSource(dataSource, profiler.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterRegistry.class)
+    static class MetricsConfiguration {
+
+        @Bean
+        @ConditionalOnBean(MeterRegistry.class)
+        public MicrometerSqlProfilerListener micrometerSqlProfilerListener(MeterRegistry registry,
+                                                                           SqlProfilerProperties properties) {
+            return new MicrometerSqlProfilerListener(registry, properties.isStatementMetrics());
+        }
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(OncePerRequestFilter.class)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    static class WebConfiguration {
+
+        @Bean
+        public FilterRegistrationBean<RequestProfilingFilter> requestProfilingFilter(SqlProfiler profiler) {
+            FilterRegistrationBean<RequestProfilingFilter> registration =
+                    new FilterRegistrationBean<>(new RequestProfilingFilter(profiler));
+            // 尽量靠前，覆盖其他 Filter 中执行的 SQL
+            registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+            return registration;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package io.github.daihaowxg.sqlprofiler;
+
+/**
+ * {@link SqlProfiler} 的事件回调，用于把分析结果导出到日志以外的地方（如指标）
+ *
+ * <p>回调在执行 SQL 的线程中同步调用，实现必须足够轻量。</p>
+ *
+ * @author daihaowxg
+ */
+public interface SqlProfilerListener {
+
+    /**
+     * 一条语句执行完成（包括执行失败）
+     *
+     * @param shape        语句的形状
+     * @param elapsedNanos 执行耗时，不包括遍历结果集的时间
+     */
+    default void onStatement(SqlShape shape, long elapsedNanos) {
+    }
+
+    /**
+     * 一条查询的结果集关闭
+     *
+     * @param rows 从结果集取回的行数
+     */
+    default void onRowsFetched(SqlShape shape, long rows) {
+    }
+
+    /**
+     * 同一个形状在一个事务内的执行次数超过阈值，每个事务每个形状只回调一次
+     *
+     * @param executions 超过阈值时的执行次数
+     */
+    default void onNPlusOne(SqlShape shape, int executions) {
+    }
+
+    /**
+     * 一个请求作用域结束
+     */
+    default void onProfileFinished(SqlProfile profile) {
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.daihaowxg.sqlprofiler;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * SQL 执行分析配置
+ *
+ * <pre>
+ * sql-profiler:
+ *   enabled: true
+ *   proxy-data-sources: true
+ *   statement-metrics: true
+ *   n-plus-one-threshold: 5
+ *   request-statement-warn-threshold: 50
+ * </pre>
+ *
+ * @author daihaowxg
+ */
+@Data
+@ConfigurationProperties(prefix = "sql-profiler")
+public class SqlProfilerProperties {
+
+    /**
+     * 是否开启 SQL 执行分析
+     */
+    private boolean enabled = true;
+
+    /**
+     * 是否用 {@link ProfilingDataSource} 包装容器中的数据源
+     * <p>
+     * 数据源 Bean 的类型会变成代理，按具体类型（如 DruidDataSource）注入的地方会失败。
+     * 这种情况下关闭此项，改用连接池自身的扩展点调用 {@link SqlProfiler#record(String, long)}
+     */
+    private boolean proxyDataSources = true;
+
+    /**
+     * 是否按指纹导出每种语句的执行次数、耗时和行数（{@code sql.profiler.statements}、{@code sql.profiler.rows}）
+     * <p>
+     * 连接池自己已经按语句导出这些数据时关闭（如 Druid 的 StatFilter），同一组数据不导出两份。
+     * N+1 次数和每个请求的语句数不受影响
+     */
+    private boolean statementMetrics = true;
+
+    /**
+     * 同一个形状在一个事务内允许执行的次数，超过即判定为 N+1
+     */
+    private int nPlusOneThreshold = 5;
+
+    /**
+     * 一个请求内的语句数超过此值时以 WARN 级别输出摘要
+     */
+    private int requestStatementWarnThreshold = 50;
+}
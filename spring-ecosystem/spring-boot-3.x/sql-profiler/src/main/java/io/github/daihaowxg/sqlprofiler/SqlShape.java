@@ -0,0 +1,163 @@
+package io.github.daihaowxg.sqlprofiler;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * SQL 形状
+ *
+ * <p>N+1 检测需要判断"是不是同一条语句"：{@code WHERE id = 1} 和 {@code WHERE id = 2} 是同一个形状，
+ * 所以把字面量替换成 {@code ?}、IN 列表和多行 VALUES 折叠成一项、空白合并、统一小写。</p>
+ *
+ * <p>形状仍然保留了列和条件，取值可能很多，不适合作为指标标签；指标使用粒度更粗的
+ * {@link #fingerprint()}，即 "操作 表名"（如 {@code select users}）。</p>
+ *
+ * @param sql         归一化后的 SQL
+ * @param fingerprint 操作和主表，如 {@code select users}；无法识别的部分用 {@code other} 代替
+ * @author daihaowxg
+ */
+public record SqlShape(String sql, String fingerprint) {
+
+    /**
+     * 量词只作用在字符类上：对分组使用量词时正则引擎会递归，很长的字面量会导致栈溢出
+     */
+    private static final Pattern STRING_LITERAL = Pattern.compile("'[^']*(?:''[^']*)*'");
+
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])\\d+(?:\\.\\d+)?(?![\\w.])");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final Set<String> OPERATIONS =
+            Set.of("select", "insert", "update", "delete", "merge", "replace", "call", "with");
+
+    private static final Pattern TABLE = Pattern.compile(
+            "\\b(?:from|into|update|join)\\s+([`\"\\[]?[\\w.]+[`\"\\]]?)");
+
+    /**
+     * 应用中的 SQL 文本数量有限（预编译语句的文本是固定的），缓存归一化结果，避免每次执行都做正则替换
+     */
+    private static final int MAX_CACHED = 1024;
+
+    private static final Map<String, SqlShape> CACHE = new ConcurrentHashMap<>();
+
+    /**
+     * 计算 SQL 的形状
+     *
+     * @param sql SQL 文本，可以是预编译语句的文本，也可以是拼接了字面量的 SQL
+     */
+    public static SqlShape of(String sql) {
+        if (sql == null) {
+            return new SqlShape("", "other other");
+        }
+        SqlShape shape = CACHE.get(sql);
+        if (shape == null) {
+            shape = parse(sql);
+            // 拼接字面量的 SQL 可能无穷无尽，超过上限直接清空，代价只是重新解析
+            if (CACHE.size() >= MAX_CACHED) {
+                CACHE.clear();
+            }
+            CACHE.put(sql, shape);
+        }
+        return shape;
+    }
+
+    private static SqlShape parse(String sql) {
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").strip().toLowerCase(Locale.ROOT);
+        normalized = collapseLists(normalized);
+        return new SqlShape(normalized, fingerprintOf(normalized));
+    }
+
+    /**
+     * IN 列表折叠为 {@code in (?)}，多行 VALUES 只保留第一行
+     * <p>
+     * 多行插入可能有上万个占位符，逐字符扫描，不用正则
+     */
+    private static String collapseLists(String sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        int i = 0;
+        while (i < sql.length()) {
+            int close = sql.charAt(i) == '(' ? placeholderListEnd(sql, i) : -1;
+            if (close < 0) {
+                out.append(sql.charAt(i++));
+                continue;
+            }
+            if (endsWithWord(out, "in")) {
+                out.append("(?)");
+                i = close + 1;
+                continue;
+            }
+            out.append(sql, i, close + 1);
+            i = close + 1;
+            // 跳过紧跟的 ", (?, ?)" 行
+            while (true) {
+                int next = skipSpaces(sql, i);
+                if (next >= sql.length() || sql.charAt(next) != ',') {
+                    break;
+                }
+                next = skipSpaces(sql, next + 1);
+                int rowEnd = next < sql.length() && sql.charAt(next) == '(' ? placeholderListEnd(sql, next) : -1;
+                if (rowEnd < 0) {
+                    break;
+                }
+                i = rowEnd + 1;
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * open 处的括号内只有占位符、逗号和空格时返回右括号的位置，否则返回 -1
+     */
+    private static int placeholderListEnd(String sql, int open) {
+        boolean placeholder = false;
+        for (int i = open + 1; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == ')') {
+                return placeholder ? i : -1;
+            }
+            if (c == '?') {
+                placeholder = true;
+            } else if (c != ',' && c != ' ') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean endsWithWord(StringBuilder out, String word) {
+        int end = out.length();
+        while (end > 0 && out.charAt(end - 1) == ' ') {
+            end--;
+        }
+        int start = end - word.length();
+        return start >= 0 && out.substring(start, end).equals(word)
+                && (start == 0 || !Character.isLetterOrDigit(out.charAt(start - 1)) && out.charAt(start - 1) != '_');
+    }
+
+    private static int skipSpaces(String sql, int i) {
+        while (i < sql.length() && sql.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static String fingerprintOf(String normalized) {
+        int end = 0;
+        while (end < normalized.length() && Character.isLetter(normalized.charAt(end))) {
+            end++;
+        }
+        String operation = normalized.substring(0, end);
+        if (!OPERATIONS.contains(operation)) {
+            operation = "other";
+        }
+        Matcher matcher = TABLE.matcher(normalized);
+        String table = matcher.find() ? matcher.group(1).replaceAll("[`\"\\[\\]]", "") : "other";
+        return operation + " " + table;
+    }
+}
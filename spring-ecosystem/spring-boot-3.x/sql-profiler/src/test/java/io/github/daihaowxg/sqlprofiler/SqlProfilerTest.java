@@ -0,0 +1,177 @@
+package io.github.daihaowxg.sqlprofiler;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * SQL 执行分析测试：数据源代理记录的语句数、耗时和行数，N+1 检测以事务为单位，查询预算断言
+ *
+ * @author daihaowxg
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:sql-profiler;DB_CLOSE_DELAY=-1",
+        "sql-profiler.n-plus-one-threshold=3"
+})
+class SqlProfilerTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS author (id BIGINT PRIMARY KEY, name VARCHAR(50))");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS post (id BIGINT PRIMARY KEY, author_id BIGINT, title VARCHAR(50))");
+        jdbcTemplate.execute("DELETE FROM post");
+        jdbcTemplate.execute("DELETE FROM author");
+        for (int i = 1; i <= 10; i++) {
+            jdbcTemplate.update("INSERT INTO author VALUES (?, ?)", i, "author" + i);
+            jdbcTemplate.update("INSERT INTO post VALUES (?, ?, ?)", i * 10, i, "post" + i);
+            jdbcTemplate.update("INSERT INTO post VALUES (?, ?, ?)", i * 10 + 1, i, "post" + i);
+        }
+    }
+
+    @Test
+    void testDataSourceIsProxied() {
+        assertInstanceOf(ProfilingDataSource.class, dataSource);
+    }
+
+    @Test
+    void testRecordsStatementsAndRowsPerShape() {
+        SqlProfile profile = QueryBudget.unlimited().run(() -> {
+            jdbcTemplate.queryForList("SELECT id FROM author");
+            for (long id = 1; id <= 2; id++) {
+                jdbcTemplate.queryForList("SELECT title FROM post WHERE author_id = ?", String.class, id);
+            }
+            jdbcTemplate.update("UPDATE author SET name = 'x' WHERE id = 1");
+        });
+
+        assertEquals(4, profile.getStatementCount());
+        assertEquals(14, profile.getRowsFetched());
+        SqlProfile.ShapeStats posts = profile.getShape("SELECT title FROM post WHERE author_id = 1");
+        assertEquals(2, posts.getExecutions());
+        assertEquals(4, posts.getRowsFetched());
+        assertEquals("select post", posts.getFingerprint());
+        assertTrue(profile.getNPlusOneShapes().isEmpty());
+    }
+
+    @Test
+    void testDetectsNPlusOneInTransaction() {
+        SqlProfile profile = QueryBudget.unlimited().run(() -> transactionTemplate.executeWithoutResult(status -> {
+            List<Long> authors = jdbcTemplate.queryForList("SELECT id FROM author", Long.class);
+            for (Long id : authors) {
+                jdbcTemplate.queryForList("SELECT title FROM post WHERE author_id = ?", String.class, id);
+            }
+        }));
+
+        assertEquals(11, profile.getStatementCount());
+        assertEquals(List.of("select title from post where author_id = ?"), List.copyOf(profile.getNPlusOneShapes()));
+        assertEquals(1.0, meterRegistry.counter("sql.profiler.n_plus_one", "fingerprint", "select post").count(), 0.0);
+    }
+
+    @Test
+    void testRepeatsAcrossTransactionsAreNotNPlusOne() {
+        SqlProfile profile = QueryBudget.unlimited().run(() -> {
+            for (long id = 1; id <= 6; id++) {
+                long authorId = id;
+                // 每次调用都是独立的短事务，单个事务内只执行一次
+                transactionTemplate.executeWithoutResult(status ->
+                        jdbcTemplate.queryForList("SELECT title FROM post WHERE author_id = ?", String.class, authorId));
+            }
+        });
+
+        assertEquals(6, profile.getMaxRepeats());
+        assertTrue(profile.getNPlusOneShapes().isEmpty());
+    }
+
+    @Test
+    void testRequiresNewTransactionIsCountedSeparately() {
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        requiresNew.setPropagationBehavior(Propagation.REQUIRES_NEW.value());
+
+        SqlProfile profile = QueryBudget.unlimited().run(() -> transactionTemplate.executeWithoutResult(status -> {
+            for (long id = 1; id <= 3; id++) {
+                jdbcTemplate.queryForList("SELECT title FROM post WHERE author_id = ?", String.class, id);
+            }
+            requiresNew.executeWithoutResult(inner ->
+                    jdbcTemplate.queryForList("SELECT title FROM post WHERE author_id = ?", String.class, 4L));
+        }));
+
+        assertEquals(4, profile.getMaxRepeats());
+        assertTrue(profile.getNPlusOneShapes().isEmpty());
+    }
+
+    @Test
+    void testDetectsNPlusOneWithoutTransactionPerScope() {
+        SqlProfile profile = QueryBudget.unlimited().run(() -> {
+            for (long id = 1; id <= 4; id++) {
+                jdbcTemplate.queryForObject("SELECT name FROM author WHERE id = ?", String.class, id);
+            }
+        });
+
+        assertEquals(1, profile.getNPlusOneShapes().size());
+    }
+
+    @Test
+    void testQueryBudgetFailsWhenExceeded() {
+        AssertionError error = assertThrows(AssertionError.class, () -> QueryBudget.maxStatements(2).noNPlusOne()
+                .run(() -> {
+                    for (long id = 1; id <= 4; id++) {
+                        jdbcTemplate.queryForObject("SELECT name FROM author WHERE id = ?", String.class, id);
+                    }
+                }));
+
+        assertTrue(error.getMessage().contains("语句数 4 超过预算 2"), error.getMessage());
+        assertTrue(error.getMessage().contains("检测到 N+1: select name from author where id = ?"), error.getMessage());
+
+        // 改成一条 IN 查询后满足预算
+        List<String> names = QueryBudget.maxStatements(1).maxRepeatsPerShape(1).call(() ->
+                jdbcTemplate.queryForList("SELECT name FROM author WHERE id IN (1, 2, 3, 4)", String.class));
+        assertEquals(4, names.size());
+    }
+
+    @Test
+    void testExportsMetricsPerFingerprint() {
+        double before = meterRegistry.counter("sql.profiler.rows", "fingerprint", "select author").count();
+        long executions = meterRegistry.timer("sql.profiler.statements", "fingerprint", "select author").count();
+
+        jdbcTemplate.queryForList("SELECT * FROM author");
+
+        assertEquals(executions + 1,
+                meterRegistry.timer("sql.profiler.statements", "fingerprint", "select author").count());
+        assertEquals(before + 10, meterRegistry.counter("sql.profiler.rows", "fingerprint", "select author").count());
+    }
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    static class TestApplication {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package io.github.daihaowxg.sqlprofiler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * SQL 形状归一化测试
+ *
+ * @author daihaowxg
+ */
+class SqlShapeTest {
+
+    @Test
+    void testLiteralsAreReplaced() {
+        assertEquals("select * from users where id = ? and name = ?",
+                SqlShape.of("SELECT * FROM users WHERE id = 42 AND name = 'O''Brien'").sql());
+        assertEquals(SqlShape.of("select * from users where id = ?"),
+                SqlShape.of("select *\n  from users\n where id = 7"));
+    }
+
+    @Test
+    void testIdentifiersWithDigitsAreKept() {
+        assertEquals("select t1.id from orders_2024 t1 where t1.total > ?",
+                SqlShape.of("select t1.id from orders_2024 t1 where t1.total > 9.5").sql());
+    }
+
+    @Test
+    void testListsAreCollapsed() {
+        assertEquals("select * from users where id in (?)",
+                SqlShape.of("select * from users where id IN (1, 2, 3)").sql());
+        assertEquals("select * from users where id in (?)",
+                SqlShape.of("select * from users where id in (?,?)").sql());
+        assertEquals("insert into users (name, email) values (?, ?)",
+                SqlShape.of("INSERT INTO users (name, email) VALUES (?, ?), (?, ?), ('a', 'b')").sql());
+    }
+
+    @Test
+    void testLargeMultiRowInsert() {
+        StringBuilder sql = new StringBuilder("INSERT INTO users (name, email) VALUES (?, ?)");
+        for (int i = 1; i < 20_000; i++) {
+            sql.append(", (?, ?)");
+        }
+        sql.append(" ON DUPLICATE KEY UPDATE name = 'it''s ").append("x".repeat(50_000)).append("'");
+
+        assertEquals("insert into users (name, email) values (?, ?) on duplicate key update name = ?",
+                SqlShape.of(sql.toString()).sql());
+    }
+
+    @Test
+    void testFingerprint() {
+        assertEquals("select users", SqlShape.of("SELECT u.* FROM users u JOIN orders o ON o.user_id = u.id").fingerprint());
+        assertEquals("update users", SqlShape.of("UPDATE `users` SET name = ?").fingerprint());
+        assertEquals("insert posts", SqlShape.of("insert into posts values (1)").fingerprint());
+        assertEquals("other other", SqlShape.of("SET MODE MySQL").fingerprint());
+    }
+}